@@ -21,6 +21,7 @@ import com.netflix.spectator.api.patterns.PolledMeter;
 import com.netflix.spectator.atlas.AtlasConfig;
 import com.netflix.spectator.atlas.AtlasRegistry;
 import com.netflix.spectator.gc.GcLogger;
+import com.netflix.spectator.jvm.JavaFlightRecorder;
 import com.netflix.spectator.jvm.Jmx;
 import com.netflix.spectator.jvm.JmxPoller;
 import com.netflix.spectator.nflx.tagging.NetflixTagging;
@@ -35,9 +36,13 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -135,6 +140,24 @@ public final class Agent {
       Jmx.registerStandardMXBeans(registry);
     }
 
+    // Enable additional Java Flight Recorder events
+    List<? extends Config> jfrEvents = config.getConfigList("jfr.events");
+    if (!jfrEvents.isEmpty() && JavaFlightRecorder.isSupported()) {
+      ExecutorService jfrExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "spectator-agent-jfr");
+        t.setDaemon(true);
+        return t;
+      });
+      AutoCloseable stream = JavaFlightRecorder.monitorEvents(registry, jfrExecutor, jfrEvents);
+      PolledMeter.monitorResource(registry, () -> {
+        try {
+          stream.close();
+        } finally {
+          jfrExecutor.shutdownNow();
+        }
+      });
+    }
+
     // Enable JMX query collection
     if (config.getBoolean("collection.jmx")) {
       ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor(r -> {
@@ -148,9 +171,26 @@ public final class Agent {
       Duration step = Duration.parse(config.getString("atlas.step"));
       long delay = Math.max(1000L, step.toMillis() / 2L);
 
+      // Pool used to fetch the data for independent queries concurrently. Queries that take
+      // longer than the polling interval will be skipped for that iteration. The queue is
+      // bounded so that a hung MBean server cannot cause tasks to accumulate, queries that
+      // are rejected will be skipped for that iteration.
+      int threads = Math.max(1, config.getInt("jmx.threads"));
+      int queueSize = Math.max(1, config.getInt("jmx.queue-size"));
+      AtomicInteger threadCount = new AtomicInteger();
+      ExecutorService queryPool = new ThreadPoolExecutor(
+          threads, threads, 0L, TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(queueSize),
+          r -> {
+            Thread t = new Thread(r, "spectator-agent-jmx-query-" + threadCount.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+          },
+          new ThreadPoolExecutor.AbortPolicy());
+
       // Keep track of last time the configs have been loaded
       final AtomicLong lastUpdated = new AtomicLong(System.currentTimeMillis());
-      final JmxPoller poller = new JmxPoller(registry);
+      final JmxPoller poller = new JmxPoller(registry, queryPool, Duration.ofMillis(delay));
       poller.updateConfigs(config.getConfigList("jmx.mappings"));
 
       exec.scheduleWithFixedDelay(() -> {
@@ -168,9 +208,10 @@ public final class Agent {
         poller.poll();
       }, delay, delay, TimeUnit.MILLISECONDS);
 
-      // Tie the JMX polling executor to the registry lifecycle so it is shut down when the
+      // Tie the JMX polling executors to the registry lifecycle so they are shut down when the
       // registry is closed.
       PolledMeter.monitorResource(registry, exec::shutdownNow);
+      PolledMeter.monitorResource(registry, queryPool::shutdownNow);
     }
 
     // Start collection for the registry
@@ -33,7 +33,7 @@ import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Compare performance of simple caching implementation to Caffeine. In some cases we have
+ * Compare performance of the simple caching implementations to Caffeine. In some cases we have
  * see Caffeine/Guava implementations cause quite a bit of thread contention for concurrent
  * access of a LoadingCache.
  *
@@ -50,6 +50,10 @@ public class Caching {
 
     final Cache<String, String> spectator = Cache.lfu(registry, "jmh", 200, 1000);
 
+    final Cache<String, String> directMapped = Cache.directMapped(registry, "jmh", 1024, 1024);
+
+    final Cache<String, String> tinyLfu = Cache.tinyLfu(registry, "jmh", 1000);
+
     final LoadingCache<String, String> caffeine = Caffeine.newBuilder()
         .recordStats()
         .maximumSize(1000)
@@ -79,6 +83,10 @@ public class Caching {
 
     final Cache<String, String> spectator = Cache.lfu(registry, "jmh", 200, 1000);
 
+    final Cache<String, String> directMapped = Cache.directMapped(registry, "jmh", 1024, 1024);
+
+    final Cache<String, String> tinyLfu = Cache.tinyLfu(registry, "jmh", 1000);
+
     final LoadingCache<String, String> caffeine = Caffeine.newBuilder()
         .recordStats()
         .maximumSize(1000)
@@ -125,6 +133,20 @@ public class Caching {
     bh.consume(state.spectator.computeIfAbsent(s, String::toUpperCase));
   }
 
+  @Threads(8)
+  @Benchmark
+  public void allMissesDirectMapped(Blackhole bh, AllMissesState state) {
+    String s = state.next();
+    bh.consume(state.directMapped.computeIfAbsent(s, String::toUpperCase));
+  }
+
+  @Threads(8)
+  @Benchmark
+  public void allMissesTinyLfu(Blackhole bh, AllMissesState state) {
+    String s = state.next();
+    bh.consume(state.tinyLfu.computeIfAbsent(s, String::toUpperCase));
+  }
+
   @Threads(8)
   @Benchmark
   public void allMissesCaffeine(Blackhole bh, AllMissesState state) {
@@ -139,6 +161,20 @@ public class Caching {
     bh.consume(state.spectator.computeIfAbsent(s, String::toUpperCase));
   }
 
+  @Threads(8)
+  @Benchmark
+  public void typicalDirectMapped(Blackhole bh, TypicalState state) {
+    String s = state.next();
+    bh.consume(state.directMapped.computeIfAbsent(s, String::toUpperCase));
+  }
+
+  @Threads(8)
+  @Benchmark
+  public void typicalTinyLfu(Blackhole bh, TypicalState state) {
+    String s = state.next();
+    bh.consume(state.tinyLfu.computeIfAbsent(s, String::toUpperCase));
+  }
+
   @Threads(8)
   @Benchmark
   public void typicalCaffeine(Blackhole bh, TypicalState state) {
@@ -17,6 +17,7 @@ package com.netflix.spectator.perf;
 
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Registry;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Scope;
@@ -88,6 +89,7 @@ public class Counters {
   public static class Data {
     Registry registry = new DefaultRegistry();
     Counter cached = registry.counter("cached");
+    Id lookupId = registry.createId("lookupId");
     String[] names;
     String[] newNames;
 
@@ -132,6 +134,16 @@ public class Counters {
     return incrementAndGet(data.registry.counter("lookup"));
   }
 
+  /**
+   * Lookup using an id that is created once. The registry reuses the wrapper for an existing
+   * meter so this should not allocate, unlike {@link #lookup(Data)} which creates an id for
+   * each call.
+   */
+  @Benchmark
+  public long lookupId(Data data) {
+    return incrementAndGet(data.registry.counter(data.lookupId));
+  }
+
   @Benchmark
   public long random(Data data, Metrics metrics) {
     return incrementAndGet(metrics.get(data));
@@ -141,7 +153,8 @@ public class Counters {
   public void check(Data data) {
     final long cv = data.cached.count();
     final long lv = data.registry.counter("lookup").count();
-    assert cv > 0 || lv > 0 : "counters haven't been incremented";
+    final long iv = data.registry.counter(data.lookupId).count();
+    assert cv > 0 || lv > 0 || iv > 0 : "counters haven't been incremented";
   }
 
   public static void main(String[] args) throws RunnerException {
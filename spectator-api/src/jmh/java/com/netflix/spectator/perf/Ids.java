@@ -17,6 +17,7 @@ package com.netflix.spectator.perf;
 
 import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.IdTemplate;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.TagList;
 import com.netflix.spectator.api.TagListBuilder;
@@ -127,6 +128,16 @@ public class Ids {
 
   private final TagListBuilder builder = TagListBuilder.create();
 
+  private final IdTemplate template12 = IdTemplate.of("http.req.complete",
+      "nf.app", "nf.cluster", "nf.asg", "nf.stack", "nf.ami", "nf.region", "nf.zone", "nf.node",
+      "country", "device", "status", "client");
+
+  private final IdTemplate emptyTemplate4 = IdTemplate.of(emptyId,
+      "country", "device", "status", "client");
+
+  private final IdTemplate baseTemplate4 = IdTemplate.of(baseId,
+      "country", "device", "status", "client");
+
   @Threads(1)
   @Benchmark
   public void justName(Blackhole bh) {
@@ -341,6 +352,58 @@ public class Ids {
     bh.consume(id);
   }
 
+  @Threads(1)
+  @Benchmark
+  public void template(Blackhole bh) {
+    Id id = template12.withValues(
+        "test_app",
+        "test_app-main",
+        "test_app-main-v042",
+        "main",
+        "ami-0987654321",
+        "us-east-1",
+        "us-east-1e",
+        "i-1234567890",
+        "US",
+        "xbox",
+        "200",
+        "ab");
+    bh.consume(id);
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void templateAppend4(Blackhole bh) {
+    Id id = baseTemplate4.withValues("US", "xbox", "200", "ab");
+    bh.consume(id);
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void templateEmptyAppend4(Blackhole bh) {
+    Id id = emptyTemplate4.withValues("US", "xbox", "200", "ab");
+    bh.consume(id);
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void templateAppend4Hash(Blackhole bh) {
+    // Includes hash code as that is needed for looking up the meter in the registry
+    Id id = baseTemplate4.withValues("US", "xbox", "200", "ab");
+    bh.consume(id.hashCode());
+  }
+
+  @Threads(1)
+  @Benchmark
+  public void append4Hash(Blackhole bh) {
+    Id id = baseId.withTags(
+        "country", "US",
+         "device", "xbox",
+         "status", "200",
+         "client", "ab");
+    bh.consume(id.hashCode());
+  }
+
   public static class PrependId {
     public final String name;
     public final PrependTagList tags;
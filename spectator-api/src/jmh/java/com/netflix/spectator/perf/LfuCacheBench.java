@@ -33,16 +33,16 @@ import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Concurrency benchmark for the LFU {@link Cache} under an access pattern modeled on a metric
- * stream processor (e.g. the LWC bridge): every thread processes a "payload" as a run of
- * {@code BATCH_SIZE} repeated lookups of one value (within-payload tag affinity) before rotating
- * to another value drawn from {@code keySpace} distinct values. The {@code get}-then-{@code put}
- * on a miss mirrors how the query index actually uses the cache.
+ * Concurrency benchmark for the {@link Cache} implementations under an access pattern modeled
+ * on a metric stream processor (e.g. the LWC bridge): every thread processes a "payload" as a
+ * run of {@code BATCH_SIZE} repeated lookups of one value (within-payload tag affinity) before
+ * rotating to another value drawn from {@code keySpace} distinct values. The
+ * {@code get}-then-{@code put} on a miss mirrors how the query index actually uses the cache.
  *
  * <p>This is the scenario where the per-read frequency-counter cost shows up: a very high volume
- * of hits concentrated on a few hot caches. The two cache types are configured with the same
- * bound ({@link #CACHE_SIZE}) so the comparison is apples-to-apples, and {@code keySpace} relative
- * to that bound controls churn:
+ * of hits concentrated on a few hot caches. The LFU, direct-mapped and W-TinyLFU caches are
+ * configured with the same bound ({@link #CACHE_SIZE}) so the comparison is apples-to-apples,
+ * and {@code keySpace} relative to that bound controls churn:
  * <ul>
  *   <li>100   - fits the cache, no eviction: isolates the steady-state read path.</li>
  *   <li>20000 - exceeds it: entries are created and evicted continuously.</li>
@@ -67,12 +67,16 @@ public class LfuCacheBench {
   public int keySpace;
 
   private Cache<String, String> lfuCache;
+  private Cache<String, String> directMappedCache;
+  private Cache<String, String> tinyLfuCache;
   private com.github.benmanes.caffeine.cache.Cache<String, String> caffeineCache;
   private String[] keys;
 
   @Setup(Level.Trial)
   public void setup() {
     lfuCache = Cache.lfu(new NoopRegistry(), "jmh", CACHE_SIZE / 10, CACHE_SIZE);
+    directMappedCache = Cache.directMapped(new NoopRegistry(), "jmh", CACHE_SIZE, CACHE_SIZE);
+    tinyLfuCache = Cache.tinyLfu(new NoopRegistry(), "jmh", CACHE_SIZE);
     caffeineCache = Caffeine.newBuilder().maximumSize(CACHE_SIZE).build();
     keys = new String[keySpace];
     for (int i = 0; i < keySpace; ++i) {
@@ -107,6 +111,28 @@ public class LfuCacheBench {
     return v;
   }
 
+  @Benchmark
+  public String directMapped(Cursor cursor) {
+    String key = nextKey(cursor);
+    String v = directMappedCache.get(key);
+    if (v == null) {
+      v = VALUE;
+      directMappedCache.put(key, v);
+    }
+    return v;
+  }
+
+  @Benchmark
+  public String tinyLfu(Cursor cursor) {
+    String key = nextKey(cursor);
+    String v = tinyLfuCache.get(key);
+    if (v == null) {
+      v = VALUE;
+      tinyLfuCache.put(key, v);
+    }
+    return v;
+  }
+
   @Benchmark
   public String caffeine(Cursor cursor) {
     String key = nextKey(cursor);
@@ -16,6 +16,7 @@
 package com.netflix.spectator.perf;
 
 import com.netflix.spectator.impl.PatternMatcher;
+import com.netflix.spectator.impl.PatternMatcherSet;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
@@ -23,6 +24,10 @@ import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
 /**
  * Benchmark for multi-segment "contains" regex patterns of the form {@code .*A.*B.*C...}, which
  * compile to a chain of nested {@link com.netflix.spectator.impl.matcher.IndexOfMatcher} instances
@@ -47,10 +52,23 @@ import org.openjdk.jmh.infra.Blackhole;
  * value and the pattern depth. {@code shape} covers the three foldable forms (plain contains,
  * end-anchored {@code $}, start-anchored {@code ^}). The non-matching value is the dominant
  * production case (most values do not contain the terminal) and the worst case for backtracking.</p>
+ *
+ * <p>The {@code matchEach} and {@code matchSet} benchmarks check the value against a set of
+ * patterns for all three shapes at the given depth with {@link #TERMINALS} different terminal
+ * segments, similar to many subscriptions with clauses on the same key. The patterns are
+ * checked either one at a time or using a {@link PatternMatcherSet} to show the cost of
+ * evaluating several clauses on the same key. The set is large enough that it will use the
+ * shared index.</p>
  */
 @State(Scope.Thread)
 public class MultiSegmentMatching {
 
+  /** Terminal segments used for the patterns in the set. */
+  private static final String[] TERMINALS = {
+      "mdpreview", "chapcanary", "shadow", "staging", "loadtest", "blue", "green", "hotfix",
+      "nightly", "perf", "replay", "mirror", "backfill", "rollback", "dryrun", "sandbox"
+  };
+
   /** Number of {@code .*}-separated single-dash gap segments before the terminal segment. */
   @Param({"1", "2", "3", "4", "5"})
   public int depth;
@@ -66,27 +84,51 @@ public class MultiSegmentMatching {
   private PatternMatcher matcher;
   private String input;
 
-  @Setup
-  public void setup() {
+  private List<PatternMatcher> matchers;
+  private PatternMatcherSet matcherSet;
+  private BitSet result;
+
+  private String regex(String s) {
+    return regex(s, "mdpreview");
+  }
+
+  private String regex(String s, String terminal) {
     StringBuilder gaps = new StringBuilder();
     for (int i = 0; i < depth; i++) {
       gaps.append(".*-");
     }
-    // Build the user pattern; Query.Regex anchors it with a leading "^".
-    final String regex;
-    switch (shape) {
+    switch (s) {
       case "end":
-        regex = gaps + ".*mdpreview$";
-        break;
+        return gaps + ".*" + terminal + "$";
       case "start":
-        regex = "pre" + gaps + ".*mdpreview.*";
-        break;
+        return "pre" + gaps + ".*" + terminal + ".*";
       case "contains":
       default:
-        regex = gaps + ".*mdpreview.*";
-        break;
+        return gaps + ".*" + terminal + ".*";
     }
-    this.matcher = PatternMatcher.compile("^" + regex);
+  }
+
+  @Setup
+  public void setup() {
+    // Build the user pattern; Query.Regex anchors it with a leading "^".
+    this.matcher = PatternMatcher.compile("^" + regex(shape));
+
+    List<String> patterns = new ArrayList<>();
+    for (String terminal : TERMINALS) {
+      for (String s : new String[] {"contains", "end", "start"}) {
+        patterns.add("^" + regex(s, terminal));
+      }
+    }
+    this.matchers = new ArrayList<>();
+    for (String p : patterns) {
+      matchers.add(PatternMatcher.compile(p));
+    }
+    this.matcherSet = PatternMatcher.compileSet(patterns);
+    if (matcherSet.indexedSize() != patterns.size()) {
+      throw new IllegalStateException("expected all " + patterns.size()
+          + " patterns to be indexed, but found " + matcherSet.indexedSize());
+    }
+    this.result = new BitSet();
 
     // Both values start with "pre" and have many dashes; the matching value also contains the
     // terminal segment at the end so it is valid for all three shapes.
@@ -99,4 +141,17 @@ public class MultiSegmentMatching {
   public void match(Blackhole bh) {
     bh.consume(matcher.matches(input));
   }
+
+  @Benchmark
+  public void matchEach(Blackhole bh) {
+    for (PatternMatcher m : matchers) {
+      bh.consume(m.matches(input));
+    }
+  }
+
+  @Benchmark
+  public void matchSet(Blackhole bh) {
+    matcherSet.matches(input, result);
+    bh.consume(result);
+  }
 }
@@ -16,11 +16,15 @@
 package com.netflix.spectator.perf;
 
 import com.netflix.spectator.impl.PatternMatcher;
+import com.netflix.spectator.impl.PatternMatcherSet;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
@@ -178,6 +182,45 @@ public class PatternMatching {
       com.google.re2j.Pattern.compile(listPattern);
   private final PatternMatcher customMatcherList = PatternMatcher.compile(listPattern);
 
+  // Many patterns checked against the same value, for example the regex clauses for a key
+  // in a query index
+  private final List<String> manyPatterns = createManyPatterns(100);
+  private final List<PatternMatcher> customMatchersMany = compileAll(manyPatterns);
+  private final PatternMatcherSet customSetMany = PatternMatcher.compileSet(manyPatterns);
+  private final BitSet manyResult = new BitSet();
+
+  private List<String> createManyPatterns(int n) {
+    List<String> patterns = new ArrayList<>(n);
+    for (int i = 0; i < n - 1; ++i) {
+      String id = UUID.randomUUID().toString();
+      switch (i % 4) {
+        case 0:
+          patterns.add("^" + id.substring(0, 8));
+          break;
+        case 1:
+          patterns.add(id.substring(9, 18));
+          break;
+        case 2:
+          patterns.add(id.substring(0, 4) + ".*" + id.substring(24, 28));
+          break;
+        default:
+          patterns.add("^" + id.substring(0, 2) + "[0-9a-f]+-" + id.substring(9, 11));
+          break;
+      }
+    }
+    // Ensure there is at least one match
+    patterns.add(substr);
+    return patterns;
+  }
+
+  private static List<PatternMatcher> compileAll(List<String> patterns) {
+    List<PatternMatcher> matchers = new ArrayList<>(patterns.size());
+    for (String p : patterns) {
+      matchers.add(PatternMatcher.compile(p));
+    }
+    return matchers;
+  }
+
   @Benchmark
   public void prefixString(Blackhole bh) {
     bh.consume(example.startsWith(exampleCopy));
@@ -277,4 +320,17 @@ public class PatternMatching {
   public void listCustom(Blackhole bh) {
     bh.consume(customMatcherList.matches(list));
   }
+
+  @Benchmark
+  public void manyEachCustom(Blackhole bh) {
+    for (PatternMatcher m : customMatchersMany) {
+      bh.consume(m.matches(exampleCopy));
+    }
+  }
+
+  @Benchmark
+  public void manySetCustom(Blackhole bh) {
+    customSetMany.matches(exampleCopy, manyResult);
+    bh.consume(manyResult);
+  }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.perf;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.impl.Scheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the {@link Scheduler} queue implementations with a large number of periodic tasks
+ * already scheduled. The benchmark methods measure the throughput of scheduling and
+ * cancelling tasks while the background tasks are running. The execution delay for the
+ * timing wheel is checked by {@code SchedulerTest}. To run only this benchmark set
+ * {@code includes = ['.*SchedulerBench.*']} in the {@code jmh} block of build.gradle.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SchedulerBench {
+
+  private static final Runnable NOOP = () -> {};
+
+  @Param({"delayQueue", "timingWheel"})
+  public String queue;
+
+  @Param({"10000", "100000"})
+  public int tasks;
+
+  private Registry registry;
+  private Scheduler scheduler;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    registry = new DefaultRegistry();
+    scheduler = "timingWheel".equals(queue)
+        ? new Scheduler(registry, "jmh", 2, Duration.ofMillis(10))
+        : new Scheduler(registry, "jmh", 2);
+
+    // Spread the background tasks across the first second so they do not all fire at once
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < tasks; ++i) {
+      Scheduler.Options options = new Scheduler.Options()
+          .withInitialDelay(Duration.ofMillis(random.nextInt(1000)))
+          .withFrequency(Scheduler.Policy.FIXED_RATE_SKIP_IF_LONG, Duration.ofSeconds(1));
+      scheduler.schedule(options, NOOP);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Benchmark
+  public ScheduledFuture<?> scheduleAndCancel() {
+    Scheduler.Options options = new Scheduler.Options()
+        .withInitialDelay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(1000)));
+    ScheduledFuture<?> future = scheduler.schedule(options, NOOP);
+    future.cancel(false);
+    return future;
+  }
+
+  @Benchmark
+  public ScheduledFuture<?> scheduleOnce() {
+    Scheduler.Options options = new Scheduler.Options()
+        .withInitialDelay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(10)));
+    return scheduler.schedule(options, NOOP);
+  }
+}
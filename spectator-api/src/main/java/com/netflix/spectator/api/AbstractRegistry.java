@@ -19,6 +19,8 @@ import com.netflix.spectator.api.patterns.PolledMeter;
 import com.netflix.spectator.impl.Cache;
 import com.netflix.spectator.impl.Config;
 import com.netflix.spectator.impl.Preconditions;
+import com.netflix.spectator.impl.SwapMeter;
+import com.netflix.spectator.impl.WeakInterner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +41,12 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
   /** Not used for this registry, always return 0. */
   private static final LongSupplier VERSION = () -> 0L;
 
+  /**
+   * Canonical ids used if interning is enabled. Shared across registries so the same instance
+   * will be used when multiple registries, such as a composite, refer to the same id.
+   */
+  private static final WeakInterner<Id> ID_INTERNER = new WeakInterner<>();
+
   /** Logger instance for the class. */
   protected final Logger logger;
 
@@ -46,9 +54,12 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
   private final RegistryConfig config;
 
   private final ConcurrentHashMap<Id, Meter> meters;
+  private final ConcurrentHashMap<Id, SwapMeter<?>> swapMeters;
   private final ConcurrentHashMap<Id, Object> state;
 
   private final Cache<Id, Id> idNormalizationCache;
+  private final boolean internIds;
+  private final MeterProfiler profiler;
 
   // The lambdas for creating a new meter are stored as member variables to avoid
   // allocating a lambda that captures the "this" pointer on every invocation.
@@ -58,6 +69,18 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
   private final Function<Id, Gauge> gaugeFactory = this::newGauge;
   private final Function<Id, Gauge> maxGaugeFactory = this::newMaxGauge;
 
+  // Create functions for the swap wrappers once so that lookups do not need to allocate
+  private final Function<Counter, SwapMeter<Counter>> swapCounterFactory =
+      m -> new SwapCounter(this, VERSION, m.id(), m);
+  private final Function<DistributionSummary, SwapMeter<DistributionSummary>> swapDistSummaryFactory =
+      m -> new SwapDistributionSummary(this, VERSION, m.id(), m);
+  private final Function<Timer, SwapMeter<Timer>> swapTimerFactory =
+      m -> new SwapTimer(this, VERSION, m.id(), m);
+  private final Function<Gauge, SwapMeter<Gauge>> swapGaugeFactory =
+      m -> new SwapGauge(this, VERSION, m.id(), m);
+  private final Function<Gauge, SwapMeter<Gauge>> swapMaxGaugeFactory =
+      m -> new SwapMaxGauge(this, VERSION, m.id(), m);
+
   /**
    * Create a new instance.
    *
@@ -81,8 +104,20 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
     this.clock = clock;
     this.config = config;
     this.meters = new ConcurrentHashMap<>();
+    this.swapMeters = new ConcurrentHashMap<>();
     this.state = new ConcurrentHashMap<>();
     this.idNormalizationCache = Cache.lfu(new NoopRegistry(), "spectator-id", 1000, 10000);
+    this.internIds = config.internIds();
+    int sampleRate = config.profilingSampleRate();
+    this.profiler = sampleRate > 0 ? new MeterProfiler(this, sampleRate) : null;
+  }
+
+  /**
+   * Return the profiler for the registry or null if profiling is not enabled. See
+   * {@link RegistryConfig#profilingSampleRate()} for more information.
+   */
+  public final MeterProfiler profiler() {
+    return profiler;
   }
 
   /**
@@ -145,7 +180,7 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
 
   @Override public final Id createId(String name) {
     try {
-      return new DefaultId(name);
+      return intern(new DefaultId(name));
     } catch (Exception e) {
       propagate(e);
       return NoopId.INSTANCE;
@@ -154,7 +189,7 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
 
   @Override public final Id createId(String name, Iterable<Tag> tags) {
     try {
-      return new DefaultId(name, ArrayTagSet.create(tags));
+      return intern(new DefaultId(name, ArrayTagSet.create(tags)));
     } catch (Exception e) {
       propagate(e);
       return NoopId.INSTANCE;
@@ -163,7 +198,7 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
 
   @Override public Id createId(String name, String... tags) {
     try {
-      return new DefaultId(name, ArrayTagSet.create(tags));
+      return intern(new DefaultId(name, ArrayTagSet.create(tags)));
     } catch (Exception e) {
       propagate(e);
       return NoopId.INSTANCE;
@@ -172,13 +207,21 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
 
   @Override public Id createId(String name, Map<String, String> tags) {
     try {
-      return new DefaultId(name, ArrayTagSet.create(tags));
+      return intern(new DefaultId(name, ArrayTagSet.create(tags)));
     } catch (Exception e) {
       propagate(e);
       return NoopId.INSTANCE;
     }
   }
 
+  /**
+   * Returns the canonical instance for the id if interning is enabled, otherwise the id is
+   * returned as is. See {@link RegistryConfig#internIds()}.
+   */
+  private Id intern(Id id) {
+    return internIds ? ID_INTERNER.intern(id) : id;
+  }
+
   /**
    * Ensure a the id type is correct. While not recommended, nothing stops users from using a
    * custom implementation of the {@link Id} interface. This can create unexpected and strange
@@ -196,9 +239,10 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
     // tag fixing is applied. That check is a cheap scan that returns the same instance when
     // everything is already valid, which avoids a second concurrent map lookup on the hot path
     // for the common case.
-    return (id instanceof DefaultId)
+    Id normId = (id instanceof DefaultId)
         ? normalizeTags(id)
         : idNormalizationCache.computeIfAbsent(id, i -> normalizeTags(createId(i.name(), i.tags())));
+    return intern(normId);
   }
 
   /**
@@ -237,7 +281,7 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
 
   @Override public final Counter counter(Id id) {
     Counter c = getOrCreate(id, Counter.class, NoopCounter.INSTANCE, counterFactory);
-    return new SwapCounter(this, VERSION, c.id(), c);
+    return swapMeter(c, NoopCounter.INSTANCE, SwapCounter.class, swapCounterFactory);
   }
 
   @Override public final DistributionSummary distributionSummary(Id id) {
@@ -246,22 +290,48 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
         DistributionSummary.class,
         NoopDistributionSummary.INSTANCE,
         distSummaryFactory);
-    return new SwapDistributionSummary(this, VERSION, ds.id(), ds);
+    return swapMeter(ds, NoopDistributionSummary.INSTANCE, SwapDistributionSummary.class,
+        swapDistSummaryFactory);
   }
 
   @Override public final Timer timer(Id id) {
     Timer t = getOrCreate(id, Timer.class, NoopTimer.INSTANCE, timerFactory);
-    return new SwapTimer(this, VERSION, t.id(), t);
+    return swapMeter(t, NoopTimer.INSTANCE, SwapTimer.class, swapTimerFactory);
   }
 
   @Override public final Gauge gauge(Id id) {
     Gauge g = getOrCreate(id, Gauge.class, NoopGauge.INSTANCE, gaugeFactory);
-    return new SwapGauge(this, VERSION, g.id(), g);
+    return swapMeter(g, NoopGauge.INSTANCE, SwapGauge.class, swapGaugeFactory);
   }
 
   @Override public final Gauge maxGauge(Id id) {
     Gauge g = getOrCreate(id, Gauge.class, NoopGauge.INSTANCE, maxGaugeFactory);
-    return new SwapMaxGauge(this, VERSION, g.id(), g);
+    return swapMeter(g, NoopGauge.INSTANCE, SwapMaxGauge.class, swapMaxGaugeFactory);
+  }
+
+  /**
+   * Returns the swap wrapper for a meter. Wrappers are cached by the id of the meter so that
+   * repeated lookups of an existing meter, the common case for users that look up the meter
+   * on each use, will return the same wrapper instance rather than allocating a new one. The
+   * cached wrapper is only reused if it is still wrapping the meter that was returned from the
+   * registry. The default meter used for failures is never cached.
+   */
+  @SuppressWarnings("unchecked")
+  private <T extends Meter> T swapMeter(
+      T meter, T dflt, Class<? extends SwapMeter<T>> cls, Function<T, SwapMeter<T>> factory) {
+    if (meter == dflt) {
+      return (T) factory.apply(meter);
+    }
+    final Id id = meter.id();
+    SwapMeter<?> cached = swapMeters.get(id);
+    if (cached != null && cached.getClass() == cls && cached.peek() == meter) {
+      return (T) cached;
+    }
+    SwapMeter<T> wrapper = factory.apply(meter);
+    if (wrapper.peek() == meter) {
+      swapMeters.put(id, wrapper);
+    }
+    return (T) wrapper;
   }
 
   /**
@@ -341,9 +411,24 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
       }
     }
     logger.debug("removed {} expired meters out of {} total", expired, total);
+    cleanupSwapMeters();
     cleanupCachedState();
   }
 
+  /**
+   * Remove cached swap wrappers for meters that are no longer in the registry. Wrappers that
+   * are still referenced by the user will lookup a new copy on the next access.
+   */
+  private void cleanupSwapMeters() {
+    Iterator<Map.Entry<Id, SwapMeter<?>>> it = swapMeters.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Id, SwapMeter<?>> entry = it.next();
+      if (meters.get(entry.getKey()) != entry.getValue().peek()) {
+        it.remove();
+      }
+    }
+  }
+
   /**
    * Cleanup any expired meter patterns stored in the state. It should only be used as
    * a cache so the entry should get recreated if needed.
@@ -406,5 +491,6 @@ public abstract class AbstractRegistry implements Registry, AutoCloseable {
     }
     state.clear();
     meters.clear();
+    swapMeters.clear();
   }
 }
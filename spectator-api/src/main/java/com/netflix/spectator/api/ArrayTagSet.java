@@ -77,6 +77,18 @@ final class ArrayTagSet implements TagList {
     return new ArrayTagSet(tags, len);
   }
 
+  /**
+   * Create a new tag set based on an array that is already sorted by key and has no duplicate
+   * keys. The provided array will be used directly so it should not be modified after. The
+   * hash code should be the value that would be computed by {@link #hashCode()}, it is used
+   * by {@link IdTemplate} to avoid another pass over the array.
+   */
+  static ArrayTagSet createSorted(String[] tags, int hashCode) {
+    ArrayTagSet ts = new ArrayTagSet(tags, tags.length);
+    ts.cachedHashCode = hashCode;
+    return ts;
+  }
+
   private final String[] tags;
   private final int length;
 
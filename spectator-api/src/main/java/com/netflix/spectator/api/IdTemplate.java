@@ -0,0 +1,202 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.api;
+
+import com.netflix.spectator.impl.Preconditions;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Template for creating ids that have the same name and set of tag keys, but different
+ * values. The layout of the tags is computed once when the template is created, so binding
+ * the values only needs to copy and fill in an array. There is no sorting or checking for
+ * duplicate keys and the hash code of the tags is computed incrementally from precomputed
+ * factors. This is useful for hot paths that would otherwise repeatedly call
+ * {@link Id#withTags(String...)} with the same keys.
+ *
+ * <p>Example usage:</p>
+ * <pre>{@code
+ * IdTemplate template = IdTemplate.of("http.req.complete", "method", "status", "country");
+ * ...
+ * registry.counter(template.withValues(method, status, country)).increment();
+ * }</pre>
+ *
+ * <p>Instances are immutable and can be shared across threads.</p>
+ */
+public final class IdTemplate {
+
+  /**
+   * Create a new template.
+   *
+   * @param name
+   *     Name to use for the ids created from the template.
+   * @param keys
+   *     Tag keys that will get values bound with {@link #withValues(String...)}. The values
+   *     should be passed in the same order as the keys.
+   * @return
+   *     Template for creating ids.
+   */
+  public static IdTemplate of(String name, String... keys) {
+    return of(Id.create(name), keys);
+  }
+
+  /**
+   * Create a new template.
+   *
+   * @param base
+   *     Base id that provides the name and a set of fixed tags for the ids created from the
+   *     template. If the base id has a tag with one of the template keys, then the value
+   *     bound to the template will override it.
+   * @param keys
+   *     Tag keys that will get values bound with {@link #withValues(String...)}. The values
+   *     should be passed in the same order as the keys.
+   * @return
+   *     Template for creating ids.
+   */
+  public static IdTemplate of(Id base, String... keys) {
+    Preconditions.checkNotNull(base, "base");
+    Preconditions.checkNotNull(keys, "keys");
+    return new IdTemplate(base, keys.clone());
+  }
+
+  private final String name;
+  private final String[] keys;
+
+  /** Sorted tag array with fixed values filled in and nulls for the template keys. */
+  private final String[] prototype;
+
+  /** Position in the tag array of the value for each template key. */
+  private final int[] positions;
+
+  /** Contribution of the fixed entries to the hash code of the tag set. */
+  private final int baseHash;
+
+  /** Factor to multiply the hash code of the value for each template key. */
+  private final int[] hashFactors;
+
+  private IdTemplate(Id base, String[] keys) {
+    this.name = base.name();
+    this.keys = keys;
+
+    for (String k : keys) {
+      Preconditions.checkNotNull(k, "key");
+    }
+    if (!hasDistinctKeys(keys)) {
+      throw new IllegalArgumentException("duplicate keys in template: " + String.join(", ", keys));
+    }
+
+    Map<String, String> tags = new TreeMap<>();
+    for (Tag t : base.tags()) {
+      tags.put(t.key(), t.value());
+    }
+    for (String k : keys) {
+      tags.put(k, null);
+    }
+
+    int length = tags.size() * 2;
+    prototype = new String[length];
+    int i = 0;
+    for (Map.Entry<String, String> entry : tags.entrySet()) {
+      prototype[i] = entry.getKey();
+      prototype[i + 1] = entry.getValue();
+      i += 2;
+    }
+
+    // The tag set hash is computed as: hc = 31 * hc + tags[i].hashCode() starting with 1.
+    // Expanded, each entry i contributes tags[i].hashCode() * 31^(length - 1 - i), so the
+    // fixed entries can be summed up front and the values only need to be scaled.
+    int[] factors = new int[length];
+    int factor = 1;
+    for (int j = length - 1; j >= 0; --j) {
+      factors[j] = factor;
+      factor *= 31;
+    }
+    int hash = factor;
+    for (int j = 0; j < length; ++j) {
+      if (prototype[j] != null) {
+        hash += prototype[j].hashCode() * factors[j];
+      }
+    }
+    baseHash = hash;
+
+    positions = new int[keys.length];
+    hashFactors = new int[keys.length];
+    for (int j = 0; j < keys.length; ++j) {
+      int pos = indexOfKey(keys[j]) + 1;
+      positions[j] = pos;
+      hashFactors[j] = factors[pos];
+    }
+  }
+
+  private static boolean hasDistinctKeys(String[] keys) {
+    for (int i = 0; i < keys.length; ++i) {
+      for (int j = i + 1; j < keys.length; ++j) {
+        if (keys[i].equals(keys[j])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private int indexOfKey(String key) {
+    for (int i = 0; i < prototype.length; i += 2) {
+      if (prototype[i].equals(key)) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("key not found: " + key);
+  }
+
+  /** Name used for the ids created from this template. */
+  public String name() {
+    return name;
+  }
+
+  /** Number of values that need to be bound when creating an id. */
+  public int size() {
+    return keys.length;
+  }
+
+  /**
+   * Create a new id by binding values to the template keys.
+   *
+   * @param values
+   *     Values for the tags. The number of values must match the number of keys for the
+   *     template and they should be in the same order as the keys.
+   * @return
+   *     Id with the name and tags of the template.
+   */
+  public Id withValues(String... values) {
+    if (values.length != positions.length) {
+      throw new IllegalArgumentException("expected " + positions.length
+          + " values, but received " + values.length);
+    }
+    String[] tags = prototype.clone();
+    int hash = baseHash;
+    for (int i = 0; i < values.length; ++i) {
+      String v = Preconditions.checkNotNull(values[i], "value");
+      tags[positions[i]] = v;
+      hash += v.hashCode() * hashFactors[i];
+    }
+    return new DefaultId(name, ArrayTagSet.createSorted(tags, hash));
+  }
+
+  @Override public String toString() {
+    return "IdTemplate(" + name + ", keys=[" + String.join(", ", keys) + "])";
+  }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.api;
+
+import com.netflix.spectator.impl.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects information about the cost of the meters in a registry. This is used to answer
+ * questions such as which meters are updated most frequently, which polled meter functions
+ * are slow, and which meter names have the most series. Profiling is enabled for registries
+ * based on {@link AbstractRegistry} by setting {@link RegistryConfig#profilingSampleRate()}.
+ *
+ * <ul>
+ *   <li><b>Updates:</b> one out of every N updates is sampled and the counts are tracked
+ *   using the Space-Saving algorithm with a fixed number of slots. So the overhead on the
+ *   update path is a random number check for most calls and the memory use is bounded.
+ *   The counts for the most frequently updated ids are estimates.</li>
+ *   <li><b>Polled meters:</b> the time for each poll of a function registered with
+ *   {@link com.netflix.spectator.api.patterns.PolledMeter}.</li>
+ *   <li><b>Measure:</b> the time to measure the meters of each type when the registry
+ *   collects the data to publish. Only recorded if supported by the registry.</li>
+ *   <li><b>Series:</b> the number of meters with a given name. Computed when a snapshot is
+ *   taken.</li>
+ * </ul>
+ *
+ * <p>The data accumulates until {@link #reset()} is called. Registries that report the
+ * profile to a debug registry, such as the Atlas registry, will reset it after each
+ * report.</p>
+ */
+public final class MeterProfiler {
+
+  /** Number of ids tracked for the update counts. */
+  static final int DEFAULT_CAPACITY = 256;
+
+  /** Maximum number of polled meters to track. */
+  static final int MAX_POLLED_METERS = 10_000;
+
+  private final Registry registry;
+  private final int sampleRate;
+  private final int capacity;
+
+  // Space-Saving counters for the sampled updates, guarded by the lock. The array has the
+  // count and the maximum overestimation error for the id.
+  private final Object lock = new Object();
+  private final HashMap<Id, long[]> updates;
+
+  private final ConcurrentHashMap<Id, Stats> polls = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Class<?>, Stats> measures = new ConcurrentHashMap<>();
+
+  /** Create a new instance. */
+  MeterProfiler(Registry registry, int sampleRate) {
+    this(registry, sampleRate, DEFAULT_CAPACITY);
+  }
+
+  /** Create a new instance. */
+  MeterProfiler(Registry registry, int sampleRate, int capacity) {
+    Preconditions.checkArg(sampleRate > 0, "sampleRate must be > 0");
+    Preconditions.checkArg(capacity > 0, "capacity must be > 0");
+    this.registry = registry;
+    this.sampleRate = sampleRate;
+    this.capacity = capacity;
+    this.updates = new HashMap<>(capacity * 2);
+  }
+
+  /** Return the sample rate for updates. */
+  public int sampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Indicate that the meter with the specified id was updated. Only one out of every N
+   * calls based on the sample rate will be recorded.
+   */
+  public void update(Id id) {
+    if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+      recordUpdate(id);
+    }
+  }
+
+  private void recordUpdate(Id id) {
+    synchronized (lock) {
+      long[] counts = updates.get(id);
+      if (counts != null) {
+        ++counts[0];
+      } else if (updates.size() < capacity) {
+        updates.put(id, new long[] {1L, 0L});
+      } else {
+        // Replace the entry with the lowest count. The new id inherits the count as the
+        // error since it may have been seen that many times while not being tracked.
+        Id minId = null;
+        long[] min = null;
+        for (Map.Entry<Id, long[]> entry : updates.entrySet()) {
+          if (min == null || entry.getValue()[0] < min[0]) {
+            minId = entry.getKey();
+            min = entry.getValue();
+          }
+        }
+        updates.remove(minId);
+        min[1] = min[0];
+        ++min[0];
+        updates.put(id, min);
+      }
+    }
+  }
+
+  /**
+   * Record the time taken to poll the function for a polled meter.
+   *
+   * @param id
+   *     Id of the polled meter.
+   * @param nanos
+   *     Time in nanoseconds for the poll.
+   */
+  public void recordPoll(Id id, long nanos) {
+    Stats stats = polls.get(id);
+    if (stats == null) {
+      if (polls.size() >= MAX_POLLED_METERS) {
+        return;
+      }
+      stats = polls.computeIfAbsent(id, k -> new Stats());
+    }
+    stats.record(nanos);
+  }
+
+  /**
+   * Record the time taken to measure a meter.
+   *
+   * @param meter
+   *     Meter that was measured. The time is accumulated based on the type of the meter.
+   * @param nanos
+   *     Time in nanoseconds for the measurement.
+   */
+  public void recordMeasure(Meter meter, long nanos) {
+    Class<?> type = meter.getClass();
+    Stats stats = measures.get(type);
+    if (stats == null) {
+      stats = measures.computeIfAbsent(type, k -> new Stats());
+    }
+    stats.record(nanos);
+  }
+
+  /** Clear the accumulated data. */
+  public void reset() {
+    synchronized (lock) {
+      updates.clear();
+    }
+    polls.clear();
+    measures.clear();
+  }
+
+  /**
+   * Create a snapshot of the current profile.
+   *
+   * @param n
+   *     Maximum number of entries to include for the updates, polls, and series.
+   * @return
+   *     Snapshot of the profile.
+   */
+  public Snapshot snapshot(int n) {
+    List<Entry> topUpdates = new ArrayList<>();
+    synchronized (lock) {
+      for (Map.Entry<Id, long[]> entry : updates.entrySet()) {
+        long[] counts = entry.getValue();
+        topUpdates.add(new Entry(entry.getKey(), counts[0] * sampleRate,
+            (counts[0] - counts[1]) * sampleRate));
+      }
+    }
+
+    List<Entry> slowestPolls = new ArrayList<>();
+    for (Map.Entry<Id, Stats> entry : polls.entrySet()) {
+      Stats stats = entry.getValue();
+      slowestPolls.add(new Entry(entry.getKey(), stats.max.get(), stats.total.sum()));
+    }
+
+    Map<String, long[]> seriesByName = new HashMap<>();
+    for (Meter meter : registry) {
+      ++seriesByName.computeIfAbsent(meter.id().name(), k -> new long[1])[0];
+    }
+    List<Entry> largestNames = new ArrayList<>(seriesByName.size());
+    for (Map.Entry<String, long[]> entry : seriesByName.entrySet()) {
+      long count = entry.getValue()[0];
+      largestNames.add(new Entry(Id.create(entry.getKey()), count, count));
+    }
+
+    Map<String, MeasureStats> measureStats = new LinkedHashMap<>();
+    for (Map.Entry<Class<?>, Stats> entry : measures.entrySet()) {
+      Stats stats = entry.getValue();
+      measureStats.put(entry.getKey().getSimpleName(),
+          new MeasureStats(stats.count.sum(), stats.total.sum(), stats.max.get()));
+    }
+
+    return new Snapshot(
+        top(topUpdates, n),
+        top(slowestPolls, n),
+        top(largestNames, n),
+        Collections.unmodifiableMap(measureStats));
+  }
+
+  private static List<Entry> top(List<Entry> entries, int n) {
+    entries.sort(Comparator.comparingLong((Entry e) -> e.value).reversed());
+    List<Entry> result = entries.size() > n ? entries.subList(0, n) : entries;
+    return Collections.unmodifiableList(new ArrayList<>(result));
+  }
+
+  /**
+   * Report the top entries of the profile as gauges in the specified registry and then
+   * reset the profile. The following gauges are reported:
+   *
+   * <ul>
+   *   <li><b>spectator.profile.updates:</b> estimated number of updates for the most
+   *   frequently updated meters, tagged with the name of the meter as the {@code id}.</li>
+   *   <li><b>spectator.profile.pollTime:</b> max time in seconds for polling the slowest
+   *   polled meters, tagged with the name of the meter as the {@code id}.</li>
+   *   <li><b>spectator.profile.series:</b> number of meters for the names with the most
+   *   meters, tagged with the name as the {@code id}.</li>
+   *   <li><b>spectator.profile.measureTime:</b> total time in seconds for measuring the
+   *   meters, tagged with the meter class as the {@code type}.</li>
+   * </ul>
+   *
+   * @param debugRegistry
+   *     Registry to update with the profile data.
+   * @param n
+   *     Maximum number of entries to include for each category.
+   */
+  public void report(Registry debugRegistry, int n) {
+    Snapshot snapshot = snapshot(n);
+    reset();
+
+    // Multiple ids with the same name are summed since the tags are not included
+    Map<String, Long> updatesByName = new HashMap<>();
+    for (Entry entry : snapshot.topUpdates()) {
+      updatesByName.merge(entry.id().name(), entry.value(), Long::sum);
+    }
+    updatesByName.forEach((name, v) ->
+        debugRegistry.gauge("spectator.profile.updates", "id", name).set(v));
+
+    for (Entry entry : snapshot.slowestPolls()) {
+      debugRegistry.gauge("spectator.profile.pollTime", "id", entry.id().name())
+          .set(entry.value() / 1e9);
+    }
+
+    for (Entry entry : snapshot.largestNames()) {
+      debugRegistry.gauge("spectator.profile.series", "id", entry.id().name())
+          .set(entry.value());
+    }
+
+    snapshot.measureStats().forEach((type, stats) ->
+        debugRegistry.gauge("spectator.profile.measureTime", "type", type)
+            .set(stats.totalTime() / 1e9));
+  }
+
+  /** Accumulated timing stats. */
+  private static final class Stats {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+      count.increment();
+      total.add(nanos);
+      long current = max.get();
+      while (nanos > current && !max.compareAndSet(current, nanos)) {
+        current = max.get();
+      }
+    }
+  }
+
+  /** Snapshot of the profile. */
+  public static final class Snapshot {
+    private final List<Entry> topUpdates;
+    private final List<Entry> slowestPolls;
+    private final List<Entry> largestNames;
+    private final Map<String, MeasureStats> measureStats;
+
+    Snapshot(
+        List<Entry> topUpdates,
+        List<Entry> slowestPolls,
+        List<Entry> largestNames,
+        Map<String, MeasureStats> measureStats) {
+      this.topUpdates = topUpdates;
+      this.slowestPolls = slowestPolls;
+      this.largestNames = largestNames;
+      this.measureStats = measureStats;
+    }
+
+    /**
+     * Ids that are updated most frequently. The value is the estimated number of updates
+     * and the lower bound is the guaranteed minimum based on the sampled updates.
+     */
+    public List<Entry> topUpdates() {
+      return topUpdates;
+    }
+
+    /**
+     * Polled meters that took the longest to poll. The value is the max time in nanoseconds
+     * and the secondary value is the total time in nanoseconds.
+     */
+    public List<Entry> slowestPolls() {
+      return slowestPolls;
+    }
+
+    /**
+     * Meter names with the most series in the registry. The id only has the name and the
+     * value is the number of meters with that name.
+     */
+    public List<Entry> largestNames() {
+      return largestNames;
+    }
+
+    /** Time spent measuring the meters, keyed by the simple class name of the meter. */
+    public Map<String, MeasureStats> measureStats() {
+      return measureStats;
+    }
+
+    @Override public String toString() {
+      return "Snapshot(topUpdates=" + topUpdates
+          + ", slowestPolls=" + slowestPolls
+          + ", largestNames=" + largestNames
+          + ", measureStats=" + measureStats + ")";
+    }
+  }
+
+  /** Entry in one of the lists for a profile snapshot. */
+  public static final class Entry {
+    private final Id id;
+    private final long value;
+    private final long secondary;
+
+    Entry(Id id, long value, long secondary) {
+      this.id = id;
+      this.value = value;
+      this.secondary = secondary;
+    }
+
+    /** Id for the entry. */
+    public Id id() {
+      return id;
+    }
+
+    /** Primary value used for ranking the entry. */
+    public long value() {
+      return value;
+    }
+
+    /** Secondary value, the meaning depends on the list the entry is from. */
+    public long secondary() {
+      return secondary;
+    }
+
+    @Override public String toString() {
+      return "Entry(" + id + ", " + value + ", " + secondary + ")";
+    }
+  }
+
+  /** Accumulated time for measuring meters of a given type. */
+  public static final class MeasureStats {
+    private final long count;
+    private final long totalTime;
+    private final long maxTime;
+
+    MeasureStats(long count, long totalTime, long maxTime) {
+      this.count = count;
+      this.totalTime = totalTime;
+      this.maxTime = maxTime;
+    }
+
+    /** Number of times a meter of this type was measured. */
+    public long count() {
+      return count;
+    }
+
+    /** Total time in nanoseconds. */
+    public long totalTime() {
+      return totalTime;
+    }
+
+    /** Max time in nanoseconds for measuring a single meter. */
+    public long maxTime() {
+      return maxTime;
+    }
+
+    @Override public String toString() {
+      return "MeasureStats(" + count + ", " + totalTime + ", " + maxTime + ")";
+    }
+  }
+}
@@ -54,9 +54,59 @@ public interface RegistryConfig {
     return (v == null) ? Integer.MAX_VALUE : Integer.parseInt(v);
   }
 
+  /**
+   * For classes based on {@link com.netflix.spectator.api.AbstractRegistry} this setting is used
+   * to determine whether ids should be interned. If enabled, then the ids created by the registry
+   * and the ids used for the registered meters will be mapped to a single canonical instance
+   * for a given set of name and tags. This reduces the memory used if the same ids are rebuilt
+   * frequently and allows equality checks to short circuit on the reference. The canonical
+   * instances are weakly referenced so they will be released once no longer used.
+   *
+   * @return
+   *     True if ids should be interned. The default is false.
+   */
+  default boolean internIds() {
+    String v = get("internIds");
+    return v != null && Boolean.parseBoolean(v);
+  }
+
   /** How often registered gauges should get polled. */
   default Duration gaugePollingFrequency() {
     String v = get("gaugePollingFrequency");
     return (v == null) ? Duration.ofSeconds(10) : Duration.parse(v);
   }
+
+  /**
+   * Maximum amount of time a single gauge function should take when it is polled in the
+   * background. Functions that take longer will be moved to a separate executor so they do not
+   * delay the polling of other meters. The number of times this happens is reported with
+   * the {@code spectator.gauge.pollOverBudget} counter.
+   */
+  default Duration gaugePollingBudget() {
+    String v = get("gaugePollingBudget");
+    return (v == null) ? Duration.ofMillis(100) : Duration.parse(v);
+  }
+
+  /**
+   * For classes based on {@link com.netflix.spectator.api.AbstractRegistry} this setting is used
+   * to enable the {@link MeterProfiler}. If enabled, then one out of every N updates to a meter
+   * will be sampled to estimate which meters are updated most frequently.
+   *
+   * @return
+   *     Sample rate for the meter updates. A value less than or equal to 0 disables profiling.
+   *     The default is 0.
+   */
+  default int profilingSampleRate() {
+    String v = get("profilingSampleRate");
+    return (v == null) ? 0 : Integer.parseInt(v);
+  }
+
+  /**
+   * Number of entries to include in each category of the profile report when profiling is
+   * enabled. See {@link #profilingSampleRate()}.
+   */
+  default int profilingTopN() {
+    String v = get("profilingTopN");
+    return (v == null) ? 10 : Integer.parseInt(v);
+  }
 }
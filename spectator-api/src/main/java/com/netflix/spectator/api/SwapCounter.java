@@ -34,6 +34,9 @@ final class SwapCounter extends SwapMeter<Counter> implements Counter {
   }
 
   @Override public void add(double amount) {
+    if (profiler != null) {
+      profiler.update(id);
+    }
     get().add(amount);
   }
 
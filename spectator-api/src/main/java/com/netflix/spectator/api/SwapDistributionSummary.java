@@ -38,10 +38,16 @@ final class SwapDistributionSummary extends SwapMeter<DistributionSummary> imple
   }
 
   @Override public void record(long amount) {
+    if (profiler != null) {
+      profiler.update(id);
+    }
     get().record(amount);
   }
 
   @Override public void record(long[] amounts, int n) {
+    if (profiler != null) {
+      profiler.update(id);
+    }
     get().record(amounts, n);
   }
 
@@ -32,6 +32,9 @@ final class SwapMaxGauge extends SwapMeter<Gauge> implements Gauge {
   }
 
   @Override public void set(double value) {
+    if (profiler != null) {
+      profiler.update(id);
+    }
     get().set(value);
   }
 
@@ -39,6 +39,9 @@ final class SwapTimer extends SwapMeter<Timer> implements Timer {
   }
 
   @Override public void record(long amount, TimeUnit unit) {
+    if (profiler != null) {
+      profiler.update(id);
+    }
     get().record(amount, unit);
   }
 
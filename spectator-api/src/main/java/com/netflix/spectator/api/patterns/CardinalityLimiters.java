@@ -20,13 +20,19 @@ import com.netflix.spectator.api.Utils;
 import com.netflix.spectator.impl.PatternMatcher;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -36,7 +42,8 @@ import java.util.stream.Collectors;
  * Helper functions to help manage the cardinality of tag values. This should be used
  * anywhere you cannot guarantee that the tag values being used are strictly bounded.
  * There is support for two different modes, 1) selecting the first N values that are
- * seen, or 2) selecting the most frequent N values that are seen.
+ * seen, or 2) selecting the most frequent N values that are seen. For the second mode
+ * there is also a variant using a fixed amount of memory, see {@link #heavyHitters(int)}.
  *
  * <p>Sample usage:</p>
  *
@@ -142,6 +149,38 @@ public final class CardinalityLimiters {
     return new MostFrequentLimiter(Math.min(n, MAX_LIMIT), clock);
   }
 
+  /**
+   * Restrict the cardinality of the input to the top {@code n} values based on the
+   * frequency of the lookup. This is similar to {@link #mostFrequent(int)}, but the
+   * frequencies are tracked with a fixed size count-min sketch and a bounded table of
+   * candidate values rather than an exact count per distinct value. The memory use is
+   * fixed regardless of the cardinality of the input, and each lookup is a constant
+   * number of atomic operations without allocation, so it is a better fit if the input
+   * can have a very large number of distinct values, for example a client sending random
+   * paths.
+   *
+   * <p>The counts are approximate. A value is only selected if its estimated frequency is
+   * well above the level expected from hash collisions, so when there is a lot of churn
+   * with no clear heavy hitters, most values will get mapped to {@link #OTHERS}.</p>
+   *
+   * @param n
+   *     Number of values to select.
+   * @return
+   *     The input value if it is within the bounds or is selected. Otherwise map to
+   *     {@link #OTHERS}.
+   */
+  public static Function<String, String> heavyHitters(int n) {
+    return heavyHitters(n, Clock.SYSTEM);
+  }
+
+  /**
+   * Allows the clock to be specified for testing. See {@link #heavyHitters(int)} for
+   * details on the usage.
+   */
+  static Function<String, String> heavyHitters(int n, Clock clock) {
+    return new HeavyHittersLimiter(Math.max(Math.min(n, MAX_LIMIT), 1), clock);
+  }
+
   /**
    * Rollup the values if the cardinality exceeds {@code n}. This limiter will leave the
    * values alone as long as the cardinality stays within the limit. After that all values
@@ -341,6 +380,213 @@ public final class CardinalityLimiters {
     }
   }
 
+  private static class HeavyHittersLimiter implements Function<String, String>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEPTH = 4;
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int n;
+    private final Clock clock;
+
+    // Count-min sketch with DEPTH rows of width counters stored in a single array
+    private final AtomicLongArray sketch;
+    private final int width;
+    private final int widthMask;
+
+    // Number of updates to the sketch since the last refresh
+    private final LongAdder updates = new LongAdder();
+
+    // Values that are likely to be the most frequent. Each value can be placed in one of
+    // two adjacent slots and will replace the current value if it has a higher estimate.
+    private final AtomicReferenceArray<String> candidates;
+    private final int candidatesMask;
+
+    private volatile Set<String> selected;
+    private volatile Function<String, String> limiter;
+    private volatile long cutoff;
+    private volatile long limiterTimestamp;
+
+    // Decayed sum of the updates for a row of the sketch, only accessed while holding the lock
+    private long residual;
+
+    HeavyHittersLimiter(int n, Clock clock) {
+      this.n = n;
+      this.clock = clock;
+      this.width = tableSize(Math.max(64, 16 * n));
+      this.widthMask = width - 1;
+      this.sketch = new AtomicLongArray(DEPTH * width);
+      int numCandidates = tableSize(Math.max(16, 8 * n));
+      this.candidates = new AtomicReferenceArray<>(numCandidates);
+      this.candidatesMask = numCandidates - 1;
+      this.selected = Collections.emptySet();
+      this.limiter = first(n);
+      this.cutoff = 0L;
+      this.limiterTimestamp = clock.wallTime();
+      this.residual = 0L;
+    }
+
+    private static int tableSize(int n) {
+      int c = 1;
+      while (c < n) {
+        c <<= 1;
+      }
+      return c;
+    }
+
+    /** Spread the bits of the hash code, the String hash is weak in the low bits. */
+    private static int mix(int h0) {
+      int h = h0;
+      h ^= (h >>> 16);
+      h *= 0x85ebca6b;
+      h ^= (h >>> 13);
+      h *= 0xc2b2ae35;
+      h ^= (h >>> 16);
+      return h;
+    }
+
+    private int indexOf(int hash, int row) {
+      long h = (hash + SEEDS[row]) * SEEDS[row];
+      h += h >>> 32;
+      return row * width + (((int) h) & widthMask);
+    }
+
+    /** Increment the counts for the value and return the updated estimate. */
+    private long increment(int hash) {
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < DEPTH; ++i) {
+        long v = sketch.incrementAndGet(indexOf(hash, i));
+        min = Math.min(min, v);
+      }
+      updates.increment();
+      return min;
+    }
+
+    private long estimate(String s) {
+      int hash = mix(s.hashCode());
+      long min = Long.MAX_VALUE;
+      for (int i = 0; i < DEPTH; ++i) {
+        min = Math.min(min, sketch.get(indexOf(hash, i)));
+      }
+      return min;
+    }
+
+    /** Add the value to the candidate table if it is more frequent than one of its slots. */
+    private void offer(String s, int hash, long estimate) {
+      int i = hash & candidatesMask;
+      int j = (i + 1) & candidatesMask;
+      String a = candidates.get(i);
+      String b = candidates.get(j);
+      if (s.equals(a) || s.equals(b)) {
+        return;
+      }
+
+      if (a == null) {
+        candidates.compareAndSet(i, null, s);
+      } else if (b == null) {
+        candidates.compareAndSet(j, null, s);
+      } else {
+        long ea = estimate(a);
+        long eb = estimate(b);
+        if (ea <= eb) {
+          if (estimate > ea) {
+            candidates.compareAndSet(i, a, s);
+          }
+        } else if (estimate > eb) {
+          candidates.compareAndSet(j, b, s);
+        }
+      }
+    }
+
+    private void refresh() {
+      long now = clock.wallTime();
+      if (now - limiterTimestamp > REFRESH_INTERVAL && lock.tryLock()) {
+        try {
+          if (now - limiterTimestamp > REFRESH_INTERVAL) {
+            limiterTimestamp = now;
+            updateSelected();
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+
+    private void updateSelected() {
+      // Estimates at or below this level could be just due to collisions in the sketch
+      long sum = residual + updates.sumThenReset();
+      long noise = 2L * sum / width + 1L;
+
+      // Bounded number of candidates so the sort cost is fixed
+      int size = candidates.length();
+      String[] keys = new String[size];
+      long[] estimates = new long[size];
+      int count = 0;
+      for (int i = 0; i < size; ++i) {
+        String s = candidates.get(i);
+        if (s != null) {
+          long e = estimate(s);
+          if (e > noise) {
+            keys[count] = s;
+            estimates[count] = e;
+            ++count;
+          } else {
+            // Clear out noise so new values have a chance to get tracked
+            candidates.compareAndSet(i, s, null);
+          }
+        }
+      }
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; ++i) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> {
+        int countCmp = Long.compare(estimates[b], estimates[a]);
+        return countCmp != 0 ? countCmp : keys[a].compareTo(keys[b]);
+      });
+
+      Set<String> newSelected = new HashSet<>();
+      for (int i = 0; i < Math.min(n, count); ++i) {
+        newSelected.add(keys[order[i]]);
+      }
+
+      // Decay the counts so new values will have a chance to catch up
+      for (int i = 0; i < sketch.length(); ++i) {
+        long v = sketch.get(i);
+        sketch.addAndGet(i, -(v / 2L));
+      }
+      residual = sum / 2L;
+
+      selected = Collections.unmodifiableSet(newSelected);
+      limiter = first(n - newSelected.size());
+      cutoff = noise;
+    }
+
+    @Override public String apply(String s) {
+      int hash = mix(s.hashCode());
+      long estimate = increment(hash);
+      offer(s, hash, estimate);
+      refresh();
+      if (selected.contains(s)) {
+        return s;
+      }
+      return estimate >= cutoff ? limiter.apply(s) : OTHERS;
+    }
+
+    @Override public String toString() {
+      final String vs = selected
+          .stream()
+          .sorted()
+          .collect(Collectors.joining(","));
+      return "HeavyHittersLimiter(" + cutoff + ",selected=[" + vs + "]," + limiter + ")";
+    }
+  }
+
   private static class RollupLimiter implements Function<String, String>, Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -15,11 +15,21 @@
  */
 package com.netflix.spectator.api.patterns;
 
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import com.netflix.spectator.impl.Config;
+
 import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -28,33 +38,99 @@ import java.util.function.Consumer;
 
 /**
  * Helper for polling gauges in a background thread. A shared executor is used with a
- * single thread. If registered gauge methods are cheap as they should be, then this
- * should be plenty of capacity to process everything regularly. If not, then this will
- * help limit the damage to a single core and avoid causing problems for the application.
+ * small number of threads. If registered gauge methods are cheap as they should be, then
+ * this should be plenty of capacity to process everything regularly. If not, then this will
+ * help limit the damage to a few cores and avoid causing problems for the application.
+ *
+ * <p>Meters registered with the default executor are grouped into batches based on the
+ * registry and polling delay. Each batch is split into a fixed number of shards that are
+ * polled by a single periodic task, so the number of scheduled tasks does not grow with the
+ * number of meters. The number of shards and threads can be set with the system property
+ * {@code spectator.api.gaugePollingThreads}. A function that takes longer than the
+ * {@link com.netflix.spectator.api.RegistryConfig#gaugePollingBudget()} is moved out of the
+ * batch to its own task on a separate executor with a single thread, so it cannot delay the
+ * other meters.</p>
+ *
+ * <p>The following meters are reported to the registry for each batch. They are tagged with
+ * the polling delay, {@code delay}, as an ISO-8601 duration.</p>
+ *
+ * <ul>
+ *   <li><code>spectator.gauge.pollLag</code>: timer reporting the delay between the
+ *       desired start time of a batch and when it actually started.</li>
+ *   <li><code>spectator.gauge.pollTime</code>: timer reporting the time to poll all
+ *       meters in a batch.</li>
+ *   <li><code>spectator.gauge.pollOverBudget</code>: counter reporting the number of
+ *       functions that exceeded the time budget and were moved to their own task.</li>
+ * </ul>
  */
 final class GaugePoller {
 
-  private static final ThreadFactory FACTORY = new ThreadFactory() {
-    private final AtomicInteger next = new AtomicInteger();
-
-    @Override public Thread newThread(Runnable r) {
-      final String name = "spectator-gauge-polling-" + next.getAndIncrement();
+  private static ThreadFactory threadFactory(String prefix) {
+    final AtomicInteger next = new AtomicInteger();
+    return r -> {
+      final String name = prefix + next.getAndIncrement();
       final Thread t = new Thread(r, name);
       t.setDaemon(true);
       return t;
-    }
-  };
+    };
+  }
+
+  /** Number of shards for each batch and threads for the default executor. */
+  static final int SHARDS = numberOfShards();
+
+  private static int numberOfShards() {
+    String v = Config.defaultConfig().get("gaugePollingThreads");
+    int n = (v == null)
+        ? Math.min(2, Runtime.getRuntime().availableProcessors())
+        : Integer.parseInt(v);
+    return Math.max(1, n);
+  }
 
   private static final ScheduledExecutorService DEFAULT_EXECUTOR =
-      Executors.newSingleThreadScheduledExecutor(FACTORY);
+      Executors.newScheduledThreadPool(SHARDS, threadFactory("spectator-gauge-polling-"));
+
+  /**
+   * Executor for functions that exceeded the time budget. It is kept separate from the
+   * default executor so that slow functions cannot take up the threads used for the
+   * batches. Created lazily as it is only needed if there are slow functions.
+   */
+  private static final class IsolatedExecutor {
+    static final ScheduledExecutorService INSTANCE = create();
+
+    private static ScheduledExecutorService create() {
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+          1, threadFactory("spectator-gauge-polling-isolated-"));
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+
+  private static final ConcurrentHashMap<BatchKey, Batch> BATCHES = new ConcurrentHashMap<>();
+
+  private static final AtomicInteger NEXT_SHARD = new AtomicInteger();
 
   static ScheduledFuture<?> schedule(long delay, Runnable task) {
     return DEFAULT_EXECUTOR.scheduleWithFixedDelay(task, delay, delay, TimeUnit.MILLISECONDS);
   }
 
-  /** Schedule collection of gauges for a registry. */
-  static <T> Future<?> schedule(WeakReference<T> ref, long delay, Consumer<T> poll) {
-    return schedule(DEFAULT_EXECUTOR, ref, delay, poll);
+  /**
+   * Schedule collection of gauges for a registry. The poll function will be added to a
+   * batch with other functions for the same registry and delay.
+   */
+  static <T> Future<?> schedule(
+      Registry registry, WeakReference<T> ref, long delay, Consumer<T> poll) {
+    final int shard = (NEXT_SHARD.getAndIncrement() & Integer.MAX_VALUE) % SHARDS;
+    final BatchKey key = new BatchKey(registry, delay, shard);
+    final Entry<T> entry = new Entry<>(ref, poll);
+    while (true) {
+      Batch batch = BATCHES.computeIfAbsent(key, k -> new Batch(k).start());
+      if (batch.add(entry)) {
+        return entry;
+      }
+      // Batch was closed after becoming empty, remove the stale mapping if it is still
+      // present and try again with a new batch.
+      BATCHES.remove(key, batch);
+    }
   }
 
   /** Schedule collection of gauges for a registry. */
@@ -83,6 +159,169 @@ final class GaugePoller {
     return futureRef.get();
   }
 
+  /** Number of active batches for a registry. Used for testing. */
+  static int batchCount(Registry registry) {
+    return (int) BATCHES.keySet().stream().filter(k -> k.registry == registry).count();
+  }
+
+  /** Key used to group the registered functions. */
+  private static final class BatchKey {
+    private final Registry registry;
+    private final long delay;
+    private final int shard;
+
+    BatchKey(Registry registry, long delay, int shard) {
+      this.registry = registry;
+      this.delay = delay;
+      this.shard = shard;
+    }
+
+    @Override public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof BatchKey)) return false;
+      BatchKey other = (BatchKey) obj;
+      return registry == other.registry && delay == other.delay && shard == other.shard;
+    }
+
+    @Override public int hashCode() {
+      int result = System.identityHashCode(registry);
+      result = 31 * result + Long.hashCode(delay);
+      result = 31 * result + shard;
+      return result;
+    }
+  }
+
+  /** Set of functions that are polled together by a single periodic task. */
+  private static final class Batch implements Runnable {
+    private final BatchKey key;
+    private final long delayNanos;
+    private final long budgetNanos;
+    private final Set<Entry<?>> entries = ConcurrentHashMap.newKeySet();
+
+    // Meters are created on the first run so they will not show up in the registry for
+    // short lived uses that never get polled in the background
+    private Timer pollLag;
+    private Timer pollTime;
+    private Counter pollOverBudget;
+
+    private ScheduledFuture<?> future;
+    private boolean closed;
+    private long expectedStart;
+
+    Batch(BatchKey key) {
+      this.key = key;
+      this.delayNanos = TimeUnit.MILLISECONDS.toNanos(key.delay);
+      this.budgetNanos = key.registry.config().gaugePollingBudget().toNanos();
+    }
+
+    synchronized Batch start() {
+      expectedStart = System.nanoTime() + delayNanos;
+      future = DEFAULT_EXECUTOR.scheduleWithFixedDelay(
+          this, key.delay, key.delay, TimeUnit.MILLISECONDS);
+      return this;
+    }
+
+    /** Add an entry to the batch. Returns false if the batch has already been closed. */
+    synchronized boolean add(Entry<?> entry) {
+      if (closed) {
+        return false;
+      }
+      entries.add(entry);
+      entry.batch = this;
+      return true;
+    }
+
+    void remove(Entry<?> entry) {
+      entries.remove(entry);
+    }
+
+    /** Stop the task and remove the batch if there are no more entries. */
+    private synchronized void closeIfEmpty() {
+      if (entries.isEmpty()) {
+        closed = true;
+        future.cancel(false);
+        BATCHES.remove(key, this);
+      }
+    }
+
+    @Override public void run() {
+      final long start = System.nanoTime();
+      if (pollLag == null) {
+        Registry registry = key.registry;
+        String delay = Duration.ofMillis(key.delay).toString();
+        pollLag = registry.timer("spectator.gauge.pollLag", "delay", delay);
+        pollTime = registry.timer("spectator.gauge.pollTime", "delay", delay);
+        pollOverBudget = registry.counter("spectator.gauge.pollOverBudget", "delay", delay);
+      }
+      pollLag.record(Math.max(0L, start - expectedStart), TimeUnit.NANOSECONDS);
+      for (Entry<?> entry : entries) {
+        final long t = System.nanoTime();
+        entry.poll();
+        if (System.nanoTime() - t > budgetNanos && !entry.isDone()) {
+          pollOverBudget.increment();
+          entry.isolate(key.delay);
+        }
+      }
+      final long end = System.nanoTime();
+      pollTime.record(end - start, TimeUnit.NANOSECONDS);
+      expectedStart = end + delayNanos;
+      closeIfEmpty();
+    }
+  }
+
+  /**
+   * Function registered to be polled. The entry is returned to the caller as the future
+   * for the task, cancelling it will remove the entry from the batch.
+   */
+  private static final class Entry<T> extends CompletableFuture<Object> {
+    private final WeakReference<T> ref;
+    private final Consumer<T> consumer;
+
+    private volatile Batch batch;
+    private volatile Future<?> isolated;
+
+    Entry(WeakReference<T> ref, Consumer<T> consumer) {
+      super();
+      this.ref = ref;
+      this.consumer = consumer;
+    }
+
+    void poll() {
+      try {
+        T r = ref.get();
+        if (r != null) {
+          consumer.accept(r);
+        } else {
+          cancel(false);
+        }
+      } catch (Throwable t) {
+        cancel(false);
+      }
+    }
+
+    /** Move the entry out of the batch and poll it with a separate task. */
+    void isolate(long delay) {
+      batch.remove(this);
+      isolated = GaugePoller.schedule(IsolatedExecutor.INSTANCE, ref, delay, consumer);
+      if (isDone()) {
+        // Cancelled concurrently, make sure the separate task is stopped
+        isolated.cancel(false);
+      }
+    }
+
+    @Override public boolean cancel(boolean mayInterruptIfRunning) {
+      Batch b = batch;
+      if (b != null) {
+        b.remove(this);
+      }
+      Future<?> f = isolated;
+      if (f != null) {
+        f.cancel(false);
+      }
+      return super.cancel(mayInterruptIfRunning);
+    }
+  }
+
   private GaugePoller() {
   }
 }
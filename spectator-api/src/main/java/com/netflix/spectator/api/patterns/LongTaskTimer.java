@@ -25,16 +25,26 @@ import com.netflix.spectator.api.Utils;
 import com.netflix.spectator.impl.Preconditions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Timer intended to track a small number of long running tasks. Example would be something like
  * a batch hadoop job. Though "long running" is a bit subjective the assumption is that anything
  * over a minute is long running.
+ *
+ * <p>The start times of active tasks are kept in a primitive slot array and the task id
+ * identifies the slot. The number of active tasks and the sum of their start times are
+ * maintained in striped cells, so the total duration can be computed in constant time as
+ * {@code activeTasks * now - sumOfStartTimes} without iterating over the tasks. Each cell is
+ * an immutable pair that is replaced with a compare and set, so the count and sum are always
+ * consistent for readers without blocking or retrying. The slot array grows as needed to fit
+ * the maximum number of concurrent tasks, but does not shrink.</p>
  */
 public final class LongTaskTimer implements com.netflix.spectator.api.LongTaskTimer {
 
@@ -73,15 +83,52 @@ public final class LongTaskTimer implements com.netflix.spectator.api.LongTaskTi
 
   private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1L);
 
+  /** Number of slots in each segment of the slot array. Must be a power of 2. */
+  private static final int SEGMENT_SHIFT = 8;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  /** Number of slots to check when looking for a free slot before growing the array. */
+  private static final int MAX_PROBES = 16;
+
+  /**
+   * Spacing between the cells in the stripe array. Padded to at least 64 bytes to avoid false
+   * sharing between stripes.
+   */
+  private static final int STRIPE_WIDTH = 16;
+
+  /** Cell with no active tasks. */
+  private static final Cell EMPTY = new Cell(0L, 0L);
+
+  private static final int STRIPES = stripes();
+
+  private static int stripes() {
+    int n = Runtime.getRuntime().availableProcessors() * 2;
+    return Math.max(4, Integer.highestOneBit(n - 1) << 1);
+  }
+
   private final Clock clock;
   private final Id id;
-  private final ConcurrentMap<Long, Long> tasks = new ConcurrentHashMap<>();
-  private final AtomicLong nextTask = new AtomicLong(0L);
+
+  /**
+   * Segments of the slot array. Each segment has pairs of longs with the id of the task
+   * that owns the slot and the start time. The owner is a positive task id if the slot is
+   * in use, otherwise it is the complement of the last task id, or 0 if never used.
+   */
+  private volatile AtomicLongArray[] segments;
+
+  /** Striped cells with the active count and sum of start times. */
+  private final AtomicReferenceArray<Cell> stripes =
+      new AtomicReferenceArray<>(STRIPES * STRIPE_WIDTH);
 
   /** Create a new instance. */
   private LongTaskTimer(Registry registry, Id id) {
     this.clock = registry.clock();
     this.id = id;
+    this.segments = new AtomicLongArray[] {new AtomicLongArray(2 * SEGMENT_SIZE)};
+    for (int i = 0; i < STRIPES * STRIPE_WIDTH; i += STRIPE_WIDTH) {
+      stripes.set(i, EMPTY);
+    }
   }
 
   @Override public Id id() {
@@ -93,36 +140,115 @@ public final class LongTaskTimer implements com.netflix.spectator.api.LongTaskTi
   }
 
   @Override public long start() {
-    long task = nextTask.getAndIncrement();
-    tasks.put(task, clock.monotonicTime());
-    return task;
+    while (true) {
+      final AtomicLongArray[] segs = segments;
+      final int capacity = segs.length << SEGMENT_SHIFT;
+      final int first = ThreadLocalRandom.current().nextInt(capacity);
+      for (int i = 0; i < MAX_PROBES; ++i) {
+        final int slot = (first + i) % capacity;
+        final AtomicLongArray seg = segs[slot >>> SEGMENT_SHIFT];
+        final int pos = 2 * (slot & SEGMENT_MASK);
+        final long owner = seg.get(pos);
+        if (owner <= 0L) {
+          // Task id has a generation in the upper bits so that ids are not reused right
+          // away when a slot is freed
+          final long generation = (owner == 0L) ? 1L : (~owner >>> 31) % 0xFFFFFFFFL + 1L;
+          final long task = (generation << 31) | slot;
+          if (seg.compareAndSet(pos, owner, task)) {
+            final long startTime = clock.monotonicTime();
+            seg.set(pos + 1, startTime);
+            update(slot, 1L, startTime);
+            return task;
+          }
+        }
+      }
+      grow(segs);
+    }
+  }
+
+  /** Add a segment to the slot array if it has not been changed by another thread. */
+  private synchronized void grow(AtomicLongArray[] segs) {
+    if (segments == segs) {
+      AtomicLongArray[] newSegs = Arrays.copyOf(segs, segs.length + 1);
+      newSegs[segs.length] = new AtomicLongArray(2 * SEGMENT_SIZE);
+      segments = newSegs;
+    }
+  }
+
+  /** Returns the slot array segment for a task or null if the id is invalid. */
+  private AtomicLongArray segment(long task) {
+    if (task <= 0L) {
+      return null;
+    }
+    final AtomicLongArray[] segs = segments;
+    final int idx = (int) (task & Integer.MAX_VALUE) >>> SEGMENT_SHIFT;
+    return (idx < segs.length) ? segs[idx] : null;
   }
 
   @Override public long stop(long task) {
-    Long startTime = tasks.remove(task);
-    if (startTime != null) {
-      return clock.monotonicTime() - startTime;
-    } else {
-      return -1L;
+    final AtomicLongArray seg = segment(task);
+    if (seg != null) {
+      final int slot = (int) (task & Integer.MAX_VALUE);
+      final int pos = 2 * (slot & SEGMENT_MASK);
+      final long startTime = seg.get(pos + 1);
+      if (seg.compareAndSet(pos, task, ~task)) {
+        update(slot, -1L, -startTime);
+        return clock.monotonicTime() - startTime;
+      }
     }
+    return -1L;
   }
 
   @Override public long duration(long task) {
-    Long startTime = tasks.get(task);
-    return (startTime != null) ? (clock.monotonicTime() - startTime) : -1L;
+    final AtomicLongArray seg = segment(task);
+    if (seg != null) {
+      final int pos = 2 * ((int) task & SEGMENT_MASK);
+      final long startTime = seg.get(pos + 1);
+      if (seg.get(pos) == task) {
+        return clock.monotonicTime() - startTime;
+      }
+    }
+    return -1L;
   }
 
-  @Override public long duration() {
-    long now = clock.monotonicTime();
+  /**
+   * Update the count and sum of start times for the stripe associated with a slot. The cell
+   * is replaced as a whole so readers always see a matching count and sum.
+   */
+  private void update(int slot, long count, long startTime) {
+    final int i = (slot & (STRIPES - 1)) * STRIPE_WIDTH;
+    Cell cell = stripes.get(i);
+    while (!stripes.compareAndSet(i, cell, new Cell(cell.count + count, cell.sum + startTime))) {
+      cell = stripes.get(i);
+    }
+  }
+
+  /**
+   * Compute the total duration from the striped cells. If {@code includeDuration} is false,
+   * then only the active count is needed.
+   */
+  private long aggregate(boolean includeDuration) {
+    long count = 0L;
     long sum = 0L;
-    for (long startTime : tasks.values()) {
-      sum += now - startTime;
+    for (int i = 0; i < STRIPES * STRIPE_WIDTH; i += STRIPE_WIDTH) {
+      final Cell cell = stripes.get(i);
+      count += cell.count;
+      sum += cell.sum;
+    }
+    if (!includeDuration) {
+      return count;
     }
-    return sum;
+    // Read the time after the cells so it is not before any of the included start times.
+    // Overflow of the intermediate values is fine as long as the final result fits.
+    return count * clock.monotonicTime() - sum;
+  }
+
+  @Override public long duration() {
+    return aggregate(true);
   }
 
   @Override public int activeTasks() {
-    return tasks.size();
+    return (int) aggregate(false);
   }
 
   @Override public Iterable<Measurement> measure() {
@@ -133,4 +259,15 @@ public final class LongTaskTimer implements com.netflix.spectator.api.LongTaskTi
     ms.add(new Measurement(id.withTag(Statistic.activeTasks), now, activeTasks()));
     return ms;
   }
+
+  /** Number of active tasks and the sum of their start times for a stripe. */
+  private static final class Cell {
+    private final long count;
+    private final long sum;
+
+    Cell(long count, long sum) {
+      this.count = count;
+      this.sum = sum;
+    }
+  }
 }
@@ -15,11 +15,13 @@
  */
 package com.netflix.spectator.api.patterns;
 
+import com.netflix.spectator.api.AbstractRegistry;
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Gauge;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Meter;
+import com.netflix.spectator.api.MeterProfiler;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.Utils;
 import com.netflix.spectator.impl.Preconditions;
@@ -688,11 +690,19 @@ public final class PolledMeter {
       if (hasExpired()) {
         cleanup(registry);
       } else {
+        MeterProfiler profiler = (registry instanceof AbstractRegistry)
+            ? ((AbstractRegistry) registry).profiler()
+            : null;
+        final long start = (profiler == null) ? 0L : registry.clock().monotonicTime();
         try {
           update(registry);
         } catch (Throwable t) {
           LOGGER.trace("uncaught exception from gauge function for [{}]", id(), t);
           throw t;
+        } finally {
+          if (profiler != null) {
+            profiler.recordPoll(id(), registry.clock().monotonicTime() - start);
+          }
         }
       }
     }
@@ -702,7 +712,7 @@ public final class PolledMeter {
       if (future == null) {
         WeakReference<AbstractMeterState> tupleRef = new WeakReference<>(this);
         if (executor == null) {
-          future = GaugePoller.schedule(tupleRef, delay, t -> t.doUpdate(registry));
+          future = GaugePoller.schedule(registry, tupleRef, delay, t -> t.doUpdate(registry));
         } else {
           future = GaugePoller.schedule(executor, tupleRef, delay, t -> t.doUpdate(registry));
         }
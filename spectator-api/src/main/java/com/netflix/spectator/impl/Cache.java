@@ -72,6 +72,27 @@ public interface Cache<K, V> {
     return new DirectMappedCache<>(registry, id, initialSize, maxSize);
   }
 
+  /**
+   * Create a new W-TinyLFU cache: new entries go to a small LRU window and only enter the main
+   * segmented LRU region if a count-min frequency sketch estimates they are accessed more often
+   * than the entry that would be evicted. Reads are lock-free and the policy is updated in
+   * batches, so this keeps a high hit ratio for skewed access patterns where the set of hot keys
+   * shifts over time, without the full compaction scan of {@link #lfu(Registry, String, int, int)}
+   * or the collision evictions of {@link #directMapped(Registry, String, int, int)}.
+   *
+   * @param registry
+   *     Registry to use for tracking stats about the cache.
+   * @param id
+   *     Used with metrics to identify a particular instance of the cache.
+   * @param maxSize
+   *     Maximum number of entries to keep in the cache.
+   * @return
+   *     Instance of a W-TinyLFU cache.
+   */
+  static <K1, V1> Cache<K1, V1> tinyLfu(Registry registry, String id, int maxSize) {
+    return new TinyLfuCache<>(registry, id, maxSize);
+  }
+
   /**
    * Returns the cached value associated with the key or null if none is found.
    */
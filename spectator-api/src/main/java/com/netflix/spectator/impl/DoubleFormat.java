@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+/**
+ * Helper for formatting double values as ASCII directly into a byte array so that text
+ * protocols can be written without allocating a string for each value.
+ *
+ * <p><b>This class is an internal implementation detail only intended for use within spectator.
+ * It is subject to change without notice.</b></p>
+ */
+public final class DoubleFormat {
+
+  /** Maximum number of bytes that will be written by {@link #format}. */
+  public static final int MAX_LENGTH = 32;
+
+  /** Largest long value that can be exactly represented as a double. */
+  private static final long MAX_EXACT = 1L << 53;
+
+  /** Maximum number of digits after the decimal point for the fast path. */
+  private static final int MAX_FRACTION_DIGITS = 17;
+
+  private static final double[] POWERS_OF_TEN = new double[MAX_FRACTION_DIGITS + 1];
+
+  static {
+    double v = 1.0;
+    for (int i = 0; i < POWERS_OF_TEN.length; ++i) {
+      POWERS_OF_TEN[i] = v;
+      v *= 10.0;
+    }
+  }
+
+  private DoubleFormat() {
+  }
+
+  /**
+   * Write the decimal representation of a finite double. The output is the shortest plain
+   * decimal string that parses to the same double value, e.g. {@code 0.0001} rather than
+   * {@code 1.0E-4}. Values that cannot be expressed in that form with a 53-bit mantissa
+   * fall back to {@link Double#toString(double)}. The sign of {@code -0.0} is preserved.
+   * NaN and infinite values are not supported as the representation depends on the
+   * protocol, callers should check for them first.
+   *
+   * @param buffer
+   *     Array to write into. It must have at least {@link #MAX_LENGTH} bytes available
+   *     starting at the offset.
+   * @param offset
+   *     Position in the array to start writing.
+   * @param value
+   *     Value to format.
+   * @param trailingZero
+   *     If true, then integer values will have a fraction of {@code .0} similar to
+   *     {@link Double#toString(double)}. Otherwise, the decimal point is omitted.
+   * @return
+   *     Position in the array after the last byte that was written.
+   */
+  public static int format(byte[] buffer, int offset, double value, boolean trailingZero) {
+    // Check the sign bit rather than comparing to zero so that -0.0 will keep the sign
+    final boolean negative = Double.doubleToRawLongBits(value) < 0L;
+    final double v = negative ? -value : value;
+
+    if (v < MAX_EXACT) {
+      for (int k = 0; k <= MAX_FRACTION_DIGITS; ++k) {
+        double scaled = v * POWERS_OF_TEN[k];
+        if (scaled >= MAX_EXACT) {
+          break;
+        }
+        long m = Math.round(scaled);
+        // Division by an exact power of ten is correctly rounded, so if the result matches
+        // then the decimal m * 10^-k will parse back to the original value.
+        if (m / POWERS_OF_TEN[k] == v) {
+          int pos = offset;
+          if (negative) {
+            buffer[pos++] = '-';
+          }
+          return formatScaled(buffer, pos, m, k, trailingZero);
+        }
+      }
+    }
+
+    // Rare case, use the slower JDK formatting
+    String s = Double.toString(value);
+    int n = s.length();
+    for (int i = 0; i < n; ++i) {
+      buffer[offset + i] = (byte) s.charAt(i);
+    }
+    return offset + n;
+  }
+
+  /** Write m * 10^-k with at least one digit before the decimal point. */
+  private static int formatScaled(byte[] buffer, int offset, long m, int k, boolean trailingZero) {
+    // Write the digits in reverse order and then flip them
+    int pos = offset;
+    long v = m;
+    for (int i = 0; i < k; ++i) {
+      buffer[pos++] = (byte) ('0' + (int) (v % 10L));
+      v /= 10L;
+    }
+    if (k > 0) {
+      buffer[pos++] = '.';
+    } else if (trailingZero) {
+      buffer[pos++] = '0';
+      buffer[pos++] = '.';
+    }
+    do {
+      buffer[pos++] = (byte) ('0' + (int) (v % 10L));
+      v /= 10L;
+    } while (v > 0L);
+    for (int i = offset, j = pos - 1; i < j; ++i, --j) {
+      byte tmp = buffer[i];
+      buffer[i] = buffer[j];
+      buffer[j] = tmp;
+    }
+    return pos;
+  }
+}
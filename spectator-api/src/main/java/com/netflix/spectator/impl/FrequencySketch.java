@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+/**
+ * Count-min sketch with 4-bit counters used to estimate the access frequency of cache keys. Each
+ * long in the table holds 16 counters and an item maps to one counter in each of four rows, with
+ * the estimate being the minimum of the four. Once the number of increments reaches the sample
+ * size, all counters are halved so that the estimates age and the sketch can adapt when the set
+ * of popular items changes.
+ *
+ * <p>This class is not thread safe, callers must synchronize access.
+ *
+ * <p><b>This class is an internal implementation detail only intended for use within spectator.
+ * It is subject to change without notice.</b></p>
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  // Clears the high bit of each 4-bit counter after shifting to halve the values
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  // Low bit of each 4-bit counter, used to count the odd values lost when halving
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private static final int MAX_COUNT = 15;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * Create a new instance.
+   *
+   * @param maxSize
+   *     Maximum number of items in the cache. Used to size the table and determine how often
+   *     the counters will be aged.
+   */
+  FrequencySketch(int maxSize) {
+    int n = TinyLfuCache.tableSize(Math.max(16, maxSize));
+    this.table = new long[n];
+    this.tableMask = n - 1;
+    this.sampleSize = (int) Math.min(10L * Math.max(1, maxSize), Integer.MAX_VALUE);
+    this.size = 0;
+  }
+
+  /** Return the estimated number of occurrences for an item with the given hash code. */
+  int frequency(int hashCode) {
+    int hash = TinyLfuCache.mix(hashCode);
+    int start = (hash & 3) << 2;
+    int freq = MAX_COUNT;
+    for (int i = 0; i < 4; ++i) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xFL);
+      freq = Math.min(freq, count);
+    }
+    return freq;
+  }
+
+  /** Increment the frequency estimate for an item with the given hash code. */
+  void increment(int hashCode) {
+    int hash = TinyLfuCache.mix(hashCode);
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; ++i) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++size >= sampleSize) {
+      reset();
+    }
+  }
+
+  /** Increment the counter at position {@code j} of the long at index {@code i}. */
+  private boolean incrementAt(int i, int j) {
+    int offset = j << 2;
+    long mask = 0xFL << offset;
+    if ((table[i] & mask) != mask) {
+      table[i] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  /** Halve all counters and adjust the size to account for the truncated odd values. */
+  private void reset() {
+    int odd = 0;
+    for (int i = 0; i < table.length; ++i) {
+      odd += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (odd >>> 2);
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return ((int) h) & tableMask;
+  }
+}
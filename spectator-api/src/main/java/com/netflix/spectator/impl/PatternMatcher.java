@@ -199,6 +199,17 @@ public interface PatternMatcher {
     return PatternUtils.compile(pattern);
   }
 
+  /**
+   * Compile a list of pattern strings to a set that can be used to check which of the patterns
+   * match a string value with a single pass over the string. This is more efficient than
+   * checking the patterns one at a time when there are many patterns with fixed sub-strings,
+   * see {@link PatternMatcherSet} for more details. The set can be reused many times and is
+   * thread safe.
+   */
+  static PatternMatcherSet compileSet(List<String> patterns) {
+    return PatternUtils.compileSet(patterns);
+  }
+
   /**
    * Helper function to check if a string value matches the provided pattern. Note, if matching
    * many values against the same pattern, then it is much more efficient to use
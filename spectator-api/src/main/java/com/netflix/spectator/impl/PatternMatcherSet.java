@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+import java.util.BitSet;
+
+/**
+ * Set of patterns that can be checked against a string in a single pass. The result is the
+ * set of indices, based on the list used to create the set, for the patterns that match.
+ * Create an instance with {@link PatternMatcher#compileSet(java.util.List)}.
+ *
+ * <p>For each pattern a fixed string, either the {@link PatternMatcher#prefix()} or the
+ * {@link PatternMatcher#containedString()}, is added to a shared index that can find all
+ * occurrences in one scan of the input. Only patterns where the fixed string was found are
+ * then checked with the full matcher. Patterns without a fixed string are always checked.</p>
+ *
+ * <p><b>This class is an internal implementation detail only intended for use within spectator.
+ * It is subject to change without notice.</b></p>
+ */
+public interface PatternMatcherSet {
+
+  /** Number of patterns in the set. */
+  int size();
+
+  /** Return the matcher for the pattern at the specified index. */
+  PatternMatcher get(int i);
+
+  /**
+   * Number of patterns that are found using the shared index. It will be 0 if there are too
+   * few patterns with a fixed string for the index to be worthwhile.
+   */
+  int indexedSize();
+
+  /**
+   * Check the string against all patterns in the set.
+   *
+   * @param str
+   *     String to check.
+   * @param result
+   *     Bit set that will be updated with the indices of the matching patterns. It will be
+   *     cleared before the check so it can be reused across calls to avoid allocations.
+   */
+  void matches(String str, BitSet result);
+
+  /** Returns the indices of the patterns that match the string. */
+  default BitSet matches(String str) {
+    BitSet result = new BitSet(size());
+    matches(str, result);
+    return result;
+  }
+}
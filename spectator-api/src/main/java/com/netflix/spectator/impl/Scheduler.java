@@ -80,6 +80,13 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  * All metrics with have an {@code id} dimension to distinguish a particular scheduler
  * instance.
+ *
+ * <p><b>Queue Implementations</b></p>
+ *
+ * By default the pending tasks are kept in a {@link DelayQueue}. For schedulers with a
+ * large number of tasks, a hashed timing wheel can be used instead by passing in a tick
+ * duration to {@link #Scheduler(Registry, String, int, Duration)}. The timing wheel has
+ * O(1) insert and expiry, but tasks may execute up to one tick after the desired time.
  */
 public class Scheduler {
 
@@ -106,7 +113,7 @@ public class Scheduler {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Scheduler.class);
 
-  private final DelayQueue<DelayedTask> queue = new DelayQueue<>();
+  private final TaskQueue queue;
 
   private final Clock clock;
 
@@ -135,11 +142,39 @@ public class Scheduler {
    *     first task is scheduled.
    */
   public Scheduler(Registry registry, String id, int poolSize) {
+    this(registry, id, poolSize, new DelayTaskQueue());
+  }
+
+  /**
+   * Create a new instance that uses a hashed timing wheel to keep track of the pending
+   * tasks. This is more efficient when there are many tasks, for example thousands of
+   * periodic tasks with similar frequencies.
+   *
+   * @param registry
+   *     Registry to use for collecting metrics. The clock from the registry will also be
+   *     used as the clock source for accessing the time.
+   * @param id
+   *     Id for this instance of the scheduler. Used to distinguish between instances of
+   *     the scheduler for metrics and thread names. Threads will be named as
+   *     {@code spectator-$id-$i}.
+   * @param poolSize
+   *     Number of threads to have in the pool. The threads will not be started until the
+   *     first task is scheduled.
+   * @param tick
+   *     Duration of a tick for the timing wheel. Tasks may execute up to one tick after
+   *     the desired execution time. Must be at least 1ms.
+   */
+  public Scheduler(Registry registry, String id, int poolSize, Duration tick) {
+    this(registry, id, poolSize, new TimingWheel(registry.clock(), tick.toMillis(), 512));
+  }
+
+  private Scheduler(Registry registry, String id, int poolSize, TaskQueue queue) {
     this.clock = registry.clock();
+    this.queue = queue;
 
     PolledMeter.using(registry)
         .withId(newId(registry, id, "queueSize"))
-        .monitorSize(queue);
+        .monitorValue(queue, TaskQueue::size);
     stats = new Stats(registry, id);
 
     this.factory = newThreadFactory(id);
@@ -225,6 +260,35 @@ public class Scheduler {
     }
   }
 
+  /** Queue used by the worker threads to get the next task that should be executed. */
+  interface TaskQueue {
+    /** Add a task that should be executed at its next execution time. */
+    void put(DelayedTask task);
+
+    /** Wait until a task is ready to be executed and remove it from the queue. */
+    DelayedTask take() throws InterruptedException;
+
+    /** Number of tasks in the queue. */
+    int size();
+  }
+
+  /** Task queue based on a {@link DelayQueue}. */
+  static final class DelayTaskQueue implements TaskQueue {
+    private final DelayQueue<DelayedTask> queue = new DelayQueue<>();
+
+    @Override public void put(DelayedTask task) {
+      queue.put(task);
+    }
+
+    @Override public DelayedTask take() throws InterruptedException {
+      return queue.take();
+    }
+
+    @Override public int size() {
+      return queue.size();
+    }
+  }
+
   /** Repetition schedulingPolicy for scheduled tasks. */
   public enum Policy {
     /** Run a task once. */
@@ -429,7 +493,7 @@ public class Scheduler {
      *     Handle to stats that should be updated based on the execution of the
      *     task.
      */
-    void runAndReschedule(DelayQueue<DelayedTask> queue, Stats stats) {
+    void runAndReschedule(TaskQueue queue, Stats stats) {
       thread = Thread.currentThread();
       boolean scheduleAgain = options.schedulingPolicy != Policy.RUN_ONCE;
       try {
@@ -459,6 +523,10 @@ public class Scheduler {
     }
 
     @Override public int compareTo(Delayed other) {
+      if (other instanceof DelayedTask) {
+        // Avoid reading the clock for each comparison when ordering the queue
+        return Long.compare(nextExecutionTime, ((DelayedTask) other).nextExecutionTime);
+      }
       final long d1 = getDelay(TimeUnit.MILLISECONDS);
       final long d2 = other.getDelay(TimeUnit.MILLISECONDS);
       return Long.compare(d1, d2);
@@ -508,7 +576,10 @@ public class Scheduler {
             final long delay = clock.wallTime() - task.getNextExecutionTime();
             stats.taskExecutionDelay().record(delay, TimeUnit.MILLISECONDS);
 
-            stats.taskExecutionTime().recordRunnable(() -> task.runAndReschedule(queue, stats));
+            final long start = clock.monotonicTime();
+            task.runAndReschedule(queue, stats);
+            final long duration = clock.monotonicTime() - start;
+            stats.taskExecutionTime().record(duration, TimeUnit.NANOSECONDS);
           } catch (InterruptedException e) {
             LOGGER.debug("task interrupted", e);
             break;
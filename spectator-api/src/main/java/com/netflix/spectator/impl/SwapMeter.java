@@ -15,9 +15,11 @@
  */
 package com.netflix.spectator.impl;
 
+import com.netflix.spectator.api.AbstractRegistry;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Meter;
+import com.netflix.spectator.api.MeterProfiler;
 import com.netflix.spectator.api.Registry;
 
 import java.util.function.LongSupplier;
@@ -41,6 +43,12 @@ public abstract class SwapMeter<T extends Meter> implements Meter {
   /** Id to use when performing a lookup after expiration. */
   protected final Id id;
 
+  /**
+   * Profiler to notify when the meter is updated. Will be null if profiling is not enabled
+   * for the registry.
+   */
+  protected final MeterProfiler profiler;
+
   /** Current meter to delegate operations. */
   private volatile T underlying;
 
@@ -51,6 +59,9 @@ public abstract class SwapMeter<T extends Meter> implements Meter {
     this.currentVersion = versionSupplier.getAsLong();
     this.id = id;
     this.underlying = unwrap(underlying);
+    this.profiler = (registry instanceof AbstractRegistry)
+        ? ((AbstractRegistry) registry).profiler()
+        : null;
   }
 
   /**
@@ -87,6 +98,14 @@ public abstract class SwapMeter<T extends Meter> implements Meter {
     return underlying;
   }
 
+  /**
+   * Return the current underlying instance of the meter without checking if it has expired
+   * or performing a lookup. This is used by the registry to check if a wrapper can be reused.
+   */
+  public T peek() {
+    return underlying;
+  }
+
   /**
    * If the values are nested, then unwrap any that have the same registry instance.
    */
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+import com.netflix.spectator.api.Clock;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed timing wheel used as the task queue for {@link Scheduler}. Time is divided into
+ * ticks and each task is put into the bucket for the tick containing its next execution
+ * time. Inserting a task and expiring a bucket are O(1) per task and, unlike a
+ * {@link java.util.concurrent.DelayQueue}, there are no comparisons between tasks so the
+ * clock only needs to be read once when the wheel is advanced.
+ *
+ * <p>Tasks are made available at the end of the tick containing their execution time, so
+ * they may run up to one tick late. Tasks that are further out than one rotation of the
+ * wheel stay in their bucket until a later rotation reaches the execution time.</p>
+ *
+ * <p>A single lock protects the wheel. Similar to {@code DelayQueue}, one waiting thread is
+ * the leader that sleeps until the next tick, the others wait until signalled.</p>
+ */
+final class TimingWheel implements Scheduler.TaskQueue {
+
+  private final Clock clock;
+  private final long tickMillis;
+  private final int mask;
+  private final ArrayList<Scheduler.DelayedTask>[] buckets;
+
+  /** Tasks that have expired and are ready to be executed. */
+  private final ArrayDeque<Scheduler.DelayedTask> ready = new ArrayDeque<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+
+  /** Last tick that has been fully processed. */
+  private long processedTick;
+
+  /** Number of tasks in the buckets, does not include the ready tasks. */
+  private int pending;
+
+  /** Thread waiting for the next tick. */
+  private Thread leader;
+
+  /**
+   * Create a new instance.
+   *
+   * @param clock
+   *     Clock used for the execution times of the tasks.
+   * @param tickMillis
+   *     Duration of a tick in milliseconds. This is the granularity for when tasks will
+   *     get executed.
+   * @param size
+   *     Number of buckets in the wheel. It will be rounded up to a power of 2.
+   */
+  TimingWheel(Clock clock, long tickMillis, int size) {
+    Preconditions.checkArg(tickMillis > 0, "tick must be > 0");
+    Preconditions.checkArg(size > 0, "size must be > 0");
+    this.clock = clock;
+    this.tickMillis = tickMillis;
+    int n = Integer.highestOneBit(size - 1) << 1;
+    n = (n == 0) ? 1 : n;
+    this.mask = n - 1;
+    // Generic arrays cannot be created directly, all elements are set to
+    // ArrayList<DelayedTask> below so the cast is safe
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ArrayList<Scheduler.DelayedTask>[] tmp = new ArrayList[n];
+    for (int i = 0; i < n; ++i) {
+      tmp[i] = new ArrayList<>();
+    }
+    this.buckets = tmp;
+    this.processedTick = clock.wallTime() / tickMillis - 1;
+  }
+
+  @Override public void put(Scheduler.DelayedTask task) {
+    lock.lock();
+    try {
+      long time = task.getNextExecutionTime();
+      long tick = time / tickMillis;
+      if (tick <= processedTick || time <= clock.wallTime()) {
+        ready.add(task);
+      } else {
+        buckets[(int) (tick & mask)].add(task);
+        ++pending;
+      }
+      available.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public Scheduler.DelayedTask take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (true) {
+        Scheduler.DelayedTask task = ready.poll();
+        if (task != null) {
+          return task;
+        }
+
+        long now = clock.wallTime();
+        advance(now);
+        if (!ready.isEmpty()) {
+          continue;
+        }
+
+        if (pending == 0 || leader != null) {
+          available.await();
+        } else {
+          Thread thisThread = Thread.currentThread();
+          leader = thisThread;
+          try {
+            long waitMillis = Math.max(1L, (processedTick + 2) * tickMillis - now);
+            available.awaitNanos(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+          } finally {
+            if (leader == thisThread) {
+              leader = null;
+            }
+          }
+        }
+      }
+    } finally {
+      if (leader == null && (!ready.isEmpty() || pending > 0)) {
+        available.signal();
+      }
+      lock.unlock();
+    }
+  }
+
+  /** Move tasks from all ticks that have fully passed to the ready queue. */
+  private void advance(long now) {
+    long target = now / tickMillis - 1;
+    if (target <= processedTick) {
+      return;
+    }
+
+    // If more than a full rotation has passed, then each bucket only needs to be checked once
+    long n = Math.min(target - processedTick, mask + 1L);
+    for (long t = processedTick + 1; t <= processedTick + n; ++t) {
+      expire(buckets[(int) (t & mask)], now);
+    }
+    processedTick = target;
+  }
+
+  private void expire(ArrayList<Scheduler.DelayedTask> bucket, long now) {
+    int i = 0;
+    while (i < bucket.size()) {
+      Scheduler.DelayedTask task = bucket.get(i);
+      boolean done = task.isDone();
+      if (done || task.getNextExecutionTime() <= now) {
+        // Swap with the last element to avoid shifting the rest of the bucket
+        int last = bucket.size() - 1;
+        bucket.set(i, bucket.get(last));
+        bucket.remove(last);
+        --pending;
+        if (!done) {
+          ready.add(task);
+        }
+      } else {
+        ++i;
+      }
+    }
+  }
+
+  @Override public int size() {
+    lock.lock();
+    try {
+      return pending + ready.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * W-TinyLFU implementation of {@link Cache}. New entries are admitted to a small LRU window
+ * (~1% of the capacity). Entries that fall out of the window compete with the eviction victim of
+ * the main region and are only admitted if a count-min {@link FrequencySketch} estimates that they
+ * have been accessed more often. The main region is a segmented LRU: entries start in a probation
+ * segment and are promoted to a protected segment (~80% of the main region) when accessed again.
+ * This keeps hit ratios high for skewed distributions while still adapting when the set of hot
+ * keys shifts, since the sketch is periodically aged.
+ *
+ * <p>Reads are lock-free: a lookup is a {@link ConcurrentHashMap} get followed by recording the
+ * access in a lossy, striped ring buffer. The policy structures are only modified during
+ * maintenance, which runs under a try-lock when a read buffer fills up or after a write, so
+ * access order bookkeeping is batched rather than paid on each read. Recorded reads may be
+ * dropped under heavy contention, which only makes the policy slightly less precise.
+ *
+ * <p>Writes are best-effort in the same sense as the other implementations: the map may briefly
+ * exceed the maximum size until pending writes are applied by maintenance.
+ *
+ * <p><b>This class is an internal implementation detail only intended for use within spectator.
+ * It is subject to change without notice.</b></p>
+ */
+class TinyLfuCache<K, V> implements Cache<K, V> {
+
+  // Queue types for the nodes. DEAD indicates the node has been removed from the policy.
+  private static final int DEAD = 0;
+  private static final int WINDOW = 1;
+  private static final int PROBATION = 2;
+  private static final int PROTECTED = 3;
+
+  private static final int MAX_STRIPES = 64;
+
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  private final ConcurrentHashMap<K, Node<K, V>> data;
+
+  private final ReadBuffer<K, V>[] readBuffers;
+  private final int stripeMask;
+  private final Queue<Node<K, V>> writeBuffer;
+
+  // Guards all of the fields below, they are only accessed during maintenance.
+  private final Lock lock;
+
+  private final FrequencySketch sketch;
+  private final AccessOrderDeque<K, V> window;
+  private final AccessOrderDeque<K, V> probation;
+  private final AccessOrderDeque<K, V> protectedSegment;
+
+  private final int maxSize;
+  private final int windowMaxSize;
+  private final int protectedMaxSize;
+
+  TinyLfuCache(Registry registry, String id, int maxSize) {
+    this.hits = registry.counter("spectator.cache.requests", "id", id, "result", "hit");
+    this.misses = registry.counter("spectator.cache.requests", "id", id, "result", "miss");
+    this.evictions = registry.counter("spectator.cache.evictions", "id", id);
+    this.data = new ConcurrentHashMap<>();
+
+    int stripes = tableSize(Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES));
+    // Generic arrays cannot be created directly, all elements are set to ReadBuffer<K, V>
+    // below so the cast is safe
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ReadBuffer<K, V>[] buffers = new ReadBuffer[stripes];
+    for (int i = 0; i < stripes; ++i) {
+      buffers[i] = new ReadBuffer<>();
+    }
+    this.readBuffers = buffers;
+    this.stripeMask = stripes - 1;
+    this.writeBuffer = new ConcurrentLinkedQueue<>();
+
+    this.lock = new ReentrantLock();
+    this.maxSize = Math.max(1, maxSize);
+    this.windowMaxSize = Math.max(1, this.maxSize / 100);
+    this.protectedMaxSize = (this.maxSize - windowMaxSize) * 8 / 10;
+    this.sketch = new FrequencySketch(this.maxSize);
+    this.window = new AccessOrderDeque<>();
+    this.probation = new AccessOrderDeque<>();
+    this.protectedSegment = new AccessOrderDeque<>();
+  }
+
+  /** Record an access to the node, running maintenance if the read buffer is full. */
+  private void afterRead(Node<K, V> node) {
+    int stripe = mix((int) Thread.currentThread().getId()) & stripeMask;
+    if (readBuffers[stripe].offer(node)) {
+      tryMaintenance();
+    }
+  }
+
+  /** Queue the newly added node to be linked into the policy and run maintenance. */
+  private void afterWrite(Node<K, V> node) {
+    writeBuffer.offer(node);
+    tryMaintenance();
+  }
+
+  private void tryMaintenance() {
+    // Loop to avoid stranding writes added while another thread was holding the lock. The
+    // writer enqueues before trying the lock so either it gets the lock or the current holder
+    // will see the pending write after releasing it.
+    while (lock.tryLock()) {
+      try {
+        maintenance();
+      } finally {
+        lock.unlock();
+      }
+      if (writeBuffer.isEmpty()) {
+        break;
+      }
+    }
+  }
+
+  private void maintenance() {
+    for (ReadBuffer<K, V> buffer : readBuffers) {
+      buffer.drain(this::onAccess);
+    }
+    Node<K, V> node = writeBuffer.poll();
+    while (node != null) {
+      onAdd(node);
+      node = writeBuffer.poll();
+    }
+    evictEntries();
+  }
+
+  private void onAccess(Node<K, V> node) {
+    sketch.increment(node.key.hashCode());
+    switch (node.queue) {
+      case WINDOW:
+        window.moveToBack(node);
+        break;
+      case PROBATION:
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedSegment.addLast(node);
+        demoteFromProtected();
+        break;
+      case PROTECTED:
+        protectedSegment.moveToBack(node);
+        break;
+      default:
+        // Removed or not yet added, nothing to reorder
+        break;
+    }
+  }
+
+  private void onAdd(Node<K, V> node) {
+    // The entry may have been removed by clear() before the write was applied
+    if (node.queue == DEAD && data.get(node.key) == node) {
+      sketch.increment(node.key.hashCode());
+      node.queue = WINDOW;
+      window.addLast(node);
+    }
+  }
+
+  private void demoteFromProtected() {
+    while (protectedSegment.size() > protectedMaxSize) {
+      Node<K, V> node = protectedSegment.pollFirst();
+      node.queue = PROBATION;
+      probation.addLast(node);
+    }
+  }
+
+  /** Move entries that overflow the window to the probation segment as eviction candidates. */
+  private int evictFromWindow() {
+    int candidates = 0;
+    while (window.size() > windowMaxSize) {
+      Node<K, V> node = window.pollFirst();
+      node.queue = PROBATION;
+      probation.addLast(node);
+      ++candidates;
+    }
+    return candidates;
+  }
+
+  private void evictEntries() {
+    int candidates = evictFromWindow();
+    while (window.size() + probation.size() + protectedSegment.size() > maxSize) {
+      Node<K, V> victim = probation.peekFirst();
+      if (victim == null) {
+        victim = protectedSegment.peekFirst();
+      }
+      if (victim == null) {
+        victim = window.peekFirst();
+      }
+
+      Node<K, V> candidate = candidates > 0 ? probation.peekLast() : null;
+      if (candidate == null || candidate == victim) {
+        if (candidate != null) {
+          --candidates;
+        }
+        evict(victim);
+      } else if (admit(candidate, victim)) {
+        evict(victim);
+      } else {
+        --candidates;
+        evict(candidate);
+      }
+    }
+  }
+
+  private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+    return sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode());
+  }
+
+  private void evict(Node<K, V> node) {
+    switch (node.queue) {
+      case WINDOW:
+        window.remove(node);
+        break;
+      case PROBATION:
+        probation.remove(node);
+        break;
+      default:
+        protectedSegment.remove(node);
+        break;
+    }
+    node.queue = DEAD;
+    data.remove(node.key, node);
+    evictions.increment();
+  }
+
+  @Override public V get(K key) {
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      misses.increment();
+      return null;
+    } else {
+      hits.increment();
+      afterRead(node);
+      return node.value;
+    }
+  }
+
+  @Override public V peek(K key) {
+    Node<K, V> node = data.get(key);
+    return node == null ? null : node.value;
+  }
+
+  @Override public void put(K key, V value) {
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      node = new Node<>(key, value);
+      Node<K, V> prev = data.putIfAbsent(key, node);
+      if (prev == null) {
+        afterWrite(node);
+        return;
+      }
+      node = prev;
+    }
+    // Updating an existing entry counts as an access for the purposes of the policy
+    node.value = value;
+    afterRead(node);
+  }
+
+  @Override public V computeIfAbsent(K key, Function<K, V> f) {
+    Node<K, V> node = data.get(key);
+    if (node == null) {
+      misses.increment();
+      Node<K, V> tmp = new Node<>(key, f.apply(key));
+      node = data.putIfAbsent(key, tmp);
+      if (node == null) {
+        afterWrite(tmp);
+        return tmp.value;
+      }
+    } else {
+      hits.increment();
+    }
+    afterRead(node);
+    return node.value;
+  }
+
+  @Override public void clear() {
+    lock.lock();
+    try {
+      // Nodes are marked as dead by clearing the deques, so drained reads will be ignored
+      writeBuffer.clear();
+      window.clear();
+      probation.clear();
+      protectedSegment.clear();
+      data.clear();
+      for (ReadBuffer<K, V> buffer : readBuffers) {
+        buffer.drain(this::onAccess);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override public int size() {
+    return data.size();
+  }
+
+  @Override public Map<K, V> asMap() {
+    Map<K, V> m = new HashMap<>();
+    data.forEach((k, n) -> m.put(k, n.value));
+    return m;
+  }
+
+  /** Smallest power of two &gt;= max(1, n), capped at 2^30. */
+  static int tableSize(int n) {
+    if (n >= (1 << 30)) {
+      return 1 << 30;
+    }
+    int c = 1;
+    while (c < n) {
+      c <<= 1;
+    }
+    return c;
+  }
+
+  /** murmur3 fmix32 avalanche to spread clustered hash codes. */
+  static int mix(int h0) {
+    int h = h0;
+    h ^= (h >>> 16);
+    h *= 0x85ebca6b;
+    h ^= (h >>> 13);
+    h *= 0xc2b2ae35;
+    h ^= (h >>> 16);
+    return h;
+  }
+
+  private static final class Node<K, V> {
+    private final K key;
+    private volatile V value;
+
+    // Policy state, only accessed while holding the maintenance lock
+    private int queue;
+    private Node<K, V> prev;
+    private Node<K, V> next;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+      this.queue = DEAD;
+    }
+  }
+
+  /** Intrusive doubly linked list ordered from least to most recently used. */
+  private static final class AccessOrderDeque<K, V> {
+    private Node<K, V> head;
+    private Node<K, V> tail;
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    Node<K, V> peekFirst() {
+      return head;
+    }
+
+    Node<K, V> peekLast() {
+      return tail;
+    }
+
+    void addLast(Node<K, V> node) {
+      node.prev = tail;
+      node.next = null;
+      if (tail == null) {
+        head = node;
+      } else {
+        tail.next = node;
+      }
+      tail = node;
+      ++size;
+    }
+
+    Node<K, V> pollFirst() {
+      Node<K, V> node = head;
+      if (node != null) {
+        remove(node);
+      }
+      return node;
+    }
+
+    void remove(Node<K, V> node) {
+      if (node.prev == null) {
+        head = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        tail = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+      --size;
+    }
+
+    void moveToBack(Node<K, V> node) {
+      if (node != tail) {
+        remove(node);
+        addLast(node);
+      }
+    }
+
+    void clear() {
+      Node<K, V> node = head;
+      while (node != null) {
+        Node<K, V> next = node.next;
+        node.queue = DEAD;
+        node.prev = null;
+        node.next = null;
+        node = next;
+      }
+      head = null;
+      tail = null;
+      size = 0;
+    }
+  }
+
+  /**
+   * Lossy, bounded ring buffer of recorded reads. Any number of threads can add, but it is only
+   * drained by the thread holding the maintenance lock. If the buffer is full or the slot is
+   * contended then the read is dropped.
+   */
+  private static final class ReadBuffer<K, V> {
+    private static final int SIZE = 32;
+    private static final int MASK = SIZE - 1;
+
+    private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(SIZE);
+    private final AtomicLong writeCounter = new AtomicLong();
+    private volatile long readCounter;
+
+    /** Add the node to the buffer. Returns true if the buffer is full and should be drained. */
+    boolean offer(Node<K, V> node) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      long size = tail - head;
+      if (size >= SIZE) {
+        return true;
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        buffer.lazySet((int) (tail & MASK), node);
+        return size + 1 >= SIZE;
+      }
+      return false;
+    }
+
+    void drain(Consumer<Node<K, V>> consumer) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      for (; head < tail; ++head) {
+        int i = (int) (head & MASK);
+        Node<K, V> node = buffer.get(i);
+        if (node == null) {
+          // Slot has been claimed, but the writer has not yet stored the node
+          break;
+        }
+        buffer.lazySet(i, null);
+        consumer.accept(node);
+      }
+      readCounter = head;
+    }
+  }
+}
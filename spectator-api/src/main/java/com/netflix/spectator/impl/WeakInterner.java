@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical table that maps values to a single shared instance that is equal to them, similar
+ * to {@link String#intern()}. The canonical instances are weakly referenced so an entry will
+ * be removed once nothing else references it, for example after the meters using an id have
+ * expired and been removed from the registry.
+ *
+ * <p>Lookups for values that are already interned do not allocate beyond a small probe object
+ * that is typically eliminated by escape analysis. Values must be immutable and have a stable
+ * {@code hashCode} and {@code equals}.</p>
+ *
+ * <p><b>This class is an internal implementation detail only intended for use within spectator.
+ * It is subject to change without notice.</b></p>
+ */
+public final class WeakInterner<T> {
+
+  private final ConcurrentHashMap<Object, Ref<T>> table = new ConcurrentHashMap<>();
+  private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+  /**
+   * Returns the canonical instance that is equal to the value. If there is no such instance,
+   * then the value will be added to the table and returned.
+   */
+  public T intern(T value) {
+    removeCollected();
+    Ref<T> existing = table.get(new Probe(value));
+    if (existing != null) {
+      T canonical = existing.get();
+      if (canonical != null) {
+        return canonical;
+      }
+    }
+    return add(value);
+  }
+
+  private T add(T value) {
+    Ref<T> ref = new Ref<>(value, queue);
+    while (true) {
+      Ref<T> existing = table.putIfAbsent(ref, ref);
+      if (existing == null) {
+        return value;
+      }
+      T canonical = existing.get();
+      if (canonical != null) {
+        return canonical;
+      }
+      // Referent has been collected, but the reference has not been processed yet. Remove
+      // the stale entry and try again.
+      table.remove(existing, existing);
+    }
+  }
+
+  /** Remove entries for values that have been garbage collected. */
+  private void removeCollected() {
+    Reference<? extends T> ref = queue.poll();
+    while (ref != null) {
+      table.remove(ref, ref);
+      ref = queue.poll();
+    }
+  }
+
+  /** Returns the number of values in the table. */
+  public int size() {
+    removeCollected();
+    return table.size();
+  }
+
+  /**
+   * Weak reference used for the entries in the table. The hash code is precomputed so the
+   * entry can still be removed after the referent has been collected. A cleared reference is
+   * only equal to itself.
+   */
+  private static final class Ref<T> extends WeakReference<T> {
+    private final int hash;
+
+    Ref(T value, ReferenceQueue<T> queue) {
+      super(value, queue);
+      this.hash = value.hashCode();
+    }
+
+    @Override public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Ref<?>)) return false;
+      Object value = get();
+      return value != null && value.equals(((Ref<?>) obj).get());
+    }
+
+    @Override public int hashCode() {
+      return hash;
+    }
+  }
+
+  /**
+   * Used for lookups so a weak reference does not need to be allocated when the value is
+   * already present. The map will call {@code probe.equals(entry)}, so it only needs to
+   * support comparison against entries in the table.
+   */
+  private static final class Probe {
+    private final Object value;
+
+    Probe(Object value) {
+      this.value = value;
+    }
+
+    @Override public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Ref<?>)) return false;
+      Object other = ((Ref<?>) obj).get();
+      return value == other || value.equals(other);
+    }
+
+    @Override public int hashCode() {
+      return value.hashCode();
+    }
+  }
+}
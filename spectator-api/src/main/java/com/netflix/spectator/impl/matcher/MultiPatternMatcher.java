@@ -0,0 +1,474 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl.matcher;
+
+import com.netflix.spectator.impl.PatternMatcher;
+import com.netflix.spectator.impl.PatternMatcherSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Checks a set of patterns against a string in a single pass. A fixed string is selected for
+ * each pattern and all of them are compiled into an Aho-Corasick automaton. The input is
+ * scanned once to find the candidate patterns and only the candidates are then verified with
+ * the full matcher. Verification is skipped for patterns that are equivalent to a simple
+ * prefix or contains check.
+ */
+final class MultiPatternMatcher implements PatternMatcherSet {
+
+  /** Maximum number of OR clauses to expand when looking for fixed strings in a pattern. */
+  private static final int MAX_OR_CLAUSES = 16;
+
+  /** Indicates there is no transition or output for a state. */
+  private static final int NONE = -1;
+
+  /** Minimum number of patterns with a fixed string to use the index. */
+  private static final int MIN_INDEXED_PATTERNS = 4;
+
+  /** Maximum size of the dense transition table. */
+  private static final int MAX_TABLE_SIZE = 1 << 20;
+
+  private final PatternMatcher[] matchers;
+
+  /** Patterns where the key is the prefix, so matchesAfterPrefix can be used to verify. */
+  private final boolean[] afterPrefix;
+
+  /** Patterns where finding the key is sufficient and no verification is needed. */
+  private final boolean[] exact;
+
+  /** Patterns that match all strings. */
+  private final BitSet always;
+
+  /** Patterns without a fixed string that need to be checked for every input. */
+  private final int[] unindexed;
+
+  /** Number of patterns that are found using the index. */
+  private final int indexedSize;
+
+  // Automaton, state 0 is the root. Transitions for each state are stored as a sorted
+  // array of characters and a parallel array with the next state. ASCII transitions for the
+  // root are also stored in a lookup table as that is where most of the time is spent.
+  private final int[] rootNext;
+  private final char[][] labels;
+  private final int[][] next;
+  private final int[] fail;
+  private final int[] output;
+  private final int[] dict;
+
+  // Dense table with the transitions for ASCII characters after following the failure links.
+  // The characters are mapped to a class so the table only needs a column for the characters
+  // used in the keys, class 0 is for all other characters. If the table would be too large,
+  // then it will be null and the sparse transitions are used.
+  private final int[] charClasses;
+  private final int numClasses;
+  private final int[] table;
+
+  /** True if any key has a non-ASCII character. */
+  private final boolean nonAscii;
+
+  // Keys, indexed by the values in the output array
+  private final int[] keyLengths;
+  private final int[][] prefixPatterns;
+  private final int[][] containsPatterns;
+
+  /** Create a new instance. */
+  MultiPatternMatcher(List<String> patterns) {
+    this(patterns, MIN_INDEXED_PATTERNS);
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param patterns
+   *     Patterns to include in the set.
+   * @param minIndexedPatterns
+   *     Minimum number of patterns with a fixed string to use the index. Otherwise the
+   *     patterns will be checked individually.
+   */
+  MultiPatternMatcher(List<String> patterns, int minIndexedPatterns) {
+    final int n = patterns.size();
+    matchers = new PatternMatcher[n];
+    afterPrefix = new boolean[n];
+    exact = new boolean[n];
+    always = new BitSet(n);
+
+    List<List<Key>> patternKeys = new ArrayList<>(n);
+    int indexed = 0;
+    for (int i = 0; i < n; ++i) {
+      PatternMatcher m = PatternMatcher.compile(patterns.get(i));
+      matchers[i] = m;
+      List<Key> keys = null;
+      if (m.alwaysMatches()) {
+        always.set(i);
+      } else if (!m.neverMatches()) {
+        keys = keys(m);
+        if (keys != null) {
+          ++indexed;
+        }
+      }
+      patternKeys.add(keys);
+    }
+
+    // For a small number of patterns, scanning the string is more expensive than just
+    // checking the patterns individually
+    final boolean useIndex = indexed >= minIndexedPatterns;
+    indexedSize = useIndex ? indexed : 0;
+    Builder builder = new Builder();
+    List<Integer> unindexedList = new ArrayList<>();
+    for (int i = 0; i < n; ++i) {
+      PatternMatcher m = matchers[i];
+      List<Key> keys = patternKeys.get(i);
+      if (keys != null && useIndex) {
+        for (Key key : keys) {
+          builder.add(key, i);
+        }
+        if (keys.size() == 1) {
+          Key key = keys.get(0);
+          afterPrefix[i] = key.anchored;
+          exact[i] = key.anchored ? m.isPrefixMatcher() : m.isContainsMatcher();
+        }
+      } else if (!always.get(i) && !m.neverMatches()) {
+        unindexedList.add(i);
+      }
+    }
+    unindexed = unindexedList.stream().mapToInt(Integer::intValue).toArray();
+
+    final int states = builder.children.size();
+    labels = new char[states][];
+    next = new int[states][];
+    fail = new int[states];
+    output = new int[states];
+    dict = new int[states];
+    rootNext = new int[128];
+    Arrays.fill(rootNext, NONE);
+    for (int s = 0; s < states; ++s) {
+      Map<Character, Integer> children = builder.children.get(s);
+      labels[s] = new char[children.size()];
+      next[s] = new int[children.size()];
+      int j = 0;
+      for (Map.Entry<Character, Integer> entry : children.entrySet()) {
+        labels[s][j] = entry.getKey();
+        next[s][j] = entry.getValue();
+        ++j;
+      }
+      output[s] = builder.outputs.get(s);
+    }
+    for (int j = 0; j < labels[0].length; ++j) {
+      if (labels[0][j] < 128) {
+        rootNext[labels[0][j]] = next[0][j];
+      }
+    }
+    computeFailureLinks();
+
+    charClasses = new int[128];
+    int classes = 1;
+    boolean hasNonAscii = false;
+    for (char[] ls : labels) {
+      for (char c : ls) {
+        if (c >= 128) {
+          hasNonAscii = true;
+        } else if (charClasses[c] == 0) {
+          charClasses[c] = classes++;
+        }
+      }
+    }
+    numClasses = classes;
+    nonAscii = hasNonAscii;
+    table = (long) states * numClasses <= MAX_TABLE_SIZE ? createTable() : null;
+
+    final int keys = builder.keys.size();
+    keyLengths = new int[keys];
+    prefixPatterns = new int[keys][];
+    containsPatterns = new int[keys][];
+    for (int k = 0; k < keys; ++k) {
+      keyLengths[k] = builder.keys.get(k).length();
+      prefixPatterns[k] = toArray(builder.prefixPatterns.get(k));
+      containsPatterns[k] = toArray(builder.containsPatterns.get(k));
+    }
+  }
+
+  /**
+   * Select the fixed string to use for a pattern. The longer of the prefix and contained
+   * string is used as it will typically be more selective. Returns null if the pattern
+   * does not have a fixed string.
+   */
+  private static Key key(PatternMatcher m) {
+    String prefix = m.prefix();
+    String contained = m.containedString();
+    if (isEmpty(prefix) && isEmpty(contained)) {
+      return null;
+    } else if (isEmpty(contained) || (!isEmpty(prefix) && prefix.length() >= contained.length())) {
+      return new Key(prefix, true);
+    } else {
+      return new Key(contained, false);
+    }
+  }
+
+  private static boolean isEmpty(String s) {
+    return s == null || s.isEmpty();
+  }
+
+  /**
+   * Returns the keys to use for a pattern or null if it cannot be indexed. For OR patterns
+   * without a fixed string, the clauses are expanded and there will be a key for each
+   * clause. It can only be indexed if all of the clauses have a fixed string.
+   */
+  private static List<Key> keys(PatternMatcher m) {
+    Key key = key(m);
+    if (key != null) {
+      return Collections.singletonList(key);
+    }
+    List<PatternMatcher> clauses = m.expandOrClauses(MAX_OR_CLAUSES);
+    if (clauses == null || clauses.size() <= 1) {
+      return null;
+    }
+    List<Key> keys = new ArrayList<>(clauses.size());
+    for (PatternMatcher clause : clauses) {
+      Key k = key(clause);
+      if (k == null) {
+        return null;
+      }
+      keys.add(k);
+    }
+    return keys;
+  }
+
+  private static int[] toArray(List<Integer> values) {
+    return values.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /** Compute the failure and dictionary links in breadth first order. */
+  private void computeFailureLinks() {
+    fail[0] = 0;
+    dict[0] = NONE;
+    int[] queue = new int[fail.length];
+    int head = 0;
+    int tail = 0;
+    for (int t : next[0]) {
+      fail[t] = 0;
+      dict[t] = NONE;
+      queue[tail++] = t;
+    }
+    while (head < tail) {
+      int s = queue[head++];
+      for (int j = 0; j < labels[s].length; ++j) {
+        int t = next[s][j];
+        int f = step(fail[s], labels[s][j]);
+        fail[t] = f;
+        dict[t] = output[f] != NONE ? f : dict[f];
+        queue[tail++] = t;
+      }
+    }
+  }
+
+  /** Compute the dense transition table in breadth first order. */
+  private int[] createTable() {
+    char[] chars = new char[numClasses];
+    for (char c = 0; c < 128; ++c) {
+      chars[charClasses[c]] = c;
+    }
+    int[] t = new int[fail.length * numClasses];
+    int[] queue = new int[fail.length];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = 0;
+    while (head < tail) {
+      int s = queue[head++];
+      int offset = s * numClasses;
+      // Class 0 is for characters that are not used in any key
+      t[offset] = 0;
+      for (int k = 1; k < numClasses; ++k) {
+        int n = transition(s, chars[k]);
+        if (n != NONE) {
+          t[offset + k] = n;
+        } else {
+          t[offset + k] = s == 0 ? 0 : t[fail[s] * numClasses + k];
+        }
+      }
+      for (int n : next[s]) {
+        queue[tail++] = n;
+      }
+    }
+    return t;
+  }
+
+  private int transition(int s, char c) {
+    if (s == 0 && c < 128) {
+      return rootNext[c];
+    }
+    int idx = Arrays.binarySearch(labels[s], c);
+    return idx >= 0 ? next[s][idx] : NONE;
+  }
+
+  private int step(int s, char c) {
+    int state = s;
+    while (true) {
+      int t = transition(state, c);
+      if (t != NONE) {
+        return t;
+      } else if (state == 0) {
+        return 0;
+      }
+      state = fail[state];
+    }
+  }
+
+  @Override
+  public int size() {
+    return matchers.length;
+  }
+
+  @Override
+  public PatternMatcher get(int i) {
+    return matchers[i];
+  }
+
+  @Override
+  public int indexedSize() {
+    return indexedSize;
+  }
+
+  @Override
+  public void matches(String str, BitSet result) {
+    result.clear();
+    if (keyLengths.length > 0) {
+      findCandidates(str, result);
+    }
+
+    // Verify the candidates
+    for (int p = result.nextSetBit(0); p >= 0; p = result.nextSetBit(p + 1)) {
+      if (!exact[p]) {
+        PatternMatcher m = matchers[p];
+        boolean matched = afterPrefix[p] ? m.matchesAfterPrefix(str) : m.matches(str);
+        if (!matched) {
+          result.clear(p);
+        }
+      }
+    }
+
+    result.or(always);
+    for (int p : unindexed) {
+      if (matchers[p].matches(str)) {
+        result.set(p);
+      }
+    }
+  }
+
+  /** Scan the string and set the patterns where the key was found. */
+  private void findCandidates(String str, BitSet result) {
+    // Copy fields to locals so they do not need to be reloaded after updating the result
+    final int[] t = table;
+    final int[] cls = charClasses;
+    final int w = numClasses;
+    final int[] out = output;
+    final int[] links = dict;
+    final boolean sparseNonAscii = nonAscii;
+
+    final int n = str.length();
+    int s = 0;
+    for (int i = 0; i < n; ++i) {
+      char c = str.charAt(i);
+      if (c < 128 && t != null) {
+        s = t[s * w + cls[c]];
+      } else if (c >= 128 && !sparseNonAscii) {
+        s = 0;
+      } else {
+        s = step(s, c);
+      }
+      int o = out[s] != NONE ? s : links[s];
+      while (o != NONE) {
+        found(out[o], i, result);
+        o = links[o];
+      }
+    }
+  }
+
+  /** Update the result for a key that was found ending at the specified position. */
+  private void found(int k, int end, BitSet result) {
+    for (int p : containsPatterns[k]) {
+      result.set(p);
+    }
+    if (end + 1 == keyLengths[k]) {
+      for (int p : prefixPatterns[k]) {
+        result.set(p);
+      }
+    }
+  }
+
+  /** Fixed string used to index a pattern. */
+  private static final class Key {
+    private final String value;
+    private final boolean anchored;
+
+    Key(String value, boolean anchored) {
+      this.value = value;
+      this.anchored = anchored;
+    }
+  }
+
+  /** Mutable trie used to build the automaton. */
+  private static final class Builder {
+    private final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+    private final List<Integer> outputs = new ArrayList<>();
+
+    private final Map<String, Integer> keyIds = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<List<Integer>> prefixPatterns = new ArrayList<>();
+    private final List<List<Integer>> containsPatterns = new ArrayList<>();
+
+    Builder() {
+      newState();
+    }
+
+    private int newState() {
+      children.add(new TreeMap<>());
+      outputs.add(NONE);
+      return children.size() - 1;
+    }
+
+    void add(Key key, int pattern) {
+      Integer id = keyIds.get(key.value);
+      if (id == null) {
+        id = keys.size();
+        keyIds.put(key.value, id);
+        keys.add(key.value);
+        prefixPatterns.add(new ArrayList<>());
+        containsPatterns.add(new ArrayList<>());
+        int s = 0;
+        for (int i = 0; i < key.value.length(); ++i) {
+          Integer t = children.get(s).get(key.value.charAt(i));
+          if (t == null) {
+            t = newState();
+            children.get(s).put(key.value.charAt(i), t);
+          }
+          s = t;
+        }
+        outputs.set(s, id);
+      }
+      List<Integer> ps = key.anchored ? prefixPatterns.get(id) : containsPatterns.get(id);
+      if (ps.isEmpty() || ps.get(ps.size() - 1) != pattern) {
+        ps.add(pattern);
+      }
+    }
+  }
+}
@@ -17,6 +17,7 @@ package com.netflix.spectator.impl.matcher;
 
 import com.netflix.spectator.impl.PatternExpr;
 import com.netflix.spectator.impl.PatternMatcher;
+import com.netflix.spectator.impl.PatternMatcherSet;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -57,6 +58,14 @@ public final class PatternUtils {
     return ignoreCase ? m.ignoreCase() : m;
   }
 
+  /**
+   * Compile a list of pattern strings to a set that can be used to check which of the patterns
+   * match a string value in a single pass.
+   */
+  public static PatternMatcherSet compileSet(List<String> patterns) {
+    return new MultiPatternMatcher(patterns);
+  }
+
   private static String context(String str, int pos) {
     StringBuilder builder = new StringBuilder();
     for (int i = 0; i < pos; ++i) {
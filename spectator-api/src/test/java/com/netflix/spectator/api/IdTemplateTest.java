@@ -0,0 +1,125 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.api;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IdTemplateTest {
+
+  @Test
+  public void noKeys() {
+    IdTemplate template = IdTemplate.of("foo");
+    Id id = template.withValues();
+    Assertions.assertEquals(Id.create("foo"), id);
+    Assertions.assertEquals(Id.create("foo").hashCode(), id.hashCode());
+  }
+
+  @Test
+  public void singleKey() {
+    IdTemplate template = IdTemplate.of("foo", "a");
+    Id id = template.withValues("1");
+    Assertions.assertEquals(Id.create("foo").withTag("a", "1"), id);
+  }
+
+  @Test
+  public void unsortedKeys() {
+    IdTemplate template = IdTemplate.of("foo", "c", "a", "b");
+    Id id = template.withValues("3", "1", "2");
+    Id expected = Id.create("foo").withTags("a", "1", "b", "2", "c", "3");
+    Assertions.assertEquals(expected, id);
+    Assertions.assertEquals(expected.toString(), id.toString());
+  }
+
+  @Test
+  public void hashCodeMatches() {
+    IdTemplate template = IdTemplate.of("foo", "status", "method", "country", "device");
+    String[][] values = {
+        {"200", "GET", "US", "xbox"},
+        {"503", "POST", "BR", "ps4"},
+        {"", "", "", ""}
+    };
+    for (String[] vs : values) {
+      Id id = template.withValues(vs);
+      Id expected = Id.create("foo").withTags(
+          "status", vs[0], "method", vs[1], "country", vs[2], "device", vs[3]);
+      Assertions.assertEquals(expected.hashCode(), id.hashCode());
+      Assertions.assertEquals(expected, id);
+    }
+  }
+
+  @Test
+  public void baseId() {
+    Id base = Id.create("foo").withTags("nf.app", "test", "status", "default", "z", "last");
+    IdTemplate template = IdTemplate.of(base, "status", "a");
+    Id id = template.withValues("200", "1");
+    Id expected = base.withTags("status", "200", "a", "1");
+    Assertions.assertEquals(expected, id);
+    Assertions.assertEquals(expected.hashCode(), id.hashCode());
+  }
+
+  @Test
+  public void templateIsReusable() {
+    IdTemplate template = IdTemplate.of("foo", "a", "b");
+    Id id1 = template.withValues("1", "2");
+    Id id2 = template.withValues("3", "4");
+    Assertions.assertEquals(Id.create("foo").withTags("a", "1", "b", "2"), id1);
+    Assertions.assertEquals(Id.create("foo").withTags("a", "3", "b", "4"), id2);
+  }
+
+  @Test
+  public void withTagOnResult() {
+    Id id = IdTemplate.of("foo", "b").withValues("2").withTag("a", "1");
+    Assertions.assertEquals(Id.create("foo").withTags("a", "1", "b", "2"), id);
+  }
+
+  @Test
+  public void usableWithRegistry() {
+    Registry registry = new DefaultRegistry();
+    IdTemplate template = IdTemplate.of("foo", "a");
+    registry.counter(template.withValues("1")).increment();
+    registry.counter(template.withValues("1")).increment();
+    Assertions.assertEquals(2, registry.counter("foo", "a", "1").count());
+  }
+
+  @Test
+  public void duplicateKeys() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> IdTemplate.of("foo", "a", "a"));
+  }
+
+  @Test
+  public void nullKey() {
+    Assertions.assertThrows(NullPointerException.class, () -> IdTemplate.of("foo", "a", null));
+  }
+
+  @Test
+  public void nullValue() {
+    IdTemplate template = IdTemplate.of("foo", "a");
+    Assertions.assertThrows(NullPointerException.class, () -> template.withValues((String) null));
+  }
+
+  @Test
+  public void wrongNumberOfValues() {
+    IdTemplate template = IdTemplate.of("foo", "a", "b");
+    Assertions.assertThrows(IllegalArgumentException.class, () -> template.withValues("1"));
+  }
+
+  @Test
+  public void templateToString() {
+    IdTemplate template = IdTemplate.of("foo", "b", "a");
+    Assertions.assertEquals("IdTemplate(foo, keys=[b, a])", template.toString());
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.api;
+
+import com.netflix.spectator.api.patterns.PolledMeter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MeterProfilerTest {
+
+  private final ManualClock clock = new ManualClock();
+
+  private DefaultRegistry newRegistry(int sampleRate) {
+    RegistryConfig config = k -> "profilingSampleRate".equals(k)
+        ? Integer.toString(sampleRate)
+        : null;
+    return new DefaultRegistry(clock, config);
+  }
+
+  @Test
+  public void disabledByDefault() {
+    Registry registry = new DefaultRegistry(clock);
+    Assertions.assertNull(((AbstractRegistry) registry).profiler());
+    registry.counter("test").increment();
+    Assertions.assertEquals(1, registry.counter("test").count());
+  }
+
+  @Test
+  public void topUpdates() {
+    DefaultRegistry registry = newRegistry(1);
+    MeterProfiler profiler = registry.profiler();
+    Assertions.assertNotNull(profiler);
+
+    for (int i = 0; i < 10; ++i) {
+      registry.counter("a").increment();
+    }
+    for (int i = 0; i < 5; ++i) {
+      registry.timer("b").record(1, TimeUnit.SECONDS);
+    }
+    registry.distributionSummary("c").record(42);
+    registry.gauge("d").set(1.0);
+    registry.maxGauge("d").set(1.0);
+
+    List<MeterProfiler.Entry> entries = profiler.snapshot(3).topUpdates();
+    Assertions.assertEquals(3, entries.size());
+    Assertions.assertEquals("a", entries.get(0).id().name());
+    Assertions.assertEquals(10, entries.get(0).value());
+    Assertions.assertEquals(10, entries.get(0).secondary());
+    Assertions.assertEquals("b", entries.get(1).id().name());
+    Assertions.assertEquals(5, entries.get(1).value());
+    Assertions.assertEquals("d", entries.get(2).id().name());
+    Assertions.assertEquals(2, entries.get(2).value());
+  }
+
+  @Test
+  public void spaceSavingEviction() {
+    Registry registry = new DefaultRegistry(clock);
+    MeterProfiler profiler = new MeterProfiler(registry, 1, 2);
+    Id a = registry.createId("a");
+    Id b = registry.createId("b");
+    Id c = registry.createId("c");
+
+    profiler.update(a);
+    profiler.update(a);
+    profiler.update(a);
+    profiler.update(b);
+    profiler.update(c);
+
+    // c replaces b, inheriting the count of 1 as the error
+    List<MeterProfiler.Entry> entries = profiler.snapshot(10).topUpdates();
+    Assertions.assertEquals(2, entries.size());
+    Assertions.assertEquals(a, entries.get(0).id());
+    Assertions.assertEquals(3, entries.get(0).value());
+    Assertions.assertEquals(c, entries.get(1).id());
+    Assertions.assertEquals(2, entries.get(1).value());
+    Assertions.assertEquals(1, entries.get(1).secondary());
+  }
+
+  @Test
+  public void sampledCountsAreScaled() {
+    Registry registry = new DefaultRegistry(clock);
+    MeterProfiler profiler = new MeterProfiler(registry, 10);
+    Id id = registry.createId("a");
+    for (int i = 0; i < 100_000; ++i) {
+      profiler.update(id);
+    }
+    long estimate = profiler.snapshot(1).topUpdates().get(0).value();
+    Assertions.assertEquals(0, estimate % 10);
+    Assertions.assertTrue(estimate > 90_000 && estimate < 110_000, "estimate: " + estimate);
+  }
+
+  @Test
+  public void pollTime() {
+    DefaultRegistry registry = newRegistry(1);
+    AtomicLong value = PolledMeter.using(registry)
+        .withName("polled")
+        .monitorValue(new AtomicLong(), v -> {
+          clock.setMonotonicTime(clock.monotonicTime() + 5_000L);
+          return v.get();
+        });
+    PolledMeter.update(registry);
+    PolledMeter.update(registry);
+
+    List<MeterProfiler.Entry> entries = registry.profiler().snapshot(10).slowestPolls();
+    Assertions.assertEquals(1, entries.size());
+    Assertions.assertEquals("polled", entries.get(0).id().name());
+    Assertions.assertEquals(5_000L, entries.get(0).value());
+    Assertions.assertEquals(10_000L, entries.get(0).secondary());
+    Assertions.assertEquals(0L, value.get());
+  }
+
+  @Test
+  public void measureTime() {
+    DefaultRegistry registry = newRegistry(1);
+    MeterProfiler profiler = registry.profiler();
+    Counter c = registry.counter("a");
+    profiler.recordMeasure(c, 100L);
+    profiler.recordMeasure(c, 300L);
+
+    MeterProfiler.MeasureStats stats = profiler.snapshot(10)
+        .measureStats()
+        .get(c.getClass().getSimpleName());
+    Assertions.assertEquals(2, stats.count());
+    Assertions.assertEquals(400L, stats.totalTime());
+    Assertions.assertEquals(300L, stats.maxTime());
+  }
+
+  @Test
+  public void largestNames() {
+    DefaultRegistry registry = newRegistry(1);
+    for (int i = 0; i < 5; ++i) {
+      registry.counter("a", "i", "" + i);
+    }
+    registry.counter("b");
+
+    List<MeterProfiler.Entry> entries = registry.profiler().snapshot(1).largestNames();
+    Assertions.assertEquals(1, entries.size());
+    Assertions.assertEquals("a", entries.get(0).id().name());
+    Assertions.assertEquals(5, entries.get(0).value());
+  }
+
+  @Test
+  public void reportAndReset() {
+    DefaultRegistry registry = newRegistry(1);
+    Registry debug = new DefaultRegistry(clock);
+    registry.counter("a", "i", "1").increment();
+    registry.counter("a", "i", "2").increment();
+    registry.profiler().recordMeasure(registry.counter("b"), 2_000_000_000L);
+
+    registry.profiler().report(debug, 10);
+    String type = registry.counter("b").getClass().getSimpleName();
+    Assertions.assertEquals(2.0,
+        debug.gauge("spectator.profile.updates", "id", "a").value(), 1e-12);
+    Assertions.assertEquals(2.0,
+        debug.gauge("spectator.profile.series", "id", "a").value(), 1e-12);
+    Assertions.assertEquals(2.0,
+        debug.gauge("spectator.profile.measureTime", "type", type).value(), 1e-12);
+
+    MeterProfiler.Snapshot snapshot = registry.profiler().snapshot(10);
+    Assertions.assertTrue(snapshot.topUpdates().isEmpty());
+    Assertions.assertTrue(snapshot.measureStats().isEmpty());
+  }
+}
@@ -52,6 +52,39 @@ public class RegistryTest {
     Assertions.assertEquals(id1, id2);
   }
 
+  private DefaultRegistry newInterningRegistry() {
+    return new DefaultRegistry(clock, k -> "internIds".equals(k) ? "true" : null);
+  }
+
+  @Test
+  public void testCreateIdInterned() {
+    Registry r = newInterningRegistry();
+    Id id1 = r.createId("foo", "bar", "baz", "k", "v");
+    Id id2 = r.createId("foo", ArrayTagSet.create("k", "v").add(new BasicTag("bar", "baz")));
+    Assertions.assertSame(id1, id2);
+  }
+
+  @Test
+  public void testCreateIdNotInternedByDefault() {
+    Registry r = newRegistry(true, 10000);
+    Id id1 = r.createId("foo", "k", "v");
+    Id id2 = r.createId("foo", "k", "v");
+    Assertions.assertEquals(id1, id2);
+    Assertions.assertNotSame(id1, id2);
+  }
+
+  @Test
+  public void testMeterIdInterned() {
+    Registry r = newInterningRegistry();
+    Id id = r.createId("foo", "k", "v");
+    Counter c1 = r.counter(Id.create("foo").withTag("k", "v"));
+    Counter c2 = r.counter("foo", "k", "v");
+    Assertions.assertSame(id, c1.id());
+    Assertions.assertSame(id, c2.id());
+    c1.increment();
+    Assertions.assertEquals(1, c2.count());
+  }
+
   @Test
   public void testCreateIdArrayOdd() {
     Assertions.assertThrows(IllegalArgumentException.class, () -> {
@@ -543,6 +576,45 @@ public class RegistryTest {
     }
   }
 
+  @Test
+  public void repeatedLookupReturnsSameWrapper() {
+    Registry r = newRegistry(true, 10000);
+    Id id = r.createId("test");
+    Assertions.assertSame(r.counter(id), r.counter(id));
+    Assertions.assertSame(r.timer("timer"), r.timer("timer"));
+    Assertions.assertSame(r.distributionSummary("ds"), r.distributionSummary("ds"));
+    Assertions.assertSame(r.gauge("gauge"), r.gauge("gauge"));
+    Assertions.assertSame(r.maxGauge("maxGauge"), r.maxGauge("maxGauge"));
+  }
+
+  @Test
+  public void wrapperNotReusedForDefaultMeter() {
+    Registry r = newRegistry(false, 1);
+    r.counter("a").increment();
+    Counter c = r.counter("b");
+    c.increment();
+    Assertions.assertEquals(0, c.count());
+    Assertions.assertNotSame(c, r.counter("b"));
+  }
+
+  @Test
+  public void wrapperRefreshedAfterExpiration() {
+    ManualClock clock = new ManualClock();
+    ExpiringRegistry registry = new ExpiringRegistry(clock);
+    Counter c1 = registry.counter("test");
+    c1.increment();
+
+    clock.setWallTime(60000 * 30);
+    registry.removeExpiredMeters();
+    Assertions.assertEquals(0, registry.counters().count());
+
+    Counter c2 = registry.counter("test");
+    c2.increment();
+    Assertions.assertEquals(1, c1.count());
+    Assertions.assertEquals(1, c2.count());
+    Assertions.assertSame(c2, registry.counter("test"));
+  }
+
   @Test
   public void uncaughtExceptionFromGaugeFunction() {
     Assertions.assertThrows(RuntimeException.class, () -> {
@@ -293,6 +293,116 @@ public class CardinalityLimitersTest {
     Assertions.assertTrue(values.size() < 2 * numFrequentValues);
   }
 
+  @Test
+  public void heavyHittersUnderLimit() {
+    int n = 27;
+    ManualClock clock = new ManualClock(0L, 0L);
+    Function<String, String> f = CardinalityLimiters.heavyHitters(n, clock);
+    for (int t = 0; t < 1000; ++t) {
+      for (int i = 0; i < n; ++i) {
+        Assertions.assertEquals("" + i, f.apply("" + i));
+      }
+      clock.setWallTime(t * 1000);
+    }
+  }
+
+  @Test
+  public void heavyHittersIsUsed() {
+    ManualClock clock = new ManualClock(0L, 0L);
+    Function<String, String> f = CardinalityLimiters.heavyHitters(2, clock);
+
+    // First values seen are used until the frequencies are refreshed
+    updateN(f, 5, "c");
+    updateN(f, 5, "d");
+    updateN(f, 200, "a");
+    updateN(f, 100, "b");
+    Assertions.assertEquals("c", f.apply("c"));
+    Assertions.assertEquals(CardinalityLimiters.OTHERS, f.apply("a"));
+
+    // After refresh the most frequent values are selected
+    advanceClock(clock);
+    Assertions.assertEquals("a", f.apply("a"));
+    Assertions.assertEquals("b", f.apply("b"));
+    Assertions.assertEquals(CardinalityLimiters.OTHERS, f.apply("c"));
+    Assertions.assertEquals(CardinalityLimiters.OTHERS, f.apply("d"));
+
+    // Until the next refresh, "d" won't show up no matter how frequent
+    updateN(f, 1000, "d");
+    Assertions.assertEquals(CardinalityLimiters.OTHERS, f.apply("d"));
+
+    // Now "d" is most frequent
+    advanceClock(clock);
+    Assertions.assertEquals("d", f.apply("d"));
+  }
+
+  @Test
+  public void heavyHittersAllUnique() {
+    // If every value is unique, for example a request id, then there are no heavy hitters
+    // and almost everything should get mapped to others.
+    ManualClock clock = new ManualClock(0L, 0L);
+    Function<String, String> f = CardinalityLimiters.heavyHitters(2, clock);
+    Set<String> values = new TreeSet<>();
+    for (int i = 0; i < 100_000; ++i) {
+      values.add(f.apply("" + i));
+      clock.setWallTime(i * 1000);
+    }
+    Assertions.assertTrue(values.size() < 10, "too many values: " + values.size());
+    Assertions.assertTrue(f.toString().length() < 200);
+  }
+
+  @Test
+  public void heavyHittersWithChurn() {
+    // Random paths mixed in with a small set of frequent values
+    ManualClock clock = new ManualClock(0L, 0L);
+    Function<String, String> f = CardinalityLimiters.heavyHitters(5, clock);
+    Random r = new Random(42);
+    Set<String> values = new TreeSet<>();
+    for (int t = 0; t < 240; ++t) {
+      for (int i = 0; i < 100; ++i) {
+        values.add(f.apply("/path/" + r.nextLong()));
+        if (i % 10 == 0) {
+          values.add(f.apply("/frequent/" + (i / 10) % 3));
+        }
+      }
+      if (t == 60) {
+        values.clear();
+      }
+      clock.setWallTime(t * 60000);
+    }
+    Set<String> expected = new TreeSet<>();
+    expected.add("/frequent/0");
+    expected.add("/frequent/1");
+    expected.add("/frequent/2");
+    expected.add(CardinalityLimiters.OTHERS);
+    Assertions.assertEquals(expected, values);
+  }
+
+  @Test
+  public void heavyHittersTransitionTime() {
+    ManualClock clock = new ManualClock(0L, 0L);
+    Function<String, String> f = CardinalityLimiters.heavyHitters(2, clock);
+    Set<String> values = new TreeSet<>();
+
+    // Lots of activity on old asg
+    long i = 0;
+    for (; i < 1_000_000; ++i) {
+      values.add(f.apply("app-a-v001"));
+      values.add(f.apply("app-b-v001"));
+      clock.setWallTime(i * 1000);
+    }
+
+    // Activity moved to new asg
+    for (; i < 2_000_000; ++i) {
+      values.add(f.apply("app-a-v002"));
+      values.add(f.apply("app-b-v001"));
+      clock.setWallTime(i * 1000);
+    }
+
+    Assertions.assertTrue(values.contains("app-a-v002"));
+    Assertions.assertEquals("app-a-v002", f.apply("app-a-v002"));
+    Assertions.assertEquals(CardinalityLimiters.OTHERS, f.apply("app-a-v001"));
+  }
+
   @Test
   public void rollupNegative() {
     Function<String, String> f = CardinalityLimiters.rollup(-2);
@@ -396,6 +506,15 @@ public class CardinalityLimitersTest {
     checkSerde(limiter);
   }
 
+  @Test
+  public void heavyHittersSerializability() {
+    Function<String, String> limiter = CardinalityLimiters.heavyHitters(2);
+    limiter.apply("a");
+    limiter.apply("b");
+    limiter.apply("c");
+    checkSerde(limiter);
+  }
+
   @Test
   public void rollupSerializability() {
     Function<String, String> limiter = CardinalityLimiters.rollup(2);
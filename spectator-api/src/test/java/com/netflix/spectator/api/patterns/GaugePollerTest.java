@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.api.patterns;
+
+import com.netflix.spectator.api.Clock;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+public class GaugePollerTest {
+
+  private static void await(CountDownLatch latch) throws Exception {
+    Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS), "timed out waiting for poll");
+  }
+
+  private static void waitUntil(BooleanSupplier done) throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!done.getAsBoolean()) {
+      Assertions.assertTrue(System.nanoTime() < deadline, "timed out waiting for update");
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void batchedByRegistryAndDelay() throws Exception {
+    Registry r = new DefaultRegistry();
+    int n = 100;
+    CountDownLatch latch = new CountDownLatch(n);
+    List<Object> values = new ArrayList<>();
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < n; ++i) {
+      Object v = new Object();
+      values.add(v);
+      futures.add(GaugePoller.schedule(r, new WeakReference<>(v), 1L, obj -> latch.countDown()));
+    }
+    await(latch);
+
+    // Single task per shard rather than one for each function
+    Assertions.assertEquals(GaugePoller.SHARDS, GaugePoller.batchCount(r));
+    waitUntil(() -> r.timer("spectator.gauge.pollTime", "delay", "PT0.001S").count() > 0);
+    Assertions.assertTrue(r.timer("spectator.gauge.pollLag", "delay", "PT0.001S").count() > 0);
+
+    futures.forEach(f -> f.cancel(true));
+    waitUntil(() -> GaugePoller.batchCount(r) == 0);
+    Assertions.assertEquals(n, values.size());
+  }
+
+  @Test
+  public void cancelStopsPolling() throws Exception {
+    Registry r = new DefaultRegistry();
+    Object v = new Object();
+    AtomicInteger count = new AtomicInteger();
+    Future<?> future = GaugePoller.schedule(
+        r, new WeakReference<>(v), 1L, obj -> count.incrementAndGet());
+    waitUntil(() -> count.get() > 0);
+
+    Assertions.assertTrue(future.cancel(true));
+    Assertions.assertTrue(future.isCancelled());
+    Assertions.assertThrows(CancellationException.class, future::get);
+
+    // Allow any in-flight poll to complete
+    Thread.sleep(20);
+    int before = count.get();
+    Thread.sleep(20);
+    Assertions.assertEquals(before, count.get());
+  }
+
+  @Test
+  public void exceptionCancelsEntry() throws Exception {
+    Registry r = new DefaultRegistry();
+    Object v = new Object();
+    Future<?> future = GaugePoller.schedule(r, new WeakReference<>(v), 1L, obj -> {
+      throw new IllegalStateException("failed");
+    });
+    waitUntil(future::isDone);
+    Assertions.assertTrue(future.isCancelled());
+  }
+
+  @Test
+  public void collectedReferenceCancelsEntry() throws Exception {
+    Registry r = new DefaultRegistry();
+    WeakReference<Object> ref = new WeakReference<>(new Object());
+    ref.clear();
+    Future<?> future = GaugePoller.schedule(r, ref, 1L, obj -> {});
+    waitUntil(future::isDone);
+    Assertions.assertTrue(future.isCancelled());
+  }
+
+  @Test
+  public void overBudgetFunctionIsIsolated() throws Exception {
+    Registry r = new DefaultRegistry(
+        Clock.SYSTEM, k -> "gaugePollingBudget".equals(k) ? "PT0.001S" : null);
+    Object v = new Object();
+    AtomicInteger slowCount = new AtomicInteger();
+    AtomicReference<String> thread = new AtomicReference<>();
+    Future<?> slow = GaugePoller.schedule(r, new WeakReference<>(v), 1L, obj -> {
+      slowCount.incrementAndGet();
+      thread.set(Thread.currentThread().getName());
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    Counter overBudget = r.counter("spectator.gauge.pollOverBudget", "delay", "PT0.001S");
+    waitUntil(() -> overBudget.count() > 0);
+
+    // Function is still polled after being moved out of the batch, but using the
+    // separate executor
+    int before = slowCount.get();
+    waitUntil(() -> slowCount.get() > before + 1);
+    Assertions.assertEquals(1, overBudget.count());
+    Assertions.assertTrue(thread.get().startsWith("spectator-gauge-polling-isolated-"));
+
+    slow.cancel(true);
+    Thread.sleep(20);
+    int after = slowCount.get();
+    Thread.sleep(20);
+    Assertions.assertEquals(after, slowCount.get());
+  }
+
+  @Test
+  public void emptyBatchIsRemoved() throws Exception {
+    Registry r = new DefaultRegistry();
+    Object v = new Object();
+    AtomicInteger count = new AtomicInteger();
+    Future<?> future = GaugePoller.schedule(
+        r, new WeakReference<>(v), 3L, obj -> count.incrementAndGet());
+    waitUntil(() -> count.get() > 0);
+    future.cancel(true);
+
+    // Schedule again after the batch may have been closed, should still get polled
+    Thread.sleep(20);
+    AtomicInteger count2 = new AtomicInteger();
+    Future<?> future2 = GaugePoller.schedule(
+        r, new WeakReference<>(v), 3L, obj -> count2.incrementAndGet());
+    waitUntil(() -> count2.get() > 0);
+    future2.cancel(true);
+  }
+}
@@ -19,6 +19,14 @@ import com.netflix.spectator.api.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 public class LongTaskTimerTest {
   private final ManualClock clock = new ManualClock();
   private final Registry registry = new DefaultRegistry(clock);
@@ -114,4 +122,91 @@ public class LongTaskTimerTest {
     Registry noop = new NoopRegistry();
     LongTaskTimer.get(noop, noop.createId("task"));
   }
+
+  @Test
+  public void manyConcurrentTasks() {
+    com.netflix.spectator.api.LongTaskTimer t = LongTaskTimer.get(registry, id);
+    int n = 100_000;
+    long[] tasks = new long[n];
+    Set<Long> ids = new HashSet<>();
+    for (int i = 0; i < n; ++i) {
+      clock.setMonotonicTime(i);
+      tasks[i] = t.start();
+      Assertions.assertTrue(ids.add(tasks[i]));
+    }
+    Assertions.assertEquals(n, t.activeTasks());
+
+    clock.setMonotonicTime(n);
+    long expected = 0L;
+    for (int i = 0; i < n; ++i) {
+      expected += n - i;
+    }
+    Assertions.assertEquals(expected, t.duration());
+    Assertions.assertEquals(n, t.duration(tasks[0]));
+
+    for (int i = 0; i < n; i += 2) {
+      Assertions.assertEquals(n - i, t.stop(tasks[i]));
+      expected -= n - i;
+    }
+    Assertions.assertEquals(n / 2, t.activeTasks());
+    Assertions.assertEquals(expected, t.duration());
+  }
+
+  @Test
+  public void staleTaskIdAfterSlotReuse() {
+    com.netflix.spectator.api.LongTaskTimer t = LongTaskTimer.get(registry, id);
+    Set<Long> stopped = new HashSet<>();
+    for (int i = 0; i < 10_000; ++i) {
+      long task = t.start();
+      Assertions.assertFalse(stopped.contains(task));
+      Assertions.assertEquals(0L, t.stop(task));
+      stopped.add(task);
+    }
+    long active = t.start();
+    for (long task : stopped) {
+      Assertions.assertEquals(-1L, t.stop(task));
+      Assertions.assertEquals(-1L, t.duration(task));
+    }
+    Assertions.assertEquals(1, t.activeTasks());
+    Assertions.assertEquals(0L, t.stop(active));
+  }
+
+  @Test
+  public void invalidTaskId() {
+    com.netflix.spectator.api.LongTaskTimer t = LongTaskTimer.get(registry, id);
+    Assertions.assertEquals(-1L, t.stop(-1L));
+    Assertions.assertEquals(-1L, t.stop(Long.MAX_VALUE));
+    Assertions.assertEquals(-1L, t.duration(0L));
+  }
+
+  @Test
+  public void concurrentStartStop() throws Exception {
+    com.netflix.spectator.api.LongTaskTimer t = LongTaskTimer.get(registry, id);
+    clock.setMonotonicTime(42L);
+    int threads = 8;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; ++i) {
+        futures.add(pool.submit(() -> {
+          long[] tasks = new long[1000];
+          for (int j = 0; j < 100; ++j) {
+            for (int k = 0; k < tasks.length; ++k) {
+              tasks[k] = t.start();
+            }
+            for (long task : tasks) {
+              Assertions.assertEquals(0L, t.stop(task));
+            }
+          }
+        }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    Assertions.assertEquals(0, t.activeTasks());
+    Assertions.assertEquals(0L, t.duration());
+  }
 }
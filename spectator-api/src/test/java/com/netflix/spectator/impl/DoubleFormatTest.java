@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class DoubleFormatTest {
+
+  private static String format(double v, boolean trailingZero) {
+    byte[] buffer = new byte[DoubleFormat.MAX_LENGTH + 2];
+    buffer[0] = 'x';
+    int end = DoubleFormat.format(buffer, 1, v, trailingZero);
+    Assertions.assertEquals('x', buffer[0]);
+    Assertions.assertTrue(end - 1 <= DoubleFormat.MAX_LENGTH);
+    return new String(buffer, 1, end - 1, StandardCharsets.US_ASCII);
+  }
+
+  @Test
+  public void integers() {
+    Assertions.assertEquals("0", format(0.0, false));
+    Assertions.assertEquals("0.0", format(0.0, true));
+    Assertions.assertEquals("42", format(42.0, false));
+    Assertions.assertEquals("42.0", format(42.0, true));
+    Assertions.assertEquals("-42", format(-42.0, false));
+    Assertions.assertEquals("-42.0", format(-42.0, true));
+  }
+
+  @Test
+  public void negativeZero() {
+    Assertions.assertEquals("-0", format(-0.0, false));
+    Assertions.assertEquals("-0.0", format(-0.0, true));
+  }
+
+  @Test
+  public void fractions() {
+    Assertions.assertEquals("0.1", format(0.1, false));
+    Assertions.assertEquals("0.1", format(0.1, true));
+    Assertions.assertEquals("-0.05", format(-0.05, false));
+    Assertions.assertEquals("0.0001", format(1e-4, false));
+    Assertions.assertEquals("123.456", format(123.456, true));
+  }
+
+  @Test
+  public void fallbackToJdk() {
+    Assertions.assertEquals("1.0E20", format(1e20, false));
+    Assertions.assertEquals("1.0E-300", format(1e-300, true));
+    Assertions.assertEquals(
+        Double.toString(-Double.MIN_NORMAL), format(-Double.MIN_NORMAL, false));
+  }
+
+  @Test
+  public void roundTrip() {
+    Random r = new Random(42);
+    for (int i = 0; i < 100_000; ++i) {
+      double v = Double.longBitsToDouble(r.nextLong());
+      if (Double.isNaN(v) || Double.isInfinite(v)) {
+        continue;
+      }
+      Assertions.assertEquals(v, Double.parseDouble(format(v, false)));
+      Assertions.assertEquals(v, Double.parseDouble(format(v, true)));
+
+      double d = r.nextInt(1_000_000) / 1000.0;
+      Assertions.assertEquals(d, Double.parseDouble(format(d, false)));
+    }
+  }
+}
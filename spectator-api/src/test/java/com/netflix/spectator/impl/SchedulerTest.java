@@ -19,6 +19,7 @@ import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.ManualClock;
 import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -211,4 +212,60 @@ public class SchedulerTest {
     s.shutdown();
   }
 
+  @Test
+  public void timingWheelFixedDelay() throws Exception {
+    Scheduler s = new Scheduler(new DefaultRegistry(), "wheel", 2, Duration.ofMillis(1));
+
+    Scheduler.Options opts = new Scheduler.Options()
+        .withFrequency(Scheduler.Policy.FIXED_DELAY, Duration.ofMillis(10));
+
+    final CountDownLatch latch = new CountDownLatch(5);
+    ScheduledFuture<?> f = s.schedule(opts, latch::countDown);
+
+    Assertions.assertTrue(latch.await(60, TimeUnit.SECONDS));
+    Assertions.assertFalse(f.isDone());
+    f.cancel(false);
+    s.shutdown();
+  }
+
+  @Test
+  public void timingWheelManyTasks() throws Exception {
+    Registry registry = new DefaultRegistry();
+    Scheduler s = new Scheduler(registry, "wheel", 2, Duration.ofMillis(5));
+
+    Scheduler.Options opts = new Scheduler.Options()
+        .withInitialDelay(Duration.ofMillis(20))
+        .withFrequency(Scheduler.Policy.FIXED_RATE_SKIP_IF_LONG, Duration.ofMillis(50));
+
+    final int n = 10_000;
+    final CountDownLatch latch = new CountDownLatch(n * 2);
+    for (int i = 0; i < n; ++i) {
+      s.schedule(opts, latch::countDown);
+    }
+
+    Assertions.assertTrue(latch.await(60, TimeUnit.SECONDS));
+    s.shutdown();
+
+    // Tasks can run up to a tick late, allow plenty of slack for slow build machines
+    Timer delay = registry.timer("spectator.scheduler.taskExecutionDelay", "id", "wheel");
+    Assertions.assertTrue(delay.count() >= n * 2);
+    double meanMillis = delay.totalTime() / 1e6 / delay.count();
+    Assertions.assertTrue(meanMillis < 1000.0, "mean delay " + meanMillis + "ms");
+  }
+
+  @Test
+  public void timingWheelCancel() throws Exception {
+    Scheduler s = new Scheduler(new DefaultRegistry(), "wheel", 1, Duration.ofMillis(1));
+
+    Scheduler.Options opts = new Scheduler.Options()
+        .withFrequency(Scheduler.Policy.FIXED_DELAY, Duration.ofMillis(5));
+
+    final CountDownLatch latch = new CountDownLatch(3);
+    ScheduledFuture<?> f = s.schedule(opts, latch::countDown);
+    Assertions.assertTrue(latch.await(60, TimeUnit.SECONDS));
+
+    f.cancel(false);
+    Assertions.assertTrue(f.isDone());
+    s.shutdown();
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+import com.netflix.spectator.api.ManualClock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TimingWheelTest {
+
+  private static Scheduler.DelayedTask task(ManualClock clock, long delay) {
+    Scheduler.Options options = new Scheduler.Options()
+        .withInitialDelay(Duration.ofMillis(delay));
+    return new Scheduler.DelayedTask(clock, options, () -> {});
+  }
+
+  @Test
+  public void readyTaskAvailableImmediately() throws Exception {
+    ManualClock clock = new ManualClock();
+    clock.setWallTime(1000L);
+    TimingWheel wheel = new TimingWheel(clock, 10L, 16);
+    Scheduler.DelayedTask t = task(clock, 0L);
+    wheel.put(t);
+    Assertions.assertEquals(1, wheel.size());
+    Assertions.assertSame(t, wheel.take());
+    Assertions.assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void futureTaskExpiresAfterTick() throws Exception {
+    ManualClock clock = new ManualClock();
+    clock.setWallTime(1000L);
+    TimingWheel wheel = new TimingWheel(clock, 10L, 16);
+    Scheduler.DelayedTask t1 = task(clock, 25L);
+    Scheduler.DelayedTask t2 = task(clock, 55L);
+    wheel.put(t1);
+    wheel.put(t2);
+    Assertions.assertEquals(2, wheel.size());
+
+    clock.setWallTime(1030L);
+    Assertions.assertSame(t1, wheel.take());
+    Assertions.assertEquals(1, wheel.size());
+
+    clock.setWallTime(1060L);
+    Assertions.assertSame(t2, wheel.take());
+    Assertions.assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void multipleRotations() throws Exception {
+    ManualClock clock = new ManualClock();
+    clock.setWallTime(1000L);
+    TimingWheel wheel = new TimingWheel(clock, 10L, 4);
+
+    // Both map to the same bucket, but are several rotations apart
+    Scheduler.DelayedTask t1 = task(clock, 15L);
+    Scheduler.DelayedTask t2 = task(clock, 175L);
+    wheel.put(t1);
+    wheel.put(t2);
+
+    clock.setWallTime(1100L);
+    Assertions.assertSame(t1, wheel.take());
+    Assertions.assertEquals(1, wheel.size());
+
+    clock.setWallTime(1190L);
+    Assertions.assertSame(t2, wheel.take());
+  }
+
+  @Test
+  public void largeJumpExpiresAllTasks() throws Exception {
+    ManualClock clock = new ManualClock();
+    clock.setWallTime(1000L);
+    TimingWheel wheel = new TimingWheel(clock, 1L, 8);
+    Set<Scheduler.DelayedTask> expected = new HashSet<>();
+    for (int i = 1; i <= 100; ++i) {
+      Scheduler.DelayedTask t = task(clock, i * 7L);
+      expected.add(t);
+      wheel.put(t);
+    }
+
+    clock.setWallTime(100_000L);
+    Set<Scheduler.DelayedTask> actual = new HashSet<>();
+    for (int i = 0; i < 100; ++i) {
+      actual.add(wheel.take());
+    }
+    Assertions.assertEquals(expected, actual);
+    Assertions.assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void cancelledTasksAreDropped() throws Exception {
+    ManualClock clock = new ManualClock();
+    clock.setWallTime(1000L);
+    TimingWheel wheel = new TimingWheel(clock, 10L, 16);
+    Scheduler.DelayedTask t1 = task(clock, 20L);
+    Scheduler.DelayedTask t2 = task(clock, 40L);
+    wheel.put(t1);
+    wheel.put(t2);
+    t1.cancel(false);
+
+    clock.setWallTime(1100L);
+    Assertions.assertSame(t2, wheel.take());
+    Assertions.assertEquals(0, wheel.size());
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TinyLfuCacheTest {
+
+  private Registry registry;
+
+  @BeforeEach
+  public void before() {
+    registry = new DefaultRegistry();
+  }
+
+  private long hits() {
+    return registry
+        .counter("spectator.cache.requests", "id", "test", "result", "hit")
+        .count();
+  }
+
+  private long misses() {
+    return registry
+        .counter("spectator.cache.requests", "id", "test", "result", "miss")
+        .count();
+  }
+
+  private long evictions() {
+    return registry
+        .counter("spectator.cache.evictions", "id", "test")
+        .count();
+  }
+
+  private Cache<String, String> create(int maxSize) {
+    return Cache.tinyLfu(registry, "test", maxSize);
+  }
+
+  private String[] createTestData() {
+    int n = 10000;
+    String[] values = new String[n];
+
+    int i = 0;
+    int amount = 140;
+    while (i < n && amount > 0) {
+      String v = UUID.randomUUID().toString();
+      for (int j = 0; j < amount; ++j) {
+        values[i] = v;
+        ++i;
+      }
+      --amount;
+    }
+
+    for (; i < values.length; ++i) {
+      values[i] = UUID.randomUUID().toString();
+    }
+
+    List<String> list = Arrays.asList(values);
+    Collections.shuffle(list);
+
+    return list.toArray(new String[0]);
+  }
+
+  @Test
+  public void putGet() {
+    Cache<String, String> cache = create(100);
+    cache.put("a", "A");
+    Assertions.assertEquals("A", cache.get("a"));
+    Assertions.assertNull(cache.get("b"));
+    Assertions.assertEquals(1, hits());
+    Assertions.assertEquals(1, misses());
+  }
+
+  @Test
+  public void putOverwrite() {
+    Cache<String, String> cache = create(100);
+    cache.put("a", "A");
+    cache.put("a", "B");
+    Assertions.assertEquals("B", cache.get("a"));
+    Assertions.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void peekDoesNotCount() {
+    Cache<String, String> cache = create(100);
+    cache.put("a", "A");
+    Assertions.assertEquals("A", cache.peek("a"));
+    Assertions.assertNull(cache.peek("b"));
+    Assertions.assertEquals(0, hits());
+    Assertions.assertEquals(0, misses());
+  }
+
+  @Test
+  public void computeIfAbsent() {
+    Cache<String, String> cache = create(100);
+    Assertions.assertEquals("A", cache.computeIfAbsent("a", String::toUpperCase));
+    Assertions.assertEquals(0, hits());
+    Assertions.assertEquals(1, misses());
+  }
+
+  @Test
+  public void computeIfAbsentRepeat() {
+    Cache<String, String> cache = create(100);
+    Assertions.assertEquals("A", cache.computeIfAbsent("a", String::toUpperCase));
+    Assertions.assertEquals("A", cache.computeIfAbsent("a", s -> {
+      // Shouldn't get called since key is cached
+      throw new RuntimeException("fail");
+    }));
+    Assertions.assertEquals(1, hits());
+    Assertions.assertEquals(1, misses());
+  }
+
+  @Test
+  public void clear() {
+    Cache<String, String> cache = create(100);
+    cache.put("a", "A");
+    Assertions.assertEquals(1, cache.size());
+    cache.clear();
+    Assertions.assertEquals(0, cache.size());
+    Assertions.assertNull(cache.get("a"));
+
+    // Still usable after clearing
+    cache.put("b", "B");
+    Assertions.assertEquals("B", cache.get("b"));
+  }
+
+  @Test
+  public void boundedSize() {
+    Cache<String, String> cache = create(64);
+    for (int i = 0; i < 10_000; ++i) {
+      String v = UUID.randomUUID().toString();
+      cache.put(v, v);
+    }
+    Assertions.assertEquals(64, cache.size());
+    Assertions.assertEquals(10_000 - 64, evictions());
+  }
+
+  @Test
+  public void frequentEntriesSurviveScan() {
+    Cache<String, String> cache = create(100);
+    Map<String, String> expected = new HashMap<>();
+    for (int i = 0; i < 50; ++i) {
+      String k = "hot-" + i;
+      expected.put(k, k);
+      for (int j = 0; j < 20; ++j) {
+        cache.computeIfAbsent(k, s -> s);
+      }
+    }
+
+    // A scan of keys that are only accessed once should not flush out the frequent entries
+    // that are still in use. With LRU the scan would evict each hot key between accesses.
+    for (int i = 0; i < 10_000; ++i) {
+      String k = "scan-" + i;
+      cache.computeIfAbsent(k, s -> s);
+      if (i % 10 == 0) {
+        String hot = "hot-" + (i / 10) % 50;
+        cache.computeIfAbsent(hot, s -> s);
+      }
+    }
+
+    Map<String, String> actual = cache.asMap();
+    for (String k : expected.keySet()) {
+      Assertions.assertEquals(k, actual.get(k), "missing frequent entry: " + k);
+    }
+    Assertions.assertTrue(cache.size() <= 100);
+  }
+
+  @Test
+  public void computeIfAbsentHitRate() {
+    Cache<String, String> cache = create(1000);
+    for (String s : createTestData()) {
+      cache.computeIfAbsent(s, String::toUpperCase);
+    }
+    Assertions.assertEquals(9730, hits());
+    Assertions.assertEquals(270, misses());
+  }
+
+  @Test
+  public void hitRateWhenOverCapacity() {
+    // Test data has 140 values accessed many times and 270 values in total. With capacity
+    // for only 100 entries the frequency based admission should keep most of the hot set.
+    String[] data = createTestData();
+    Cache<String, String> cache = create(100);
+    for (String s : data) {
+      cache.computeIfAbsent(s, String::toUpperCase);
+    }
+    double hitRate = (double) hits() / (hits() + misses());
+    Assertions.assertTrue(hitRate > 0.8, "hit rate too low: " + hitRate);
+  }
+
+  @Test
+  public void concurrentAccessAndClearDoNotThrow() throws Exception {
+    Cache<String, String> cache = create(256);
+    int workers = 8;
+    int iterations = 20_000;
+    ExecutorService pool = Executors.newFixedThreadPool(workers + 1);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int w = 0; w < workers; ++w) {
+      final int id = w;
+      futures.add(pool.submit(() -> {
+        try {
+          start.await();
+          for (int i = 0; i < iterations; ++i) {
+            String k = "k" + id + "-" + (i & 1023);
+            cache.put(k, k);
+            cache.get(k);
+            cache.computeIfAbsent(k, x -> x);
+          }
+        } catch (Throwable e) {
+          error.compareAndSet(null, e);
+        }
+      }));
+    }
+    futures.add(pool.submit(() -> {
+      try {
+        start.await();
+        for (int i = 0; i < 1000; ++i) {
+          cache.clear();
+        }
+      } catch (Throwable e) {
+        error.compareAndSet(null, e);
+      }
+    }));
+    start.countDown();
+    for (Future<?> f : futures) {
+      f.get();
+    }
+    pool.shutdown();
+    Assertions.assertNull(error.get(), () -> "unexpected exception: " + error.get());
+
+    // Once quiescent, a final write triggers maintenance and brings the size back under the max
+    cache.put("final", "final");
+    Assertions.assertTrue(cache.size() <= 256, "size exceeds max: " + cache.size());
+  }
+}
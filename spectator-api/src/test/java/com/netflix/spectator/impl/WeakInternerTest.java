@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl;
+
+import com.netflix.spectator.api.Id;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WeakInternerTest {
+
+  @Test
+  public void sameInstanceForEqualValues() {
+    WeakInterner<Id> interner = new WeakInterner<>();
+    Id id1 = interner.intern(Id.create("foo").withTag("a", "1"));
+    Id id2 = interner.intern(Id.create("foo").withTag("a", "1"));
+    Assertions.assertEquals(id1, id2);
+    Assertions.assertSame(id1, id2);
+    Assertions.assertEquals(1, interner.size());
+  }
+
+  @Test
+  public void differentValues() {
+    WeakInterner<Id> interner = new WeakInterner<>();
+    Id id1 = interner.intern(Id.create("foo").withTag("a", "1"));
+    Id id2 = interner.intern(Id.create("foo").withTag("a", "2"));
+    Assertions.assertNotEquals(id1, id2);
+    Assertions.assertEquals(2, interner.size());
+  }
+
+  @Test
+  public void firstValueIsCanonical() {
+    WeakInterner<String> interner = new WeakInterner<>();
+    String s1 = new String("foo");
+    String s2 = new String("foo");
+    Assertions.assertSame(s1, interner.intern(s1));
+    Assertions.assertSame(s1, interner.intern(s2));
+  }
+
+  @Test
+  public void unreferencedValuesAreRemoved() throws Exception {
+    WeakInterner<String> interner = new WeakInterner<>();
+    List<String> retained = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      String s = interner.intern("value-" + i);
+      if (i < 10) {
+        retained.add(s);
+      }
+    }
+
+    for (int i = 0; i < 50 && interner.size() > retained.size(); ++i) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    Assertions.assertEquals(retained.size(), interner.size());
+    for (String s : retained) {
+      Assertions.assertSame(s, interner.intern(new String(s)));
+    }
+  }
+}
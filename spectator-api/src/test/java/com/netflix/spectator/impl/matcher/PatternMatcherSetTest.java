@@ -0,0 +1,216 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.impl.matcher;
+
+import com.netflix.spectator.impl.PatternMatcher;
+import com.netflix.spectator.impl.PatternMatcherSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+public class PatternMatcherSetTest extends AbstractPatternMatcherTest {
+
+  @Override
+  protected void testRE(String regex, String value) {
+    Pattern pattern = Pattern.compile("^.*(" + regex + ")", Pattern.DOTALL);
+    List<String> patterns = Arrays.asList("^foo", regex, "bar", regex, "(?i)baz");
+    boolean expected = pattern.matcher(value).find();
+    List<PatternMatcherSet> sets =
+        Arrays.asList(PatternMatcher.compileSet(patterns), indexedSet(patterns));
+    for (PatternMatcherSet set : sets) {
+      BitSet result = set.matches(value);
+      String message = regex + (expected ? " should match " : " shouldn't match ") + value;
+      Assertions.assertEquals(expected, result.get(1), message);
+      Assertions.assertEquals(expected, result.get(3), message);
+      checkSameAsIndividual(set, value);
+    }
+  }
+
+  /** Always use the index even for small sets. */
+  private PatternMatcherSet indexedSet(List<String> patterns) {
+    return new MultiPatternMatcher(patterns, 1);
+  }
+
+  private PatternMatcherSet indexedSet(String... patterns) {
+    return indexedSet(Arrays.asList(patterns));
+  }
+
+  private void checkSameAsIndividual(PatternMatcherSet set, String value) {
+    BitSet expected = new BitSet();
+    for (int i = 0; i < set.size(); ++i) {
+      if (set.get(i).matches(value)) {
+        expected.set(i);
+      }
+    }
+    Assertions.assertEquals(expected, set.matches(value), value);
+  }
+
+  private BitSet bits(int... indices) {
+    BitSet result = new BitSet();
+    for (int i : indices) {
+      result.set(i);
+    }
+    return result;
+  }
+
+  @Test
+  public void empty() {
+    PatternMatcherSet set = PatternMatcher.compileSet(Collections.emptyList());
+    Assertions.assertEquals(0, set.size());
+    Assertions.assertTrue(set.matches("foo").isEmpty());
+  }
+
+  @Test
+  public void prefixAndContains() {
+    PatternMatcherSet set = indexedSet("^abc", "abc", "^bcd", "bcd", "cd$", "^a.*d");
+    Assertions.assertEquals(bits(0, 1, 3, 4, 5), set.matches("abcd"));
+    Assertions.assertEquals(bits(1, 2, 3), set.matches("bcdabc"));
+    Assertions.assertEquals(bits(3, 4), set.matches("xbcd"));
+    Assertions.assertEquals(bits(), set.matches("ab"));
+  }
+
+  @Test
+  public void overlappingKeys() {
+    PatternMatcherSet set = indexedSet("he", "she", "his", "hers", "^she", "s.*he");
+    Assertions.assertEquals(bits(0, 1, 3, 5), set.matches("ushers"));
+    Assertions.assertEquals(bits(0, 1, 4, 5), set.matches("she"));
+    Assertions.assertEquals(bits(2), set.matches("this"));
+  }
+
+  @Test
+  public void verifyCandidates() {
+    PatternMatcherSet set = indexedSet("^foo.*bar$", "foo[0-9]+bar", "^x.*foo");
+    Assertions.assertEquals(bits(0), set.matches("foo-bar"));
+    Assertions.assertEquals(bits(0, 1), set.matches("foo42bar"));
+    Assertions.assertEquals(bits(), set.matches("foo-bar-baz"));
+    Assertions.assertEquals(bits(2), set.matches("x-foo-bar-baz"));
+  }
+
+  @Test
+  public void orClauses() {
+    PatternMatcherSet set = indexedSet("(abc|def)", "^(ghi|jkl)", "(abc|[0-9]+)");
+    Assertions.assertEquals(bits(0, 2), set.matches("xabc"));
+    Assertions.assertEquals(bits(0, 1), set.matches("ghidef"));
+    Assertions.assertEquals(bits(), set.matches("xghi"));
+    Assertions.assertEquals(bits(2), set.matches("x42"));
+  }
+
+  @Test
+  public void alwaysAndNever() {
+    PatternMatcherSet set = indexedSet(".*", "foo", "$abc", "");
+    Assertions.assertEquals(bits(0, 1, 3), set.matches("foo"));
+    Assertions.assertEquals(bits(0, 3), set.matches("abc"));
+  }
+
+  @Test
+  public void ignoreCase() {
+    PatternMatcherSet set = indexedSet("(?i)foo", "foo");
+    Assertions.assertEquals(bits(0, 1), set.matches("foo"));
+    Assertions.assertEquals(bits(0), set.matches("FOO"));
+  }
+
+  @Test
+  public void nonAscii() {
+    PatternMatcherSet set = indexedSet("été", "^é");
+    Assertions.assertEquals(bits(0, 1), set.matches("été"));
+    Assertions.assertEquals(bits(0), set.matches("l'été"));
+  }
+
+  @Test
+  public void reuseResult() {
+    PatternMatcherSet set = indexedSet("foo", "bar");
+    BitSet result = new BitSet();
+    set.matches("foo", result);
+    Assertions.assertEquals(bits(0), result);
+    set.matches("bar", result);
+    Assertions.assertEquals(bits(1), result);
+  }
+
+  @Test
+  public void getMatcher() {
+    PatternMatcherSet set = indexedSet("foo", "^bar");
+    Assertions.assertEquals(2, set.size());
+    Assertions.assertEquals(PatternMatcher.compile("foo"), set.get(0));
+    Assertions.assertEquals(PatternMatcher.compile("^bar"), set.get(1));
+  }
+
+  @Test
+  public void smallSetNotIndexed() {
+    PatternMatcherSet set = PatternMatcher.compileSet(Arrays.asList("foo", "^bar", "baz$"));
+    Assertions.assertEquals(bits(0, 1, 2), set.matches("barfoobaz"));
+    Assertions.assertEquals(bits(0), set.matches("foo"));
+    Assertions.assertEquals(bits(), set.matches("baz-bar"));
+    Assertions.assertEquals(0, set.indexedSize());
+  }
+
+  @Test
+  public void indexedSize() {
+    PatternMatcherSet set = PatternMatcher.compileSet(
+        Arrays.asList("foo", "^bar", "baz$", ".*", "[a-z]+", "^abc.*def"));
+    Assertions.assertEquals(4, set.indexedSize());
+    Assertions.assertEquals(bits(0, 3, 4), set.matches("xfoo"));
+  }
+
+  @Test
+  public void invalidPattern() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> PatternMatcher.compileSet(Arrays.asList("foo", "(bar")));
+  }
+
+  @Test
+  public void randomSameAsIndividual() {
+    Random r = new Random(42);
+    String alphabet = "abc-";
+    List<String> patterns = new ArrayList<>();
+    for (int i = 0; i < 200; ++i) {
+      StringBuilder builder = new StringBuilder();
+      if (r.nextBoolean()) {
+        builder.append('^');
+      }
+      int segments = 1 + r.nextInt(3);
+      for (int j = 0; j < segments; ++j) {
+        if (j > 0) {
+          builder.append(r.nextBoolean() ? ".*" : "|");
+        }
+        int length = 1 + r.nextInt(3);
+        for (int k = 0; k < length; ++k) {
+          builder.append(alphabet.charAt(r.nextInt(alphabet.length())));
+        }
+      }
+      if (r.nextInt(4) == 0) {
+        builder.append('$');
+      }
+      patterns.add(builder.toString());
+    }
+    PatternMatcherSet set = PatternMatcher.compileSet(patterns);
+    Assertions.assertTrue(set instanceof MultiPatternMatcher);
+    for (int i = 0; i < 1000; ++i) {
+      StringBuilder value = new StringBuilder();
+      int length = r.nextInt(12);
+      for (int k = 0; k < length; ++k) {
+        value.append(alphabet.charAt(r.nextInt(alphabet.length())));
+      }
+      checkSameAsIndividual(set, value.toString());
+    }
+  }
+}
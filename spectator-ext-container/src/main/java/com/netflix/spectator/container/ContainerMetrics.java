@@ -0,0 +1,333 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.container;
+
+import com.netflix.spectator.api.Gauge;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
+import com.netflix.spectator.container.StatFile.Format;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Collects process metrics from {@code /proc/self} and container metrics from the cgroup v1
+ * or v2 filesystem. The set of files and the meters to update are determined once when the
+ * instance is created. Each update reads the files into a reused buffer and parses the
+ * values directly from the bytes.
+ *
+ * <p>The following metrics are reported if the source files are available:</p>
+ *
+ * <ul>
+ *   <li><b>cgroup.cpu.usage:</b> counter of CPU time in seconds, tagged with
+ *   {@code id} of {@code user} or {@code system}.</li>
+ *   <li><b>cgroup.cpu.periods:</b> counter of enforcement periods for the CPU quota.</li>
+ *   <li><b>cgroup.cpu.throttledPeriods:</b> counter of periods where the cgroup was
+ *   throttled.</li>
+ *   <li><b>cgroup.cpu.throttledTime:</b> counter of time in seconds that the cgroup was
+ *   throttled.</li>
+ *   <li><b>cgroup.cpu.pressure:</b> counter of time in seconds that tasks were stalled
+ *   waiting for CPU, tagged with {@code id} of {@code some} or {@code full}. Only
+ *   available for cgroup v2.</li>
+ *   <li><b>cgroup.mem.used:</b> gauge with the memory usage in bytes.</li>
+ *   <li><b>cgroup.mem.limit:</b> gauge with the memory limit in bytes. Not reported if
+ *   there is no limit.</li>
+ *   <li><b>cgroup.mem.stat:</b> gauges for the breakdown of memory usage in bytes, tagged
+ *   with {@code id} of {@code anon}, {@code file}, {@code dirty}, or
+ *   {@code writeback}.</li>
+ *   <li><b>cgroup.mem.majorFaults:</b> counter of major page faults.</li>
+ *   <li><b>cgroup.mem.refaults:</b> counter of page cache refaults, pages that were
+ *   evicted and then needed again. Only available for cgroup v2.</li>
+ *   <li><b>cgroup.mem.pressure:</b> counter of time in seconds that tasks were stalled
+ *   waiting for memory, tagged with {@code id} of {@code some} or {@code full}. Only
+ *   available for cgroup v2.</li>
+ *   <li><b>cgroup.io.bytes:</b> counter of bytes transferred for block devices, tagged
+ *   with {@code id} of {@code read} or {@code write}.</li>
+ *   <li><b>cgroup.io.ops:</b> counter of operations for block devices, tagged with
+ *   {@code id} of {@code read} or {@code write}.</li>
+ *   <li><b>process.rss:</b> gauge with the resident set size in bytes.</li>
+ *   <li><b>process.threads:</b> gauge with the number of threads.</li>
+ *   <li><b>process.fds:</b> gauge with the number of open file descriptors.</li>
+ *   <li><b>process.contextSwitches:</b> counter of context switches, tagged with
+ *   {@code id} of {@code voluntary} or {@code involuntary}.</li>
+ * </ul>
+ */
+public final class ContainerMetrics {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ContainerMetrics.class);
+
+  /**
+   * Values at or above this are treated as unlimited for cgroup v1 limits. The kernel
+   * reports the max long value rounded down to the page size.
+   */
+  private static final long UNLIMITED = Long.MAX_VALUE / 2;
+
+  private static final double MICROS = 1e-6;
+  private static final double NANOS = 1e-9;
+
+  /** USER_HZ, the unit for the times in {@code cpuacct.stat}, is fixed at 100. */
+  private static final double TICKS = 1e-2;
+
+  /**
+   * Start collecting metrics using {@code /proc/self} and {@code /sys/fs/cgroup}. The
+   * files will be read once per polling interval for the registry.
+   *
+   * @param registry
+   *     Registry to update.
+   * @return
+   *     Future that can be used to stop the collection.
+   */
+  public static ScheduledFuture<?> monitor(Registry registry) {
+    return monitor(registry, Paths.get("/proc/self"), Paths.get("/sys/fs/cgroup"));
+  }
+
+  /**
+   * Start collecting metrics using the specified locations for the proc and cgroup
+   * filesystems. The files will be read once per polling interval for the registry.
+   *
+   * @param registry
+   *     Registry to update.
+   * @param procSelf
+   *     Directory with the proc files for the process, typically {@code /proc/self}.
+   * @param cgroupRoot
+   *     Mount point for the cgroup filesystem, typically {@code /sys/fs/cgroup}.
+   * @return
+   *     Future that can be used to stop the collection.
+   */
+  public static ScheduledFuture<?> monitor(Registry registry, Path procSelf, Path cgroupRoot) {
+    ContainerMetrics metrics = new ContainerMetrics(registry, procSelf, cgroupRoot);
+    return PolledMeter.poll(registry, metrics::update);
+  }
+
+  private final Registry registry;
+  private final FileBuffer buffer = new FileBuffer();
+  private final StatFile[] files;
+  private final Path fdDir;
+  private final Gauge fds;
+
+  /** Create a new instance. */
+  ContainerMetrics(Registry registry, Path procSelf, Path cgroupRoot) {
+    this.registry = registry;
+    List<StatFile> stats = new ArrayList<>();
+    addProcFiles(procSelf, stats);
+
+    List<String> cgroups = readLines(procSelf.resolve("cgroup"));
+    if (Files.exists(cgroupRoot.resolve("cgroup.controllers"))) {
+      Path dir = resolveV2(cgroupRoot, cgroups);
+      addV2Files(dir, stats);
+    } else if (Files.isDirectory(cgroupRoot)) {
+      addV1Files(cgroupRoot, cgroups, stats);
+    }
+
+    files = stats.toArray(new StatFile[0]);
+
+    Path dir = procSelf.resolve("fd");
+    if (Files.isDirectory(dir)) {
+      fdDir = dir;
+      fds = registry.gauge("process.fds");
+    } else {
+      fdDir = null;
+      fds = null;
+    }
+  }
+
+  private StatFile.Builder builder(Path path, Format format) {
+    return StatFile.builder(registry, path, format);
+  }
+
+  /**
+   * Only add the files that are present so that meters are not created for data that is
+   * not available and the update doesn't keep trying to read files that will never exist.
+   */
+  private static void add(List<StatFile> stats, StatFile.Builder builder) {
+    if (Files.isReadable(builder.path())) {
+      stats.add(builder.build());
+    }
+  }
+
+  private void addProcFiles(Path procSelf, List<StatFile> stats) {
+    add(stats, builder(procSelf.resolve("status"), Format.KEY_VALUE)
+        .gauge("VmRSS", registry.createId("process.rss"), 1024.0)
+        .gauge("Threads", registry.createId("process.threads"))
+        .counter("voluntary_ctxt_switches",
+            registry.createId("process.contextSwitches", "id", "voluntary"))
+        .counter("nonvoluntary_ctxt_switches",
+            registry.createId("process.contextSwitches", "id", "involuntary")));
+  }
+
+  private void addV2Files(Path dir, List<StatFile> stats) {
+    add(stats, builder(dir.resolve("cpu.stat"), Format.KEY_VALUE)
+        .counter("user_usec", registry.createId("cgroup.cpu.usage", "id", "user"), MICROS)
+        .counter("system_usec", registry.createId("cgroup.cpu.usage", "id", "system"), MICROS)
+        .counter("nr_periods", registry.createId("cgroup.cpu.periods"))
+        .counter("nr_throttled", registry.createId("cgroup.cpu.throttledPeriods"))
+        .counter("throttled_usec", registry.createId("cgroup.cpu.throttledTime"), MICROS));
+    add(stats, pressure(dir.resolve("cpu.pressure"), "cgroup.cpu.pressure"));
+
+    add(stats, builder(dir.resolve("memory.current"), Format.VALUE)
+        .gauge("value", registry.createId("cgroup.mem.used")));
+    add(stats, builder(dir.resolve("memory.max"), Format.VALUE)
+        .gauge("value", registry.createId("cgroup.mem.limit")));
+    add(stats, builder(dir.resolve("memory.stat"), Format.KEY_VALUE)
+        .gauge("anon", registry.createId("cgroup.mem.stat", "id", "anon"))
+        .gauge("file", registry.createId("cgroup.mem.stat", "id", "file"))
+        .gauge("file_dirty", registry.createId("cgroup.mem.stat", "id", "dirty"))
+        .gauge("file_writeback", registry.createId("cgroup.mem.stat", "id", "writeback"))
+        .counter("pgmajfault", registry.createId("cgroup.mem.majorFaults"))
+        // Kernels before 5.9 only report the combined refaults for anon and file pages
+        .counter("workingset_refault", registry.createId("cgroup.mem.refaults"))
+        .counter("workingset_refault_file", registry.createId("cgroup.mem.refaults")));
+    add(stats, pressure(dir.resolve("memory.pressure"), "cgroup.mem.pressure"));
+
+    add(stats, builder(dir.resolve("io.stat"), Format.KEY_VALUE_TOKENS)
+        .counter("rbytes", registry.createId("cgroup.io.bytes", "id", "read"))
+        .counter("wbytes", registry.createId("cgroup.io.bytes", "id", "write"))
+        .counter("rios", registry.createId("cgroup.io.ops", "id", "read"))
+        .counter("wios", registry.createId("cgroup.io.ops", "id", "write")));
+  }
+
+  private StatFile.Builder pressure(Path path, String name) {
+    return builder(path, Format.PRESSURE)
+        .counter("some", registry.createId(name, "id", "some"), MICROS)
+        .counter("full", registry.createId(name, "id", "full"), MICROS);
+  }
+
+  private void addV1Files(Path root, List<String> cgroups, List<StatFile> stats) {
+    Path cpu = resolveV1(root, cgroups, "cpu");
+    add(stats, builder(cpu.resolve("cpu.stat"), Format.KEY_VALUE)
+        .counter("nr_periods", registry.createId("cgroup.cpu.periods"))
+        .counter("nr_throttled", registry.createId("cgroup.cpu.throttledPeriods"))
+        .counter("throttled_time", registry.createId("cgroup.cpu.throttledTime"), NANOS));
+
+    Path cpuacct = resolveV1(root, cgroups, "cpuacct");
+    add(stats, builder(cpuacct.resolve("cpuacct.stat"), Format.KEY_VALUE)
+        .counter("user", registry.createId("cgroup.cpu.usage", "id", "user"), TICKS)
+        .counter("system", registry.createId("cgroup.cpu.usage", "id", "system"), TICKS));
+
+    Path memory = resolveV1(root, cgroups, "memory");
+    add(stats, builder(memory.resolve("memory.usage_in_bytes"), Format.VALUE)
+        .gauge("value", registry.createId("cgroup.mem.used")));
+    add(stats, builder(memory.resolve("memory.limit_in_bytes"), Format.VALUE)
+        .gaugeWithMax("value", registry.createId("cgroup.mem.limit"), UNLIMITED));
+    add(stats, builder(memory.resolve("memory.stat"), Format.KEY_VALUE)
+        .gauge("rss", registry.createId("cgroup.mem.stat", "id", "anon"))
+        .gauge("cache", registry.createId("cgroup.mem.stat", "id", "file"))
+        .gauge("dirty", registry.createId("cgroup.mem.stat", "id", "dirty"))
+        .gauge("writeback", registry.createId("cgroup.mem.stat", "id", "writeback"))
+        .counter("pgmajfault", registry.createId("cgroup.mem.majorFaults")));
+
+    Path blkio = resolveV1(root, cgroups, "blkio");
+    add(stats, builder(blkio.resolve("blkio.throttle.io_service_bytes"), Format.COLUMNS)
+        .counter("Read", registry.createId("cgroup.io.bytes", "id", "read"))
+        .counter("Write", registry.createId("cgroup.io.bytes", "id", "write")));
+    add(stats, builder(blkio.resolve("blkio.throttle.io_serviced"), Format.COLUMNS)
+        .counter("Read", registry.createId("cgroup.io.ops", "id", "read"))
+        .counter("Write", registry.createId("cgroup.io.ops", "id", "write")));
+  }
+
+  /**
+   * Determine the directory for the cgroup of the process with cgroup v2. The path comes
+   * from the {@code 0::} entry of {@code /proc/self/cgroup}. If the path does not exist
+   * under the root, for example when running in a container with a cgroup namespace where
+   * the root is already the cgroup for the container, then the root will be used.
+   */
+  static Path resolveV2(Path root, List<String> cgroups) {
+    for (String line : cgroups) {
+      if (line.startsWith("0::")) {
+        return resolve(root, line.substring(3));
+      }
+    }
+    return root;
+  }
+
+  /**
+   * Determine the directory for a controller with cgroup v1. The entries in
+   * {@code /proc/self/cgroup} have the form {@code id:controllers:path} where the
+   * controllers are a comma separated list.
+   */
+  static Path resolveV1(Path root, List<String> cgroups, String controller) {
+    for (String line : cgroups) {
+      int first = line.indexOf(':');
+      int second = line.indexOf(':', first + 1);
+      if (first < 0 || second < 0) {
+        continue;
+      }
+      String controllers = line.substring(first + 1, second);
+      for (String c : controllers.split(",")) {
+        if (c.equals(controller)) {
+          // The mount point is usually named after the full list of controllers, e.g.
+          // cpu,cpuacct, with symlinks for the individual controllers
+          Path base = root.resolve(controllers);
+          if (!Files.isDirectory(base)) {
+            base = root.resolve(controller);
+          }
+          return resolve(base, line.substring(second + 1));
+        }
+      }
+    }
+    return root.resolve(controller);
+  }
+
+  private static Path resolve(Path root, String path) {
+    String relative = path.startsWith("/") ? path.substring(1) : path;
+    if (relative.isEmpty()) {
+      return root;
+    }
+    Path dir = root.resolve(relative);
+    return Files.isDirectory(dir) ? dir : root;
+  }
+
+  private static List<String> readLines(Path path) {
+    try {
+      return Files.readAllLines(path, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      LOGGER.debug("failed to read {}", path, e);
+      return Collections.emptyList();
+    }
+  }
+
+  /** Read the files and update the meters. */
+  synchronized void update() {
+    for (StatFile file : files) {
+      file.update(buffer);
+    }
+    if (fdDir != null) {
+      updateFileDescriptors();
+    }
+  }
+
+  private void updateFileDescriptors() {
+    int count = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(fdDir)) {
+      for (Path ignored : stream) {
+        ++count;
+      }
+      fds.set(count);
+    } catch (IOException e) {
+      LOGGER.debug("failed to list {}", fdDir, e);
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.container;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Buffer for reading the small text files from procfs and cgroupfs and parsing the
+ * numeric values. The buffer is reused across reads and the parsing works directly on
+ * the bytes, so there are no allocations for the contents of the files. This class is
+ * not thread safe.
+ */
+final class FileBuffer {
+
+  private static final byte[] TOTAL = bytes("total=");
+
+  /** Convert an ASCII string to the bytes used for matching keys. */
+  static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private byte[] buffer;
+  private int length;
+
+  /** Create a new instance. */
+  FileBuffer() {
+    this(4096);
+  }
+
+  /** Create a new instance with an initial capacity. */
+  FileBuffer(int capacity) {
+    buffer = new byte[capacity];
+  }
+
+  /**
+   * Read the contents of a file into the buffer. The buffer will be grown if needed to
+   * fit the whole file.
+   *
+   * @return
+   *     True if the file could be read. If false, then the buffer will be empty.
+   */
+  boolean read(Path path) {
+    length = 0;
+    try (InputStream in = Files.newInputStream(path)) {
+      int n;
+      while ((n = in.read(buffer, length, buffer.length - length)) > 0) {
+        length += n;
+        if (length == buffer.length) {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+      }
+      return true;
+    } catch (IOException e) {
+      length = 0;
+      return false;
+    }
+  }
+
+  /** Set the contents of the buffer. Used for testing. */
+  void set(String content) {
+    byte[] data = bytes(content);
+    if (data.length > buffer.length) {
+      buffer = new byte[data.length];
+    }
+    System.arraycopy(data, 0, buffer, 0, data.length);
+    length = data.length;
+  }
+
+  /** Number of bytes in the buffer. */
+  int length() {
+    return length;
+  }
+
+  /**
+   * Parse a single numeric value, for example {@code memory.current}. Returns -1 if the
+   * content is not a number such as {@code max} for an unlimited value.
+   */
+  long parseValue() {
+    int pos = skipWhitespace(0, length);
+    return parseLong(pos, length);
+  }
+
+  /**
+   * Parse files with a key and value on each line, for example {@code cpu.stat} or
+   * {@code /proc/self/status}. The key can be followed by spaces, tabs, or a colon. Keys
+   * that are not present will have a value of -1.
+   */
+  void parseKeyValues(byte[][] keys, long[] values) {
+    Arrays.fill(values, -1L);
+    int pos = 0;
+    while (pos < length) {
+      int end = lineEnd(pos);
+      int keyEnd = tokenEnd(pos, end, (byte) ':');
+      int idx = indexOf(keys, pos, keyEnd);
+      if (idx >= 0) {
+        int p = keyEnd;
+        while (p < end && (buffer[p] == ':' || isWhitespace(buffer[p]))) {
+          ++p;
+        }
+        values[idx] = parseLong(p, end);
+      }
+      pos = end + 1;
+    }
+  }
+
+  /**
+   * Parse files with {@code key=value} tokens on each line and sum the values across all
+   * lines, for example {@code io.stat} that has a line per device. Keys that are not
+   * present will have a value of 0.
+   */
+  void sumKeyValueTokens(byte[][] keys, long[] values) {
+    Arrays.fill(values, 0L);
+    int pos = 0;
+    while (pos < length) {
+      int end = lineEnd(pos);
+      int p = pos;
+      while (p < end) {
+        p = skipWhitespace(p, end);
+        int tokenEnd = tokenEnd(p, end, (byte) '=');
+        if (tokenEnd < end && buffer[tokenEnd] == '=') {
+          int idx = indexOf(keys, p, tokenEnd);
+          if (idx >= 0) {
+            long v = parseLong(tokenEnd + 1, end);
+            if (v > 0L) {
+              values[idx] += v;
+            }
+          }
+        }
+        p = tokenEnd(tokenEnd, end, (byte) ' ');
+      }
+      pos = end + 1;
+    }
+  }
+
+  /**
+   * Parse files with lines of the form {@code device key value} and sum the values for
+   * each key across the devices, for example {@code blkio.throttle.io_service_bytes} for
+   * cgroup v1. Lines with a different number of columns, such as the {@code Total} line,
+   * are ignored. Keys that are not present will have a value of 0.
+   */
+  void sumColumns(byte[][] keys, long[] values) {
+    Arrays.fill(values, 0L);
+    int pos = 0;
+    while (pos < length) {
+      int end = lineEnd(pos);
+      int deviceEnd = tokenEnd(pos, end, (byte) ' ');
+      int keyStart = skipWhitespace(deviceEnd, end);
+      int keyEnd = tokenEnd(keyStart, end, (byte) ' ');
+      int valueStart = skipWhitespace(keyEnd, end);
+      int valueEnd = tokenEnd(valueStart, end, (byte) ' ');
+      if (valueStart < valueEnd && skipWhitespace(valueEnd, end) == end) {
+        int idx = indexOf(keys, keyStart, keyEnd);
+        if (idx >= 0) {
+          long v = parseLong(valueStart, valueEnd);
+          if (v > 0L) {
+            values[idx] += v;
+          }
+        }
+      }
+      pos = end + 1;
+    }
+  }
+
+  /**
+   * Parse pressure stall information files, for example {@code memory.pressure}. The first
+   * token of each line is the key, {@code some} or {@code full}, and the value is the
+   * cumulative stall time in microseconds from the {@code total=} token. Keys that are not
+   * present will have a value of -1.
+   */
+  void parsePressure(byte[][] keys, long[] values) {
+    Arrays.fill(values, -1L);
+    int pos = 0;
+    while (pos < length) {
+      int end = lineEnd(pos);
+      int keyEnd = tokenEnd(pos, end, (byte) ' ');
+      int idx = indexOf(keys, pos, keyEnd);
+      if (idx >= 0) {
+        int p = keyEnd;
+        while (p < end) {
+          p = skipWhitespace(p, end);
+          if (startsWith(p, end, TOTAL)) {
+            values[idx] = parseLong(p + TOTAL.length, end);
+            break;
+          }
+          p = tokenEnd(p, end, (byte) ' ');
+        }
+      }
+      pos = end + 1;
+    }
+  }
+
+  private int lineEnd(int pos) {
+    int i = pos;
+    while (i < length && buffer[i] != '\n') {
+      ++i;
+    }
+    return i;
+  }
+
+  /** Find the end of a token that is terminated by whitespace or the separator. */
+  private int tokenEnd(int pos, int end, byte separator) {
+    int i = pos;
+    while (i < end && buffer[i] != separator && !isWhitespace(buffer[i])) {
+      ++i;
+    }
+    return i;
+  }
+
+  private int skipWhitespace(int pos, int end) {
+    int i = pos;
+    while (i < end && isWhitespace(buffer[i])) {
+      ++i;
+    }
+    return i;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  private boolean startsWith(int pos, int end, byte[] prefix) {
+    if (end - pos < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; ++i) {
+      if (buffer[pos + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int indexOf(byte[][] keys, int start, int end) {
+    int n = end - start;
+    for (int k = 0; k < keys.length; ++k) {
+      if (keys[k].length == n && startsWith(start, end, keys[k])) {
+        return k;
+      }
+    }
+    return -1;
+  }
+
+  /** Parse a non-negative long value. Returns -1 if there are no digits. */
+  private long parseLong(int pos, int end) {
+    long v = 0L;
+    int i = pos;
+    for (; i < end && buffer[i] >= '0' && buffer[i] <= '9'; ++i) {
+      v = v * 10L + (buffer[i] - '0');
+    }
+    return i == pos ? -1L : v;
+  }
+}
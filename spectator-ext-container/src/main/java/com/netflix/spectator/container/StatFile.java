@@ -0,0 +1,230 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.container;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Gauge;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Mapping from the values in a stat file to the meters that should be updated. The keys
+ * and meters are resolved when the mapping is built so updating just needs to parse the
+ * file and set the values. The meters are only created when {@link Builder#build()} is
+ * called, so there will not be any meters in the registry for files that are skipped.
+ */
+final class StatFile {
+
+  /** Format of the file. */
+  enum Format {
+    /** Single numeric value. */
+    VALUE,
+
+    /** Key and value on each line. */
+    KEY_VALUE,
+
+    /** Lines with {@code key=value} tokens that should be summed across lines. */
+    KEY_VALUE_TOKENS,
+
+    /** Lines with {@code device key value} columns that should be summed across lines. */
+    COLUMNS,
+
+    /** Pressure stall information. */
+    PRESSURE
+  }
+
+  /** Create a new builder for a file. */
+  static Builder builder(Registry registry, Path path, Format format) {
+    return new Builder(registry, path, format);
+  }
+
+  private final Path path;
+  private final Format format;
+  private final byte[][] keys;
+  private final long[] values;
+  private final Updater[] updaters;
+
+  private StatFile(Builder builder) {
+    this.path = builder.path;
+    this.format = builder.format;
+    int n = builder.keys.size();
+    this.keys = new byte[n][];
+    for (int i = 0; i < n; ++i) {
+      keys[i] = FileBuffer.bytes(builder.keys.get(i));
+    }
+    this.values = new long[n];
+    this.updaters = new Updater[n];
+    for (int i = 0; i < n; ++i) {
+      updaters[i] = builder.updaters.get(i).apply(builder.registry);
+    }
+  }
+
+  /** Path of the file. */
+  Path path() {
+    return path;
+  }
+
+  /**
+   * Read the file and update the meters.
+   *
+   * @return
+   *     True if the file could be read.
+   */
+  boolean update(FileBuffer buffer) {
+    if (!buffer.read(path)) {
+      return false;
+    }
+    switch (format) {
+      case VALUE:
+        values[0] = buffer.parseValue();
+        break;
+      case KEY_VALUE:
+        buffer.parseKeyValues(keys, values);
+        break;
+      case KEY_VALUE_TOKENS:
+        buffer.sumKeyValueTokens(keys, values);
+        break;
+      case COLUMNS:
+        buffer.sumColumns(keys, values);
+        break;
+      default:
+        buffer.parsePressure(keys, values);
+        break;
+    }
+    for (int i = 0; i < values.length; ++i) {
+      updaters[i].update(values[i]);
+    }
+    return true;
+  }
+
+  /** Updates a meter based on a value from a file. */
+  interface Updater {
+    /** Update with a new value. Negative values indicate the value was not available. */
+    void update(long value);
+  }
+
+  /** Updates a gauge with the value multiplied by a scale factor. */
+  static final class GaugeUpdater implements Updater {
+    private final Gauge gauge;
+    private final double scale;
+    private final long max;
+
+    /** Create a new instance. */
+    GaugeUpdater(Gauge gauge, double scale, long max) {
+      this.gauge = gauge;
+      this.scale = scale;
+      this.max = max;
+    }
+
+    @Override public void update(long value) {
+      if (value >= 0L && value <= max) {
+        gauge.set(value * scale);
+      }
+    }
+  }
+
+  /**
+   * Updates a counter with the delta since the previous value multiplied by a scale factor.
+   * The first value is only used as the baseline.
+   */
+  static final class CounterUpdater implements Updater {
+    private final Counter counter;
+    private final double scale;
+    private long previous = -1L;
+
+    /** Create a new instance. */
+    CounterUpdater(Counter counter, double scale) {
+      this.counter = counter;
+      this.scale = scale;
+    }
+
+    @Override public void update(long value) {
+      if (value >= 0L) {
+        if (previous >= 0L && value > previous) {
+          counter.add((value - previous) * scale);
+        }
+        previous = value;
+      }
+    }
+  }
+
+  /** Builder for the mapping of a file. */
+  static final class Builder {
+    private final Registry registry;
+    private final Path path;
+    private final Format format;
+    private final List<String> keys = new ArrayList<>();
+    private final List<Function<Registry, Updater>> updaters = new ArrayList<>();
+
+    private Builder(Registry registry, Path path, Format format) {
+      this.registry = registry;
+      this.path = path;
+      this.format = format;
+    }
+
+    /** Path of the file. */
+    Path path() {
+      return path;
+    }
+
+    /** Set the gauge to the value for the key. */
+    Builder gauge(String key, Id id) {
+      return gauge(key, id, 1.0);
+    }
+
+    /** Set the gauge to the value for the key multiplied by the scale. */
+    Builder gauge(String key, Id id, double scale) {
+      return add(key, r -> new GaugeUpdater(r.gauge(id), scale, Long.MAX_VALUE));
+    }
+
+    /**
+     * Set the gauge to the value for the key if it is less than or equal to the max. This is
+     * used for limits where a large value indicates it is unlimited.
+     */
+    Builder gaugeWithMax(String key, Id id, long max) {
+      return add(key, r -> new GaugeUpdater(r.gauge(id), 1.0, max));
+    }
+
+    /** Increment the counter by the delta for the value of the key. */
+    Builder counter(String key, Id id) {
+      return counter(key, id, 1.0);
+    }
+
+    /** Increment the counter by the delta for the value of the key multiplied by the scale. */
+    Builder counter(String key, Id id, double scale) {
+      return add(key, r -> new CounterUpdater(r.counter(id), scale));
+    }
+
+    private Builder add(String key, Function<Registry, Updater> updater) {
+      keys.add(key);
+      updaters.add(updater);
+      return this;
+    }
+
+    /** Create the mapping. */
+    StatFile build() {
+      if (format == Format.VALUE && keys.size() != 1) {
+        throw new IllegalStateException("value file must have exactly one meter: " + path);
+      }
+      return new StatFile(this);
+    }
+  }
+}
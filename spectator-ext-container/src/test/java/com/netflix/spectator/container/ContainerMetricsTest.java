@@ -0,0 +1,192 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.container;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class ContainerMetricsTest {
+
+  private Path tmp;
+
+  @BeforeEach
+  public void before() throws Exception {
+    tmp = Files.createTempDirectory("spectator-container");
+    for (String dir : new String[] {"cgroup-v1", "cgroup-v2", "proc-v1", "proc-v2"}) {
+      copy(Paths.get(getClass().getResource("/" + dir).toURI()), tmp.resolve(dir));
+    }
+  }
+
+  @AfterEach
+  public void after() throws Exception {
+    try (Stream<Path> paths = Files.walk(tmp)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  private static void copy(Path src, Path dst) throws IOException {
+    try (Stream<Path> paths = Files.walk(src)) {
+      for (Path p : (Iterable<Path>) paths::iterator) {
+        Path target = dst.resolve(src.relativize(p).toString());
+        if (Files.isDirectory(p)) {
+          Files.createDirectories(target);
+        } else {
+          Files.copy(p, target);
+        }
+      }
+    }
+  }
+
+  private void write(String file, String content) throws IOException {
+    Files.write(tmp.resolve(file), FileBuffer.bytes(content));
+  }
+
+  private static double gauge(Registry registry, String name, String... tags) {
+    return registry.gauge(Id.create(name).withTags(tags)).value();
+  }
+
+  private static double counter(Registry registry, String name, String... tags) {
+    return registry.counter(Id.create(name).withTags(tags)).actualCount();
+  }
+
+  @Test
+  public void cgroupV2() throws Exception {
+    Registry registry = new DefaultRegistry();
+    ContainerMetrics metrics = new ContainerMetrics(
+        registry, tmp.resolve("proc-v2"), tmp.resolve("cgroup-v2"));
+    metrics.update();
+
+    Assertions.assertEquals(524288000.0, gauge(registry, "cgroup.mem.used"), 1e-12);
+    Assertions.assertEquals(314572800.0, gauge(registry, "cgroup.mem.stat", "id", "anon"), 1e-12);
+    Assertions.assertEquals(104857600.0, gauge(registry, "cgroup.mem.stat", "id", "file"), 1e-12);
+    Assertions.assertEquals(4096.0, gauge(registry, "cgroup.mem.stat", "id", "dirty"), 1e-12);
+    Assertions.assertEquals(228844.0 * 1024.0, gauge(registry, "process.rss"), 1e-12);
+    Assertions.assertEquals(42.0, gauge(registry, "process.threads"), 1e-12);
+    Assertions.assertEquals(3.0, gauge(registry, "process.fds"), 1e-12);
+
+    // Limit is max, so the gauge should not be set
+    Assertions.assertTrue(Double.isNaN(gauge(registry, "cgroup.mem.limit")));
+
+    // First update is the baseline for the counters
+    Assertions.assertEquals(0.0, counter(registry, "cgroup.cpu.throttledPeriods"), 1e-12);
+
+    write("cgroup-v2/cpu.stat", "usage_usec 3000000\nuser_usec 1600000\nsystem_usec 1400000\n"
+        + "nr_periods 150\nnr_throttled 25\nthrottled_usec 750000\n");
+    write("cgroup-v2/memory.pressure",
+        "some avg10=0.00 avg60=0.00 avg300=0.00 total=2500000\n"
+        + "full avg10=0.00 avg60=0.00 avg300=0.00 total=1000000\n");
+    write("cgroup-v2/memory.stat", "anon 1\nfile 2\npgmajfault 20\nworkingset_refault_file 40\n");
+    write("cgroup-v2/io.stat", "259:0 rbytes=8192 wbytes=8192 rios=2 wios=2\n"
+        + "8:0 rbytes=1024 wbytes=100 rios=3 wios=1\n");
+    write("proc-v2/status", "VmRSS:\t1 kB\nvoluntary_ctxt_switches:\t160\n"
+        + "nonvoluntary_ctxt_switches:\t7\n");
+    write("cgroup-v2/memory.max", "1073741824\n");
+    metrics.update();
+
+    Assertions.assertEquals(1.0, counter(registry, "cgroup.cpu.usage", "id", "user"), 1e-9);
+    Assertions.assertEquals(1.0, counter(registry, "cgroup.cpu.usage", "id", "system"), 1e-9);
+    Assertions.assertEquals(50.0, counter(registry, "cgroup.cpu.periods"), 1e-12);
+    Assertions.assertEquals(15.0, counter(registry, "cgroup.cpu.throttledPeriods"), 1e-12);
+    Assertions.assertEquals(0.5, counter(registry, "cgroup.cpu.throttledTime"), 1e-9);
+    Assertions.assertEquals(0.5, counter(registry, "cgroup.mem.pressure", "id", "some"), 1e-9);
+    Assertions.assertEquals(0.0, counter(registry, "cgroup.mem.pressure", "id", "full"), 1e-9);
+    Assertions.assertEquals(8.0, counter(registry, "cgroup.mem.majorFaults"), 1e-12);
+    Assertions.assertEquals(6.0, counter(registry, "cgroup.mem.refaults"), 1e-12);
+    Assertions.assertEquals(4096.0, counter(registry, "cgroup.io.bytes", "id", "read"), 1e-12);
+    Assertions.assertEquals(100.0, counter(registry, "cgroup.io.bytes", "id", "write"), 1e-12);
+    Assertions.assertEquals(1.0, counter(registry, "cgroup.io.ops", "id", "read"), 1e-12);
+    Assertions.assertEquals(1.0, counter(registry, "cgroup.io.ops", "id", "write"), 1e-12);
+    Assertions.assertEquals(10.0,
+        counter(registry, "process.contextSwitches", "id", "voluntary"), 1e-12);
+    Assertions.assertEquals(0.0,
+        counter(registry, "process.contextSwitches", "id", "involuntary"), 1e-12);
+    Assertions.assertEquals(1073741824.0, gauge(registry, "cgroup.mem.limit"), 1e-12);
+    Assertions.assertEquals(1024.0, gauge(registry, "process.rss"), 1e-12);
+  }
+
+  @Test
+  public void cgroupV1() throws Exception {
+    Registry registry = new DefaultRegistry();
+    ContainerMetrics metrics = new ContainerMetrics(
+        registry, tmp.resolve("proc-v1"), tmp.resolve("cgroup-v1"));
+    metrics.update();
+
+    Assertions.assertEquals(104857600.0, gauge(registry, "cgroup.mem.used"), 1e-12);
+    Assertions.assertEquals(41943040.0, gauge(registry, "cgroup.mem.stat", "id", "anon"), 1e-12);
+    Assertions.assertEquals(52428800.0, gauge(registry, "cgroup.mem.stat", "id", "file"), 1e-12);
+    Assertions.assertTrue(Double.isNaN(gauge(registry, "cgroup.mem.limit")));
+
+    write("cgroup-v1/cpu,cpuacct/cpu.stat",
+        "nr_periods 210\nnr_throttled 25\nthrottled_time 4500000000\n");
+    write("cgroup-v1/cpu,cpuacct/cpuacct.stat", "user 600\nsystem 300\n");
+    write("cgroup-v1/blkio/blkio.throttle.io_service_bytes",
+        "8:0 Read 8192\n8:0 Write 8192\n8:16 Read 1024\nTotal 17408\n");
+    metrics.update();
+
+    Assertions.assertEquals(10.0, counter(registry, "cgroup.cpu.periods"), 1e-12);
+    Assertions.assertEquals(5.0, counter(registry, "cgroup.cpu.throttledPeriods"), 1e-12);
+    Assertions.assertEquals(1.5, counter(registry, "cgroup.cpu.throttledTime"), 1e-9);
+    Assertions.assertEquals(1.0, counter(registry, "cgroup.cpu.usage", "id", "user"), 1e-9);
+    Assertions.assertEquals(0.5, counter(registry, "cgroup.cpu.usage", "id", "system"), 1e-9);
+    Assertions.assertEquals(4096.0, counter(registry, "cgroup.io.bytes", "id", "read"), 1e-12);
+    Assertions.assertEquals(0.0, counter(registry, "cgroup.io.bytes", "id", "write"), 1e-12);
+  }
+
+  @Test
+  public void missingFilesDoNotCreateMeters() throws Exception {
+    Registry registry = new DefaultRegistry();
+    ContainerMetrics metrics = new ContainerMetrics(
+        registry, tmp.resolve("missing"), tmp.resolve("missing"));
+    metrics.update();
+    Assertions.assertEquals(0L, registry.stream().count());
+  }
+
+  @Test
+  public void resolveV2() throws Exception {
+    Path root = tmp.resolve("cgroup-v2");
+    Files.createDirectories(root.resolve("system.slice/app.service"));
+    Assertions.assertEquals(root.resolve("system.slice/app.service"), ContainerMetrics.resolveV2(
+        root, Collections.singletonList("0::/system.slice/app.service")));
+    Assertions.assertEquals(root,
+        ContainerMetrics.resolveV2(root, Collections.singletonList("0::/not/present")));
+    Assertions.assertEquals(root, ContainerMetrics.resolveV2(root, Collections.emptyList()));
+  }
+
+  @Test
+  public void resolveV1() {
+    Path root = tmp.resolve("cgroup-v1");
+    Assertions.assertEquals(root.resolve("cpu,cpuacct"), ContainerMetrics.resolveV1(
+        root, Arrays.asList("11:memory:/", "4:cpu,cpuacct:/"), "cpuacct"));
+    Assertions.assertEquals(root.resolve("memory"), ContainerMetrics.resolveV1(
+        root, Arrays.asList("11:memory:/docker/abc", "4:cpu,cpuacct:/"), "memory"));
+    Assertions.assertEquals(root.resolve("blkio"),
+        ContainerMetrics.resolveV1(root, Collections.emptyList(), "blkio"));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.container;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class FileBufferTest {
+
+  private static byte[][] keys(String... ks) {
+    byte[][] bs = new byte[ks.length][];
+    for (int i = 0; i < ks.length; ++i) {
+      bs[i] = FileBuffer.bytes(ks[i]);
+    }
+    return bs;
+  }
+
+  @Test
+  public void parseValue() {
+    FileBuffer buffer = new FileBuffer();
+    buffer.set("524288000\n");
+    Assertions.assertEquals(524288000L, buffer.parseValue());
+  }
+
+  @Test
+  public void parseValueMax() {
+    FileBuffer buffer = new FileBuffer();
+    buffer.set("max\n");
+    Assertions.assertEquals(-1L, buffer.parseValue());
+  }
+
+  @Test
+  public void parseKeyValues() {
+    FileBuffer buffer = new FileBuffer();
+    buffer.set("usage_usec 1000\nuser_usec 600\nnr_throttled 10\n");
+    long[] values = new long[3];
+    buffer.parseKeyValues(keys("nr_throttled", "user_usec", "missing"), values);
+    Assertions.assertArrayEquals(new long[] {10L, 600L, -1L}, values);
+  }
+
+  @Test
+  public void parseKeyValuesPrefixOfOtherKey() {
+    FileBuffer buffer = new FileBuffer();
+    buffer.set("workingset_refault_file 34\nworkingset_refault 12\n");
+    long[] values = new long[1];
+    buffer.parseKeyValues(keys("workingset_refault"), values);
+    Assertions.assertEquals(12L, values[0]);
+  }
+
+  @Test
+  public void parseKeyValuesColon() {
+    FileBuffer buffer = new FileBuffer();
+    buffer.set("Name:\tjava\nVmRSS:\t  228844 kB\nThreads:\t42\n");
+    long[] values = new long[3];
+    buffer.parseKeyValues(keys("VmRSS", "Threads", "Name"), values);
+    Assertions.assertArrayEquals(new long[] {228844L, 42L, -1L}, values);
+  }
+
+  @Test
+  public void sumKeyValueTokens() {
+    FileBuffer buffer = new FileBuffer();
+    buffer.set("259:0 rbytes=4096 wbytes=8192 rios=1 wios=2\n8:0 rbytes=1024 wbytes=0 rios=3\n");
+    long[] values = new long[3];
+    buffer.sumKeyValueTokens(keys("rbytes", "rios", "dbytes"), values);
+    Assertions.assertArrayEquals(new long[] {5120L, 4L, 0L}, values);
+  }
+
+  @Test
+  public void sumColumns() {
+    FileBuffer buffer = new FileBuffer();
+    buffer.set("8:0 Read 4096\n8:0 Write 8192\n8:16 Read 1024\nTotal 13312\n");
+    long[] values = new long[2];
+    buffer.sumColumns(keys("Read", "Write"), values);
+    Assertions.assertArrayEquals(new long[] {5120L, 8192L}, values);
+  }
+
+  @Test
+  public void parsePressure() {
+    FileBuffer buffer = new FileBuffer();
+    buffer.set("some avg10=1.50 avg60=0.75 avg300=0.10 total=2000\n"
+        + "full avg10=0.00 avg60=0.00 avg300=0.00 total=1000\n");
+    long[] values = new long[2];
+    buffer.parsePressure(keys("full", "some"), values);
+    Assertions.assertArrayEquals(new long[] {1000L, 2000L}, values);
+  }
+
+  @Test
+  public void readMissingFile() {
+    FileBuffer buffer = new FileBuffer();
+    Assertions.assertFalse(buffer.read(Paths.get("/this/file/does/not/exist")));
+    Assertions.assertEquals(0, buffer.length());
+  }
+
+  @Test
+  public void readGrowsBuffer() throws Exception {
+    Path file = Files.createTempFile("spectator", ".stat");
+    try {
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < 100; ++i) {
+        builder.append("key").append(i).append(' ').append(i).append('\n');
+      }
+      Files.write(file, FileBuffer.bytes(builder.toString()));
+
+      FileBuffer buffer = new FileBuffer(16);
+      Assertions.assertTrue(buffer.read(file));
+      Assertions.assertEquals(builder.length(), buffer.length());
+
+      long[] values = new long[1];
+      buffer.parseKeyValues(keys("key99"), values);
+      Assertions.assertEquals(99L, values[0]);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
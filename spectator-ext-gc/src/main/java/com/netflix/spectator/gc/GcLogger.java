@@ -32,6 +32,7 @@ import javax.management.Notification;
 import javax.management.NotificationEmitter;
 import javax.management.NotificationListener;
 import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryPoolMXBean;
@@ -41,6 +42,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
@@ -56,6 +58,11 @@ import java.util.concurrent.locks.ReentrantLock;
  * in the common case this means a single instance per JVM. Each started instance also adds its
  * own listener to the GC MXBeans, so every GC event is processed once per started instance.
  * {@link #start(GcEventListener)} is a no-op if the instance has already been started.</p>
+ *
+ * <p>The timers for each collector, action, and cause are created on first use and then
+ * reused for subsequent events. See {@link Options} for settings that can reduce the
+ * overhead of processing the notifications further if there are a large number of GC
+ * events, for example with low pause collectors such as ZGC and Shenandoah.</p>
  */
 public final class GcLogger {
 
@@ -98,6 +105,17 @@ public final class GcLogger {
 
   private final Map<String, CircularBuffer<GcEvent>> gcLogs;
 
+  private final boolean captureEvents;
+
+  private final boolean poolUsageFromMXBeans;
+
+  // Timers for the pause or concurrent phase time by collector name, action, and cause
+  private final Map<String, Map<String, Map<String, Timer>>> timers = new ConcurrentHashMap<>();
+
+  // Usage of the pools for the current event. The notifications are processed sequentially
+  // so the instance is reused to avoid allocations.
+  private final PoolSample sample = new PoolSample();
+
   private long youngGenSizeAfter = 0L;
 
   private String youngGenPoolName = null;
@@ -106,6 +124,19 @@ public final class GcLogger {
 
   private String oldGenPoolName = null;
 
+  // Keys used to lookup the pools in the tabular data of a notification
+  private Object[] youngGenPoolKey = null;
+
+  private Object[] survivorPoolKey = null;
+
+  private Object[] oldGenPoolKey = null;
+
+  private MemoryPoolMXBean youngGenPool = null;
+
+  private MemoryPoolMXBean survivorPool = null;
+
+  private MemoryPoolMXBean oldGenPool = null;
+
   private GcNotificationListener notifListener = null;
 
   private GcEventListener eventListener = null;
@@ -123,7 +154,22 @@ public final class GcLogger {
    *     the class documentation for details.
    */
   public GcLogger(Registry registry) {
+    this(registry, new Options());
+  }
+
+  /**
+   * Create a new instance that reports metrics to the provided registry.
+   *
+   * @param registry
+   *     Registry used to report the GC metrics. A single instance per JVM is expected; see
+   *     the class documentation for details.
+   * @param options
+   *     Options to control how the notifications are processed.
+   */
+  public GcLogger(Registry registry, Options options) {
     this.registry = registry;
+    this.captureEvents = options.captureEvents;
+    this.poolUsageFromMXBeans = options.poolUsageFromMXBeans;
     this.maxDataSize = registry.gauge("jvm.gc.maxDataSize", new AtomicLong(0L));
     this.liveDataSize = registry.gauge("jvm.gc.liveDataSize", new AtomicLong(0L));
     this.promotionRate = registry.counter("jvm.gc.promotionRate");
@@ -134,9 +180,11 @@ public final class GcLogger {
 
     jvmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
     Map<String, CircularBuffer<GcEvent>> gcLogs = new HashMap<>();
-    for (GarbageCollectorMXBean mbean : ManagementFactory.getGarbageCollectorMXBeans()) {
-      CircularBuffer<GcEvent> buffer = new CircularBuffer<>(BUFFER_SIZE);
-      gcLogs.put(mbean.getName(), buffer);
+    if (captureEvents) {
+      for (GarbageCollectorMXBean mbean : ManagementFactory.getGarbageCollectorMXBeans()) {
+        CircularBuffer<GcEvent> buffer = new CircularBuffer<>(BUFFER_SIZE);
+        gcLogs.put(mbean.getName(), buffer);
+      }
     }
     this.gcLogs = Collections.unmodifiableMap(gcLogs);
 
@@ -146,14 +194,25 @@ public final class GcLogger {
       // same
       if (HelperFunctions.isYoungGenPool(poolName)) {
         youngGenPoolName = poolName;
+        youngGenPoolKey = new Object[] {poolName};
+        youngGenPool = mbean;
       }
       if (HelperFunctions.isSurvivorPool(poolName)) {
         survivorPoolName = poolName;
+        survivorPoolKey = new Object[] {poolName};
+        survivorPool = mbean;
       }
       if (HelperFunctions.isOldGenPool(poolName)) {
         oldGenPoolName = poolName;
+        oldGenPoolKey = new Object[] {poolName};
+        oldGenPool = mbean;
       }
     }
+
+    // Baseline for estimating the usage before the first event
+    if (poolUsageFromMXBeans) {
+      sampleFromMXBeans();
+    }
   }
 
   /**
@@ -169,7 +228,22 @@ public final class GcLogger {
    *     the handle is idempotent and is harmless if the registry has already been closed.
    */
   public static AutoCloseable monitor(Registry registry) {
-    GcLogger logger = new GcLogger(registry);
+    return monitor(registry, new Options());
+  }
+
+  /**
+   * Start collecting GC events for the provided registry and tie the collection to the registry
+   * lifecycle. See {@link #monitor(Registry)} for more details.
+   *
+   * @param registry
+   *     Registry used to report the GC metrics and whose lifecycle controls the logger.
+   * @param options
+   *     Options to control how the notifications are processed.
+   * @return
+   *     Handle that can be used to stop the logger earlier.
+   */
+  public static AutoCloseable monitor(Registry registry, Options options) {
+    GcLogger logger = new GcLogger(registry, options);
     logger.start(null);
     return PolledMeter.monitorResource(registry, logger::stop);
   }
@@ -225,7 +299,10 @@ public final class GcLogger {
     }
   }
 
-  /** Return the current set of GC events in the in-memory log. */
+  /**
+   * Return the current set of GC events in the in-memory log. The log will be empty if
+   * event capture has been disabled with {@link Options#withEventCapture(boolean)}.
+   */
   public List<GcEvent> getLogs() {
     final List<GcEvent> logs = new ArrayList<>();
     for (CircularBuffer<GcEvent> buffer : gcLogs.values()) {
@@ -235,13 +312,90 @@ public final class GcLogger {
     return logs;
   }
 
-  private void updateMetrics(String name, GcInfo info) {
+  /** Fill in the sample with the pool usage from the maps of the info object. */
+  private void sampleFromGcInfo(GcInfo info) {
     final Map<String, MemoryUsage> before = info.getMemoryUsageBeforeGc();
     final Map<String, MemoryUsage> after = info.getMemoryUsageAfterGc();
+    if (oldGenPoolName != null) {
+      final MemoryUsage oldAfter = after.get(oldGenPoolName);
+      sample.oldBefore = before.get(oldGenPoolName).getUsed();
+      sample.oldAfter = oldAfter.getUsed();
+      sample.oldMaxAfter = oldAfter.getMax();
+    }
+    if (survivorPoolName != null) {
+      sample.survivorBefore = before.get(survivorPoolName).getUsed();
+      sample.survivorAfter = after.get(survivorPoolName).getUsed();
+    }
+    if (youngGenPoolName != null) {
+      sample.youngBefore = before.get(youngGenPoolName).getUsed();
+      sample.youngAfter = after.get(youngGenPoolName).getUsed();
+    }
+  }
 
+  /**
+   * Fill in the sample with the pool usage from the composite data of the notification. The
+   * pools are looked up directly in the tabular data using the precomputed keys, so the maps
+   * and other objects for the {@link GcInfo} do not need to be created.
+   */
+  private void sampleFromCompositeData(CompositeData gcInfo) {
+    final TabularData before = (TabularData) gcInfo.get("memoryUsageBeforeGc");
+    final TabularData after = (TabularData) gcInfo.get("memoryUsageAfterGc");
+    if (oldGenPoolKey != null) {
+      final CompositeData oldAfter = usage(after, oldGenPoolKey);
+      sample.oldBefore = used(usage(before, oldGenPoolKey));
+      sample.oldAfter = used(oldAfter);
+      sample.oldMaxAfter = (Long) oldAfter.get("max");
+    }
+    if (survivorPoolKey != null) {
+      sample.survivorBefore = used(usage(before, survivorPoolKey));
+      sample.survivorAfter = used(usage(after, survivorPoolKey));
+    }
+    if (youngGenPoolKey != null) {
+      sample.youngBefore = used(usage(before, youngGenPoolKey));
+      sample.youngAfter = used(usage(after, youngGenPoolKey));
+    }
+  }
+
+  private static CompositeData usage(TabularData data, Object[] key) {
+    return (CompositeData) data.get(key).get("value");
+  }
+
+  private static long used(CompositeData usage) {
+    return (Long) usage.get("used");
+  }
+
+  /**
+   * Fill in the sample with the pool usage from the cached memory pool beans. The usage
+   * before the GC is not available from the beans, so it is estimated:
+   *
+   * <ul>
+   *   <li>Young gen uses the peak usage since the last event. The peak usage is reset after
+   *       it is read.</li>
+   *   <li>Survivor and old gen use the usage after the previous event.</li>
+   * </ul>
+   */
+  private void sampleFromMXBeans() {
+    if (oldGenPool != null) {
+      final MemoryUsage usage = oldGenPool.getUsage();
+      sample.oldBefore = sample.oldAfter;
+      sample.oldAfter = usage.getUsed();
+      sample.oldMaxAfter = usage.getMax();
+    }
+    if (survivorPool != null) {
+      sample.survivorBefore = sample.survivorAfter;
+      sample.survivorAfter = survivorPool.getUsage().getUsed();
+    }
+    if (youngGenPool != null) {
+      sample.youngBefore = youngGenPool.getPeakUsage().getUsed();
+      youngGenPool.resetPeakUsage();
+      sample.youngAfter = youngGenPool.getUsage().getUsed();
+    }
+  }
+
+  private void updateMetrics(String name) {
     if (oldGenPoolName != null) {
-      final long oldBefore = before.get(oldGenPoolName).getUsed();
-      final long oldAfter = after.get(oldGenPoolName).getUsed();
+      final long oldBefore = sample.oldBefore;
+      final long oldAfter = sample.oldAfter;
       final long delta = oldAfter - oldBefore;
       if (delta > 0L) {
         promotionRate.increment(delta);
@@ -255,28 +409,24 @@ public final class GcLogger {
       // after a major GC.
       if (oldAfter > 0L && (oldAfter < oldBefore || HelperFunctions.isOldGcType(name))) {
         liveDataSize.set(oldAfter);
-        final long oldMaxAfter = after.get(oldGenPoolName).getMax();
-        maxDataSize.set(oldMaxAfter);
+        maxDataSize.set(sample.oldMaxAfter);
       }
     }
 
     if (survivorPoolName != null) {
-      final long survivorBefore = before.get(survivorPoolName).getUsed();
-      final long survivorAfter = after.get(survivorPoolName).getUsed();
-      final long delta = survivorAfter - survivorBefore;
+      final long delta = sample.survivorAfter - sample.survivorBefore;
       if (delta > 0L) {
         survivorRate.increment(delta);
       }
     }
 
     if (youngGenPoolName != null) {
-      final long youngBefore = before.get(youngGenPoolName).getUsed();
-      final long youngAfter = after.get(youngGenPoolName).getUsed();
+      final long youngBefore = sample.youngBefore;
       // Shenandoah doesn't report accurate pool sizes for pauses, all numbers are 0. Ignore
       // those updates.
       if (youngBefore > 0L) {
         final long delta = youngBefore - youngGenSizeAfter;
-        youngGenSizeAfter = youngAfter;
+        youngGenSizeAfter = sample.youngAfter;
         if (delta > 0L) {
           allocationRate.increment(delta);
         }
@@ -284,25 +434,52 @@ public final class GcLogger {
     }
   }
 
+  /** Record the duration of the event and update the pool metrics. */
+  private void recordEvent(String name, String action, String cause, long durationMillis) {
+    timer(name, action, cause).record(Math.max(1L, durationMillis), TimeUnit.MILLISECONDS);
+    updateMetrics(name);
+  }
+
+  /** Get the timer to use for the pause or concurrent phase time of an event. */
+  private Timer timer(String name, String action, String cause) {
+    Map<String, Map<String, Timer>> byAction = timers.get(name);
+    if (byAction == null) {
+      byAction = timers.computeIfAbsent(name, k -> new ConcurrentHashMap<>());
+    }
+    Map<String, Timer> byCause = byAction.get(action);
+    if (byCause == null) {
+      byCause = byAction.computeIfAbsent(action, k -> new ConcurrentHashMap<>());
+    }
+    Timer timer = byCause.get(cause);
+    if (timer == null) {
+      Id eventId = (isConcurrentPhase(name, cause) ? concurrentPhaseTime : pauseTime)
+          .withTag("action", action)
+          .withTag("cause", cause);
+      timer = registry.timer(eventId);
+      byCause.put(cause, timer);
+    }
+    return timer;
+  }
+
   // Package-private rather than private so tests can drive the event-processing path with a
   // synthetic notification.
   void processGcEvent(GarbageCollectionNotificationInfo info) {
     GcEvent event = new GcEvent(info, jvmStartTime + info.getGcInfo().getStartTime());
-    gcLogs.get(info.getGcName()).add(event);
+    if (captureEvents) {
+      gcLogs.get(info.getGcName()).add(event);
+    }
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug(event.toString());
     }
 
-    // Update pause timer for the action and cause...
-    Id eventId = (isConcurrentPhase(info) ? concurrentPhaseTime : pauseTime)
-      .withTag("action", info.getGcAction())
-      .withTag("cause", info.getGcCause());
-    Timer timer = registry.timer(eventId);
-    long duration = Math.max(1, info.getGcInfo().getDuration());
-    timer.record(duration, TimeUnit.MILLISECONDS);
-
-    // Update promotion and allocation counters
-    updateMetrics(info.getGcName(), info.getGcInfo());
+    // Update pause timer for the action and cause and the promotion and allocation counters
+    if (poolUsageFromMXBeans) {
+      sampleFromMXBeans();
+    } else {
+      sampleFromGcInfo(info.getGcInfo());
+    }
+    recordEvent(
+        info.getGcName(), info.getGcAction(), info.getGcCause(), info.getGcInfo().getDuration());
 
     // Notify an event listener if registered
     if (eventListener != null) {
@@ -314,7 +491,30 @@ public final class GcLogger {
     }
   }
 
-  private boolean isConcurrentPhase(GarbageCollectionNotificationInfo info) {
+  /**
+   * Process the composite data for a notification. If events do not need to be created, then
+   * the values are read directly from the composite data rather than converting it to a
+   * {@link GarbageCollectionNotificationInfo}.
+   */
+  void processGcEvent(CompositeData cd) {
+    if (captureEvents || eventListener != null || LOGGER.isDebugEnabled()) {
+      processGcEvent(GarbageCollectionNotificationInfo.from(cd));
+    } else {
+      final CompositeData gcInfo = (CompositeData) cd.get("gcInfo");
+      if (poolUsageFromMXBeans) {
+        sampleFromMXBeans();
+      } else {
+        sampleFromCompositeData(gcInfo);
+      }
+      recordEvent(
+          (String) cd.get("gcName"),
+          (String) cd.get("gcAction"),
+          (String) cd.get("gcCause"),
+          (Long) gcInfo.get("duration"));
+    }
+  }
+
+  private static boolean isConcurrentPhase(String name, String cause) {
     // So far the only indicator known is that the cause will be reported as "No GC"
     // when using CMS.
     //
@@ -327,19 +527,58 @@ public final class GcLogger {
     // For G1, a new bean was added in JDK20 to indicate time spent in concurrent
     // phases:
     // https://bugs.openjdk.org/browse/JDK-8297247
-    return "No GC".equals(info.getGcCause())           // CMS
-        || "G1 Concurrent GC".equals(info.getGcName()) // G1 in JDK20+
-        || info.getGcName().endsWith(" Cycles");       // Shenandoah, ZGC
+    return "No GC".equals(cause)            // CMS
+        || "G1 Concurrent GC".equals(name)  // G1 in JDK20+
+        || name.endsWith(" Cycles");        // Shenandoah, ZGC
   }
 
   private final class GcNotificationListener implements NotificationListener {
     @Override public void handleNotification(Notification notification, Object ref) {
       final String type = notification.getType();
       if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(type)) {
-        CompositeData cd = (CompositeData) notification.getUserData();
-        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(cd);
-        processGcEvent(info);
+        processGcEvent((CompositeData) notification.getUserData());
       }
     }
   }
+
+  /** Usage of the memory pools for an event. */
+  private static final class PoolSample {
+    long youngBefore;
+    long youngAfter;
+    long survivorBefore;
+    long survivorAfter;
+    long oldBefore;
+    long oldAfter;
+    long oldMaxAfter;
+  }
+
+  /** Options to control how the GC notifications are processed. */
+  public static final class Options {
+    private boolean captureEvents = true;
+    private boolean poolUsageFromMXBeans = false;
+
+    /**
+     * Should {@link GcEvent} objects be created and kept in the in-memory log that can be
+     * accessed with {@link GcLogger#getLogs()}? Defaults to true. If disabled, the
+     * notifications will be processed without creating the event objects unless an event
+     * listener is passed to {@link GcLogger#start(GcEventListener)}.
+     */
+    public Options withEventCapture(boolean flag) {
+      this.captureEvents = flag;
+      return this;
+    }
+
+    /**
+     * Should the usage of the memory pools be read from the cached {@link MemoryPoolMXBean}
+     * instances rather than from the before and after maps of the notification? Defaults to
+     * false. This avoids processing the usage for all of the pools on each event, but the
+     * usage before the GC has to be estimated, so the promotion, survivor, and allocation
+     * rates will be less accurate. For the young gen, this mode resets the peak usage on the
+     * pool bean.
+     */
+    public Options withPoolUsageFromMXBeans(boolean flag) {
+      this.poolUsageFromMXBeans = flag;
+      return this;
+    }
+  }
 }
@@ -15,6 +15,7 @@
  */
 package com.netflix.spectator.gc;
 
+import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.Meter;
 import com.netflix.spectator.api.Registry;
@@ -26,6 +27,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 
+import javax.management.openmbean.CompositeData;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.util.Arrays;
@@ -167,4 +169,83 @@ public class GcLoggerTest {
     handle.close();
     Assertions.assertEquals(before - 1, r.state().size());
   }
+
+  private Set<String> timerIds(Registry registry) {
+    Set<String> ids = new HashSet<>();
+    for (Meter m : registry) {
+      if (m instanceof Timer) {
+        ids.add(m.id().toString());
+      }
+    }
+    return ids;
+  }
+
+  private long count(Registry registry, String name) {
+    return registry.counter(name).count();
+  }
+
+  @Test
+  public void compositeDataMatchesInfo() {
+    GarbageCollectionNotificationInfo info = lastGcNotification();
+    Assumptions.assumeTrue(info != null, "no GcInfo available to build a synthetic event");
+    CompositeData cd = info.toCompositeData(null);
+
+    Registry r1 = new DefaultRegistry();
+    new GcLogger(r1).processGcEvent(info);
+
+    Registry r2 = new DefaultRegistry();
+    GcLogger l2 = new GcLogger(r2, new GcLogger.Options().withEventCapture(false));
+    l2.processGcEvent(cd);
+
+    Assertions.assertEquals(timerIds(r1), timerIds(r2));
+    Assertions.assertEquals(1L, totalTimerCount(r2));
+    for (String name : GC_METER_NAMES) {
+      Meter m = r1.get(r1.createId(name));
+      if (m instanceof Counter) {
+        Assertions.assertEquals(count(r1, name), count(r2, name), name);
+      }
+    }
+    Assertions.assertTrue(l2.getLogs().isEmpty());
+  }
+
+  @Test
+  public void eventsCapturedByDefault() {
+    GarbageCollectionNotificationInfo info = lastGcNotification();
+    Assumptions.assumeTrue(info != null, "no GcInfo available to build a synthetic event");
+
+    GcLogger logger = new GcLogger(new DefaultRegistry());
+    logger.processGcEvent(info.toCompositeData(null));
+    Assertions.assertEquals(1, logger.getLogs().size());
+  }
+
+  @Test
+  public void timerReusedForSameActionAndCause() {
+    GarbageCollectionNotificationInfo info = lastGcNotification();
+    Assumptions.assumeTrue(info != null, "no GcInfo available to build a synthetic event");
+
+    Registry r = new DefaultRegistry();
+    GcLogger logger = new GcLogger(r, new GcLogger.Options().withEventCapture(false));
+    CompositeData cd = info.toCompositeData(null);
+    for (int i = 0; i < 10; ++i) {
+      logger.processGcEvent(cd);
+    }
+    Assertions.assertEquals(1, timerIds(r).size());
+    Assertions.assertEquals(10L, totalTimerCount(r));
+  }
+
+  @Test
+  public void poolUsageFromMXBeans() {
+    GarbageCollectionNotificationInfo info = lastGcNotification();
+    Assumptions.assumeTrue(info != null, "no GcInfo available to build a synthetic event");
+
+    Registry r = new DefaultRegistry();
+    GcLogger.Options options = new GcLogger.Options()
+        .withEventCapture(false)
+        .withPoolUsageFromMXBeans(true);
+    GcLogger logger = new GcLogger(r, options);
+    logger.processGcEvent(info.toCompositeData(null));
+    logger.processGcEvent(info);
+    Assertions.assertEquals(2L, totalTimerCount(r));
+    Assertions.assertTrue(logger.getLogs().isEmpty());
+  }
 }
@@ -70,6 +70,23 @@ public class MappingExprSubstitute {
     VARS.put("EventType", "calls");
   }
 
+  private static final Map<String, Number> NUMBER_VARS = new HashMap<>();
+
+  static {
+    NUMBER_VARS.put("50thPercentile", 5000.0);
+    NUMBER_VARS.put("Count", 1000.0);
+    NUMBER_VARS.put("previous:Count", 990.0);
+  }
+
+  private static final String NAME_PATTERN = "cassandra.{raw:keyspace}.{scope}.{name}";
+  private static final String VALUE_EXPR =
+      "{50thPercentile},1e6,:div,{Count},{previous:Count},:if-changed";
+
+  private final MappingExpr.Template compiledMatch = MappingExpr.compileTemplate("{keyspace}");
+  private final MappingExpr.Template compiledNoMatch = MappingExpr.compileTemplate("abcdefghi");
+  private final MappingExpr.Template compiledName = MappingExpr.compileTemplate(NAME_PATTERN);
+  private final MappingExpr.Program compiledValue = MappingExpr.compile(VALUE_EXPR);
+
   static String substituteString(String pattern, Map<String, String> vars) {
     String value = pattern;
     for (Map.Entry<String, String> entry : vars.entrySet()) {
@@ -100,4 +117,34 @@ public class MappingExprSubstitute {
   public void stringReplaceNoMatch(Blackhole bh) {
       bh.consume(substituteString("abcdefghi", VARS));
   }
+
+  @Benchmark
+  public void compiledReplaceMatch(Blackhole bh) {
+    bh.consume(compiledMatch.apply(VARS));
+  }
+
+  @Benchmark
+  public void compiledReplaceNoMatch(Blackhole bh) {
+    bh.consume(compiledNoMatch.apply(VARS));
+  }
+
+  @Benchmark
+  public void customReplaceMultiple(Blackhole bh) {
+    bh.consume(MappingExpr.substitute(NAME_PATTERN, VARS));
+  }
+
+  @Benchmark
+  public void compiledReplaceMultiple(Blackhole bh) {
+    bh.consume(compiledName.apply(VARS));
+  }
+
+  @Benchmark
+  public void evalExpr(Blackhole bh) {
+    bh.consume(MappingExpr.eval(VALUE_EXPR, NUMBER_VARS));
+  }
+
+  @Benchmark
+  public void evalCompiled(Blackhole bh) {
+    bh.consume(compiledValue.eval(NUMBER_VARS));
+  }
 }
@@ -17,7 +17,9 @@
 package com.netflix.spectator.jvm;
 
 import com.netflix.spectator.api.Registry;
+import com.typesafe.config.Config;
 
+import java.util.List;
 import java.util.concurrent.Executor;
 
 /**
@@ -50,4 +52,22 @@ public final class JavaFlightRecorder {
     throw new UnsupportedOperationException("Java Flight Recorder support is only available on Java 17 and later");
   }
 
+  /**
+   * Collect Java Flight Recorder events based on a set of mappings, using the provided
+   * {@link java.util.concurrent.Executor} to execute a single task to collect events. This
+   * can be used to selectively enable more detailed events such as allocation samples, lock
+   * contention, thread parking, safepoints, and socket IO. Each mapping specifies the event,
+   * the meter to update, and the threshold for recording the event. See the
+   * {@code jfr.conf} resource for examples of the mapping format.
+   *
+   * @param registry the registry
+   * @param executor the executor to execute the task for streaming events
+   * @param mappings configs for mapping the events to meters
+   * @return an {@link AutoCloseable} allowing the underlying event stream to be closed
+   */
+  public static AutoCloseable monitorEvents(
+      Registry registry, Executor executor, List<? extends Config> mappings) {
+    throw new UnsupportedOperationException("Java Flight Recorder support is only available on Java 17 and later");
+  }
+
 }
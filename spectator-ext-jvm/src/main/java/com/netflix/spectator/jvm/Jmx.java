@@ -15,19 +15,18 @@
  */
 package com.netflix.spectator.jvm;
 
-import com.netflix.spectator.api.Gauge;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.patterns.PolledMeter;
 import com.typesafe.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.management.*;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Helpers for working with JMX mbeans.
@@ -36,10 +35,6 @@ public final class Jmx {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Jmx.class);
 
-  private static final AtomicLong PREV_GC_CPU_TIME = new AtomicLong(-1L);
-  private static final AtomicLong PREV_PROCESS_CPU_TIME = new AtomicLong(-1L);
-  private static final Method GC_CPU_TIME_METHOD = getGcCpuTimeMethod();
-
   private Jmx() {
   }
 
@@ -49,7 +44,23 @@ public final class Jmx {
    * mbeans from the local jvm.
    */
   public static void registerStandardMXBeans(Registry registry) {
-    if (JavaFlightRecorder.isSupported()) {
+    registerStandardMXBeans(registry, false);
+  }
+
+  /**
+   * Add meters for the standard MXBeans provided by the jvm. The data for all of the mbeans
+   * is sampled once per polling interval and used to update all of the meters. The time
+   * taken for each sample is reported as the {@code spectator.jvm.sampleTime} gauge.
+   *
+   * @param registry
+   *     Registry to use for reporting the data.
+   * @param procStats
+   *     If true and running on Linux, then the process CPU time and resident set size will
+   *     also be reported based on {@code /proc/self/stat} and {@code /proc/self/status}.
+   */
+  public static void registerStandardMXBeans(Registry registry, boolean procStats) {
+    boolean jfr = JavaFlightRecorder.isSupported();
+    if (jfr) {
       ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
         Thread t = new Thread(r, "spectator-jfr");
         t.setDaemon(true);
@@ -65,123 +76,16 @@ public final class Jmx {
           executor.shutdownNow();
         }
       });
-    } else {
-      monitorClassLoadingMXBean(registry);
-      monitorThreadMXBean(registry);
-      monitorCompilationMXBean(registry);
-    }
-    monitorGcOverhead(registry);
-    for (MemoryPoolMXBean mbean : ManagementFactory.getMemoryPoolMXBeans()) {
-      monitorMemoryPoolMXBean(registry, mbean);
     }
-    for (BufferPoolMXBean mbean : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
-      monitorBufferPoolMXBean(registry, mbean);
-    }
-  }
 
-  private static void monitorMemoryPoolMXBean(Registry registry, MemoryPoolMXBean mbean) {
-    String name = mbean.getName();
-    String type = mbean.getType().name();
-    Gauge used = registry.gauge("jvm.memory.used", "id", name, "memtype", type);
-    Gauge committed = registry.gauge("jvm.memory.committed", "id", name, "memtype", type);
-    Gauge max = registry.gauge("jvm.memory.max", "id", name, "memtype", type);
-    // Sample usage once per poll so used/committed/max come from a single consistent snapshot
-    // (as the previous MemoryPoolMeter did) and getUsage() is called once rather than per gauge.
-    // getUsage() can return null for an invalid pool, so guard against it.
-    PolledMeter.poll(registry, () -> {
-      MemoryUsage usage = mbean.getUsage();
-      if (usage != null) {
-        used.set(usage.getUsed());
-        committed.set(usage.getCommitted());
-        max.set(usage.getMax());
-      }
-    });
-  }
-
-  private static void monitorBufferPoolMXBean(Registry registry, BufferPoolMXBean mbean) {
-    String name = mbean.getName();
+    // Class loading, thread, and compilation data comes from the flight recorder if it is
+    // available. The sampler is held by the polled gauge and is called once to initialize
+    // the meters.
+    JvmSampler sampler = new JvmSampler(registry, !jfr, procStats);
+    sampler.applyAsDouble(registry);
     PolledMeter.using(registry)
-      .withName("jvm.buffer.count")
-      .withTag("id", name)
-      .monitorValue(mbean, BufferPoolMXBean::getCount);
-    PolledMeter.using(registry)
-      .withName("jvm.buffer.memoryUsed")
-      .withTag("id", name)
-      .monitorValue(mbean, BufferPoolMXBean::getMemoryUsed);
-  }
-
-  private static void monitorGcOverhead(Registry registry) {
-    PolledMeter.using(registry)
-            .withName("jvm.gc.overhead")
-            .monitorStaticMethodValue(Jmx::getGcOverhead);
-  }
-
-  private static Method getGcCpuTimeMethod() {
-    try {
-      // OpenJDK 26 and later - see https://bugs.openjdk.org/browse/JDK-8368529
-      return MemoryMXBean.class.getMethod("getTotalGcCpuTime");
-    } catch (NoSuchMethodException ignore) {
-      return null;
-    }
-  }
-
-  private static double getGcOverhead() {
-    if (GC_CPU_TIME_METHOD == null) {
-      return Double.NaN;
-    }
-    try {
-      com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean)
-              ManagementFactory.getOperatingSystemMXBean();
-      MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
-      long gcCpuTime = (long) GC_CPU_TIME_METHOD.invoke(memory);
-      long processCpuTime = os.getProcessCpuTime();
-      long prevGc = PREV_GC_CPU_TIME.getAndSet(gcCpuTime);
-      long prevProcess = PREV_PROCESS_CPU_TIME.getAndSet(processCpuTime);
-      if (prevGc < 0 || prevProcess < 0) {
-        return Double.NaN;
-      }
-      long deltaProcess = processCpuTime - prevProcess;
-      long deltaGc = gcCpuTime - prevGc;
-      return deltaProcess <= 0 ? Double.NaN : (double) deltaGc / deltaProcess;
-    } catch (InvocationTargetException | IllegalAccessException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  private static void monitorClassLoadingMXBean(Registry registry) {
-    ClassLoadingMXBean classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
-    PolledMeter.using(registry)
-      .withName("jvm.classloading.classesLoaded")
-      .monitorMonotonicCounter(classLoadingMXBean, ClassLoadingMXBean::getTotalLoadedClassCount);
-    PolledMeter.using(registry)
-      .withName("jvm.classloading.classesUnloaded")
-      .monitorMonotonicCounter(classLoadingMXBean, ClassLoadingMXBean::getUnloadedClassCount);
-  }
-
-  private static void monitorThreadMXBean(Registry registry) {
-    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
-    PolledMeter.using(registry)
-      .withName("jvm.thread.threadsStarted")
-      .monitorMonotonicCounter(threadMXBean, ThreadMXBean::getTotalStartedThreadCount);
-
-    Gauge nonDaemonThreadCount = registry.gauge("jvm.thread.threadCount", "id", "non-daemon");
-    Gauge daemonThreadCount = registry.gauge("jvm.thread.threadCount", "id", "daemon");
-    PolledMeter.poll(registry, () -> {
-      int threads = threadMXBean.getThreadCount();
-      int daemonThreads = threadMXBean.getDaemonThreadCount();
-      nonDaemonThreadCount.set(Math.max(0, threads - daemonThreads));
-      daemonThreadCount.set(daemonThreads);
-    });
-  }
-
-  private static void monitorCompilationMXBean(Registry registry) {
-    CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
-    if (compilationMXBean.isCompilationTimeMonitoringSupported()) {
-      PolledMeter.using(registry)
-        .withName("jvm.compilation.compilationTime")
-        .withTag("compiler", compilationMXBean.getName())
-        .monitorMonotonicCounterDouble(compilationMXBean, c -> c.getTotalCompilationTime() / 1000.0);
-    }
+        .withName("spectator.jvm.sampleTime")
+        .monitorValue(registry, sampler);
   }
 
   /**
@@ -197,11 +101,14 @@ public final class Jmx {
     JmxConfig config = JmxConfig.from(cfg);
     PolledMeter.poll(registry, () -> {
       try {
-        for (JmxData data : JmxData.query(config.getQuery())) {
+        Set<ObjectName> names = new HashSet<>();
+        for (JmxData data : config.query(ManagementFactory.getPlatformMBeanServer())) {
+          names.add(data.getName());
           for (JmxMeasurementConfig measurementConfig : config.getMeasurements()) {
             measurementConfig.measure(registry, data);
           }
         }
+        config.retain(names);
       } catch (Exception e) {
         LOGGER.warn("failed to query jmx data: {}", config.getQuery().getCanonicalName(), e);
       }
@@ -17,9 +17,16 @@ package com.netflix.spectator.jvm;
 
 import com.typesafe.config.Config;
 
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
 import javax.management.ObjectName;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Config for fetching data from JMX. A configuration consists of:
@@ -48,10 +55,35 @@ final class JmxConfig {
   private final ObjectName query;
   private final List<JmxMeasurementConfig> measurements;
 
+  /**
+   * Names that can match an attribute needed by the measurements. This includes the variable
+   * names and, for variables referring to an entry of a composite attribute, the prefixes
+   * before each dot.
+   */
+  private final Set<String> attributeNames;
+
+  /** Cache of the attributes to fetch for each bean that matches the query. */
+  private final Map<ObjectName, String[]> selectedAttributes;
+
   /** Create a new instance. */
   JmxConfig(ObjectName query, List<JmxMeasurementConfig> measurements) {
     this.query = query;
     this.measurements = measurements;
+
+    Set<String> vars = new HashSet<>();
+    for (JmxMeasurementConfig m : measurements) {
+      m.addVariables(vars);
+    }
+    this.attributeNames = new HashSet<>();
+    for (String var : vars) {
+      attributeNames.add(var);
+      int pos = var.indexOf('.');
+      while (pos > 0) {
+        attributeNames.add(var.substring(0, pos));
+        pos = var.indexOf('.', pos + 1);
+      }
+    }
+    this.selectedAttributes = new ConcurrentHashMap<>();
   }
 
   /** Object name query expression. */
@@ -63,4 +95,46 @@ final class JmxConfig {
   List<JmxMeasurementConfig> getMeasurements() {
     return measurements;
   }
+
+  /**
+   * Get the data for the beans matching the query. Only the attributes that are used by
+   * the measurements will be fetched. The set of attributes is determined based on the
+   * {@link MBeanInfo} the first time a bean is seen and cached until the bean no longer
+   * matches the query, see {@link #retain(Set)}.
+   */
+  List<JmxData> query(MBeanServer server) throws Exception {
+    return JmxData.query(server, query, this::selectAttributes);
+  }
+
+  /** Return the names of the attributes that should be fetched for a bean. */
+  String[] selectAttributes(MBeanServer server, ObjectName name) throws Exception {
+    String[] attrs = selectedAttributes.get(name);
+    if (attrs == null) {
+      attrs = attributeNames.isEmpty() ? new String[0] : selectAttributes(server.getMBeanInfo(name));
+      selectedAttributes.put(name, attrs);
+    }
+    return attrs;
+  }
+
+  private String[] selectAttributes(MBeanInfo info) {
+    List<String> attrs = new ArrayList<>();
+    for (MBeanAttributeInfo attr : info.getAttributes()) {
+      if (attributeNames.contains(attr.getName())) {
+        attrs.add(attr.getName());
+      }
+    }
+    return attrs.toArray(new String[0]);
+  }
+
+  /**
+   * Remove any cached state for beans that are not in the set of names. This should be
+   * called with the set of names that matched the query so that state for beans that have
+   * been unregistered can be cleaned up.
+   */
+  void retain(Set<ObjectName> names) {
+    selectedAttributes.keySet().retainAll(names);
+    for (JmxMeasurementConfig m : measurements) {
+      m.retain(names);
+    }
+  }
 }
@@ -66,23 +66,51 @@ class JmxData {
 
   /** Get data from JMX using object name query expression. */
   static List<JmxData> query(MBeanServer server, ObjectName query) throws Exception {
+    return query(server, query, JmxData::allAttributes);
+  }
+
+  /** Returns the names of all attributes for the bean. */
+  static String[] allAttributes(MBeanServer server, ObjectName name) throws Exception {
+    MBeanInfo info = server.getMBeanInfo(name);
+    MBeanAttributeInfo[] attrs = info.getAttributes();
+    String[] attrNames = new String[attrs.length];
+    for (int i = 0; i < attrs.length; ++i) {
+      attrNames[i] = attrs[i].getName();
+    }
+    return attrNames;
+  }
+
+  /**
+   * Get data from JMX using object name query expression.
+   *
+   * @param server
+   *     Server to query.
+   * @param query
+   *     Object name query expression.
+   * @param selector
+   *     Determines the set of attributes to fetch for a given bean. Fetching only the
+   *     attributes that are needed can be much cheaper for beans with many attributes or
+   *     expensive composite attributes.
+   * @return
+   *     Data for the beans that match the query.
+   */
+  static List<JmxData> query(MBeanServer server, ObjectName query, AttributeSelector selector)
+      throws Exception {
     List<JmxData> data = new ArrayList<>();
 
     Set<ObjectName> names = server.queryNames(query, null);
     LOGGER.trace("query [{}], found {} matches", query, names.size());
     for (ObjectName name : names) {
-      MBeanInfo info = server.getMBeanInfo(name);
-      MBeanAttributeInfo[] attrs = info.getAttributes();
-      String[] attrNames = new String[attrs.length];
-      for (int i = 0; i < attrs.length; ++i) {
-        attrNames[i] = attrs[i].getName();
-      }
+      String[] attrNames = selector.select(server, name);
 
       Map<String, String> stringAttrs = new HashMap<>();
       stringAttrs.put("domain", name.getDomain());
       Map<String, Number> numberAttrs = new HashMap<>();
 
-      for (Attribute attr : server.getAttributes(name, attrNames).asList()) {
+      List<Attribute> attrList = (attrNames.length == 0)
+          ? Collections.emptyList()
+          : server.getAttributes(name, attrNames).asList();
+      for (Attribute attr : attrList) {
         Object obj = attr.getValue();
         if (LOGGER.isTraceEnabled()) {
           LOGGER.trace("attribute [{}][{}] = {}", name, attr.getName(), mkString(obj));
@@ -123,6 +151,13 @@ class JmxData {
     return data;
   }
 
+  /** Determines the set of attributes that should be fetched for a bean. */
+  @FunctionalInterface
+  interface AttributeSelector {
+    /** Return the names of the attributes to fetch for the bean. */
+    String[] select(MBeanServer server, ObjectName name) throws Exception;
+  }
+
   private final ObjectName name;
   private final Map<String, String> stringAttrs;
   private final Map<String, Number> numberAttrs;
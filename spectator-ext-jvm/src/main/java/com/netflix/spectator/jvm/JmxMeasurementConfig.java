@@ -20,8 +20,13 @@ import com.netflix.spectator.api.Registry;
 import com.typesafe.config.Config;
 
 import javax.management.ObjectName;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
@@ -36,6 +41,9 @@ import java.util.stream.Collectors;
  *   <li><b>value:</b> value expression, see {@link MappingExpr#eval(String, Map)}</li>
  *   <li><b>counter:</b> is the value a monotonically increasing counter value?</li>
  * </ul>
+ *
+ * <p>The patterns and value expression are compiled when the config is created so they do
+ * not need to be parsed each time the data is polled.</p>
  */
 final class JmxMeasurementConfig {
 
@@ -50,12 +58,16 @@ final class JmxMeasurementConfig {
     return new JmxMeasurementConfig(name, tags, value, counter);
   }
 
-  private final String nameMapping;
-  private final Map<String, String> tagMappings;
-  private final String valueMapping;
+  private final MappingExpr.Template nameMapping;
+  private final Map<String, MappingExpr.Template> tagMappings;
+  private final MappingExpr.Program valueMapping;
   private final boolean counter;
 
+  /** Variables from the string attributes that are used to compute the id. */
+  private final String[] idVars;
+
   private final Map<ObjectName, JmxData> previousData;
+  private final Map<ObjectName, CachedId> ids;
   private final Map<Id, AtomicLong> previousCount;
 
   /** Create a new instance. */
@@ -64,43 +76,85 @@ final class JmxMeasurementConfig {
       Map<String, String> tagMappings,
       String valueMapping,
       boolean counter) {
-    this.nameMapping = nameMapping;
-    this.tagMappings = tagMappings;
-    this.valueMapping = valueMapping;
+    this.nameMapping = MappingExpr.compileTemplate(nameMapping);
+    this.tagMappings = new LinkedHashMap<>();
+    tagMappings.forEach((k, v) -> this.tagMappings.put(k, MappingExpr.compileTemplate(v)));
+    this.valueMapping = MappingExpr.compile(valueMapping);
     this.counter = counter;
+
+    Set<String> vars = new LinkedHashSet<>();
+    this.nameMapping.addKeys(vars);
+    this.tagMappings.values().forEach(t -> t.addKeys(vars));
+    this.idVars = vars.toArray(new String[0]);
+
     this.previousData = new ConcurrentHashMap<>();
+    this.ids = new ConcurrentHashMap<>();
     this.previousCount = new ConcurrentHashMap<>();
   }
 
+  /**
+   * Add the names of the variables used by the mappings to the set. The variables can refer
+   * to attributes of the bean, entries of composite attributes using {@code attr.key}, or
+   * properties of the object name.
+   */
+  void addVariables(Set<String> dst) {
+    Collections.addAll(dst, idVars);
+    valueMapping.addKeys(dst);
+  }
+
   /**
    * Fill in {@code ms} with measurements extracted from {@code data}.
    */
   void measure(Registry registry, JmxData data) {
-    Map<String, String> tags = tagMappings.entrySet().stream().collect(Collectors.toMap(
-        Map.Entry::getKey,
-        e -> MappingExpr.substitute(e.getValue(), data.getStringAttrs())
-    ));
-    Id id = registry
-        .createId(MappingExpr.substitute(nameMapping, data.getStringAttrs()))
-        .withTags(tags);
-
-    Map<String, Number> numberAttrs = new HashMap<>(data.getNumberAttrs());
-    JmxData previous = previousData.put(data.getName(), data);
-    if (previous != null) {
-      previous.getNumberAttrs().forEach((key, value) -> numberAttrs.put("previous:" + key, value));
-    }
+    Id id = getId(registry, data);
 
-    Double v = MappingExpr.eval(valueMapping, numberAttrs);
+    JmxData previous = previousData.put(data.getName(), data);
+    double v = valueMapping.eval(
+        data.getNumberAttrs(),
+        previous == null ? null : previous.getNumberAttrs());
 
-    if (v != null && !v.isNaN()) {
+    if (!Double.isNaN(v)) {
       if (counter) {
-        updateCounter(registry, id, v.longValue());
+        updateCounter(registry, id, (long) v);
       } else {
         registry.gauge(id).set(v);
       }
     }
   }
 
+  /**
+   * Get the id for the bean. The id is cached for a given object name and will be reused
+   * as long as the attributes used for the name and tags have not changed.
+   */
+  private Id getId(Registry registry, JmxData data) {
+    Map<String, String> attrs = data.getStringAttrs();
+    CachedId cached = ids.get(data.getName());
+    if (cached != null && cached.registry == registry && cached.matches(attrs)) {
+      return cached.id;
+    }
+
+    Map<String, String> tags = new HashMap<>();
+    tagMappings.forEach((k, t) -> tags.put(k, t.apply(attrs)));
+    Id id = registry.createId(nameMapping.apply(attrs)).withTags(tags);
+
+    String[] values = new String[idVars.length];
+    for (int i = 0; i < idVars.length; ++i) {
+      values[i] = attrs.get(idVars[i]);
+    }
+    ids.put(data.getName(), new CachedId(registry, values, id));
+    return id;
+  }
+
+  /**
+   * Remove any state for beans that are not in the set of names. This should be called
+   * after polling with the set of names that matched the query so that state for beans
+   * that have been unregistered can be cleaned up.
+   */
+  void retain(Set<ObjectName> names) {
+    previousData.keySet().retainAll(names);
+    ids.keySet().retainAll(names);
+  }
+
   private void updateCounter(Registry registry, Id id, long v) {
     AtomicLong prev = previousCount.computeIfAbsent(id, i -> new AtomicLong(Long.MIN_VALUE));
     long p = prev.get();
@@ -108,4 +162,26 @@ final class JmxMeasurementConfig {
       registry.counter(id).increment(v - p);
     }
   }
+
+  /** Id that was computed for a bean along with the attribute values used to create it. */
+  private final class CachedId {
+    private final Registry registry;
+    private final String[] values;
+    private final Id id;
+
+    CachedId(Registry registry, String[] values, Id id) {
+      this.registry = registry;
+      this.values = values;
+      this.id = id;
+    }
+
+    boolean matches(Map<String, String> attrs) {
+      for (int i = 0; i < idVars.length; ++i) {
+        if (!Objects.equals(values[i], attrs.get(idVars[i]))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
 }
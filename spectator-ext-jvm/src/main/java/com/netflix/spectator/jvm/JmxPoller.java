@@ -20,8 +20,25 @@ import com.typesafe.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -35,40 +52,185 @@ public class JmxPoller {
   private static final Logger LOGGER = LoggerFactory.getLogger(JmxPoller.class);
 
   private final Registry registry;
+  private final MBeanServer server;
+  private final ExecutorService executor;
+  private final long timeoutNanos;
   private List<JmxConfig> configs = Collections.emptyList();
 
+  /** Configs with a query that was submitted and has not yet finished. */
+  private final Set<JmxConfig> inFlight = ConcurrentHashMap.newKeySet();
+
   /**
-   * Create a new instance.
+   * Create a new instance. The queries will be run sequentially on the thread calling
+   * {@link #poll()}.
    *
    * @param registry
    *     Registry to update when polling the data.
    */
   public JmxPoller(Registry registry) {
+    this(registry, null, Duration.ZERO);
+  }
+
+  /**
+   * Create a new instance that fetches the data for independent queries concurrently.
+   *
+   * @param registry
+   *     Registry to update when polling the data.
+   * @param executor
+   *     Executor used to fetch the data for each query. The size of the pool determines
+   *     how many queries can run concurrently. The measurements are always updated on the
+   *     thread calling {@link #poll()}.
+   * @param timeout
+   *     Maximum amount of time to wait for the data in a single call to {@link #poll()}.
+   *     Queries that have not completed by the deadline will be cancelled and skipped for
+   *     that poll. If a query is still running from a previous poll, for example because
+   *     the bean is stuck and does not respond to the interrupt, then it will not be
+   *     submitted again until that query finishes. For a {@link ThreadPoolExecutor},
+   *     cancelled queries are purged from the queue. Queries that are rejected by the
+   *     executor, for example if it has a bounded queue that is full, are skipped.
+   */
+  public JmxPoller(Registry registry, ExecutorService executor, Duration timeout) {
     this.registry = registry;
+    this.server = ManagementFactory.getPlatformMBeanServer();
+    this.executor = executor;
+    this.timeoutNanos = timeout.toNanos();
   }
 
   /**
-   * Update the set of configs for what to poll.
+   * Update the set of configs for what to poll. The name, tag, and value mappings are
+   * compiled as part of the update so they do not need to be parsed for each poll.
    */
   public void updateConfigs(List<? extends Config> configs) {
-    this.configs = configs.stream()
+    setConfigs(configs.stream()
         .map(JmxConfig::from)
-        .collect(Collectors.toList());
+        .collect(Collectors.toList()));
+  }
+
+  /** Set the configs for what to poll. */
+  void setConfigs(List<JmxConfig> configs) {
+    this.configs = configs;
   }
 
   /**
    * Poll the JMX data once and update the registry.
    */
   public void poll() {
-    for (JmxConfig config : configs) {
+    if (executor == null) {
+      for (JmxConfig config : configs) {
+        try {
+          update(config, config.query(server));
+        } catch (Exception e) {
+          LOGGER.warn("failed to query jmx data: {}", config.getQuery().getCanonicalName(), e);
+        }
+      }
+    } else {
+      pollConcurrently();
+    }
+  }
+
+  private void pollConcurrently() {
+    final long deadline = System.nanoTime() + timeoutNanos;
+    final List<JmxConfig> cfgs = configs;
+    final List<Query> queries = new ArrayList<>(cfgs.size());
+    for (JmxConfig config : cfgs) {
+      if (!inFlight.add(config)) {
+        LOGGER.debug("previous jmx query is still running, skipping: {}",
+            config.getQuery().getCanonicalName());
+        queries.add(null);
+        continue;
+      }
+      Query query = new Query(config);
       try {
-        for (JmxData data : JmxData.query(config.getQuery())) {
-          for (JmxMeasurementConfig cfg : config.getMeasurements()) {
-            cfg.measure(registry, data);
+        query.future = executor.submit(query);
+        queries.add(query);
+      } catch (RejectedExecutionException e) {
+        inFlight.remove(config);
+        LOGGER.warn("failed to submit jmx query: {}", config.getQuery().getCanonicalName());
+        queries.add(null);
+      }
+    }
+
+    boolean cancelled = false;
+    for (int i = 0; i < queries.size(); ++i) {
+      Query query = queries.get(i);
+      if (query == null) {
+        continue;
+      }
+      JmxConfig config = query.config;
+      try {
+        long remaining = Math.max(0L, deadline - System.nanoTime());
+        update(config, query.future.get(remaining, TimeUnit.NANOSECONDS));
+      } catch (TimeoutException e) {
+        query.cancel();
+        cancelled = true;
+        LOGGER.warn("timed out querying jmx data: {}", config.getQuery().getCanonicalName());
+      } catch (ExecutionException e) {
+        LOGGER.warn("failed to query jmx data: {}",
+            config.getQuery().getCanonicalName(), e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        queries.subList(i, queries.size()).forEach(q -> {
+          if (q != null) {
+            q.cancel();
           }
-        }
+        });
+        cancelled = true;
+        break;
       } catch (Exception e) {
-        LOGGER.warn("failed to query jmx data: {}", config.getQuery().getCanonicalName(), e);
+        LOGGER.warn("failed to update jmx data: {}", config.getQuery().getCanonicalName(), e);
+      }
+    }
+
+    // Cancelled tasks that have not started would otherwise stay in the queue until a
+    // worker thread reaches them
+    if (cancelled && executor instanceof ThreadPoolExecutor) {
+      ((ThreadPoolExecutor) executor).purge();
+    }
+  }
+
+  private void update(JmxConfig config, List<JmxData> results) {
+    Set<ObjectName> names = new HashSet<>();
+    for (JmxData data : results) {
+      names.add(data.getName());
+      for (JmxMeasurementConfig cfg : config.getMeasurements()) {
+        cfg.measure(registry, data);
+      }
+    }
+
+    // Cleanup cached state for beans that no longer match the query
+    config.retain(names);
+  }
+
+  /**
+   * Query for a single config. The config is removed from the in-flight set when the query
+   * finishes, or when it is cancelled before it started running.
+   */
+  private final class Query implements Callable<List<JmxData>> {
+    private final JmxConfig config;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private Future<List<JmxData>> future;
+
+    Query(JmxConfig config) {
+      this.config = config;
+    }
+
+    @Override public List<JmxData> call() throws Exception {
+      if (!started.compareAndSet(false, true)) {
+        // Cancelled before it started
+        return Collections.emptyList();
+      }
+      try {
+        return config.query(server);
+      } finally {
+        inFlight.remove(config);
+      }
+    }
+
+    void cancel() {
+      future.cancel(true);
+      if (started.compareAndSet(false, true)) {
+        // Never started so it will not clear the in-flight state
+        inFlight.remove(config);
       }
     }
   }
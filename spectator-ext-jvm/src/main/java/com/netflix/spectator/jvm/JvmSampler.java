@@ -0,0 +1,507 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.jvm;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Gauge;
+import com.netflix.spectator.api.Registry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Samples the standard MXBeans once and updates all of the associated meters from that
+ * snapshot. The MXBean instances and meters are looked up once when the sampler is created,
+ * so each sample is just the calls to read the data followed by setting the gauges and
+ * incrementing counters by the delta since the last sample.
+ *
+ * <p>The sampler is used as the function for the {@code spectator.jvm.sampleTime} polled
+ * gauge. So it runs once per polling interval for the registry and reports the time in
+ * seconds it took to take the last sample.</p>
+ *
+ * <p>On Linux, process CPU time and resident set size can optionally be read from
+ * {@code /proc/self/stat} and {@code /proc/self/status} rather than using the operating
+ * system MXBean.</p>
+ */
+final class JvmSampler implements ToDoubleFunction<Registry> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JvmSampler.class);
+
+  /**
+   * Number of clock ticks per second used for the times in {@code /proc/self/stat}. This is
+   * the {@code USER_HZ} value that is fixed at 100 for the user-space ABI on Linux.
+   */
+  private static final double CLOCK_TICKS_PER_SECOND = 100.0;
+
+  private static final Path PROC_STAT = Paths.get("/proc/self/stat");
+  private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+
+  private static final byte[] VM_RSS = "VmRSS:".getBytes(StandardCharsets.US_ASCII);
+
+  private final Registry registry;
+
+  // Memory pools
+  private final MemoryPoolMXBean[] memoryPools;
+  private final Gauge[] memoryUsed;
+  private final Gauge[] memoryCommitted;
+  private final Gauge[] memoryMax;
+
+  // Buffer pools
+  private final BufferPoolMXBean[] bufferPools;
+  private final Gauge[] bufferCount;
+  private final Gauge[] bufferMemoryUsed;
+
+  // GC overhead, only available on JDK 26 and later
+  private final MemoryMXBean memoryBean;
+  private final Method gcCpuTimeMethod;
+  private final Gauge gcOverhead;
+
+  // Class loading, threads, and compilation. These are null if the data is collected
+  // using the flight recorder.
+  private final ClassLoadingMXBean classLoadingBean;
+  private final ThreadMXBean threadBean;
+  private final CompilationMXBean compilationBean;
+  private final Counter classesLoaded;
+  private final Counter classesUnloaded;
+  private final Counter threadsStarted;
+  private final Gauge nonDaemonThreadCount;
+  private final Gauge daemonThreadCount;
+  private final Counter compilationTime;
+
+  // Process stats from /proc
+  private final boolean procStats;
+  private final Counter userCpuTime;
+  private final Counter systemCpuTime;
+  private final Gauge residentSetSize;
+  private final byte[] buffer = new byte[4096];
+  private final long[] ticks = new long[2];
+
+  // Snapshot of the values for the current sample. Values for the counters are kept
+  // so the delta can be computed on the next sample.
+  private final Snapshot current;
+  private final Snapshot previous;
+  private boolean firstSample = true;
+
+  /**
+   * Create a new instance.
+   *
+   * @param registry
+   *     Registry to update with the sampled data.
+   * @param runtimeBeans
+   *     If true, then the class loading, thread, and compilation MXBeans will be sampled.
+   *     These should be disabled if the same data is collected using the flight recorder.
+   * @param procStats
+   *     If true, then the process CPU time and RSS will be read from {@code /proc}. It will
+   *     be ignored if {@code /proc/self/stat} is not available.
+   */
+  JvmSampler(Registry registry, boolean runtimeBeans, boolean procStats) {
+    this.registry = registry;
+
+    List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+    memoryPools = pools.toArray(new MemoryPoolMXBean[0]);
+    memoryUsed = new Gauge[memoryPools.length];
+    memoryCommitted = new Gauge[memoryPools.length];
+    memoryMax = new Gauge[memoryPools.length];
+    for (int i = 0; i < memoryPools.length; ++i) {
+      String name = memoryPools[i].getName();
+      String type = memoryPools[i].getType().name();
+      memoryUsed[i] = registry.gauge("jvm.memory.used", "id", name, "memtype", type);
+      memoryCommitted[i] = registry.gauge("jvm.memory.committed", "id", name, "memtype", type);
+      memoryMax[i] = registry.gauge("jvm.memory.max", "id", name, "memtype", type);
+    }
+
+    List<BufferPoolMXBean> buffers = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+    bufferPools = buffers.toArray(new BufferPoolMXBean[0]);
+    bufferCount = new Gauge[bufferPools.length];
+    bufferMemoryUsed = new Gauge[bufferPools.length];
+    for (int i = 0; i < bufferPools.length; ++i) {
+      String name = bufferPools[i].getName();
+      bufferCount[i] = registry.gauge("jvm.buffer.count", "id", name);
+      bufferMemoryUsed[i] = registry.gauge("jvm.buffer.memoryUsed", "id", name);
+    }
+
+    memoryBean = ManagementFactory.getMemoryMXBean();
+    gcCpuTimeMethod = getGcCpuTimeMethod();
+    gcOverhead = registry.gauge("jvm.gc.overhead");
+
+    if (runtimeBeans) {
+      classLoadingBean = ManagementFactory.getClassLoadingMXBean();
+      threadBean = ManagementFactory.getThreadMXBean();
+      CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+      compilationBean = (compilation != null && compilation.isCompilationTimeMonitoringSupported())
+          ? compilation
+          : null;
+      classesLoaded = registry.counter("jvm.classloading.classesLoaded");
+      classesUnloaded = registry.counter("jvm.classloading.classesUnloaded");
+      threadsStarted = registry.counter("jvm.thread.threadsStarted");
+      nonDaemonThreadCount = registry.gauge("jvm.thread.threadCount", "id", "non-daemon");
+      daemonThreadCount = registry.gauge("jvm.thread.threadCount", "id", "daemon");
+      compilationTime = (compilationBean == null)
+          ? null
+          : registry.counter("jvm.compilation.compilationTime",
+              "compiler", compilationBean.getName());
+    } else {
+      classLoadingBean = null;
+      threadBean = null;
+      compilationBean = null;
+      classesLoaded = null;
+      classesUnloaded = null;
+      threadsStarted = null;
+      nonDaemonThreadCount = null;
+      daemonThreadCount = null;
+      compilationTime = null;
+    }
+
+    this.procStats = procStats && Files.isReadable(PROC_STAT);
+    if (this.procStats) {
+      userCpuTime = registry.counter("jvm.process.cpuTime", "id", "user");
+      systemCpuTime = registry.counter("jvm.process.cpuTime", "id", "system");
+      residentSetSize = registry.gauge("jvm.process.rss");
+    } else {
+      userCpuTime = null;
+      systemCpuTime = null;
+      residentSetSize = null;
+    }
+
+    current = new Snapshot(memoryPools.length, bufferPools.length);
+    previous = new Snapshot(memoryPools.length, bufferPools.length);
+  }
+
+  private static Method getGcCpuTimeMethod() {
+    try {
+      // OpenJDK 26 and later - see https://bugs.openjdk.org/browse/JDK-8368529
+      return MemoryMXBean.class.getMethod("getTotalGcCpuTime");
+    } catch (NoSuchMethodException ignore) {
+      return null;
+    }
+  }
+
+  /**
+   * Take a sample and update the meters. The registry parameter is ignored, it is only
+   * there so the sampler can be used as the function for a polled gauge.
+   *
+   * @return
+   *     Time in seconds it took to take the sample and update the meters.
+   */
+  @Override public synchronized double applyAsDouble(Registry ignored) {
+    final long start = registry.clock().monotonicTime();
+    read(current);
+    update(current);
+
+    // Keep the current values so the deltas can be computed on the next sample
+    previous.copyFrom(current);
+    firstSample = false;
+    return (registry.clock().monotonicTime() - start) / 1e9;
+  }
+
+  private void read(Snapshot s) {
+    for (int i = 0; i < memoryPools.length; ++i) {
+      // getUsage() can return null for an invalid pool
+      MemoryUsage usage = memoryPools[i].getUsage();
+      if (usage == null) {
+        s.memoryUsed[i] = -1L;
+      } else {
+        s.memoryUsed[i] = usage.getUsed();
+        s.memoryCommitted[i] = usage.getCommitted();
+        s.memoryMax[i] = usage.getMax();
+      }
+    }
+
+    for (int i = 0; i < bufferPools.length; ++i) {
+      s.bufferCount[i] = bufferPools[i].getCount();
+      s.bufferMemoryUsed[i] = bufferPools[i].getMemoryUsed();
+    }
+
+    if (gcCpuTimeMethod != null) {
+      s.gcCpuTime = getGcCpuTime();
+      s.processCpuTime = getProcessCpuTime();
+    }
+
+    if (classLoadingBean != null) {
+      s.classesLoaded = classLoadingBean.getTotalLoadedClassCount();
+      s.classesUnloaded = classLoadingBean.getUnloadedClassCount();
+      s.threadsStarted = threadBean.getTotalStartedThreadCount();
+      s.threads = threadBean.getThreadCount();
+      s.daemonThreads = threadBean.getDaemonThreadCount();
+      if (compilationBean != null) {
+        s.compilationTime = compilationBean.getTotalCompilationTime();
+      }
+    }
+
+    if (procStats) {
+      readProcStats(s);
+    }
+  }
+
+  private long getGcCpuTime() {
+    try {
+      return (long) gcCpuTimeMethod.invoke(memoryBean);
+    } catch (Exception e) {
+      return -1L;
+    }
+  }
+
+  private static long getProcessCpuTime() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+    }
+    return -1L;
+  }
+
+  private void readProcStats(Snapshot s) {
+    try {
+      int n = readFully(PROC_STAT, buffer);
+      if (parseStat(buffer, n, ticks)) {
+        s.userTicks = ticks[0];
+        s.systemTicks = ticks[1];
+      } else {
+        s.userTicks = -1L;
+      }
+      n = readFully(PROC_STATUS, buffer);
+      s.rssBytes = parseRss(buffer, n);
+    } catch (IOException e) {
+      LOGGER.debug("failed to read process stats", e);
+      s.userTicks = -1L;
+      s.rssBytes = -1L;
+    }
+  }
+
+  private static int readFully(Path path, byte[] buf) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      int length = 0;
+      int n;
+      while (length < buf.length && (n = in.read(buf, length, buf.length - length)) > 0) {
+        length += n;
+      }
+      return length;
+    }
+  }
+
+  /**
+   * Parse the user and system CPU time from the contents of {@code /proc/self/stat}. The
+   * second field is the command name in parentheses and can contain spaces, so the fields
+   * are counted from the last closing parenthesis.
+   *
+   * @return
+   *     True if the times were found and stored in the first two positions of
+   *     {@code ticks}.
+   */
+  static boolean parseStat(byte[] buf, int length, long[] ticks) {
+    int pos = length - 1;
+    while (pos >= 0 && buf[pos] != ')') {
+      --pos;
+    }
+    if (pos < 0) {
+      return false;
+    }
+
+    // The closing parenthesis ends field 2, utime and stime are fields 14 and 15
+    int field = 2;
+    long utime = -1L;
+    for (int i = pos + 1; i < length; ++i) {
+      if (buf[i] == ' ') {
+        ++field;
+        if (field == 14) {
+          utime = parseLong(buf, i + 1, length);
+        } else if (field == 15) {
+          long stime = parseLong(buf, i + 1, length);
+          if (utime < 0L || stime < 0L) {
+            return false;
+          }
+          ticks[0] = utime;
+          ticks[1] = stime;
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parse the resident set size in bytes from the contents of {@code /proc/self/status}.
+   * Returns -1 if the value could not be found.
+   */
+  static long parseRss(byte[] buf, int length) {
+    int i = 0;
+    while (i < length) {
+      if (startsWith(buf, i, length, VM_RSS)) {
+        int pos = i + VM_RSS.length;
+        while (pos < length && (buf[pos] == ' ' || buf[pos] == '\t')) {
+          ++pos;
+        }
+        long kb = parseLong(buf, pos, length);
+        return kb < 0L ? -1L : kb * 1024L;
+      }
+
+      // Move to the start of the next line
+      while (i < length && buf[i] != '\n') {
+        ++i;
+      }
+      ++i;
+    }
+    return -1L;
+  }
+
+  private static boolean startsWith(byte[] buf, int offset, int length, byte[] prefix) {
+    if (offset + prefix.length > length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; ++i) {
+      if (buf[offset + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long parseLong(byte[] buf, int offset, int length) {
+    long v = 0L;
+    int i = offset;
+    for (; i < length && buf[i] >= '0' && buf[i] <= '9'; ++i) {
+      v = v * 10L + (buf[i] - '0');
+    }
+    return i == offset ? -1L : v;
+  }
+
+  private void update(Snapshot s) {
+    for (int i = 0; i < memoryPools.length; ++i) {
+      if (s.memoryUsed[i] >= 0L) {
+        memoryUsed[i].set(s.memoryUsed[i]);
+        memoryCommitted[i].set(s.memoryCommitted[i]);
+        memoryMax[i].set(s.memoryMax[i]);
+      }
+    }
+
+    for (int i = 0; i < bufferPools.length; ++i) {
+      bufferCount[i].set(s.bufferCount[i]);
+      bufferMemoryUsed[i].set(s.bufferMemoryUsed[i]);
+    }
+
+    if (gcCpuTimeMethod != null) {
+      gcOverhead.set(computeGcOverhead(s));
+    }
+
+    if (classLoadingBean != null) {
+      nonDaemonThreadCount.set(Math.max(0, s.threads - s.daemonThreads));
+      daemonThreadCount.set(s.daemonThreads);
+      if (!firstSample) {
+        increment(classesLoaded, s.classesLoaded - previous.classesLoaded);
+        increment(classesUnloaded, s.classesUnloaded - previous.classesUnloaded);
+        increment(threadsStarted, s.threadsStarted - previous.threadsStarted);
+        if (compilationTime != null) {
+          long delta = s.compilationTime - previous.compilationTime;
+          if (delta > 0L) {
+            compilationTime.add(delta / 1000.0);
+          }
+        }
+      }
+    }
+
+    if (procStats) {
+      if (s.rssBytes >= 0L) {
+        residentSetSize.set(s.rssBytes);
+      }
+      if (!firstSample && s.userTicks >= 0L && previous.userTicks >= 0L) {
+        addTicks(userCpuTime, s.userTicks - previous.userTicks);
+        addTicks(systemCpuTime, s.systemTicks - previous.systemTicks);
+      }
+    }
+  }
+
+  private double computeGcOverhead(Snapshot s) {
+    if (firstSample || s.gcCpuTime < 0L || s.processCpuTime < 0L
+        || previous.gcCpuTime < 0L || previous.processCpuTime < 0L) {
+      return Double.NaN;
+    }
+    long deltaProcess = s.processCpuTime - previous.processCpuTime;
+    long deltaGc = s.gcCpuTime - previous.gcCpuTime;
+    return deltaProcess <= 0L ? Double.NaN : (double) deltaGc / deltaProcess;
+  }
+
+  private static void increment(Counter counter, long delta) {
+    if (delta > 0L) {
+      counter.increment(delta);
+    }
+  }
+
+  private static void addTicks(Counter counter, long delta) {
+    if (delta > 0L) {
+      counter.add(delta / CLOCK_TICKS_PER_SECOND);
+    }
+  }
+
+  /** Values read for a single sample. */
+  private static final class Snapshot {
+    final long[] memoryUsed;
+    final long[] memoryCommitted;
+    final long[] memoryMax;
+    final long[] bufferCount;
+    final long[] bufferMemoryUsed;
+
+    long gcCpuTime = -1L;
+    long processCpuTime = -1L;
+
+    long classesLoaded;
+    long classesUnloaded;
+    long threadsStarted;
+    int threads;
+    int daemonThreads;
+    long compilationTime;
+
+    long userTicks = -1L;
+    long systemTicks = -1L;
+    long rssBytes = -1L;
+
+    Snapshot(int memoryPools, int bufferPools) {
+      memoryUsed = new long[memoryPools];
+      memoryCommitted = new long[memoryPools];
+      memoryMax = new long[memoryPools];
+      bufferCount = new long[bufferPools];
+      bufferMemoryUsed = new long[bufferPools];
+    }
+
+    /** Copy the values that are needed for computing deltas on the next sample. */
+    void copyFrom(Snapshot other) {
+      gcCpuTime = other.gcCpuTime;
+      processCpuTime = other.processCpuTime;
+      classesLoaded = other.classesLoaded;
+      classesUnloaded = other.classesUnloaded;
+      threadsStarted = other.threadsStarted;
+      compilationTime = other.compilationTime;
+      userTicks = other.userTicks;
+      systemTicks = other.systemTicks;
+    }
+  }
+}
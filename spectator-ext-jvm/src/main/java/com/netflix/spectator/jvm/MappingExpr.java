@@ -17,8 +17,12 @@ package com.netflix.spectator.jvm;
 
 import java.beans.Introspector;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.DoubleBinaryOperator;
 
 /**
@@ -153,4 +157,303 @@ final class MappingExpr {
     double num = stack.removeFirst();
     stack.addFirst((Double.compare(v1, v2) == 0) ? 0.0 : num);
   }
+
+  /**
+   * Compile a pattern string so it can be applied many times without needing to parse the
+   * pattern each time. The result of {@link Template#apply(Map)} will be the same as
+   * {@link #substitute(String, Map)} for the pattern.
+   */
+  static Template compileTemplate(String pattern) {
+    List<String> literals = new ArrayList<>();
+    List<String> vars = new ArrayList<>();
+
+    int openBracePos = pattern.indexOf('{');
+    int closeBracePos = (openBracePos == -1) ? -1 : pattern.indexOf('}', openBracePos);
+    if (closeBracePos == -1) {
+      return new Template(pattern, new String[] {pattern}, new String[0]);
+    }
+
+    int startPos = 0;
+    while (startPos < pattern.length()) {
+      literals.add(pattern.substring(startPos, openBracePos));
+      vars.add(pattern.substring(openBracePos + 1, closeBracePos));
+
+      startPos = closeBracePos + 1;
+      openBracePos = pattern.indexOf('{', startPos);
+      if (openBracePos == -1) {
+        break;
+      }
+
+      closeBracePos = pattern.indexOf('}', openBracePos);
+      if (closeBracePos == -1) {
+        break;
+      }
+    }
+    literals.add(startPos < pattern.length() ? pattern.substring(startPos) : "");
+
+    return new Template(pattern, literals.toArray(new String[0]), vars.toArray(new String[0]));
+  }
+
+  /**
+   * Pattern string that has been split into literal segments and variables, see
+   * {@link #compileTemplate(String)}.
+   */
+  static final class Template {
+
+    private final String pattern;
+    private final String[] literals;
+    private final String[] vars;
+    private final String[] keys;
+    private final boolean[] raw;
+
+    private Template(String pattern, String[] literals, String[] vars) {
+      this.pattern = pattern;
+      this.literals = literals;
+      this.vars = vars;
+      this.keys = new String[vars.length];
+      this.raw = new boolean[vars.length];
+      for (int i = 0; i < vars.length; ++i) {
+        raw[i] = vars[i].startsWith("raw:");
+        keys[i] = raw[i] ? vars[i].substring("raw:".length()) : vars[i];
+      }
+    }
+
+    /** Add the variable names that are used by this template to the set. */
+    void addKeys(Set<String> dst) {
+      for (String k : keys) {
+        dst.add(k);
+      }
+    }
+
+    /** Substitute the variables into the template. */
+    String apply(Map<String, String> vars) {
+      if (keys.length == 0) {
+        return pattern;
+      }
+
+      StringBuilder builder = new StringBuilder(pattern.length());
+      for (int i = 0; i < keys.length; ++i) {
+        builder.append(literals[i]);
+        String value = vars.get(keys[i]);
+        if (value == null) {
+          builder.append('{').append(this.vars[i]).append('}');
+        } else {
+          builder.append(raw[i] ? value : Introspector.decapitalize(value));
+        }
+      }
+      builder.append(literals[keys.length]);
+      return builder.toString();
+    }
+
+    @Override public String toString() {
+      return pattern;
+    }
+  }
+
+  private static final String PREVIOUS_PREFIX = "previous:";
+
+  private static final int OP_CONST = 0;
+  private static final int OP_VAR = 1;
+  private static final int OP_PREVIOUS = 2;
+  private static final int OP_ADD = 3;
+  private static final int OP_SUB = 4;
+  private static final int OP_MUL = 5;
+  private static final int OP_DIV = 6;
+  private static final int OP_IF_CHANGED = 7;
+
+  /**
+   * Compile a simple stack expression so it can be evaluated many times without needing to
+   * parse the expression each time. The result of evaluating the program will be the same as
+   * {@link #eval(String, Map)}, but any problems with the expression will be detected when
+   * it is compiled.
+   *
+   * @param expr
+   *     Basic stack expression that supports placeholders, numeric constants,
+   *     and basic binary operations (:add, :sub, :mul, :div).
+   * @return
+   *     Program that can be used to evaluate the expression.
+   * @throws IllegalArgumentException
+   *     If the expression is not valid.
+   */
+  static Program compile(String expr) {
+    String[] parts = expr.split("[,\\s]+");
+    int[] ops = new int[parts.length];
+    int[] args = new int[parts.length];
+    List<Double> constants = new ArrayList<>();
+    Set<String> vars = new LinkedHashSet<>();
+
+    int depth = 0;
+    int maxDepth = 0;
+    for (int i = 0; i < parts.length; ++i) {
+      String part = parts[i];
+      switch (part) {
+        case ":add":        ops[i] = OP_ADD;        depth = pop(expr, depth, 2) + 1; break;
+        case ":sub":        ops[i] = OP_SUB;        depth = pop(expr, depth, 2) + 1; break;
+        case ":mul":        ops[i] = OP_MUL;        depth = pop(expr, depth, 2) + 1; break;
+        case ":div":        ops[i] = OP_DIV;        depth = pop(expr, depth, 2) + 1; break;
+        case ":if-changed": ops[i] = OP_IF_CHANGED; depth = pop(expr, depth, 3) + 1; break;
+        default:
+          if (part.startsWith("{") && part.endsWith("}")) {
+            String var = part.substring(1, part.length() - 1);
+            vars.add(var);
+            ops[i] = var.startsWith(PREVIOUS_PREFIX) ? OP_PREVIOUS : OP_VAR;
+            args[i] = indexOf(vars, var);
+          } else {
+            try {
+              constants.add(Double.parseDouble(part));
+            } catch (NumberFormatException e) {
+              throw new IllegalArgumentException("invalid token '" + part + "' in: " + expr, e);
+            }
+            ops[i] = OP_CONST;
+            args[i] = constants.size() - 1;
+          }
+          ++depth;
+          break;
+      }
+      maxDepth = Math.max(maxDepth, depth);
+    }
+    pop(expr, depth, 1);
+
+    double[] cs = new double[constants.size()];
+    for (int i = 0; i < cs.length; ++i) {
+      cs[i] = constants.get(i);
+    }
+    return new Program(expr, ops, args, cs, vars.toArray(new String[0]), maxDepth);
+  }
+
+  private static int pop(String expr, int depth, int n) {
+    if (depth < n) {
+      throw new IllegalArgumentException("stack underflow in: " + expr);
+    }
+    return depth - n;
+  }
+
+  private static int indexOf(Set<String> vars, String var) {
+    int i = 0;
+    for (String v : vars) {
+      if (v.equals(var)) {
+        return i;
+      }
+      ++i;
+    }
+    return -1;
+  }
+
+  /**
+   * Stack expression that has been compiled to a sequence of operations over an array of
+   * double values, see {@link #compile(String)}.
+   */
+  static final class Program {
+
+    private final String expr;
+    private final int[] ops;
+    private final int[] args;
+    private final double[] constants;
+    private final String[] vars;
+    private final String[] previousVars;
+    private final int maxDepth;
+
+    private Program(
+        String expr, int[] ops, int[] args, double[] constants, String[] vars, int maxDepth) {
+      this.expr = expr;
+      this.ops = ops;
+      this.args = args;
+      this.constants = constants;
+      this.vars = vars;
+      this.previousVars = new String[vars.length];
+      for (int i = 0; i < vars.length; ++i) {
+        if (vars[i].startsWith(PREVIOUS_PREFIX)) {
+          previousVars[i] = vars[i].substring(PREVIOUS_PREFIX.length());
+        }
+      }
+      this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Add the variable names that are used by this program to the set. For variables that
+     * refer to the previous sample, the name without the {@code previous:} prefix is used.
+     */
+    void addKeys(Set<String> dst) {
+      for (int i = 0; i < vars.length; ++i) {
+        dst.add(previousVars[i] == null ? vars[i] : previousVars[i]);
+      }
+    }
+
+    /** Evaluate the program using the variables. */
+    double eval(Map<String, ? extends Number> vars) {
+      return eval(vars, null);
+    }
+
+    /**
+     * Evaluate the program.
+     *
+     * @param vars
+     *     Map of variable substitutions that are available.
+     * @param previous
+     *     Variables from the previous sample. Variables in the expression with a prefix
+     *     of {@code previous:} will be resolved from this map. If null, then they will be
+     *     resolved from {@code vars} using the full name.
+     * @return
+     *     Value for the expression. If a variable is missing, then it will be treated as NaN.
+     */
+    double eval(Map<String, ? extends Number> vars, Map<String, ? extends Number> previous) {
+      double[] stack = new double[maxDepth];
+      int sp = 0;
+      for (int i = 0; i < ops.length; ++i) {
+        switch (ops[i]) {
+          case OP_CONST:
+            stack[sp++] = constants[args[i]];
+            break;
+          case OP_VAR:
+            stack[sp++] = toDouble(vars.get(this.vars[args[i]]));
+            break;
+          case OP_PREVIOUS:
+            stack[sp++] = lookupPrevious(vars, previous, args[i]);
+            break;
+          case OP_ADD:
+            --sp;
+            stack[sp - 1] = stack[sp - 1] + stack[sp];
+            break;
+          case OP_SUB:
+            --sp;
+            stack[sp - 1] = stack[sp - 1] - stack[sp];
+            break;
+          case OP_MUL:
+            --sp;
+            stack[sp - 1] = stack[sp - 1] * stack[sp];
+            break;
+          case OP_DIV:
+            --sp;
+            stack[sp - 1] = stack[sp - 1] / stack[sp];
+            break;
+          default: // OP_IF_CHANGED, stack has: num v1 v2
+            sp -= 2;
+            if (Double.compare(stack[sp], stack[sp + 1]) == 0) {
+              stack[sp - 1] = 0.0;
+            }
+            break;
+        }
+      }
+      return stack[sp - 1];
+    }
+
+    private double lookupPrevious(
+        Map<String, ? extends Number> vars, Map<String, ? extends Number> previous, int i) {
+      if (previous != null) {
+        Number v = previous.get(previousVars[i]);
+        if (v != null) {
+          return v.doubleValue();
+        }
+      }
+      return toDouble(vars.get(this.vars[i]));
+    }
+
+    private static double toDouble(Number v) {
+      return (v == null) ? Double.NaN : v.doubleValue();
+    }
+
+    @Override public String toString() {
+      return expr;
+    }
+  }
 }
@@ -19,11 +19,13 @@ import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Gauge;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.Timer;
+import com.typesafe.config.Config;
 import jdk.jfr.EventSettings;
 import jdk.jfr.consumer.RecordedEvent;
 import jdk.jfr.consumer.RecordingStream;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
@@ -69,6 +71,25 @@ public class JavaFlightRecorder {
     return rs::close;
   }
 
+  public static AutoCloseable monitorEvents(
+      Registry registry, Executor executor, List<? extends Config> mappings) {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("This JVM does not support Java Flight Recorder event streaming");
+    }
+    Objects.requireNonNull(registry);
+    Objects.requireNonNull(executor);
+    // Parse all of the mappings before starting so that an invalid config fails fast
+    List<JfrEventMapping> parsed = mappings.stream()
+        .map(JfrEventMapping::from)
+        .toList();
+    RecordingStream rs = new RecordingStream();
+    for (JfrEventMapping mapping : parsed) {
+      mapping.register(registry, rs);
+    }
+    executor.execute(rs::start);
+    return rs::close;
+  }
+
   private static void collectClassLoadingStatistics(Registry registry, RecordingStream rs) {
     Counter classesLoaded = registry.counter("jvm.classloading.classesLoaded");
     AtomicLong prevLoadedClassCount = new AtomicLong();
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.jvm;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.CardinalityLimiters;
+import com.typesafe.config.Config;
+import jdk.jfr.EventSettings;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Config for mapping a Java Flight Recorder event to a meter.
+ *
+ * <ul>
+ *   <li><b>event:</b> name of the JFR event, for example {@code jdk.JavaMonitorEnter}.</li>
+ *   <li><b>name:</b> name of the meter to update.</li>
+ *   <li><b>type:</b> type of meter, one of {@code timer}, {@code counter}, or
+ *   {@code distribution-summary}. Defaults to {@code timer}.</li>
+ *   <li><b>value:</b> field of the event to use as the value. For timers the default is
+ *   the duration of the event. For counters the default is to increment by 1 for each
+ *   event.</li>
+ *   <li><b>threshold:</b> minimum duration for the event to be recorded by the JVM. Events
+ *   below the threshold are never emitted so they do not add any overhead.</li>
+ *   <li><b>period:</b> how often to emit periodic events.</li>
+ *   <li><b>settings:</b> list of additional settings for the event, each with a
+ *   {@code key} and {@code value}. For example, a key of {@code throttle} with a value of
+ *   {@code 100/s} to limit the rate of allocation samples.</li>
+ *   <li><b>tags:</b> list of tags to add, each with a {@code key} and a {@code field} of the
+ *   event to use for the value. Nested fields can be accessed using a dot, for example
+ *   {@code monitorClass.name}. The value can optionally be transformed by setting
+ *   {@code transform = "thread-pool"} which will strip the trailing thread number from a
+ *   thread name.</li>
+ *   <li><b>max-tag-values:</b> maximum number of distinct values for each tag. Less
+ *   frequent values will be grouped together. The frequencies are tracked with a fixed
+ *   amount of memory, see {@link CardinalityLimiters#heavyHitters(int)}. Defaults to
+ *   25.</li>
+ * </ul>
+ */
+final class JfrEventMapping {
+
+  private static final int DEFAULT_MAX_TAG_VALUES = 25;
+
+  /** Create from a Typesafe Config object. */
+  static JfrEventMapping from(Config config) {
+    String event = config.getString("event");
+    String name = config.getString("name");
+    Type type = config.hasPath("type")
+        ? Type.fromString(config.getString("type"))
+        : Type.TIMER;
+    String value = config.hasPath("value") ? config.getString("value") : null;
+    Duration threshold = config.hasPath("threshold") ? config.getDuration("threshold") : null;
+    Duration period = config.hasPath("period") ? config.getDuration("period") : null;
+
+    Map<String, String> settings = new LinkedHashMap<>();
+    if (config.hasPath("settings")) {
+      for (Config c : config.getConfigList("settings")) {
+        settings.put(c.getString("key"), c.getString("value"));
+      }
+    }
+
+    int maxTagValues = config.hasPath("max-tag-values")
+        ? config.getInt("max-tag-values")
+        : DEFAULT_MAX_TAG_VALUES;
+    List<TagMapping> tags = new ArrayList<>();
+    if (config.hasPath("tags")) {
+      for (Config c : config.getConfigList("tags")) {
+        boolean threadPool = c.hasPath("transform")
+            && "thread-pool".equals(c.getString("transform"));
+        String key = c.getString("key");
+        String field = c.getString("field");
+        tags.add(new TagMapping(key, field, threadPool, maxTagValues));
+      }
+    }
+    return new JfrEventMapping(event, name, type, value, threshold, period, settings, tags);
+  }
+
+  /** Type of meter to update for an event. */
+  enum Type {
+    /** Record the duration or value using a timer. */
+    TIMER,
+
+    /** Increment a counter by 1 or the value. */
+    COUNTER,
+
+    /** Record the value using a distribution summary. */
+    DISTRIBUTION_SUMMARY;
+
+    static Type fromString(String s) {
+      switch (s) {
+        case "timer":                return TIMER;
+        case "counter":              return COUNTER;
+        case "distribution-summary": return DISTRIBUTION_SUMMARY;
+        default:
+          throw new IllegalArgumentException("unknown meter type: " + s);
+      }
+    }
+  }
+
+  private final String event;
+  private final String name;
+  private final Type type;
+  private final String value;
+  private final Duration threshold;
+  private final Duration period;
+  private final Map<String, String> settings;
+  private final TagMapping[] tags;
+
+  /** Create a new instance. */
+  JfrEventMapping(
+      String event,
+      String name,
+      Type type,
+      String value,
+      Duration threshold,
+      Duration period,
+      Map<String, String> settings,
+      List<TagMapping> tags) {
+    this.event = event;
+    this.name = name;
+    this.type = type;
+    this.value = value;
+    this.threshold = threshold;
+    this.period = period;
+    this.settings = settings;
+    this.tags = tags.toArray(new TagMapping[0]);
+  }
+
+  /** Name of the JFR event. */
+  String event() {
+    return event;
+  }
+
+  /** Enable the event on the stream and register a handler to update the registry. */
+  void register(Registry registry, RecordingStream rs) {
+    EventSettings s = rs.enable(event).withoutStackTrace();
+    s.withThreshold(threshold == null ? Duration.ZERO : threshold);
+    if (period != null) {
+      s.withPeriod(period);
+    }
+    settings.forEach(s::with);
+
+    if (tags.length == 0) {
+      // Id does not depend on the event so it only needs to be created once
+      Id id = registry.createId(name);
+      rs.onEvent(event, e -> record(registry, id, e));
+    } else {
+      Id base = registry.createId(name);
+      rs.onEvent(event, e -> record(registry, createId(base, e), e));
+    }
+  }
+
+  private Id createId(Id base, RecordedEvent e) {
+    Id id = base;
+    for (TagMapping tag : tags) {
+      id = id.withTag(tag.key, tag.value(e));
+    }
+    return id;
+  }
+
+  private void record(Registry registry, Id id, RecordedEvent e) {
+    switch (type) {
+      case TIMER:
+        if (value == null) {
+          registry.timer(id).record(e.getDuration());
+        } else {
+          registry.timer(id).record(Duration.ofNanos(longValue(e)));
+        }
+        break;
+      case COUNTER:
+        registry.counter(id).increment(value == null ? 1L : longValue(e));
+        break;
+      default:
+        registry.distributionSummary(id).record(longValue(e));
+        break;
+    }
+  }
+
+  private long longValue(RecordedEvent e) {
+    Object v = e.getValue(value);
+    if (v instanceof Number) {
+      return ((Number) v).longValue();
+    } else if (v instanceof Duration) {
+      return ((Duration) v).toNanos();
+    } else {
+      return 0L;
+    }
+  }
+
+  /** Strip the trailing number and separators from a thread name. */
+  static String threadPoolName(String threadName) {
+    int end = threadName.length();
+    while (end > 0 && Character.isDigit(threadName.charAt(end - 1))) {
+      --end;
+    }
+    while (end > 0 && isSeparator(threadName.charAt(end - 1))) {
+      --end;
+    }
+    return end == 0 ? threadName : threadName.substring(0, end);
+  }
+
+  private static boolean isSeparator(char c) {
+    return c == '-' || c == '_' || c == ' ' || c == '#' || c == '.';
+  }
+
+  /** Mapping for a tag based on a field of the event. */
+  static final class TagMapping {
+    private final String key;
+    private final String field;
+    private final boolean threadPool;
+    private final Function<String, String> limiter;
+
+    // Cache of the normalized thread pool names to avoid processing the name for
+    // each event
+    private final Map<String, String> poolNames = new ConcurrentHashMap<>();
+
+    /** Create a new instance. */
+    TagMapping(String key, String field, boolean threadPool, int maxValues) {
+      this.key = key;
+      this.field = field;
+      this.threadPool = threadPool;
+      this.limiter = CardinalityLimiters.heavyHitters(maxValues);
+    }
+
+    String value(RecordedEvent e) {
+      Object obj = e.hasField(field) ? e.getValue(field) : null;
+      String v;
+      if (obj == null) {
+        v = "unknown";
+      } else if (obj instanceof RecordedThread) {
+        String threadName = ((RecordedThread) obj).getJavaName();
+        v = (threadName == null) ? "unknown" : threadName;
+      } else if (obj instanceof RecordedClass) {
+        v = ((RecordedClass) obj).getName();
+      } else {
+        v = obj.toString();
+      }
+      if (threadPool) {
+        String pool = poolNames.get(v);
+        if (pool == null) {
+          pool = threadPoolName(v);
+          if (poolNames.size() < 10_000) {
+            poolNames.put(v, pool);
+          }
+        }
+        v = pool;
+      }
+      return limiter.apply(v);
+    }
+  }
+}
@@ -18,7 +18,9 @@ package com.netflix.spectator.jvm;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import javax.management.MBeanServer;
 import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,4 +47,49 @@ public class JmxDataTest {
 
     JmxBean.unregister(bean);
   }
+
+  @Test
+  public void querySelectedAttributes() throws Exception {
+    ObjectName id = new ObjectName("CatalinaTest:type=Selected,name=\"http-nio\"");
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("modelType", "nio");
+    attributes.put("count", 42);
+    attributes.put("other", 7);
+    JmxBean bean = new JmxBean(id, attributes);
+    JmxBean.register(bean);
+
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      List<JmxData> results = JmxData.query(
+          server, new ObjectName("CatalinaTest:type=Selected,*"), (s, n) -> new String[] {"count"});
+      Assertions.assertEquals(1, results.size());
+
+      JmxData data = results.get(0);
+      Assertions.assertEquals(42.0, data.getNumberAttrs().get("count").doubleValue(), 1e-12);
+      Assertions.assertFalse(data.getNumberAttrs().containsKey("other"));
+      Assertions.assertFalse(data.getStringAttrs().containsKey("modelType"));
+      Assertions.assertEquals("Selected", data.getStringAttrs().get("type"));
+      Assertions.assertEquals("CatalinaTest", data.getStringAttrs().get("domain"));
+    } finally {
+      JmxBean.unregister(bean);
+    }
+  }
+
+  @Test
+  public void queryNoAttributes() throws Exception {
+    ObjectName id = new ObjectName("CatalinaTest:type=NoAttributes");
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("count", 42);
+    JmxBean bean = new JmxBean(id, attributes);
+    JmxBean.register(bean);
+
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      List<JmxData> results = JmxData.query(server, id, (s, n) -> new String[0]);
+      Assertions.assertEquals(1, results.size());
+      Assertions.assertTrue(results.get(0).getNumberAttrs().isEmpty());
+    } finally {
+      JmxBean.unregister(bean);
+    }
+  }
 }
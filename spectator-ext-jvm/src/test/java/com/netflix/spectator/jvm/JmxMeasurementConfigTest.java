@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.jvm;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.ManualClock;
+import com.netflix.spectator.api.Registry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class JmxMeasurementConfigTest {
+
+  private JmxData data(String props, String unit, double value) throws Exception {
+    ObjectName name = new ObjectName("test:" + props);
+    Map<String, String> stringAttrs = new HashMap<>(name.getKeyPropertyList());
+    stringAttrs.put("Unit", unit);
+    Map<String, Number> numberAttrs = new HashMap<>();
+    numberAttrs.put("Count", value);
+    return new JmxData(name, stringAttrs, numberAttrs);
+  }
+
+  private JmxMeasurementConfig config(String value, boolean counter) {
+    Map<String, String> tags = new HashMap<>();
+    tags.put("id", "{raw:name}");
+    tags.put("unit", "{Unit}");
+    return new JmxMeasurementConfig("test.{type}", tags, value, counter);
+  }
+
+  @Test
+  public void gauge() throws Exception {
+    Registry r = new DefaultRegistry(new ManualClock());
+    JmxMeasurementConfig cfg = config("{Count}", false);
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 42.0));
+    Assertions.assertEquals(42.0,
+        r.gauge("test.foo", "id", "Bar", "unit", "seconds").value(), 1e-12);
+  }
+
+  @Test
+  public void counter() throws Exception {
+    Registry r = new DefaultRegistry(new ManualClock());
+    JmxMeasurementConfig cfg = config("{Count}", true);
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 40.0));
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 42.0));
+    Assertions.assertEquals(2, r.counter("test.foo", "id", "Bar", "unit", "seconds").count());
+  }
+
+  @Test
+  public void previousValue() throws Exception {
+    Registry r = new DefaultRegistry(new ManualClock());
+    JmxMeasurementConfig cfg = config("{Count},{previous:Count},:sub", false);
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 40.0));
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 42.0));
+    Assertions.assertEquals(2.0,
+        r.gauge("test.foo", "id", "Bar", "unit", "seconds").value(), 1e-12);
+  }
+
+  @Test
+  public void idUpdatedWhenAttributeChanges() throws Exception {
+    Registry r = new DefaultRegistry(new ManualClock());
+    JmxMeasurementConfig cfg = config("{Count}", false);
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 1.0));
+    cfg.measure(r, data("type=Foo,name=Bar", "Millis", 2.0));
+    Assertions.assertEquals(1.0,
+        r.gauge("test.foo", "id", "Bar", "unit", "seconds").value(), 1e-12);
+    Assertions.assertEquals(2.0,
+        r.gauge("test.foo", "id", "Bar", "unit", "millis").value(), 1e-12);
+  }
+
+  @Test
+  public void retainRemovesPreviousData() throws Exception {
+    Registry r = new DefaultRegistry(new ManualClock());
+    JmxMeasurementConfig cfg = config("{Count},{previous:Count},:sub", false);
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 40.0));
+    cfg.retain(Collections.emptySet());
+
+    // Previous data was removed so the value is NaN and the gauge is not updated
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 42.0));
+    Assertions.assertTrue(
+        Double.isNaN(r.gauge("test.foo", "id", "Bar", "unit", "seconds").value()));
+
+    cfg.measure(r, data("type=Foo,name=Bar", "Seconds", 45.0));
+    Assertions.assertEquals(3.0,
+        r.gauge("test.foo", "id", "Bar", "unit", "seconds").value(), 1e-12);
+  }
+
+  @Test
+  public void invalidValueExpression() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> config("{Count},:add", false));
+  }
+}
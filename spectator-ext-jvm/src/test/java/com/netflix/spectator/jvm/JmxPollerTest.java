@@ -0,0 +1,187 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.jvm;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.ManualClock;
+import com.netflix.spectator.api.Registry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.AttributeList;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class JmxPollerTest {
+
+  private final List<JmxBean> beans = new ArrayList<>();
+  private final List<String> requested = Collections.synchronizedList(new ArrayList<>());
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void before() throws Exception {
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterEach
+  public void after() throws Exception {
+    executor.shutdownNow();
+    for (JmxBean bean : beans) {
+      JmxBean.unregister(bean);
+    }
+  }
+
+  private void register(String name, CountDownLatch latch) throws Exception {
+    register(name, latch, false);
+  }
+
+  private void register(String name, CountDownLatch latch, boolean ignoreInterrupt)
+      throws Exception {
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("Count", 42);
+    attributes.put("Unused", 1);
+    CompositeType usageType = new CompositeType(
+        "usage", "usage", new String[] {"used"}, new String[] {"used"},
+        new OpenType<?>[] {SimpleType.LONG});
+    attributes.put("Usage", new CompositeDataSupport(
+        usageType, new String[] {"used"}, new Object[] {10L}));
+    JmxBean bean = new JmxBean(new ObjectName(name), attributes) {
+      @Override public AttributeList getAttributes(String[] names) {
+        requested.addAll(Arrays.asList(names));
+        while (latch != null && latch.getCount() > 0L) {
+          try {
+            latch.await();
+          } catch (InterruptedException e) {
+            if (!ignoreInterrupt) {
+              Thread.currentThread().interrupt();
+              break;
+            }
+          }
+        }
+        return super.getAttributes(names);
+      }
+    };
+    JmxBean.register(bean);
+    beans.add(bean);
+  }
+
+  private JmxConfig config(String query, String name, String value) throws Exception {
+    JmxMeasurementConfig m = new JmxMeasurementConfig(
+        name, Collections.singletonMap("id", "{type}"), value, false);
+    return new JmxConfig(new ObjectName(query), Collections.singletonList(m));
+  }
+
+  @Test
+  public void onlySelectedAttributesAreFetched() throws Exception {
+    register("JmxPollerTest:type=A", null);
+    Registry registry = new DefaultRegistry(new ManualClock());
+    JmxPoller poller = new JmxPoller(registry);
+    poller.setConfigs(Arrays.asList(
+        config("JmxPollerTest:type=A", "count", "{Count}"),
+        config("JmxPollerTest:type=A", "used", "{Usage.used}")));
+    poller.poll();
+
+    Assertions.assertEquals(42.0, registry.gauge("count", "id", "A").value(), 1e-12);
+    Assertions.assertEquals(10.0, registry.gauge("used", "id", "A").value(), 1e-12);
+    Collections.sort(requested);
+    Assertions.assertEquals(Arrays.asList("Count", "Usage"), requested);
+  }
+
+  @Test
+  public void concurrentQueries() throws Exception {
+    register("JmxPollerTest:type=A", null);
+    register("JmxPollerTest:type=B", null);
+    Registry registry = new DefaultRegistry(new ManualClock());
+    JmxPoller poller = new JmxPoller(registry, executor, Duration.ofSeconds(10));
+    poller.setConfigs(Arrays.asList(
+        config("JmxPollerTest:type=A", "count", "{Count}"),
+        config("JmxPollerTest:type=B", "count", "{Count},2,:mul")));
+    poller.poll();
+
+    Assertions.assertEquals(42.0, registry.gauge("count", "id", "A").value(), 1e-12);
+    Assertions.assertEquals(84.0, registry.gauge("count", "id", "B").value(), 1e-12);
+  }
+
+  @Test
+  public void slowQueriesAreSkipped() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    register("JmxPollerTest:type=Slow", latch);
+    register("JmxPollerTest:type=Fast", null);
+    Registry registry = new DefaultRegistry(new ManualClock());
+    JmxPoller poller = new JmxPoller(registry, executor, Duration.ofMillis(50));
+    poller.setConfigs(Arrays.asList(
+        config("JmxPollerTest:type=Slow", "count", "{Count}"),
+        config("JmxPollerTest:type=Fast", "count", "{Count}")));
+
+    long start = System.nanoTime();
+    poller.poll();
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    latch.countDown();
+
+    Assertions.assertTrue(elapsed < 5000, "poll took " + elapsed + "ms");
+    Assertions.assertTrue(Double.isNaN(registry.gauge("count", "id", "Slow").value()));
+    Assertions.assertEquals(42.0, registry.gauge("count", "id", "Fast").value(), 1e-12);
+  }
+
+  @Test
+  public void runningQueriesAreNotResubmitted() throws Exception {
+    CountDownLatch latch = new CountDownLatch(1);
+    register("JmxPollerTest:type=Stuck", latch, true);
+    Registry registry = new DefaultRegistry(new ManualClock());
+    JmxPoller poller = new JmxPoller(registry, executor, Duration.ofMillis(50));
+    poller.setConfigs(Collections.singletonList(
+        config("JmxPollerTest:type=Stuck", "count", "{Count}")));
+
+    // Bean ignores the interrupt from the cancel, so the first query keeps running
+    // and later polls should not queue up additional queries behind it
+    for (int i = 0; i < 3; ++i) {
+      poller.poll();
+    }
+    latch.countDown();
+
+    Assertions.assertEquals(1, requested.size());
+  }
+
+  @Test
+  public void configWithoutAttributes() throws Exception {
+    register("JmxPollerTest:type=A", null);
+    Registry registry = new DefaultRegistry(new ManualClock());
+    JmxPoller poller = new JmxPoller(registry);
+    poller.setConfigs(Collections.singletonList(
+        config("JmxPollerTest:type=A", "constant", "1.0")));
+    poller.poll();
+
+    Assertions.assertEquals(1.0, registry.gauge("constant", "id", "A").value(), 1e-12);
+    Assertions.assertTrue(requested.isEmpty());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.jvm;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.patterns.PolledMeter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class JvmSamplerTest {
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  @Test
+  public void parseStat() {
+    byte[] data = bytes("1234 (java) S 1 1234 1234 0 -1 4194560 80516 0 3 0 "
+        + "1520 347 0 0 20 0 42 0 1968 5803003904 57231 18446744073709551615\n");
+    long[] ticks = new long[2];
+    Assertions.assertTrue(JvmSampler.parseStat(data, data.length, ticks));
+    Assertions.assertEquals(1520L, ticks[0]);
+    Assertions.assertEquals(347L, ticks[1]);
+  }
+
+  @Test
+  public void parseStatCommandWithSpaces() {
+    byte[] data = bytes("99 (my (odd) cmd) R 1 99 99 0 -1 0 0 0 0 0 7 3 0 0 20 0 1 0\n");
+    long[] ticks = new long[2];
+    Assertions.assertTrue(JvmSampler.parseStat(data, data.length, ticks));
+    Assertions.assertEquals(7L, ticks[0]);
+    Assertions.assertEquals(3L, ticks[1]);
+  }
+
+  @Test
+  public void parseStatTruncated() {
+    byte[] data = bytes("99 (java) R 1 99 99 0");
+    Assertions.assertFalse(JvmSampler.parseStat(data, data.length, new long[2]));
+  }
+
+  @Test
+  public void parseRss() {
+    byte[] data = bytes("Name:\tjava\nVmPeak:\t  100 kB\nVmRSS:\t  228844 kB\nThreads:\t42\n");
+    Assertions.assertEquals(228844L * 1024L, JvmSampler.parseRss(data, data.length));
+  }
+
+  @Test
+  public void parseRssMissing() {
+    byte[] data = bytes("Name:\tjava\nThreads:\t42\n");
+    Assertions.assertEquals(-1L, JvmSampler.parseRss(data, data.length));
+  }
+
+  @Test
+  public void sampleTimeReported() {
+    Registry registry = new DefaultRegistry();
+    Jmx.registerStandardMXBeans(registry);
+    PolledMeter.update(registry);
+    double v = registry.gauge(Id.create("spectator.jvm.sampleTime")).value();
+    Assertions.assertTrue(v >= 0.0, "sample time should be reported: " + v);
+  }
+
+  @Test
+  public void runtimeBeans() {
+    Registry registry = new DefaultRegistry();
+    JvmSampler sampler = new JvmSampler(registry, true, false);
+    sampler.applyAsDouble(registry);
+    Thread t = new Thread(() -> { });
+    t.start();
+    sampler.applyAsDouble(registry);
+    Assertions.assertTrue(registry.counter("jvm.thread.threadsStarted").count() >= 1L);
+    Assertions.assertTrue(
+        registry.gauge(Id.create("jvm.thread.threadCount").withTag("id", "daemon")).value() >= 0);
+  }
+
+  @Test
+  public void procStats() {
+    Registry registry = new DefaultRegistry();
+    JvmSampler sampler = new JvmSampler(registry, false, true);
+    sampler.applyAsDouble(registry);
+    if (Files.isReadable(Paths.get("/proc/self/stat"))) {
+      Assertions.assertTrue(registry.gauge("jvm.process.rss").value() > 0.0);
+    } else {
+      Assertions.assertNull(registry.get(Id.create("jvm.process.rss")));
+    }
+  }
+}
@@ -190,4 +190,111 @@ public class MappingExprTest {
     Double v = MappingExpr.eval("42.0,{foo},{previous:foo},:if-changed", vars);
     Assertions.assertEquals(0.0, v, 1e-12);
   }
+
+  @Test
+  public void compiledTemplateMatchesSubstitute() {
+    Map<String, String> vars = new HashMap<>();
+    vars.put("def", "123");
+    vars.put("ghi", "456");
+    vars.put("name", "FooBarBaz");
+    vars.put("", "empty");
+    vars.put("def, {def", "nested");
+    String[] patterns = {
+        "",
+        "abc",
+        "abc{def}",
+        "abc{missing}",
+        "abc{}",
+        "abc{def",
+        "abc{def}, {def}",
+        "abc{def}, {def",
+        "abc{def, {def}",
+        "abc{def}, {ghi}, {def}",
+        "abc.def.{name}",
+        "abc.def.{raw:name}",
+        "abc.def.{raw:}",
+        "}{def}{",
+        "{def}{ghi}"
+    };
+    for (String pattern : patterns) {
+      Assertions.assertEquals(
+          MappingExpr.substitute(pattern, vars),
+          MappingExpr.compileTemplate(pattern).apply(vars),
+          pattern);
+    }
+  }
+
+  @Test
+  public void compiledTemplateReturnsPatternIfNoVars() {
+    String pattern = "abc.def";
+    Assertions.assertSame(pattern, MappingExpr.compileTemplate(pattern).apply(new HashMap<>()));
+  }
+
+  @Test
+  public void compiledEvalMatchesEval() {
+    Map<String, Number> vars = new HashMap<>();
+    vars.put("foo", 2.0);
+    vars.put("bar", 3);
+    vars.put("previous:foo", 2.0);
+    String[] exprs = {
+        "{foo}",
+        "{missing}",
+        "42.0",
+        "42.0,{foo},:add",
+        "42.0,{foo},:sub",
+        "42.0 {foo} :mul",
+        "42.0,{foo},:div",
+        "{foo},{bar},:add,{bar},:mul",
+        "42.0,{foo},{previous:foo},:if-changed",
+        "42.0,{foo},{bar},:if-changed",
+        "1.0,2.0"
+    };
+    for (String expr : exprs) {
+      Assertions.assertEquals(
+          MappingExpr.eval(expr, vars),
+          MappingExpr.compile(expr).eval(vars),
+          1e-12,
+          expr);
+    }
+  }
+
+  @Test
+  public void compiledEvalPrevious() {
+    Map<String, Number> vars = new HashMap<>();
+    vars.put("foo", 2.0);
+    Map<String, Number> previous = new HashMap<>();
+    previous.put("foo", 3.0);
+    MappingExpr.Program p = MappingExpr.compile("42.0,{foo},{previous:foo},:if-changed");
+    Assertions.assertEquals(42.0, p.eval(vars, previous), 1e-12);
+    Assertions.assertEquals(0.0, p.eval(vars, vars), 1e-12);
+  }
+
+  @Test
+  public void compiledEvalPreviousMissing() {
+    Map<String, Number> vars = new HashMap<>();
+    vars.put("foo", 2.0);
+    MappingExpr.Program p = MappingExpr.compile("{previous:foo}");
+    Assertions.assertTrue(Double.isNaN(p.eval(vars, null)));
+    Assertions.assertTrue(Double.isNaN(p.eval(vars, new HashMap<>())));
+  }
+
+  @Test
+  public void compileInvalidToken() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> MappingExpr.compile("foo"));
+  }
+
+  @Test
+  public void compileUnknownOperation() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> MappingExpr.compile("1,:foo"));
+  }
+
+  @Test
+  public void compileStackUnderflow() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> MappingExpr.compile("1,:add"));
+  }
+
+  @Test
+  public void compileEmptyStack() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> MappingExpr.compile(""));
+  }
 }
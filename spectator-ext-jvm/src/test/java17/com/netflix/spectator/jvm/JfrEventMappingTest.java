@@ -0,0 +1,90 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spectator.jvm;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrEventMappingTest {
+
+  @Test
+  public void threadPoolName() {
+    assertEquals("http-nio-exec", JfrEventMapping.threadPoolName("http-nio-exec-12"));
+    assertEquals("pool-1-thread", JfrEventMapping.threadPoolName("pool-1-thread-3"));
+    assertEquals("ForkJoinPool.commonPool-worker",
+        JfrEventMapping.threadPoolName("ForkJoinPool.commonPool-worker-7"));
+    assertEquals("main", JfrEventMapping.threadPoolName("main"));
+    assertEquals("42", JfrEventMapping.threadPoolName("42"));
+  }
+
+  @Test
+  public void unknownType() {
+    Config config = ConfigFactory.parseString(
+        "event = \"jdk.ThreadPark\", name = \"test\", type = \"gauge\"");
+    assertThrows(IllegalArgumentException.class, () -> JfrEventMapping.from(config));
+  }
+
+  @Test
+  public void defaultMappingsParse() {
+    Config config = ConfigFactory.load("jfr.conf");
+    List<? extends Config> events = config.getConfigList("netflix.spectator.agent.jfr.events");
+    assertFalse(events.isEmpty());
+    for (Config c : events) {
+      assertTrue(JfrEventMapping.from(c).event().startsWith("jdk."));
+    }
+  }
+
+  @Test
+  public void threadParkAboveThreshold() throws Exception {
+    Config config = ConfigFactory.parseString(String.join("\n",
+        "event = \"jdk.ThreadPark\"",
+        "name = \"test.park\"",
+        "threshold = 10ms",
+        "tags = [{key = \"pool\", field = \"eventThread\", transform = \"thread-pool\"}]"));
+
+    Registry registry = new DefaultRegistry();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (var closeable = JavaFlightRecorder.monitorEvents(registry, executor, List.of(config))) {
+      Thread.sleep(1000);
+      Thread t = new Thread(() -> {
+        for (int i = 0; i < 5; ++i) {
+          LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+      }, "jfr-test-parker-1");
+      t.start();
+      t.join();
+      Thread.sleep(3000);
+    }
+    executor.shutdownNow();
+
+    Timer timer = registry.timer("test.park", "pool", "jfr-test-parker");
+    assertTrue(timer.count() > 0);
+    assertTrue(timer.totalTime() >= TimeUnit.MILLISECONDS.toNanos(10) * timer.count());
+  }
+}
@@ -24,6 +24,7 @@ import com.netflix.spectator.api.Gauge;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Meter;
+import com.netflix.spectator.api.MeterProfiler;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.Timer;
 import com.netflix.spectator.api.Utils;
@@ -344,9 +345,21 @@ public final class AtlasRegistry extends AbstractRegistry {
           evaluator.update(id, timestamp, value);
         };
         logger.debug("collecting measurements for time: {}", t);
-        publishTaskTimer("pollMeasurements").recordRunnable(() -> StreamSupport
-            .stream(spliterator(), parallelPolling)
-            .forEach(meter -> ((AtlasMeter) meter).measure(t, consumer)));
+        MeterProfiler profiler = profiler();
+        if (profiler == null) {
+          publishTaskTimer("pollMeasurements").recordRunnable(() -> StreamSupport
+              .stream(spliterator(), parallelPolling)
+              .forEach(meter -> ((AtlasMeter) meter).measure(t, consumer)));
+        } else {
+          publishTaskTimer("pollMeasurements").recordRunnable(() -> StreamSupport
+              .stream(spliterator(), parallelPolling)
+              .forEach(meter -> {
+                long start = clock().monotonicTime();
+                ((AtlasMeter) meter).measure(t, consumer);
+                profiler.recordMeasure(meter, clock().monotonicTime() - start);
+              }));
+          profiler.report(debugRegistry, config.profilingTopN());
+        }
         lastPollTimestamp = t;
       }
     });
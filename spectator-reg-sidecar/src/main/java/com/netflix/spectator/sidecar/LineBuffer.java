@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.sidecar;
+
+import com.netflix.spectator.impl.DoubleFormat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable buffer for building a single line of the SpectatorD protocol. The id prefix is
+ * copied from the pre-encoded bytes for the meter and the value is formatted directly as
+ * ASCII so that the steady state write path does not allocate. Instances are not thread
+ * safe, use {@link #get()} to access the buffer for the current thread.
+ */
+final class LineBuffer {
+
+  private static final ThreadLocal<LineBuffer> BUFFERS = ThreadLocal.withInitial(LineBuffer::new);
+
+  private static final byte[] NAN = "NaN".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] POS_INF = "Infinity".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NEG_INF = "-Infinity".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] LONG_MIN_VALUE =
+      Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+  /** Return the buffer for the current thread. It will be cleared before returning. */
+  static LineBuffer get() {
+    return BUFFERS.get().clear();
+  }
+
+  private byte[] data;
+  private ByteBuffer wrapper;
+  private int length;
+
+  /** Create a new instance. */
+  LineBuffer() {
+    this(256);
+  }
+
+  /** Create a new instance with the specified initial capacity. */
+  LineBuffer(int capacity) {
+    data = new byte[capacity];
+    wrapper = ByteBuffer.wrap(data);
+  }
+
+  /** Reset the buffer so it can be used for a new line. */
+  LineBuffer clear() {
+    length = 0;
+    return this;
+  }
+
+  /** Number of bytes in the buffer. */
+  int length() {
+    return length;
+  }
+
+  private void ensureCapacity(int n) {
+    if (length + n > data.length) {
+      byte[] tmp = new byte[Math.max(data.length * 2, length + n)];
+      System.arraycopy(data, 0, tmp, 0, length);
+      data = tmp;
+      wrapper = ByteBuffer.wrap(data);
+    }
+  }
+
+  /** Append a single ASCII character. */
+  LineBuffer append(char c) {
+    ensureCapacity(1);
+    data[length++] = (byte) c;
+    return this;
+  }
+
+  /** Append pre-encoded bytes. */
+  LineBuffer append(byte[] bytes) {
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, data, length, bytes.length);
+    length += bytes.length;
+    return this;
+  }
+
+  /** Append the decimal representation of a long. */
+  LineBuffer append(long value) {
+    if (value == Long.MIN_VALUE) {
+      return append(LONG_MIN_VALUE);
+    }
+    long v = value;
+    if (v < 0L) {
+      append('-');
+      v = -v;
+    }
+    ensureCapacity(19);
+    int n = digits(v);
+    int pos = length + n;
+    do {
+      data[--pos] = (byte) ('0' + (int) (v % 10L));
+      v /= 10L;
+    } while (v > 0L);
+    length += n;
+    return this;
+  }
+
+  /**
+   * Append the decimal representation of a double. The output is the shortest plain decimal
+   * string, with at least one digit after the decimal point, that parses to the same double
+   * value. For values between 1e-3 and 1e7 this will typically match
+   * {@link Double#toString(double)}. See {@link DoubleFormat#format} for more details.
+   */
+  LineBuffer append(double value) {
+    if (Double.isNaN(value)) {
+      return append(NAN);
+    } else if (Double.isInfinite(value)) {
+      return append(value > 0.0 ? POS_INF : NEG_INF);
+    }
+    ensureCapacity(DoubleFormat.MAX_LENGTH);
+    length = DoubleFormat.format(data, length, value, true);
+    return this;
+  }
+
+  /** Number of decimal digits for a non-negative long. */
+  private static int digits(long v) {
+    int n = 1;
+    long limit = 10L;
+    while (n < 19 && v >= limit) {
+      ++n;
+      limit *= 10L;
+    }
+    return n;
+  }
+
+  /**
+   * Return a view of the line as a byte buffer. The view is shared and only valid until
+   * the next modification of this buffer.
+   */
+  ByteBuffer buffer() {
+    wrapper.clear();
+    wrapper.limit(length);
+    return wrapper;
+  }
+
+  @Override public String toString() {
+    return new String(data, 0, length, StandardCharsets.UTF_8);
+  }
+}
@@ -17,6 +17,7 @@ package com.netflix.spectator.sidecar;
 
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 
 /** Writer that outputs data to a PrintStream instance. */
 final class PrintStreamWriter extends SidecarWriter {
@@ -33,6 +34,15 @@ final class PrintStreamWriter extends SidecarWriter {
     stream.println(line);
   }
 
+  @Override void writeImpl(ByteBuffer line) throws IOException {
+    // Lock on the stream so the line and separator will not get interleaved with the
+    // output from other threads
+    synchronized (stream) {
+      stream.write(line.array(), line.arrayOffset() + line.position(), line.remaining());
+      stream.println();
+    }
+  }
+
   @Override public void close() throws IOException {
     stream.close();
   }
@@ -35,11 +35,32 @@ public interface SidecarConfig extends RegistryConfig {
    *   <li><code>stderr</code>: write to standard error for the process.</li>
    *   <li><code>file://$path_to_file</code>: write to a file.</li>
    *   <li><code>udp://$host:$port</code>: write to a UDP socket.</li>
+   *   <li><code>unix://$path_to_socket</code>: write newline separated lines to a Unix
+   *       domain <b>stream</b> socket. Requires JDK 17 or later, on older versions this
+   *       method will throw an {@link IllegalArgumentException}.</li>
    * </ul>
+   *
+   * <p><b>The {@code unix://} output is not compatible with the default spectatord
+   * socket.</b> spectatord listens on a Unix domain <b>datagram</b> socket,
+   * {@code /run/spectatord/spectatord.unix}, and the JDK only supports stream sockets for
+   * the Unix domain. Connections to a datagram socket will fail and all lines will be
+   * dropped. Only use it with a sidecar that provides a stream listener, otherwise use the
+   * {@code udp://} output.</p>
    */
   default String outputLocation() {
     String v = get("sidecar.output-location");
-    return (v == null) ? "udp://127.0.0.1:1234" : v;
+    return SidecarWriter.checkLocation((v == null) ? "udp://127.0.0.1:1234" : v);
+  }
+
+  /**
+   * Returns the maximum number of meters to cache so that repeated lookups for the same id
+   * do not need to recompute the line prefix. The cache is keyed by the id passed in by the
+   * user before the common tags are merged. The default is {@code 10000}, use {@code 0} to
+   * disable the cache.
+   */
+  default int meterCacheSize() {
+    String v = get("sidecar.meter-cache-size");
+    return (v == null) ? 10_000 : Integer.parseInt(v);
   }
 
   /**
@@ -32,18 +32,18 @@ class SidecarCounter extends SidecarMeter implements Counter {
   }
 
   @Override public void increment() {
-    writer.write(idString, 1L);
+    writer.write(idBytes, 1L);
   }
 
   @Override public void increment(long delta) {
     if (delta > 0L) {
-      writer.write(idString, delta);
+      writer.write(idBytes, delta);
     }
   }
 
   @Override public void add(double amount) {
     if (amount > 0.0) {
-      writer.write(idString, amount);
+      writer.write(idBytes, amount);
     }
   }
 
@@ -33,7 +33,7 @@ class SidecarDistributionSummary extends SidecarMeter implements DistributionSum
 
   @Override public void record(long amount) {
     if (amount >= 0) {
-      writer.write(idString, amount);
+      writer.write(idBytes, amount);
     }
   }
 
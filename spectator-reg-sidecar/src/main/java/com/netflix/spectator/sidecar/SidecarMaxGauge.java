@@ -32,7 +32,7 @@ class SidecarMaxGauge extends SidecarMeter implements Gauge {
   }
 
   @Override public void set(double v) {
-    writer.write(idString, v);
+    writer.write(idBytes, v);
   }
 
   @Override public double value() {
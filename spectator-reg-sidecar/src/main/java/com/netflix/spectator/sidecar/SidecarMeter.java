@@ -20,6 +20,7 @@ import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Meter;
 import com.netflix.spectator.impl.AsciiSet;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 /** Base class for core meter types used by {@link SidecarRegistry}. */
@@ -33,10 +34,14 @@ abstract class SidecarMeter implements Meter {
   /** Prefix string for line to output to SpectatorD. */
   protected final String idString;
 
+  /** UTF-8 encoded bytes for {@link #idString} so it does not need to be encoded per update. */
+  protected final byte[] idBytes;
+
   /** Create a new instance. */
   SidecarMeter(Id id, char type) {
     this.id = id;
     this.idString = createIdString(id, type);
+    this.idBytes = idString.getBytes(StandardCharsets.UTF_8);
   }
 
   private String replaceInvalidChars(String s) {
@@ -17,6 +17,7 @@ package com.netflix.spectator.sidecar;
 
 import com.netflix.spectator.api.Clock;
 import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.DistributionSummary;
 import com.netflix.spectator.api.Gauge;
 import com.netflix.spectator.api.Id;
@@ -26,6 +27,7 @@ import com.netflix.spectator.api.Tag;
 import com.netflix.spectator.api.TagList;
 import com.netflix.spectator.api.Timer;
 import com.netflix.spectator.api.patterns.PolledMeter;
+import com.netflix.spectator.impl.Cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,6 +38,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
 /**
  * Registry for reporting data to <a href="https://github.com/Netflix-Skunkworks/spectatord">
@@ -51,6 +54,19 @@ public final class SidecarRegistry implements Registry, Closeable {
 
   private final ConcurrentHashMap<Id, Object> state;
 
+  /**
+   * Cache of meters keyed by the id passed in by the user. Will be null if caching is
+   * disabled.
+   */
+  private final Cache<Id, Meter> meters;
+
+  // Factories are created once so that lookups do not need to allocate a lambda
+  private final Function<Id, Meter> newCounter;
+  private final Function<Id, Meter> newDistributionSummary;
+  private final Function<Id, Meter> newTimer;
+  private final Function<Id, Meter> newGauge;
+  private final Function<Id, Meter> newMaxGauge;
+
   /** Create a new instance. */
   public SidecarRegistry(Clock clock, SidecarConfig config) {
     this(clock, config, SidecarWriter.create(config.outputLocation()));
@@ -62,6 +78,37 @@ public final class SidecarRegistry implements Registry, Closeable {
     this.commonTags = TagList.create(config.commonTags());
     this.writer = writer;
     this.state = new ConcurrentHashMap<>();
+
+    this.newCounter = id -> new SidecarCounter(mergeCommonTags(id), writer);
+    this.newDistributionSummary =
+        id -> new SidecarDistributionSummary(mergeCommonTags(id), writer);
+    this.newTimer = id -> new SidecarTimer(mergeCommonTags(id), clock, writer);
+    this.newGauge = id -> new SidecarGauge(mergeCommonTags(id), writer);
+    this.newMaxGauge = id -> new SidecarMaxGauge(mergeCommonTags(id), writer);
+
+    int cacheSize = config.meterCacheSize();
+    if (cacheSize > 0) {
+      Registry cacheStats = new DefaultRegistry(clock);
+      this.meters = Cache.directMapped(
+          cacheStats, "sidecar-meters", Math.min(64, cacheSize), cacheSize);
+      monitorCacheStats(cacheStats);
+    } else {
+      this.meters = null;
+    }
+  }
+
+  /**
+   * Report the stats for the meter cache. The counters are polled rather than updated on
+   * this registry so that a cache hit does not need to write a line to the sidecar.
+   */
+  private void monitorCacheStats(Registry cacheStats) {
+    for (Meter meter : cacheStats) {
+      if (meter instanceof Counter) {
+        PolledMeter.using(this)
+            .withId(meter.id())
+            .monitorMonotonicCounterDouble((Counter) meter, Counter::actualCount);
+      }
+    }
   }
 
   /**
@@ -81,6 +128,9 @@ public final class SidecarRegistry implements Registry, Closeable {
       }
     }
     state.clear();
+    if (meters != null) {
+      meters.clear();
+    }
     try {
       writer.close();
     } catch (IOException e) {
@@ -118,29 +168,38 @@ public final class SidecarRegistry implements Registry, Closeable {
     return commonTags.size() == 0 ? id : id.withTags(commonTags);
   }
 
+  /**
+   * Return the cached meter for the id or create a new one. If the same id has been used
+   * for a different type of meter, then a new instance will be created without caching.
+   */
+  private <T extends Meter> T getOrCreate(Id id, Class<T> cls, Function<Id, Meter> factory) {
+    Meter meter = (meters == null) ? factory.apply(id) : meters.computeIfAbsent(id, factory);
+    return cls.isInstance(meter) ? cls.cast(meter) : cls.cast(factory.apply(id));
+  }
+
   @Override
   public Counter counter(Id id) {
-    return new SidecarCounter(mergeCommonTags(id), writer);
+    return getOrCreate(id, SidecarCounter.class, newCounter);
   }
 
   @Override
   public DistributionSummary distributionSummary(Id id) {
-    return new SidecarDistributionSummary(mergeCommonTags(id), writer);
+    return getOrCreate(id, SidecarDistributionSummary.class, newDistributionSummary);
   }
 
   @Override
   public Timer timer(Id id) {
-    return new SidecarTimer(mergeCommonTags(id), clock, writer);
+    return getOrCreate(id, SidecarTimer.class, newTimer);
   }
 
   @Override
   public Gauge gauge(Id id) {
-    return new SidecarGauge(mergeCommonTags(id), writer);
+    return getOrCreate(id, SidecarGauge.class, newGauge);
   }
 
   @Override
   public Gauge maxGauge(Id id) {
-    return new SidecarMaxGauge(mergeCommonTags(id), writer);
+    return getOrCreate(id, SidecarMaxGauge.class, newMaxGauge);
   }
 
   @Override
@@ -43,7 +43,7 @@ class SidecarTimer extends SidecarMeter implements Timer {
   @Override public void record(long amount, TimeUnit unit) {
     final double seconds = unit.toNanos(amount) / 1e9;
     if (seconds >= 0.0) {
-      writer.write(idString, seconds);
+      writer.write(idBytes, seconds);
     }
   }
 
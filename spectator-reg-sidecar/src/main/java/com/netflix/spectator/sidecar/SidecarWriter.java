@@ -26,6 +26,8 @@ import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 
@@ -34,6 +36,22 @@ abstract class SidecarWriter implements Closeable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SidecarWriter.class);
 
+  /**
+   * Check that the location can be used with the current JVM.
+   *
+   * @return
+   *     The location if it is supported.
+   * @throws IllegalArgumentException
+   *     If the location is for a Unix domain socket and they are not supported.
+   */
+  static String checkLocation(String location) {
+    if (location.startsWith("unix://") && !UnixSockets.isSupported()) {
+      throw new IllegalArgumentException("unsupported location: " + location
+          + ", unix domain sockets require JDK 17 or later");
+    }
+    return location;
+  }
+
   /**
    * Create a new writer based on a location string.
    */
@@ -61,6 +79,10 @@ abstract class SidecarWriter implements Closeable {
         int port = uri.getPort();
         SocketAddress address = new InetSocketAddress(host, port);
         return new UdpWriter(location, address);
+      } else if (location.startsWith("unix://")) {
+        checkLocation(location);
+        String path = URI.create(location).getPath();
+        return new UnixWriter(location, path);
       } else {
         throw new IllegalArgumentException("unsupported location: " + location);
       }
@@ -80,26 +102,59 @@ abstract class SidecarWriter implements Closeable {
 
   abstract void writeImpl(String line) throws IOException;
 
+  /**
+   * Write a line that has been encoded as UTF-8 bytes. The buffer is only valid for the
+   * duration of the call. By default it will be decoded and passed to
+   * {@link #writeImpl(String)}, writers that can work with the bytes directly should
+   * override this method to avoid the allocation.
+   */
+  void writeImpl(ByteBuffer line) throws IOException {
+    writeImpl(StandardCharsets.UTF_8.decode(line).toString());
+  }
+
   void write(String line) {
     try {
       LOGGER.trace("writing to {}: {}", location, line);
       writeImpl(line);
     } catch (IOException e) {
-      // Some writers such as the UDP writer can be quite noisy if the sidecar is not present.
-      // To avoid spamming the user with warnings, they will be suppressed after a warning is
-      // logged. Note, in some cases UDP writes will fail without throwing an exception.
-      if (!suppressWarnings) {
-        LOGGER.warn("write to {} failed: {}", location, line, e);
-        suppressWarnings = true;
+      handleException(line, e);
+    }
+  }
+
+  private void write(LineBuffer line) {
+    try {
+      if (LOGGER.isTraceEnabled()) {
+        LOGGER.trace("writing to {}: {}", location, line);
       }
+      writeImpl(line.buffer());
+    } catch (IOException e) {
+      handleException(line, e);
+    }
+  }
+
+  private void handleException(Object line, IOException e) {
+    // Some writers such as the UDP writer can be quite noisy if the sidecar is not present.
+    // To avoid spamming the user with warnings, they will be suppressed after a warning is
+    // logged. Note, in some cases UDP writes will fail without throwing an exception.
+    if (!suppressWarnings) {
+      LOGGER.warn("write to {} failed: {}", location, line, e);
+      suppressWarnings = true;
     }
   }
 
-  void write(String prefix, long value) {
-    write(prefix + value);
+  /**
+   * Write a line with a pre-encoded prefix. The line is built in a buffer that is reused
+   * for the current thread so it will not allocate.
+   */
+  void write(byte[] prefix, long value) {
+    write(LineBuffer.get().append(prefix).append(value));
   }
 
-  void write(String prefix, double value) {
-    write(prefix + value);
+  /**
+   * Write a line with a pre-encoded prefix. The line is built in a buffer that is reused
+   * for the current thread so it will not allocate.
+   */
+  void write(byte[] prefix, double value) {
+    write(LineBuffer.get().append(prefix).append(value));
   }
 }
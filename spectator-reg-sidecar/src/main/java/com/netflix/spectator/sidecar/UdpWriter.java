@@ -55,7 +55,10 @@ final class UdpWriter extends SidecarWriter {
   }
 
   @Override public void writeImpl(String line) throws IOException {
-    ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+    writeImpl(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Override void writeImpl(ByteBuffer buffer) throws IOException {
     DatagramChannel ch = channel;
     try {
       ch.write(buffer);
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.sidecar;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Helpers for working with Unix domain sockets. This is the base variant used on JDK 8
+ * where they are not supported. On JDK 17+ a variant using {@code UnixDomainSocketAddress}
+ * is provided via the multi-release jar ({@code META-INF/versions/17}).
+ */
+final class UnixSockets {
+
+  private UnixSockets() {
+  }
+
+  /** Return true if Unix domain sockets are supported on the current JVM. */
+  static boolean isSupported() {
+    return false;
+  }
+
+  /** Create a socket address for the path. */
+  static SocketAddress address(String path) {
+    throw new UnsupportedOperationException("unix domain sockets require JDK 17 or later");
+  }
+
+  /** Open a new stream channel for Unix domain sockets. */
+  static SocketChannel openSocketChannel() throws IOException {
+    throw new UnsupportedOperationException("unix domain sockets require JDK 17 or later");
+  }
+}
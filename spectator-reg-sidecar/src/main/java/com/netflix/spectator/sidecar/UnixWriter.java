@@ -0,0 +1,398 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.sidecar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writer that outputs data to a Unix domain stream socket. Each line is terminated with a
+ * newline. Requires JDK 17 or later, see {@link UnixSockets#isSupported()}.
+ *
+ * <p><b>This writer is not compatible with the default spectatord socket.</b> The JDK only
+ * supports stream sockets for the Unix domain. The socket that spectatord listens on by
+ * default, {@code /run/spectatord/spectatord.unix}, is a datagram socket, so the connection
+ * will fail. Use the UDP writer for spectatord unless a stream listener is available.</p>
+ *
+ * <p>To reduce the number of system calls, lines are appended to a pending buffer and the
+ * thread that holds the channel lock will write out any lines added by other threads while
+ * it was busy. The channel is non-blocking so the thread recording a metric will never wait
+ * on the sidecar. If the socket buffer is full, then the data that could not be written is
+ * kept and a background flush is scheduled so that it will be sent within
+ * {@link #FLUSH_DELAY_MILLIS} once the sidecar catches up, even if there are no more
+ * writes. New lines are dropped if the pending buffer fills up in the meantime, or if
+ * another thread holds the lock when the buffer is full, similar to how UDP behaves under
+ * load. The number of dropped lines is available from {@link #droppedLines()}.</p>
+ *
+ * <p>The channel is connected lazily. If a write fails while the data to send starts at the
+ * beginning of a line, then it will reconnect and retry the write once. This handles the
+ * case where the sidecar has been restarted. Otherwise, the unsent data is dropped so that
+ * a partial line is never sent on the new connection. If connecting fails, then lines are
+ * dropped without trying to connect again until a backoff delay has passed. The delay
+ * doubles after each failure up to {@link #MAX_RECONNECT_DELAY_MILLIS}.</p>
+ */
+final class UnixWriter extends SidecarWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UnixWriter.class);
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Maximum amount of time unsent data will wait before a background flush is attempted. */
+  static final long FLUSH_DELAY_MILLIS = 100L;
+
+  /** Delay before reconnecting after the first connection failure. */
+  static final long MIN_RECONNECT_DELAY_MILLIS = 100L;
+
+  /** Maximum delay before reconnecting after repeated connection failures. */
+  static final long MAX_RECONNECT_DELAY_MILLIS = 10_000L;
+
+  private static final byte NEWLINE = (byte) '\n';
+
+  private final SocketAddress address;
+
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * Lock for the channel and the buffers that are not currently pending. The unsent buffer
+   * is in read mode and has data that has not yet been written to the channel. If there is
+   * no unsent data, then it will be null and spare will have the buffer that is not being
+   * used for pending lines.
+   */
+  private final ReentrantLock lock;
+  private SocketChannel channel;
+  private ByteBuffer unsent;
+  private ByteBuffer spare;
+
+  /** Set when the writer is closed so a background flush will not reconnect. */
+  private boolean closed;
+
+  /** Time from System.nanoTime() before which connecting will not be attempted. */
+  private long nextConnectTime;
+  private long reconnectDelayMillis;
+
+  /**
+   * Executor for background flushes. The thread is only started when there is unsent data
+   * and will exit after being idle.
+   */
+  private final ScheduledThreadPoolExecutor flusher;
+  private final AtomicBoolean flushScheduled;
+
+  /** Lock for the buffer where lines are added. */
+  private final Object pendingLock;
+  private ByteBuffer pending;
+
+  /** Create a new instance. */
+  UnixWriter(String location, String path) {
+    super(location);
+    this.address = UnixSockets.address(path);
+    this.lock = new ReentrantLock();
+    this.unsent = null;
+    this.spare = ByteBuffer.allocate(BUFFER_SIZE);
+    this.pendingLock = new Object();
+    this.pending = ByteBuffer.allocate(BUFFER_SIZE);
+    this.nextConnectTime = System.nanoTime();
+    this.reconnectDelayMillis = MIN_RECONNECT_DELAY_MILLIS;
+    this.flusher = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread t = new Thread(r, "spectator-sidecar-unix-flush");
+      t.setDaemon(true);
+      return t;
+    });
+    this.flusher.setKeepAliveTime(1L, TimeUnit.MINUTES);
+    this.flusher.allowCoreThreadTimeOut(true);
+    this.flushScheduled = new AtomicBoolean(false);
+  }
+
+  /** Number of lines that have been dropped. */
+  long droppedLines() {
+    return dropped.sum();
+  }
+
+  @Override void writeImpl(String line) throws IOException {
+    writeImpl(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Override void writeImpl(ByteBuffer line) throws IOException {
+    if (!append(line)) {
+      // Buffer is full. If the lock is available and the data has been written out, then
+      // write the line. Otherwise, drop the line.
+      if (lock.tryLock()) {
+        try {
+          if (!flush() || !append(line)) {
+            writeLarge(line);
+          }
+        } finally {
+          lock.unlock();
+        }
+      } else {
+        dropped.increment();
+      }
+    }
+
+    // Flush until there is no pending data, the channel cannot accept more data, or another
+    // thread has taken over. Pending data is checked again after unlocking in case another
+    // thread added a line after the last flush, but failed to get the lock. If the channel
+    // cannot accept more data, then the background flush will send it later.
+    while (lock.tryLock()) {
+      boolean done;
+      try {
+        done = flush();
+      } finally {
+        lock.unlock();
+      }
+      if (!done) {
+        scheduleFlush();
+        break;
+      } else if (!hasPending()) {
+        break;
+      }
+    }
+  }
+
+  /** Schedule a background flush if one is not already scheduled. */
+  private void scheduleFlush() {
+    if (flushScheduled.compareAndSet(false, true)) {
+      try {
+        flusher.schedule(this::backgroundFlush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (RuntimeException e) {
+        // Writer has been closed
+        flushScheduled.set(false);
+      }
+    }
+  }
+
+  private void backgroundFlush() {
+    flushScheduled.set(false);
+    boolean done = true;
+    lock.lock();
+    try {
+      if (!closed) {
+        done = flush();
+      }
+    } catch (IOException e) {
+      // Unsent data has been dropped and counted, the next write will log the failure
+      LOGGER.debug("background flush failed", e);
+    } finally {
+      lock.unlock();
+    }
+    if (!done) {
+      scheduleFlush();
+    }
+  }
+
+  private boolean append(ByteBuffer line) {
+    synchronized (pendingLock) {
+      if (pending.remaining() > line.remaining()) {
+        pending.put(line).put(NEWLINE);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  private boolean hasPending() {
+    synchronized (pendingLock) {
+      return pending.position() > 0;
+    }
+  }
+
+  /**
+   * Write a line that did not fit in the pending buffer. It is only written if all previous
+   * data has been sent, otherwise it is dropped. Must be called with the lock held.
+   */
+  private void writeLarge(ByteBuffer line) throws IOException {
+    if (unsent != null || hasPending()) {
+      dropped.increment();
+    } else {
+      // Larger than the buffer, write it directly. Any data that cannot be written right
+      // away is kept as the unsent buffer.
+      ByteBuffer buffer = ByteBuffer.allocate(line.remaining() + 1);
+      buffer.put(line).put(NEWLINE).flip();
+      unsent = buffer;
+      flush();
+    }
+  }
+
+  /**
+   * Write out the unsent data and then swap the buffers and write out the pending data.
+   * Must be called with the lock held.
+   *
+   * @return
+   *     True if all of the data has been written or false if the channel cannot accept
+   *     more data right now.
+   */
+  private boolean flush() throws IOException {
+    while (true) {
+      if (unsent != null) {
+        if (!writeUnsent()) {
+          return false;
+        }
+        releaseUnsent();
+      }
+      synchronized (pendingLock) {
+        if (pending.position() == 0) {
+          return true;
+        }
+        unsent = pending;
+        pending = spare;
+        spare = null;
+      }
+      unsent.flip();
+    }
+  }
+
+  /** Return the unsent buffer to be reused, unless it was a temporary one for a large line. */
+  private void releaseUnsent() {
+    if (spare == null) {
+      unsent.clear();
+      spare = unsent;
+    }
+    unsent = null;
+  }
+
+  /**
+   * Write the unsent data to the channel. If it fails, then the unsent data is dropped.
+   *
+   * @return
+   *     True if all of the data has been written.
+   */
+  private boolean writeUnsent() throws IOException {
+    final ByteBuffer buffer = unsent;
+    boolean retry = true;
+    while (true) {
+      try {
+        if (channel == null) {
+          connect();
+        }
+        while (buffer.hasRemaining()) {
+          if (channel.write(buffer) == 0) {
+            // Socket buffer is full, try again on a later write rather than blocking
+            return false;
+          }
+        }
+        return true;
+      } catch (ClosedByInterruptException e) {
+        // Thread was interrupted. Reconnection is futile because any new channel I/O will
+        // immediately fail, so re-throw to let SidecarWriter suppress repeated warnings.
+        channel = null;
+        dropUnsent();
+        Thread.currentThread().interrupt();
+        throw e;
+      } catch (IOException e) {
+        final boolean connected = channel != null;
+        closeChannel();
+        // Only retry if an existing connection failed and the data starts with a complete
+        // line. Otherwise, the partial line that was sent would get duplicated or corrupted.
+        if (!connected || !retry || !atLineStart(buffer)) {
+          dropUnsent();
+          throw e;
+        }
+        retry = false;
+      }
+    }
+  }
+
+  private static boolean atLineStart(ByteBuffer buffer) {
+    int pos = buffer.position();
+    return pos == 0 || buffer.get(pos - 1) == NEWLINE;
+  }
+
+  /** Drop the unsent data and update the count of dropped lines. */
+  private void dropUnsent() {
+    dropped.add(countLines(unsent, unsent.position(), unsent.limit()));
+    releaseUnsent();
+  }
+
+  private static long countLines(ByteBuffer buffer, int start, int end) {
+    long n = 0L;
+    for (int i = start; i < end; ++i) {
+      if (buffer.get(i) == NEWLINE) {
+        ++n;
+      }
+    }
+    return n;
+  }
+
+  private void connect() throws IOException {
+    final long now = System.nanoTime();
+    if (now - nextConnectTime < 0L) {
+      throw new IOException("connection to " + address + " failed, waiting "
+          + reconnectDelayMillis + "ms before reconnecting");
+    }
+    SocketChannel newChannel = UnixSockets.openSocketChannel();
+    try {
+      newChannel.configureBlocking(false);
+      if (!newChannel.connect(address) && !newChannel.finishConnect()) {
+        // Unix domain connections normally complete or fail right away
+        throw new IOException("connection to " + address + " is still pending");
+      }
+      channel = newChannel;
+      reconnectDelayMillis = MIN_RECONNECT_DELAY_MILLIS;
+    } catch (IOException e) {
+      try {
+        newChannel.close();
+      } catch (IOException ignored) {
+        // Suppress close exception during error handling
+      }
+      // Back off so that a sidecar that is down is not checked on every write
+      nextConnectTime = now + TimeUnit.MILLISECONDS.toNanos(reconnectDelayMillis);
+      reconnectDelayMillis = Math.min(2L * reconnectDelayMillis, MAX_RECONNECT_DELAY_MILLIS);
+      throw e;
+    }
+  }
+
+  private void closeChannel() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ignored) {
+        // Channel is being discarded
+      }
+      channel = null;
+    }
+  }
+
+  @Override public void close() throws IOException {
+    flusher.shutdownNow();
+    lock.lock();
+    try {
+      closed = true;
+      // Make one attempt to send the remaining data, anything the channel cannot accept
+      // right away is dropped
+      if (!flush()) {
+        dropUnsent();
+        synchronized (pendingLock) {
+          dropped.add(countLines(pending, 0, pending.position()));
+          pending.clear();
+        }
+      }
+    } finally {
+      closeChannel();
+      lock.unlock();
+    }
+  }
+}
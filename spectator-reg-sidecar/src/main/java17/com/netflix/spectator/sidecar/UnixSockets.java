@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.sidecar;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Helpers for working with Unix domain sockets. This variant is used on JDK 17+ via the
+ * multi-release jar.
+ */
+final class UnixSockets {
+
+  private UnixSockets() {
+  }
+
+  /** Return true if Unix domain sockets are supported on the current JVM. */
+  static boolean isSupported() {
+    return true;
+  }
+
+  /** Create a socket address for the path. */
+  static SocketAddress address(String path) {
+    return UnixDomainSocketAddress.of(path);
+  }
+
+  /** Open a new stream channel for Unix domain sockets. */
+  static SocketChannel openSocketChannel() throws IOException {
+    return SocketChannel.open(StandardProtocolFamily.UNIX);
+  }
+}
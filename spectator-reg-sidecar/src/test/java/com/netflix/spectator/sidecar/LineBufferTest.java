@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.sidecar;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class LineBufferTest {
+
+  private String format(long v) {
+    return new LineBuffer().append(v).toString();
+  }
+
+  private String format(double v) {
+    return new LineBuffer().append(v).toString();
+  }
+
+  @Test
+  public void longValues() {
+    long[] values = {0L, 1L, 9L, 10L, 42L, 99L, 100L, -1L, -42L, Long.MAX_VALUE, Long.MIN_VALUE};
+    for (long v : values) {
+      Assertions.assertEquals(Long.toString(v), format(v));
+    }
+  }
+
+  @Test
+  public void longPowersOfTen() {
+    long v = 1L;
+    for (int i = 0; i < 19; ++i) {
+      Assertions.assertEquals(Long.toString(v), format(v));
+      Assertions.assertEquals(Long.toString(v - 1), format(v - 1));
+      v *= 10L;
+    }
+  }
+
+  @Test
+  public void doubleSameAsToString() {
+    double[] values = {
+        0.0, -0.0, 1.0, -1.0, 0.1, 0.042, 42.0, 42.5, 0.001, 123.456, 1e6, 9999999.0,
+        Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+    };
+    for (double v : values) {
+      Assertions.assertEquals(Double.toString(v), format(v));
+    }
+  }
+
+  @Test
+  public void doublePlainNotation() {
+    Assertions.assertEquals("0.0001", format(1e-4));
+    Assertions.assertEquals("0.00000123", format(1.23e-6));
+    Assertions.assertEquals("10000000.0", format(1e7));
+    Assertions.assertEquals("-123456789012.5", format(-123456789012.5));
+  }
+
+  @Test
+  public void doubleFallback() {
+    Assertions.assertEquals(Double.toString(1e300), format(1e300));
+    Assertions.assertEquals(Double.toString(Double.MIN_VALUE), format(Double.MIN_VALUE));
+    Assertions.assertEquals(Double.toString(Math.PI * 1e-10), format(Math.PI * 1e-10));
+  }
+
+  @Test
+  public void doubleRoundTrip() {
+    Random r = new Random(42);
+    for (int i = 0; i < 100_000; ++i) {
+      double[] values = {
+          r.nextDouble(),
+          r.nextInt(1_000_000) / 1000.0,
+          r.nextGaussian() * 1e6 / (1 + r.nextInt(100))
+      };
+      for (double v : values) {
+        Assertions.assertEquals(v, Double.parseDouble(format(v)), 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void prefixAndGrowth() {
+    LineBuffer buffer = new LineBuffer(4);
+    byte[] prefix = "c:test,app=foo:".getBytes(StandardCharsets.UTF_8);
+    buffer.append(prefix).append(42L);
+    Assertions.assertEquals("c:test,app=foo:42", buffer.toString());
+
+    ByteBuffer bytes = buffer.buffer();
+    Assertions.assertEquals(0, bytes.position());
+    Assertions.assertEquals(buffer.length(), bytes.remaining());
+
+    buffer.clear().append(prefix).append(0.5);
+    Assertions.assertEquals("c:test,app=foo:0.5", buffer.toString());
+  }
+
+  @Test
+  public void threadLocalIsCleared() {
+    LineBuffer.get().append(1L);
+    Assertions.assertEquals(0, LineBuffer.get().length());
+  }
+}
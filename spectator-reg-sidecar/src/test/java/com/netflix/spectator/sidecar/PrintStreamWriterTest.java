@@ -47,6 +47,23 @@ public class PrintStreamWriterTest {
     Files.deleteIfExists(tmp);
   }
 
+  @Test
+  public void fileWithPrefix() throws IOException {
+    Path tmp = Files.createTempFile("spectator", "test");
+    try (SidecarWriter w = newWriter(tmp)) {
+      byte[] prefix = "c:test:".getBytes(StandardCharsets.UTF_8);
+      w.write(prefix, 42L);
+      w.write(prefix, 0.5);
+    }
+
+    List<String> lines = Files.readAllLines(tmp, StandardCharsets.UTF_8);
+    Assertions.assertEquals(2, lines.size());
+    Assertions.assertEquals("c:test:42", lines.get(0));
+    Assertions.assertEquals("c:test:0.5", lines.get(1));
+
+    Files.deleteIfExists(tmp);
+  }
+
   @Test
   public void concurrentWrites() throws Exception {
     Path tmp = Files.createTempFile("spectator", "test");
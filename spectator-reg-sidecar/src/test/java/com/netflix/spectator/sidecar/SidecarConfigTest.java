@@ -16,6 +16,7 @@
 package com.netflix.spectator.sidecar;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 
 import java.util.Collections;
@@ -36,6 +37,31 @@ public class SidecarConfigTest {
     Assertions.assertEquals("none", config.outputLocation());
   }
 
+  @Test
+  public void outputLocationUnixNotSupported() {
+    // Tests in this source set run against the base classes where Unix domain sockets are
+    // not supported, see UnixWriterTest for the JDK 17 variant
+    Assumptions.assumeFalse(UnixSockets.isSupported());
+    SidecarConfig config = s -> "sidecar.output-location".equals(s) ? "unix:///tmp/s" : null;
+    IllegalArgumentException e = Assertions.assertThrows(
+        IllegalArgumentException.class, config::outputLocation);
+    Assertions.assertTrue(e.getMessage().contains("JDK 17"));
+    Assertions.assertThrows(
+        IllegalArgumentException.class, () -> SidecarWriter.create("unix:///tmp/s"));
+  }
+
+  @Test
+  public void meterCacheSizeDefault() {
+    SidecarConfig config = s -> null;
+    Assertions.assertEquals(10_000, config.meterCacheSize());
+  }
+
+  @Test
+  public void meterCacheSizeSet() {
+    SidecarConfig config = s -> "sidecar.meter-cache-size".equals(s) ? "0" : null;
+    Assertions.assertEquals(0, config.meterCacheSize());
+  }
+
   @Test
   public void commonTagsEmpty() {
     SidecarConfig config = s -> null;
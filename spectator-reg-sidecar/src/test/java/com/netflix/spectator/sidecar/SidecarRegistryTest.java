@@ -21,10 +21,12 @@ import com.netflix.spectator.api.Gauge;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.ManualClock;
 import com.netflix.spectator.api.Timer;
+import com.netflix.spectator.api.patterns.PolledMeter;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -209,14 +211,82 @@ public class SidecarRegistryTest {
     Assertions.assertFalse(registry.iterator().hasNext());
   }
 
+  @Test
+  public void meterCached() {
+    Counter c = registry.counter("test", "a", "1");
+    Assertions.assertSame(c, registry.counter("test", "a", "1"));
+    Assertions.assertNotSame(c, registry.counter("test", "a", "2"));
+    Assertions.assertSame(registry.timer("timer"), registry.timer("timer"));
+  }
+
+  @Test
+  public void meterCachedDifferentTypes() {
+    Counter c = registry.counter("test");
+    Timer t = registry.timer("test");
+    Assertions.assertSame(c, registry.counter("test"));
+    t.record(42, TimeUnit.MILLISECONDS);
+    assertSingleMessage("t:test:0.042");
+  }
+
+  @Test
+  public void meterCacheGaugeAndMaxGauge() {
+    registry.gauge("test").set(1.0);
+    registry.maxGauge("test").set(2.0);
+    List<String> messages = config.writer().messages();
+    Assertions.assertEquals(2, messages.size());
+    Assertions.assertEquals("g:test:1.0", messages.get(0));
+    Assertions.assertEquals("m:test:2.0", messages.get(1));
+  }
+
+  @Test
+  public void meterCacheDisabled() {
+    TestConfig cfg = new TestConfig(0);
+    SidecarRegistry r = new SidecarRegistry(clock, cfg, cfg.writer());
+    Assertions.assertNotSame(r.counter("test"), r.counter("test"));
+    r.counter("test").increment();
+    Assertions.assertEquals(Collections.singletonList("c:test:1"), cfg.writer().messages());
+  }
+
+  @Test
+  public void meterCacheStats() {
+    TestConfig cfg = new TestConfig(100);
+    SidecarRegistry r = new SidecarRegistry(clock, cfg, cfg.writer());
+    for (int i = 0; i < 3; ++i) {
+      r.counter("test");
+    }
+    PolledMeter.update(r);
+    List<String> messages = cfg.writer().messages();
+    Assertions.assertTrue(
+        messages.contains("c:spectator.cache.requests,id=sidecar-meters,result=hit:2.0"),
+        messages.toString());
+    Assertions.assertTrue(
+        messages.stream().anyMatch(
+            m -> m.startsWith("c:spectator.cache.requests,id=sidecar-meters,result=miss:")),
+        messages.toString());
+    r.close();
+  }
+
   private static class TestConfig implements SidecarConfig {
 
     private final MemoryWriter writer = new MemoryWriter();
+    private final int meterCacheSize;
+
+    TestConfig() {
+      this(1000);
+    }
+
+    TestConfig(int meterCacheSize) {
+      this.meterCacheSize = meterCacheSize;
+    }
 
     @Override public String get(String k) {
       return null;
     }
 
+    @Override public int meterCacheSize() {
+      return meterCacheSize;
+    }
+
     @Override public String outputLocation() {
       return "none";
     }
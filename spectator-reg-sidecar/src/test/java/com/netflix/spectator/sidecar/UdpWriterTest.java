@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -39,6 +40,19 @@ public class UdpWriterTest {
     }
   }
 
+  @Test
+  public void udpWithPrefix() throws IOException {
+    try (UdpServer server = new UdpServer()) {
+      try (SidecarWriter w = SidecarWriter.create(server.address())) {
+        byte[] prefix = "t:test:".getBytes(StandardCharsets.UTF_8);
+        w.write(prefix, 0.042);
+        Assertions.assertEquals("t:test:0.042", server.read());
+        w.write(prefix, 42L);
+        Assertions.assertEquals("t:test:42", server.read());
+      }
+    }
+  }
+
   @Test
   public void udpReconnectIfClosed() throws IOException {
     try (UdpServer server = new UdpServer()) {
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.sidecar;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+class UnixServer implements Closeable {
+
+  private final Path path;
+  private final ServerSocketChannel server;
+  private SocketChannel client;
+  private BufferedReader reader;
+
+  UnixServer(Path path) throws IOException {
+    this.path = path;
+    Files.deleteIfExists(path);
+    server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    server.bind(UnixDomainSocketAddress.of(path));
+  }
+
+  String address() {
+    return "unix://" + path;
+  }
+
+  String read() throws IOException {
+    if (reader == null) {
+      client = server.accept();
+      reader = new BufferedReader(
+          new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+    }
+    return reader.readLine();
+  }
+
+  @Override public void close() throws IOException {
+    if (client != null) {
+      client.close();
+    }
+    server.close();
+    Files.deleteIfExists(path);
+  }
+}
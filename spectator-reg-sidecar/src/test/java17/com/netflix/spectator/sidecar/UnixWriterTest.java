@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.sidecar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class UnixWriterTest {
+
+  private Path dir;
+  private Path path;
+
+  @BeforeEach
+  public void before() throws IOException {
+    dir = Files.createTempDirectory("spectator");
+    path = dir.resolve("spectatord.unix");
+  }
+
+  @AfterEach
+  public void after() throws IOException {
+    Files.deleteIfExists(path);
+    Files.deleteIfExists(dir);
+  }
+
+  @Test
+  public void supported() {
+    Assertions.assertTrue(UnixSockets.isSupported());
+    SidecarConfig config = s -> "sidecar.output-location".equals(s) ? "unix:///tmp/s" : null;
+    Assertions.assertEquals("unix:///tmp/s", config.outputLocation());
+  }
+
+  @Test
+  public void unix() throws IOException {
+    try (UnixServer server = new UnixServer(path)) {
+      try (SidecarWriter w = SidecarWriter.create(server.address())) {
+        w.write("foo");
+        Assertions.assertEquals("foo", server.read());
+        w.write("bar");
+        Assertions.assertEquals("bar", server.read());
+      }
+    }
+  }
+
+  @Test
+  public void unixWithPrefix() throws IOException {
+    try (UnixServer server = new UnixServer(path)) {
+      try (SidecarWriter w = SidecarWriter.create(server.address())) {
+        byte[] prefix = "c:test:".getBytes(StandardCharsets.UTF_8);
+        w.write(prefix, 42L);
+        Assertions.assertEquals("c:test:42", server.read());
+        w.write(prefix, 0.5);
+        Assertions.assertEquals("c:test:0.5", server.read());
+      }
+    }
+  }
+
+  @Test
+  public void largeLine() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 100_000; ++i) {
+      builder.append((char) ('a' + i % 26));
+    }
+    String line = builder.toString();
+    try (UnixServer server = new UnixServer(path)) {
+      try (SidecarWriter w = SidecarWriter.create(server.address())) {
+        Thread reader = new Thread(() -> {
+          try {
+            Assertions.assertEquals(line, server.read());
+            Assertions.assertEquals("after", server.read());
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+        reader.start();
+        w.write(line);
+        w.write("after");
+        reader.join();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  @Test
+  public void reconnectAfterServerRestart() throws IOException {
+    try (SidecarWriter w = SidecarWriter.create("unix://" + path)) {
+      try (UnixServer server = new UnixServer(path)) {
+        w.write("1");
+        Assertions.assertEquals("1", server.read());
+      }
+
+      // New server on the same path, the next write should reconnect and retry
+      try (UnixServer server = new UnixServer(path)) {
+        w.write("2");
+        Assertions.assertEquals("2", server.read());
+        w.write("3");
+        Assertions.assertEquals("3", server.read());
+      }
+    }
+  }
+
+  @Test
+  public void serverNotPresent() throws IOException {
+    try (SidecarWriter w = SidecarWriter.create("unix://" + path)) {
+      // Failure should get logged, but not propagate to the caller
+      w.write("foo");
+      w.write("bar");
+    }
+  }
+
+  @Test
+  public void serverNotReading() throws IOException {
+    try (UnixServer server = new UnixServer(path)) {
+      try (UnixWriter w = (UnixWriter) SidecarWriter.create(server.address())) {
+        // Server accepts the connection, but never reads. Once the socket buffer is full,
+        // writes should drop lines rather than block the caller.
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+          for (int i = 0; i < 1_000_000; ++i) {
+            w.write("c:test:" + i);
+          }
+        });
+        Assertions.assertTrue(w.droppedLines() > 0);
+      }
+    }
+  }
+
+  @Test
+  public void backgroundFlushSendsUnsentData() throws Exception {
+    try (UnixServer server = new UnixServer(path)) {
+      try (UnixWriter w = (UnixWriter) SidecarWriter.create(server.address())) {
+        // Fill up the socket buffer so some data is left unsent
+        int attempted = 0;
+        while (w.droppedLines() == 0L) {
+          w.write("c:test:" + attempted);
+          ++attempted;
+        }
+
+        // Without further writes, the background flush should send all lines that were
+        // not dropped once the server starts reading
+        final long expected = attempted - w.droppedLines();
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(60), () -> {
+          for (long i = 0; i < expected; ++i) {
+            Assertions.assertNotNull(server.read());
+          }
+        });
+      }
+    }
+  }
+
+  @Test
+  public void reconnectBackoff() throws Exception {
+    try (UnixWriter w = (UnixWriter) SidecarWriter.create("unix://" + path)) {
+      long start = System.nanoTime();
+      w.write("1");
+      Assertions.assertEquals(1L, w.droppedLines());
+
+      try (UnixServer server = new UnixServer(path)) {
+        // Within the backoff delay the writer should not try to connect
+        w.write("2");
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assumptions.assumeTrue(elapsed < UnixWriter.MIN_RECONNECT_DELAY_MILLIS);
+        Assertions.assertEquals(2L, w.droppedLines());
+
+        Thread.sleep(UnixWriter.MIN_RECONNECT_DELAY_MILLIS + 50L);
+        w.write("3");
+        Assertions.assertEquals("3", server.read());
+      }
+    }
+  }
+
+  @Test
+  public void concurrentWrites() throws Exception {
+    List<String> lines = new ArrayList<>();
+    try (UnixServer server = new UnixServer(path)) {
+      try (SidecarWriter w = SidecarWriter.create(server.address())) {
+        Thread reader = new Thread(() -> {
+          try {
+            String line;
+            while (!"done".equals(line = server.read())) {
+              lines.add(line);
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+        reader.start();
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+          final int n = i;
+          Runnable task = () -> {
+            int base = n * 10_000;
+            for (int j = 0; j < 10_000; ++j) {
+              w.write("" + (base + j));
+            }
+          };
+          threads[i] = new Thread(task);
+          threads[i].start();
+        }
+        for (Thread t : threads) {
+          t.join();
+        }
+
+        // Data that the socket cannot accept is sent by a later write and the done line
+        // could get dropped, so keep writing it until the reader sees it
+        while (reader.isAlive()) {
+          w.write("done");
+          reader.join(10);
+        }
+      }
+    }
+
+    // Lines can be dropped if the buffer fills up while another thread is writing, but
+    // each line that is received should be complete and not duplicated.
+    Assertions.assertFalse(lines.isEmpty());
+    Set<Integer> values = new HashSet<>();
+    for (String line : lines) {
+      int v = Integer.parseInt(line);
+      Assertions.assertTrue(v >= 0 && v < 40_000);
+      Assertions.assertTrue(values.add(v));
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.stateless;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Measurement;
+import com.netflix.spectator.api.Statistic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compare the encoding of the payloads for the aggregator using the JSON and binary
+ * formats. The {@code *Utils} benchmarks encode the uncompressed payload from scratch and
+ * the {@code encoder*} benchmarks use the stateful PayloadEncoder with gzip compression.
+ * The payload sizes for the formats are checked in {@code PayloadEncoderTest}.
+ */
+@State(Scope.Thread)
+public class PayloadEncoding {
+
+  private final Map<String, String> commonTags = new HashMap<>();
+  private final List<Measurement> measurements = new ArrayList<>();
+
+  private PayloadEncoder jsonEncoder;
+  private PayloadEncoder binaryEncoder;
+
+  @Setup
+  public void setup() {
+    commonTags.put("nf.app", "foo");
+    commonTags.put("nf.cluster", "foo-main");
+    commonTags.put("nf.node", "i-1234567890");
+
+    Random r = new Random(42);
+    Statistic[] stats = {
+        Statistic.count, Statistic.totalTime, Statistic.totalOfSquares, Statistic.max
+    };
+    for (int i = 0; i < 2_500; ++i) {
+      Id id = Id.create("request.latency")
+          .withTag("endpoint", "/api/v" + r.nextInt(3) + "/resource" + r.nextInt(100))
+          .withTag("status", "" + (200 + r.nextInt(5)))
+          .withTag("instance", "" + i);
+      for (Statistic stat : stats) {
+        measurements.add(new Measurement(id.withTag(stat), 0L, r.nextDouble() * 1000.0));
+      }
+    }
+
+    jsonEncoder = new PayloadEncoder(commonTags, false);
+    binaryEncoder = new PayloadEncoder(commonTags, true);
+  }
+
+  @Benchmark
+  public void jsonUtils(Blackhole bh) throws IOException {
+    bh.consume(JsonUtils.encode(commonTags, measurements));
+  }
+
+  @Benchmark
+  public void binaryUtils(Blackhole bh) throws IOException {
+    bh.consume(BinaryUtils.encode(commonTags, measurements));
+  }
+
+  @Benchmark
+  public void encoderJson(Blackhole bh) throws IOException {
+    bh.consume(jsonEncoder.encode(measurements));
+  }
+
+  @Benchmark
+  public void encoderBinary(Blackhole bh) throws IOException {
+    bh.consume(binaryEncoder.encode(measurements));
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.stateless;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Measurement;
+import com.netflix.spectator.api.Tag;
+import com.netflix.spectator.api.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helper for encoding measurements into a binary payload. It has the same logical layout
+ * as the JSON array created by {@link JsonUtils}, but the numbers are written in binary
+ * form rather than as text:
+ *
+ * <ul>
+ *   <li>Integers, such as the size of the string table and the string indices, are written
+ *   as unsigned variable length integers using 7 bits per byte, the same as protobuf.</li>
+ *   <li>Strings are written as the length of the UTF-8 bytes followed by the bytes.</li>
+ *   <li>Values are written as the 8 byte IEEE 754 bit pattern in big-endian order.</li>
+ * </ul>
+ *
+ * <p>The payload starts with the string table and then has the measurements until the end
+ * of the data. Each measurement has the number of tags, the pairs of key and value indices,
+ * the operation, and the value.</p>
+ */
+final class BinaryUtils {
+
+  /** Content type to use for the binary payloads. */
+  static final String CONTENT_TYPE = "application/x-spectator-stateless";
+
+  private BinaryUtils() {
+  }
+
+  /** Encode the measurements to a binary payload that can be sent to the aggregator. */
+  static byte[] encode(
+      Map<String, String> commonTags,
+      List<Measurement> measurements) throws IOException {
+
+    Map<String, Integer> strings = new HashMap<>();
+    strings.put("name", 0);
+    commonTags.forEach((k, v) -> {
+      strings.put(k, 0);
+      strings.put(v, 0);
+    });
+    for (Measurement m : measurements) {
+      Id id = m.id();
+      strings.put(id.name(), 0);
+      for (Tag t : id.tags()) {
+        strings.put(t.key(), 0);
+        strings.put(t.value(), 0);
+      }
+    }
+    String[] sorted = strings.keySet().toArray(new String[0]);
+    Arrays.sort(sorted);
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (Writer writer = new Writer(baos)) {
+      writer.writeVarint(sorted.length);
+      for (int i = 0; i < sorted.length; ++i) {
+        writer.writeString(sorted[i]);
+        strings.put(sorted[i], i);
+      }
+
+      for (Measurement m : measurements) {
+        Id id = m.id();
+        int op = JsonUtils.operation(id);
+        if (JsonUtils.shouldSend(op, m.value())) {
+          writer.writeVarint(commonTags.size() + 1 + Utils.size(id.tags()));
+          for (Map.Entry<String, String> entry : commonTags.entrySet()) {
+            writer.writeVarint(strings.get(entry.getKey()));
+            writer.writeVarint(strings.get(entry.getValue()));
+          }
+          for (Tag t : id.tags()) {
+            writer.writeVarint(strings.get(t.key()));
+            writer.writeVarint(strings.get(t.value()));
+          }
+          writer.writeVarint(strings.get("name"));
+          writer.writeVarint(strings.get(id.name()));
+          writer.writeVarint(op);
+          writer.writeDouble(m.value());
+        }
+      }
+    }
+    return baos.toByteArray();
+  }
+
+  /**
+   * Decode a binary payload. This is mostly used for testing. The timestamp for the
+   * measurements will be 0 as it is not included in the payload.
+   */
+  static List<Measurement> decode(byte[] data) {
+    Reader reader = new Reader(data);
+    String[] strings = new String[reader.readVarint()];
+    for (int i = 0; i < strings.length; ++i) {
+      strings[i] = reader.readString();
+    }
+
+    List<Measurement> ms = new ArrayList<>();
+    while (reader.hasRemaining()) {
+      int n = reader.readVarint();
+      String name = null;
+      List<String> tags = new ArrayList<>(2 * n);
+      for (int i = 0; i < n; ++i) {
+        String k = strings[reader.readVarint()];
+        String v = strings[reader.readVarint()];
+        if ("name".equals(k)) {
+          name = v;
+        } else {
+          tags.add(k);
+          tags.add(v);
+        }
+      }
+      reader.readVarint(); // operation, implied by the statistic tag
+      double value = reader.readDouble();
+      Id id = Id.create(name).withTags(tags.toArray(new String[0]));
+      ms.add(new Measurement(id, 0L, value));
+    }
+    return ms;
+  }
+
+  /** Buffered writer for the binary encoding. */
+  static final class Writer implements AutoCloseable {
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int pos;
+
+    /** Create a new instance. */
+    Writer(OutputStream out) {
+      this.out = out;
+    }
+
+    private void ensureCapacity(int n) throws IOException {
+      if (pos + n > buffer.length) {
+        flush();
+      }
+    }
+
+    /** Write an unsigned variable length integer. */
+    void writeVarint(int v) throws IOException {
+      ensureCapacity(5);
+      int value = v;
+      while ((value & ~0x7F) != 0) {
+        buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buffer[pos++] = (byte) value;
+    }
+
+    /** Write a double as the 8 byte big-endian IEEE 754 bit pattern. */
+    void writeDouble(double v) throws IOException {
+      ensureCapacity(8);
+      long bits = Double.doubleToRawLongBits(v);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[pos++] = (byte) (bits >>> shift);
+      }
+    }
+
+    /** Write a string as the length followed by the UTF-8 bytes. */
+    void writeString(String s) throws IOException {
+      writeBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Write a pre-encoded string as the length followed by the bytes. */
+    void writeBytes(byte[] bytes) throws IOException {
+      writeVarint(bytes.length);
+      if (bytes.length > buffer.length) {
+        flush();
+        out.write(bytes);
+      } else {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+        pos += bytes.length;
+      }
+    }
+
+    /** Write any buffered data to the underlying stream. */
+    void flush() throws IOException {
+      if (pos > 0) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+      }
+    }
+
+    @Override public void close() throws IOException {
+      flush();
+      out.close();
+    }
+  }
+
+  /** Reader for the binary encoding. */
+  private static final class Reader {
+    private final byte[] data;
+    private int pos;
+
+    Reader(byte[] data) {
+      this.data = data;
+    }
+
+    boolean hasRemaining() {
+      return pos < data.length;
+    }
+
+    int readVarint() {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data[pos++];
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+    }
+
+    double readDouble() {
+      long bits = 0L;
+      for (int i = 0; i < 8; ++i) {
+        bits = (bits << 8) | (data[pos++] & 0xFFL);
+      }
+      return Double.longBitsToDouble(bits);
+    }
+
+    String readString() {
+      int n = readVarint();
+      String s = new String(data, pos, n, StandardCharsets.UTF_8);
+      pos += n;
+      return s;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.stateless;
+
+import java.time.Duration;
+
+/**
+ * Summary of a call to {@link StatelessRegistry#flush(Duration)}.
+ */
+public final class FlushResult {
+
+  private final int batches;
+  private final int sent;
+  private final int failed;
+  private final int dropped;
+  private final int pending;
+  private final boolean complete;
+  private final long durationNanos;
+
+  /** Create a new instance. */
+  FlushResult(
+      int batches, int sent, int failed, int dropped, int pending, boolean complete, long nanos) {
+    this.batches = batches;
+    this.sent = sent;
+    this.failed = failed;
+    this.dropped = dropped;
+    this.pending = pending;
+    this.complete = complete;
+    this.durationNanos = nanos;
+  }
+
+  /** Number of requests that were made to the aggregator. */
+  public int batches() {
+    return batches;
+  }
+
+  /** Number of measurements that were accepted by the aggregator. */
+  public int sent() {
+    return sent;
+  }
+
+  /** Number of measurements in requests that failed. */
+  public int failed() {
+    return failed;
+  }
+
+  /**
+   * Number of measurements that were collected, but dropped without being sent because
+   * there were more than {@link StatelessConfig#maxPending()} measurements waiting to be
+   * sent.
+   */
+  public int dropped() {
+    return dropped;
+  }
+
+  /**
+   * Number of measurements that were collected, but not sent because the time budget was
+   * exceeded. They will be sent first on the next flush.
+   */
+  public int pending() {
+    return pending;
+  }
+
+  /**
+   * Returns true if all meters were collected and sent. If false, then the meters that were
+   * not collected will keep the deltas and they will get sent on the next flush along with
+   * any pending measurements.
+   */
+  public boolean complete() {
+    return complete;
+  }
+
+  /** Time taken for the flush. */
+  public Duration duration() {
+    return Duration.ofNanos(durationNanos);
+  }
+
+  @Override public String toString() {
+    return "FlushResult(batches=" + batches
+        + ", sent=" + sent
+        + ", failed=" + failed
+        + ", dropped=" + dropped
+        + ", pending=" + pending
+        + ", complete=" + complete
+        + ", duration=" + duration() + ")";
+  }
+}
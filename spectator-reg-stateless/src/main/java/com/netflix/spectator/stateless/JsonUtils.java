@@ -126,7 +126,8 @@ final class JsonUtils {
     }
   }
 
-  private static int operation(Id id) {
+  /** Returns the aggregation operation to use for an id based on the statistic tag. */
+  static int operation(Id id) {
     for (Tag t : id.tags()) {
       if ("statistic".equals(t.key())) {
         return operation(t.value());
@@ -150,7 +151,8 @@ final class JsonUtils {
     return op;
   }
 
-  private static boolean shouldSend(int op, double value) {
+  /** Returns true if the value for the operation needs to be sent to the aggregator. */
+  static boolean shouldSend(int op, double value) {
     return !Double.isNaN(value) && (value > 0.0 || op == MAX);
   }
 }
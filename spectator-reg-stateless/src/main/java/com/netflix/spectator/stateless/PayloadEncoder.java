@@ -0,0 +1,383 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.stateless;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Measurement;
+import com.netflix.spectator.api.Tag;
+import com.netflix.spectator.api.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes batches of measurements into the same gzip compressed payload as
+ * {@link JsonUtils#encode(Map, List)}, or {@link BinaryUtils#encode(Map, List)} if the
+ * binary format is used, but keeps state across flushes so that the cost is
+ * mostly proportional to the number of measurements rather than the number of strings:
+ *
+ * <ul>
+ *   <li>A sorted table of all strings that have been seen is kept across flushes and is
+ *   only updated when an id has a string that has not been seen before.</li>
+ *   <li>The sequence of positions in the cached table for each id is cached. The cache
+ *   entries are recomputed if the table is sorted again.</li>
+ *   <li>The payload is written directly to a deflater that is reused along with the output
+ *   buffer rather than creating the uncompressed payload and then compressing it.</li>
+ * </ul>
+ *
+ * <p>Each payload has its own string table with only the strings used by that batch, so
+ * the aggregator does not need any state. Since the cached table is sorted, the strings for
+ * a batch can be sorted by comparing their positions in the cached table and are then
+ * renumbered so the indices in the payload are dense. The cached table is cleared with
+ * {@link #reset()} when meters are removed from the registry so it will not grow without
+ * bound. This class is not thread safe.</p>
+ */
+final class PayloadEncoder {
+
+  private static final JsonFactory FACTORY = new JsonFactory();
+
+  /** Fixed gzip header: magic, deflate method, no flags, no mtime, no extra flags, unknown OS. */
+  private static final byte[] GZIP_HEADER = {
+      0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+  };
+
+  private final Map<String, String> commonTags;
+  private final boolean binary;
+
+  private final Map<String, Integer> strings = new HashMap<>();
+  private String[] sorted = new String[0];
+  private byte[][] sortedBytes = new byte[0][];
+  private boolean sortNeeded = true;
+  private int version;
+
+  // Strings used by the current batch. The positions in the cached table are stored in
+  // batchStrings. For each position in the cached table, batchMarks has the last batch that
+  // used the string and batchIndices has the index in the table for that batch.
+  private int[] batchStrings = new int[0];
+  private int[] batchMarks = new int[0];
+  private int[] batchIndices = new int[0];
+  private int batchSize;
+  private int batch;
+
+  private final Map<Id, Entry> entries = new HashMap<>();
+
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+  private final CRC32 crc = new CRC32();
+  private final GzipStream out = new GzipStream();
+
+  /** Create a new instance that uses the JSON format. */
+  PayloadEncoder(Map<String, String> commonTags) {
+    this(commonTags, false);
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param commonTags
+   *     Tags to add to all measurements.
+   * @param binary
+   *     If true, then use the format from {@link BinaryUtils} instead of JSON.
+   */
+  PayloadEncoder(Map<String, String> commonTags, boolean binary) {
+    this.commonTags = commonTags;
+    this.binary = binary;
+    reset();
+  }
+
+  /** Content type for the payloads. */
+  String contentType() {
+    return binary ? BinaryUtils.CONTENT_TYPE : "application/json";
+  }
+
+  /**
+   * Clear the string table and the cached entries for the ids. Should be called when the
+   * set of ids changes, for example if meters have expired, to avoid retaining strings that
+   * are no longer needed.
+   */
+  void reset() {
+    strings.clear();
+    entries.clear();
+    strings.put("name", 0);
+    commonTags.forEach((k, v) -> {
+      strings.put(k, 0);
+      strings.put(v, 0);
+    });
+    sortNeeded = true;
+  }
+
+  /** Number of strings in the cached table. */
+  int stringTableSize() {
+    return strings.size();
+  }
+
+  /**
+   * Encode a batch of measurements.
+   *
+   * @return
+   *     Gzip compressed payload that can be sent to the aggregator.
+   */
+  byte[] encode(List<Measurement> measurements) throws IOException {
+    for (Measurement m : measurements) {
+      addStrings(m.id());
+    }
+    if (sortNeeded) {
+      sortStringTable();
+    }
+    buildBatchTable(measurements);
+
+    buffer.reset();
+    buffer.write(GZIP_HEADER);
+    deflater.reset();
+    crc.reset();
+    if (binary) {
+      encodeBinary(measurements);
+    } else {
+      encodeJson(measurements);
+    }
+    writeTrailer();
+    return buffer.toByteArray();
+  }
+
+  private void encodeJson(List<Measurement> measurements) throws IOException {
+    try (JsonGenerator gen = FACTORY.createGenerator(out)) {
+      gen.writeStartArray();
+      gen.writeNumber(batchSize);
+      for (int i = 0; i < batchSize; ++i) {
+        gen.writeString(sorted[batchStrings[i]]);
+      }
+      for (Measurement m : measurements) {
+        appendMeasurement(gen, m);
+      }
+      gen.writeEndArray();
+    }
+  }
+
+  private void encodeBinary(List<Measurement> measurements) throws IOException {
+    try (BinaryUtils.Writer writer = new BinaryUtils.Writer(out)) {
+      writer.writeVarint(batchSize);
+      for (int i = 0; i < batchSize; ++i) {
+        writer.writeBytes(sortedBytes[batchStrings[i]]);
+      }
+      for (Measurement m : measurements) {
+        Entry entry = entry(m);
+        if (entry != null) {
+          int[] vs = entry.indices;
+          writer.writeVarint(vs[0]);
+          for (int i = 1; i < vs.length; ++i) {
+            writer.writeVarint(batchIndices[vs[i]]);
+          }
+          writer.writeVarint(entry.op);
+          writer.writeDouble(m.value());
+        }
+      }
+    }
+  }
+
+  private void addStrings(Id id) {
+    if (!entries.containsKey(id)) {
+      addString(id.name());
+      for (Tag t : id.tags()) {
+        addString(t.key());
+        addString(t.value());
+      }
+      entries.put(id, new Entry(JsonUtils.operation(id)));
+    }
+  }
+
+  private void addString(String s) {
+    if (!strings.containsKey(s)) {
+      strings.put(s, 0);
+      sortNeeded = true;
+    }
+  }
+
+  private void sortStringTable() {
+    sorted = strings.keySet().toArray(new String[0]);
+    Arrays.sort(sorted);
+    for (int i = 0; i < sorted.length; ++i) {
+      strings.put(sorted[i], i);
+    }
+    if (binary) {
+      sortedBytes = new byte[sorted.length][];
+      for (int i = 0; i < sorted.length; ++i) {
+        sortedBytes[i] = sorted[i].getBytes(StandardCharsets.UTF_8);
+      }
+    }
+    sortNeeded = false;
+    ++version;
+
+    if (batchMarks.length < sorted.length) {
+      batchStrings = new int[sorted.length];
+      batchMarks = new int[sorted.length];
+      batchIndices = new int[sorted.length];
+      batch = 0;
+    }
+  }
+
+  /**
+   * Determine the set of strings used by the batch and the index of each in the table for
+   * the batch. Like {@link JsonUtils#encode(Map, List)}, the table includes the strings for
+   * all measurements in the batch even if some of them will not be sent.
+   */
+  private void buildBatchTable(List<Measurement> measurements) {
+    if (++batch == 0) {
+      // Overflow, clear the marks so stale values cannot match
+      Arrays.fill(batchMarks, 0);
+      batch = 1;
+    }
+    batchSize = 0;
+    addToBatch(strings.get("name"));
+    for (Map.Entry<String, String> t : commonTags.entrySet()) {
+      addToBatch(strings.get(t.getKey()));
+      addToBatch(strings.get(t.getValue()));
+    }
+    for (Measurement m : measurements) {
+      Entry entry = entries.get(m.id());
+      if (entry.version != version) {
+        entry.update(m.id());
+      }
+      int[] vs = entry.indices;
+      for (int i = 1; i < vs.length; ++i) {
+        addToBatch(vs[i]);
+      }
+    }
+
+    // Positions in the cached table have the same order as the strings
+    Arrays.sort(batchStrings, 0, batchSize);
+    for (int i = 0; i < batchSize; ++i) {
+      batchIndices[batchStrings[i]] = i;
+    }
+  }
+
+  private void addToBatch(int pos) {
+    if (batchMarks[pos] != batch) {
+      batchMarks[pos] = batch;
+      batchStrings[batchSize++] = pos;
+    }
+  }
+
+  /**
+   * Returns the entry for the measurement or null if it should not be sent. The entry will
+   * have already been updated by {@link #buildBatchTable(List)}.
+   */
+  private Entry entry(Measurement m) {
+    Entry entry = entries.get(m.id());
+    return JsonUtils.shouldSend(entry.op, m.value()) ? entry : null;
+  }
+
+  private void appendMeasurement(JsonGenerator gen, Measurement m) throws IOException {
+    Entry entry = entry(m);
+    if (entry != null) {
+      int[] vs = entry.indices;
+      gen.writeNumber(vs[0]);
+      for (int i = 1; i < vs.length; ++i) {
+        gen.writeNumber(batchIndices[vs[i]]);
+      }
+      gen.writeNumber(entry.op);
+      gen.writeNumber(m.value());
+    }
+  }
+
+  private void writeTrailer() {
+    writeInt((int) crc.getValue());
+    writeInt(deflater.getTotalIn());
+  }
+
+  private void writeInt(int v) {
+    buffer.write(v & 0xFF);
+    buffer.write((v >> 8) & 0xFF);
+    buffer.write((v >> 16) & 0xFF);
+    buffer.write((v >> 24) & 0xFF);
+  }
+
+  /** Cached encoding for an id. */
+  private final class Entry {
+    private final int op;
+    private int version = -1;
+    private int[] indices;
+
+    Entry(int op) {
+      this.op = op;
+    }
+
+    /**
+     * Compute the indices for the id. It will have the number of tags followed by the
+     * position in the cached table of the key and value for each tag, commonTags + tags +
+     * name.
+     */
+    void update(Id id) {
+      int n = commonTags.size() + 1 + Utils.size(id.tags());
+      int[] vs = new int[2 * n + 1];
+      int i = 0;
+      vs[i++] = n;
+      for (Map.Entry<String, String> t : commonTags.entrySet()) {
+        vs[i++] = strings.get(t.getKey());
+        vs[i++] = strings.get(t.getValue());
+      }
+      for (Tag t : id.tags()) {
+        vs[i++] = strings.get(t.key());
+        vs[i++] = strings.get(t.value());
+      }
+      vs[i++] = strings.get("name");
+      vs[i] = strings.get(id.name());
+      indices = vs;
+      version = PayloadEncoder.this.version;
+    }
+  }
+
+  /**
+   * Output stream that compresses the data using the shared deflater and writes it to the
+   * buffer. Closing the stream finishes the deflater, but the buffer is kept.
+   */
+  private final class GzipStream extends OutputStream {
+    private final byte[] chunk = new byte[4096];
+
+    @Override public void write(int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override public void write(byte[] b, int off, int len) {
+      crc.update(b, off, len);
+      deflater.setInput(b, off, len);
+      while (!deflater.needsInput()) {
+        drain();
+      }
+    }
+
+    @Override public void close() {
+      deflater.finish();
+      while (!deflater.finished()) {
+        drain();
+      }
+    }
+
+    private void drain() {
+      int n = deflater.deflate(chunk, 0, chunk.length);
+      buffer.write(chunk, 0, n);
+    }
+  }
+}
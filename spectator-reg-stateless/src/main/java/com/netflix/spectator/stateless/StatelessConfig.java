@@ -90,6 +90,28 @@ public interface StatelessConfig extends RegistryConfig {
     return (v == null) ? 10000 : Integer.parseInt(v);
   }
 
+  /**
+   * Returns the maximum number of measurements that have been collected, but not sent, to
+   * keep for the next flush. This can happen if a bounded flush runs out of time. If the
+   * limit is exceeded, then the oldest measurements will be dropped. The default is
+   * 100,000.
+   */
+  default int maxPending() {
+    String v = get("stateless.maxPending");
+    return (v == null) ? 100000 : Integer.parseInt(v);
+  }
+
+  /**
+   * Returns the format to use for the payloads sent to the aggregator. Supported values
+   * are {@code json} and {@code binary}. The binary format uses the same layout as the JSON
+   * payload, but encodes the numbers as varints and raw doubles. It should only be used if
+   * the aggregator supports it. The default is {@code json}.
+   */
+  default String format() {
+    String v = get("stateless.format");
+    return (v == null) ? "json" : v;
+  }
+
   /**
    * Returns the common tags to apply to all metrics. The default is an empty map.
    */
@@ -20,27 +20,33 @@ import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Statistic;
-import com.netflix.spectator.impl.AtomicDouble;
 
 import java.util.Collections;
 
 /**
- * Counter that keeps track of the delta since the last time it was measured.
+ * Counter that keeps track of the delta since the last time it was measured. The delta is
+ * striped so that concurrent increments do not contend on a single value, see
+ * {@link StripedStats}.
  */
 class StatelessCounter extends StatelessMeter implements Counter {
 
-  private final AtomicDouble count;
+  private final StripedStats count;
   private final Id stat;
 
   /** Create a new instance. */
   StatelessCounter(Id id, Clock clock, long ttl) {
     super(id, clock, ttl);
-    count = new AtomicDouble(0.0);
+    count = new StripedStats();
     stat = id.withTag(Statistic.count).withTags(id.tags());
   }
 
   @Override public Iterable<Measurement> measure() {
-    final double delta = count.getAndSet(0.0);
+    if (count.total() == 0.0) {
+      return Collections.emptyList();
+    }
+    double[] deltas = new double[4];
+    count.drain(deltas);
+    final double delta = deltas[1];
     if (delta > 0.0) {
       final Measurement m = new Measurement(stat, clock.wallTime(), delta);
       return Collections.singletonList(m);
@@ -51,12 +57,12 @@ class StatelessCounter extends StatelessMeter implements Counter {
 
   @Override public void add(double amount) {
     if (amount > 0.0) {
-      count.addAndGet(amount);
+      count.add(amount);
       updateLastModTime();
     }
   }
 
   @Override public double actualCount() {
-    return count.get();
+    return count.total();
   }
 }
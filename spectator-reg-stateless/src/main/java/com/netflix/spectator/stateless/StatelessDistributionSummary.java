@@ -20,33 +20,24 @@ import com.netflix.spectator.api.DistributionSummary;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Statistic;
-import com.netflix.spectator.impl.AtomicDouble;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.LongToDoubleFunction;
 
 /**
  * Distribution summary that keeps track of the deltas since the last time it was measured.
  */
 class StatelessDistributionSummary extends StatelessMeter implements DistributionSummary {
 
-  private final AtomicLong count;
-  private final AtomicLong totalAmount;
-  private final AtomicDouble totalOfSquares;
-  private final AtomicLong max;
+  private final StripedStats values;
 
   private final Id[] stats;
 
   /** Create a new instance. */
   StatelessDistributionSummary(Id id, Clock clock, long ttl) {
     super(id, clock, ttl);
-    count = new AtomicLong(0);
-    totalAmount = new AtomicLong(0);
-    totalOfSquares = new AtomicDouble(0.0);
-    max = new AtomicLong(0);
+    values = new StripedStats();
     stats = new Id[] {
         id.withTags(Statistic.count),
         id.withTags(Statistic.totalAmount),
@@ -57,45 +48,34 @@ class StatelessDistributionSummary extends StatelessMeter implements Distributio
 
   @Override public void record(long amount) {
     if (amount >= 0) {
-      count.incrementAndGet();
-      totalAmount.addAndGet(amount);
-      totalOfSquares.addAndGet(1.0 * amount * amount);
-      updateMax(amount);
+      values.record(amount);
       updateLastModTime();
     }
   }
 
-  private void updateMax(long v) {
-    long p = max.get();
-    while (v > p && !max.compareAndSet(p, v)) {
-      p = max.get();
-    }
-  }
-
   @Override public long count() {
-    return count.get();
+    return values.count();
   }
 
   @Override public long totalAmount() {
-    return totalAmount.get();
+    return (long) values.total();
   }
 
   @Override public Iterable<Measurement> measure() {
-    if (count.get() == 0) {
+    if (values.count() == 0) {
       return Collections.emptyList();
     } else {
+      double[] deltas = new double[4];
+      values.drain(deltas);
+      if (deltas[0] == 0.0) {
+        return Collections.emptyList();
+      }
+      long timestamp = clock.wallTime();
       List<Measurement> ms = new ArrayList<>(4);
-      ms.add(newMeasurement(stats[0], count::getAndSet));
-      ms.add(newMeasurement(stats[1], totalAmount::getAndSet));
-      ms.add(newMeasurement(stats[2], totalOfSquares::getAndSet));
-      ms.add(newMeasurement(stats[3], max::getAndSet));
+      for (int i = 0; i < stats.length; ++i) {
+        ms.add(new Measurement(stats[i], timestamp, deltas[i]));
+      }
       return ms;
     }
   }
-
-  private Measurement newMeasurement(Id mid, LongToDoubleFunction getAndSet) {
-    double delta = getAndSet.applyAsDouble(0);
-    long timestamp = clock.wallTime();
-    return new Measurement(mid, timestamp, delta);
-  }
 }
@@ -22,9 +22,11 @@ import com.netflix.spectator.api.DistributionSummary;
 import com.netflix.spectator.api.Gauge;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
+import com.netflix.spectator.api.Meter;
 import com.netflix.spectator.api.Timer;
 import com.netflix.spectator.impl.Scheduler;
 import com.netflix.spectator.ipc.http.HttpClient;
+import com.netflix.spectator.ipc.http.HttpRequestBuilder;
 import com.netflix.spectator.ipc.http.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +38,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
-import java.util.zip.Deflater;
 
 /**
  * Registry for reporting deltas to an aggregation service. This registry is intended for
@@ -47,6 +48,8 @@ import java.util.zip.Deflater;
  *
  * The registry should be tied to the lifecyle of the container to ensure that the last set
  * of deltas are flushed properly. This will happen automatically when calling {@link #stop()}.
+ * For short-lived invocations that reuse the registry, use {@link #flush(Duration)} at the
+ * end of each invocation instead.
  */
 public final class StatelessRegistry extends AbstractRegistry {
 
@@ -59,11 +62,23 @@ public final class StatelessRegistry extends AbstractRegistry {
   private final int readTimeout;
   private final URI uri;
   private final int batchSize;
+  private final int maxPending;
   private final Map<String, String> commonTags;
 
   private final HttpClient client;
   private final ValidationHelper validationHelper;
 
+  // Reused across flushes, access is guarded by the publish lock. Measurements that were
+  // collected, but not sent, are kept in the batch and will be sent first on the next flush.
+  private final PayloadEncoder encoder;
+  private final List<Measurement> batch = new ArrayList<>();
+  private final List<Meter> meters = new ArrayList<>();
+
+  // Meter to start with for the next flush. If a bounded flush runs out of time, then the
+  // next one will start with the meters that were not collected. The id is used rather than
+  // the position since meters can be added between flushes.
+  private Id nextStart;
+
   private Scheduler scheduler;
 
   /** Create a new instance. */
@@ -76,9 +91,23 @@ public final class StatelessRegistry extends AbstractRegistry {
     this.readTimeout = (int) config.readTimeout().toMillis();
     this.uri = URI.create(config.uri());
     this.batchSize = config.batchSize();
+    this.maxPending = config.maxPending();
     this.commonTags = config.commonTags();
     this.client = HttpClient.create(this);
     this.validationHelper = new ValidationHelper(LOGGER, this);
+    this.encoder = new PayloadEncoder(commonTags, isBinary(config.format()));
+  }
+
+  private static boolean isBinary(String format) {
+    switch (format) {
+      case "json":
+        return false;
+      case "binary":
+        return true;
+      default:
+        throw new IllegalArgumentException("unsupported format: " + format
+            + ", must be json or binary");
+    }
   }
 
   /**
@@ -130,26 +159,203 @@ public final class StatelessRegistry extends AbstractRegistry {
     super.close();
   }
 
+  /**
+   * Collect the deltas and send them to the aggregator on the calling thread. This is
+   * intended for short-lived invocations, such as AWS Lambda, where the scheduler may not
+   * run before the invocation is complete and the registry needs to remain usable for the
+   * next invocation. It can be used with or without calling {@link #start()}.
+   *
+   * <p>The connect and read timeouts for a request are scaled down so that together they
+   * fit in the remaining budget. Once the budget is exhausted, the remaining meters are not
+   * collected and will keep their deltas until the next flush, which will start with those
+   * meters. Measurements that have already been collected, but cannot be sent within the
+   * budget, are kept and will be sent first on the next flush. If more than
+   * {@link StatelessConfig#maxPending()} measurements are waiting, then the oldest will be
+   * dropped.</p>
+   *
+   * @param budget
+   *     Maximum amount of time to spend on the flush.
+   * @return
+   *     Summary of the flush.
+   */
+  public FlushResult flush(Duration budget) {
+    if (!enabled) {
+      return new FlushResult(0, 0, 0, 0, 0, true, 0L);
+    }
+    final long deadline = clock().monotonicTime() + budget.toNanos();
+    return publish(deadline, true);
+  }
+
   private void collectData() {
+    FlushResult result = publish(0L, false);
+    logger.debug("collected data: {}", result);
+  }
+
+  private synchronized FlushResult publish(long deadline, boolean bounded) {
+    final long start = clock().monotonicTime();
+    final Counts counts = new Counts();
+    boolean complete = true;
+    boolean expired = false;
     try {
-      for (List<Measurement> batch : getBatches()) {
-        byte[] payload = JsonUtils.encode(commonTags, batch);
-        HttpResponse res = client.post(uri)
-            .withConnectTimeout(connectTimeout)
-            .withReadTimeout(readTimeout)
-            .withContent("application/json", payload)
-            .compress(Deflater.BEST_SPEED)
-            .send()
-            .decompress();
-        if (res.status() != 200) {
-          logger.warn("failed to send metrics, status {}: {}", res.status(), res.entityAsString());
+      for (Meter meter : this) {
+        meters.add(meter);
+      }
+      final int n = meters.size();
+      final int first = startPosition();
+      nextStart = null;
+      for (int i = 0; i < n; ++i) {
+        final int pos = (first + i) % n;
+        if (bounded && remainingMillis(deadline) <= 0L) {
+          complete = false;
+          nextStart = meters.get(pos).id();
+          break;
+        }
+        Meter meter = meters.get(pos);
+        if (meter.hasExpired()) {
+          expired = true;
+        } else {
+          for (Measurement m : meter.measure()) {
+            batch.add(m);
+          }
+          if (batch.size() >= batchSize && !sendBatches(deadline, bounded, counts, false)) {
+            complete = false;
+            nextStart = meters.get((pos + 1) % n).id();
+            break;
+          }
+        }
+      }
+      if (complete && !sendBatches(deadline, bounded, counts, true)) {
+        complete = false;
+      }
+
+      if (complete) {
+        removeExpiredMeters();
+        if (expired) {
+          // Clear the string table so it does not keep the strings for the expired meters
+          encoder.reset();
         }
-        validationHelper.recordResults(batch.size(), res);
       }
-      removeExpiredMeters();
     } catch (Exception e) {
       logger.warn("failed to send metrics", e);
+      complete = false;
+    } finally {
+      // The deltas for these measurements have already been reset on the meters, so keep
+      // them for the next flush unless the limit is exceeded
+      int excess = batch.size() - maxPending;
+      if (excess > 0) {
+        batch.subList(0, excess).clear();
+        counts.dropped += excess;
+      }
+      meters.clear();
+    }
+    final long duration = clock().monotonicTime() - start;
+    return new FlushResult(
+        counts.batches,
+        counts.sent,
+        counts.failed,
+        counts.dropped,
+        batch.size(),
+        complete,
+        duration);
+  }
+
+  /** Position of the meter to start with for this flush. */
+  private int startPosition() {
+    if (nextStart != null) {
+      for (int i = 0; i < meters.size(); ++i) {
+        if (nextStart.equals(meters.get(i).id())) {
+          return i;
+        }
+      }
     }
+    return 0;
+  }
+
+  private long remainingMillis(long deadline) {
+    return (deadline - clock().monotonicTime()) / 1_000_000L;
+  }
+
+  /**
+   * Send full batches from the pending measurements. If {@code all} is true, then any
+   * remaining partial batch will also be sent.
+   *
+   * @return
+   *     True if the batches were sent and the flush can continue.
+   */
+  private boolean sendBatches(long deadline, boolean bounded, Counts counts, boolean all) {
+    int offset = 0;
+    while (batch.size() - offset >= batchSize || (all && offset < batch.size())) {
+      int end = Math.min(batch.size(), offset + batchSize);
+      List<Measurement> ms = batch.subList(offset, end);
+      int connect = connectTimeout;
+      int read = readTimeout;
+      if (bounded) {
+        long remaining = remainingMillis(deadline);
+        if (remaining <= 0L) {
+          batch.subList(0, offset).clear();
+          return false;
+        }
+        // A timeout of 0 means no limit, so treat it as the full remaining budget
+        long c = (connect <= 0) ? remaining : connect;
+        long r = (read <= 0) ? remaining : read;
+        if (c + r > remaining) {
+          // Split the remaining budget in proportion to the configured timeouts so the
+          // request cannot take longer than the budget. Use at least 1ms so the timeout
+          // does not become 0.
+          c = Math.max(1L, (long) ((double) remaining * c / (c + r)));
+          r = Math.max(1L, remaining - c);
+        }
+        connect = (int) Math.min(c, Integer.MAX_VALUE);
+        read = (int) Math.min(r, Integer.MAX_VALUE);
+      }
+      ++counts.batches;
+      try {
+        if (sendBatch(ms, connect, read, bounded)) {
+          counts.sent += ms.size();
+        } else {
+          counts.failed += ms.size();
+        }
+      } catch (Exception e) {
+        // Stop on the first exception, the remaining meters will get sent on the next flush
+        logger.warn("failed to send metrics", e);
+        counts.failed += ms.size();
+        batch.subList(0, end).clear();
+        return false;
+      }
+      offset = end;
+    }
+    batch.subList(0, offset).clear();
+    return true;
+  }
+
+  private boolean sendBatch(List<Measurement> ms, int connect, int read, boolean bounded)
+      throws Exception {
+    byte[] payload = encoder.encode(ms);
+    HttpRequestBuilder builder = client.post(uri)
+        .withConnectTimeout(connect)
+        .withReadTimeout(read);
+    if (bounded) {
+      // There is not enough time in the budget to wait for retries
+      builder.withRetries(0);
+    }
+    HttpResponse res = builder
+        .addHeader("Content-Encoding", "gzip")
+        .withContent(encoder.contentType(), payload)
+        .send()
+        .decompress();
+    if (res.status() != 200) {
+      logger.warn("failed to send metrics, status {}: {}", res.status(), res.entityAsString());
+    }
+    validationHelper.recordResults(ms.size(), res);
+    return res.status() == 200;
+  }
+
+  /** Mutable counts accumulated while publishing. */
+  private static final class Counts {
+    int batches;
+    int sent;
+    int failed;
+    int dropped;
   }
 
   /** Get a list of all measurements from the registry. */
@@ -20,34 +20,26 @@ import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Statistic;
 import com.netflix.spectator.api.Timer;
-import com.netflix.spectator.impl.AtomicDouble;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.LongToDoubleFunction;
 
 /**
- * Timer that keeps track of the deltas since the last time it was measured.
+ * Timer that keeps track of the deltas since the last time it was measured. The values
+ * for a measurement are a consistent snapshot, see {@link StripedStats}.
  */
 class StatelessTimer extends StatelessMeter implements Timer {
 
-  private final AtomicLong count;
-  private final AtomicDouble totalTime;
-  private final AtomicDouble totalOfSquares;
-  private final AtomicDouble max;
+  private final StripedStats values;
 
   private final Id[] stats;
 
   /** Create a new instance. */
   StatelessTimer(Id id, Clock clock, long ttl) {
     super(id, clock, ttl);
-    count = new AtomicLong(0);
-    totalTime = new AtomicDouble(0);
-    totalOfSquares = new AtomicDouble(0.0);
-    max = new AtomicDouble(0);
+    values = new StripedStats();
     stats = new Id[] {
         id.withTags(Statistic.count),
         id.withTags(Statistic.totalTime),
@@ -59,39 +51,35 @@ class StatelessTimer extends StatelessMeter implements Timer {
   @Override public void record(long amount, TimeUnit unit) {
     final double seconds = unit.toNanos(amount) / 1e9;
     if (seconds >= 0.0) {
-      count.incrementAndGet();
-      totalTime.addAndGet(seconds);
-      totalOfSquares.addAndGet(seconds * seconds);
-      max.max(seconds);
+      values.record(seconds);
       updateLastModTime();
     }
   }
 
   @Override public long count() {
-    return count.get();
+    return values.count();
   }
 
   @Override public long totalTime() {
-    return (long) (totalTime.get() * 1e9);
+    return (long) (values.total() * 1e9);
   }
 
   @Override
   public Iterable<Measurement> measure() {
-    if (count.get() == 0) {
+    if (values.count() == 0) {
       return Collections.emptyList();
     } else {
+      double[] deltas = new double[4];
+      values.drain(deltas);
+      if (deltas[0] == 0.0) {
+        return Collections.emptyList();
+      }
+      long timestamp = clock.wallTime();
       List<Measurement> ms = new ArrayList<>(4);
-      ms.add(newMeasurement(stats[0], count::getAndSet));
-      ms.add(newMeasurement(stats[1], totalTime::getAndSet));
-      ms.add(newMeasurement(stats[2], totalOfSquares::getAndSet));
-      ms.add(newMeasurement(stats[3], max::getAndSet));
+      for (int i = 0; i < stats.length; ++i) {
+        ms.add(new Measurement(stats[i], timestamp, deltas[i]));
+      }
       return ms;
     }
   }
-
-  private Measurement newMeasurement(Id mid, LongToDoubleFunction getAndSet) {
-    double delta = getAndSet.applyAsDouble(0);
-    long timestamp = clock.wallTime();
-    return new Measurement(mid, timestamp, delta);
-  }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.stateless;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulates the count, total, total of squares, and max for the deltas reported by the
+ * stateless timers and distribution summaries. Counters only use the total, see
+ * {@link #add(double)}. The values are double buffered so that a measurement is a
+ * consistent snapshot of the interval:
+ *
+ * <ul>
+ *   <li>Writers update a stripe of the active buffer. There is a single stripe to start
+ *   with, more are added if writers find the existing stripes busy, similar to
+ *   {@link java.util.concurrent.atomic.LongAdder}.</li>
+ *   <li>When draining, the epoch is flipped so new writes go to the other buffer and then
+ *   the stripes of the previously active buffer are summed and cleared.</li>
+ * </ul>
+ *
+ * <p>Each stripe has a sequence number that is odd while it is being updated. A writer
+ * owns the stripe while it applies all of the values and checks that the epoch has not
+ * changed before writing. The drain must also own each stripe before reading it, so an
+ * update cannot be split across intervals. Neither side waits for the other. A writer that
+ * finds a stripe busy moves on to the next one, and a stripe that is busy during a drain is
+ * left as is and its values will be included in a later drain.</p>
+ */
+final class StripedStats {
+
+  // Offsets of the values within a buffer of a stripe. The doubles are stored as the raw
+  // long bits.
+  private static final int SEQ = 0;
+  private static final int COUNT = 1;
+  private static final int TOTAL = 2;
+  private static final int TOTAL_OF_SQUARES = 3;
+  private static final int MAX = 4;
+
+  /**
+   * Number of longs used for each buffer of a stripe. Padded to 64 bytes to avoid false
+   * sharing.
+   */
+  private static final int BUFFER_WIDTH = 8;
+
+  /** Maximum number of stripes. Must be a power of 2. */
+  private static final int MAX_STRIPES = maxStripes();
+
+  private static int maxStripes() {
+    int n = Runtime.getRuntime().availableProcessors();
+    return Math.min(64, Math.max(2, Integer.highestOneBit(n - 1) << 1));
+  }
+
+  /**
+   * Stripes with the cells for both buffers, the first buffer is the first
+   * {@code BUFFER_WIDTH} longs. The length is always a power of 2.
+   */
+  private volatile AtomicLongArray[] stripes = {newStripe()};
+
+  /** Incremented each time the buffers are flipped. The low bit is the active buffer. */
+  private volatile int epoch;
+
+  private static AtomicLongArray newStripe() {
+    return new AtomicLongArray(2 * BUFFER_WIDTH);
+  }
+
+  /** Add a sample to the count, total, total of squares, and max. */
+  void record(double v) {
+    update(v, true);
+  }
+
+  /** Add an amount to the total without updating the other values. */
+  void add(double amount) {
+    update(amount, false);
+  }
+
+  private void update(double v, boolean sample) {
+    final int h = hash();
+    while (true) {
+      final AtomicLongArray[] ss = stripes;
+      for (int i = 0; i < ss.length; ++i) {
+        final AtomicLongArray stripe = ss[(h + i) & (ss.length - 1)];
+        final int e = epoch;
+        final int base = (e & 1) * BUFFER_WIDTH;
+        final long seq = stripe.get(base + SEQ);
+        if ((seq & 1L) == 0L && stripe.compareAndSet(base + SEQ, seq, seq + 1L)) {
+          // If the epoch changed, then the drain may have already read this stripe. Release
+          // it and retry so the update goes to the new active buffer.
+          final boolean current = epoch == e;
+          if (current && sample) {
+            stripe.lazySet(base + COUNT, stripe.get(base + COUNT) + 1L);
+            addTo(stripe, base + TOTAL, v);
+            addTo(stripe, base + TOTAL_OF_SQUARES, v * v);
+            if (v > get(stripe, base + MAX)) {
+              set(stripe, base + MAX, v);
+            }
+          } else if (current) {
+            addTo(stripe, base + TOTAL, v);
+          }
+          stripe.set(base + SEQ, seq + 2L);
+          if (current) {
+            return;
+          }
+        }
+      }
+      // All stripes were busy, add more if the limit has not been reached
+      grow(ss);
+    }
+  }
+
+  /** Double the number of stripes if it has not been changed by another thread. */
+  private synchronized void grow(AtomicLongArray[] ss) {
+    if (stripes == ss && ss.length < MAX_STRIPES) {
+      AtomicLongArray[] newStripes = Arrays.copyOf(ss, ss.length * 2);
+      for (int i = ss.length; i < newStripes.length; ++i) {
+        newStripes[i] = newStripe();
+      }
+      stripes = newStripes;
+    }
+  }
+
+  /** Stripe to start with for the current thread. */
+  private static int hash() {
+    long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    return (int) (h >>> 32);
+  }
+
+  private static double get(AtomicLongArray stripe, int i) {
+    return Double.longBitsToDouble(stripe.get(i));
+  }
+
+  private static void set(AtomicLongArray stripe, int i, double v) {
+    stripe.lazySet(i, Double.doubleToRawLongBits(v));
+  }
+
+  private static void addTo(AtomicLongArray stripe, int i, double v) {
+    if (v != 0.0) {
+      set(stripe, i, get(stripe, i) + v);
+    }
+  }
+
+  /**
+   * Flip the active buffer and drain the values that were accumulated in the previously
+   * active buffer.
+   *
+   * @param values
+   *     Array of length 4 that will be filled in with the count, total, total of squares,
+   *     and max.
+   */
+  synchronized void drain(double[] values) {
+    final int e = epoch;
+    epoch = e + 1;
+
+    final int base = (e & 1) * BUFFER_WIDTH;
+    long count = 0L;
+    double total = 0.0;
+    double totalOfSquares = 0.0;
+    double max = 0.0;
+    for (AtomicLongArray stripe : stripes) {
+      final long seq = stripe.get(base + SEQ);
+      if ((seq & 1L) != 0L || !stripe.compareAndSet(base + SEQ, seq, seq + 1L)) {
+        // Writer that started before the flip is still running, the values will be
+        // picked up the next time this buffer is drained
+        continue;
+      }
+      count += stripe.get(base + COUNT);
+      total += get(stripe, base + TOTAL);
+      totalOfSquares += get(stripe, base + TOTAL_OF_SQUARES);
+      max = Math.max(max, get(stripe, base + MAX));
+      stripe.lazySet(base + COUNT, 0L);
+      stripe.lazySet(base + TOTAL, 0L);
+      stripe.lazySet(base + TOTAL_OF_SQUARES, 0L);
+      stripe.lazySet(base + MAX, 0L);
+      stripe.set(base + SEQ, seq + 2L);
+    }
+
+    values[0] = count;
+    values[1] = total;
+    values[2] = totalOfSquares;
+    values[3] = max;
+  }
+
+  /** Count of samples since the last drain. */
+  long count() {
+    long count = 0L;
+    for (AtomicLongArray stripe : stripes) {
+      count += stripe.get(COUNT) + stripe.get(BUFFER_WIDTH + COUNT);
+    }
+    return count;
+  }
+
+  /** Total of the samples since the last drain. */
+  double total() {
+    double total = 0.0;
+    for (AtomicLongArray stripe : stripes) {
+      total += get(stripe, TOTAL) + get(stripe, BUFFER_WIDTH + TOTAL);
+    }
+    return total;
+  }
+
+  /** Number of stripes that are currently allocated. Used for testing. */
+  int stripeCount() {
+    return stripes.length;
+  }
+}
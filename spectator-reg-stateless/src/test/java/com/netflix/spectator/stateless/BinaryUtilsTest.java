@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.stateless;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Measurement;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Statistic;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BinaryUtilsTest {
+
+  private final Registry registry = new DefaultRegistry();
+
+  private Measurement count(double delta, String name, String... tags) {
+    Id id = registry.createId(name).withTag(Statistic.count).withTags(tags);
+    return new Measurement(id, 0L, delta);
+  }
+
+  private Measurement max(double delta, String name, String... tags) {
+    Id id = registry.createId(name).withTag(Statistic.max).withTags(tags);
+    return new Measurement(id, 0L, delta);
+  }
+
+  private Map<Id, Double> decode(byte[] data) {
+    Map<Id, Double> values = new HashMap<>();
+    for (Measurement m : BinaryUtils.decode(data)) {
+      values.put(m.id(), m.value());
+    }
+    return values;
+  }
+
+  @Test
+  public void encodeNoCommonTags() throws Exception {
+    List<Measurement> ms = Collections.singletonList(count(42.0, "test"));
+    Map<Id, Double> values = decode(BinaryUtils.encode(Collections.emptyMap(), ms));
+    Assertions.assertEquals(1, values.size());
+    Assertions.assertEquals(42.0, values.get(ms.get(0).id()), 1e-12);
+  }
+
+  @Test
+  public void encodeCommonTags() throws Exception {
+    Map<String, String> commonTags = new HashMap<>();
+    commonTags.put("app", "foo");
+    commonTags.put("node", "i-12345");
+    List<Measurement> ms = Collections.singletonList(count(42.0, "test"));
+    Map<Id, Double> values = decode(BinaryUtils.encode(commonTags, ms));
+    Id expected = ms.get(0).id().withTags(commonTags);
+    Assertions.assertEquals(42.0, values.get(expected), 1e-12);
+  }
+
+  @Test
+  public void encodeSkipsSameAsJson() throws Exception {
+    List<Measurement> ms = Arrays.asList(
+        count(Double.NaN, "nan"),
+        count(0.0, "add0"),
+        max(0.0, "max0"),
+        max(-1.0, "maxNeg"));
+    Map<Id, Double> values = decode(BinaryUtils.encode(Collections.emptyMap(), ms));
+    Assertions.assertEquals(2, values.size());
+    Assertions.assertEquals(0.0, values.get(ms.get(2).id()), 1e-12);
+    Assertions.assertEquals(-1.0, values.get(ms.get(3).id()), 1e-12);
+  }
+
+  @Test
+  public void encodeExactDoubles() throws Exception {
+    double[] vs = {Math.PI, 1e-300, 1e300, Double.MAX_VALUE, Double.MIN_VALUE, 0.1 + 0.2};
+    List<Measurement> ms = new ArrayList<>();
+    for (int i = 0; i < vs.length; ++i) {
+      ms.add(count(vs[i], "test", "i", "" + i));
+    }
+    Map<Id, Double> values = decode(BinaryUtils.encode(Collections.emptyMap(), ms));
+    for (Measurement m : ms) {
+      Assertions.assertEquals(m.value(), values.get(m.id()), 0.0);
+    }
+  }
+
+  @Test
+  public void encodeUnicodeAndLongStrings() throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 10_000; ++i) {
+      builder.append((char) ('a' + i % 26));
+    }
+    String longValue = builder.toString();
+    List<Measurement> ms = Arrays.asList(
+        count(1.0, "ünïcödé", "k", "☃"),
+        count(2.0, "long", "k", longValue));
+    Map<Id, Double> values = decode(BinaryUtils.encode(Collections.emptyMap(), ms));
+    Assertions.assertEquals(1.0, values.get(ms.get(0).id()), 1e-12);
+    Assertions.assertEquals(2.0, values.get(ms.get(1).id()), 1e-12);
+  }
+
+  @Test
+  public void varint() throws Exception {
+    int[] vs = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE};
+    int[] sizes = {1, 1, 1, 2, 2, 3, 5};
+    for (int i = 0; i < vs.length; ++i) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      try (BinaryUtils.Writer writer = new BinaryUtils.Writer(baos)) {
+        writer.writeVarint(vs[i]);
+      }
+      Assertions.assertEquals(sizes[i], baos.size(), "size for " + vs[i]);
+    }
+  }
+
+  @Test
+  public void smallerThanJson() throws Exception {
+    List<Measurement> ms = new ArrayList<>();
+    for (int i = 0; i < 1000; ++i) {
+      ms.add(count(i * 1.1, "test", "i", "" + i));
+    }
+    int json = JsonUtils.encode(Collections.emptyMap(), ms).length;
+    int binary = BinaryUtils.encode(Collections.emptyMap(), ms).length;
+    Assertions.assertTrue(binary < json, "binary " + binary + " >= json " + json);
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.stateless;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Measurement;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Statistic;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+public class PayloadEncoderTest {
+
+  private static final JsonFactory FACTORY = new JsonFactory();
+
+  private final Registry registry = new DefaultRegistry();
+
+  private Measurement count(double delta, String name, String... tags) {
+    Id id = registry.createId(name).withTag(Statistic.count).withTags(tags);
+    return new Measurement(id, 0L, delta);
+  }
+
+  private Measurement max(double delta, String name, String... tags) {
+    Id id = registry.createId(name).withTag(Statistic.max).withTags(tags);
+    return new Measurement(id, 0L, delta);
+  }
+
+  private static byte[] gunzip(byte[] data) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+      byte[] buffer = new byte[4096];
+      int length;
+      while ((length = in.read(buffer)) > 0) {
+        baos.write(buffer, 0, length);
+      }
+    }
+    return baos.toByteArray();
+  }
+
+  @Test
+  public void sameAsJsonUtils() throws Exception {
+    Map<String, String> commonTags = new HashMap<>();
+    commonTags.put("app", "foo");
+    commonTags.put("node", "i-123");
+    List<Measurement> ms = Arrays.asList(
+        count(42.0, "test", "a", "1"),
+        count(0.0, "test", "a", "2"),
+        max(0.0, "test", "a", "3"),
+        count(Double.NaN, "test", "a", "4"),
+        max(1.0, "other"));
+    PayloadEncoder encoder = new PayloadEncoder(commonTags);
+    byte[] expected = JsonUtils.encode(commonTags, ms);
+    Assertions.assertArrayEquals(expected, gunzip(encoder.encode(ms)));
+    Assertions.assertArrayEquals(expected, gunzip(encoder.encode(ms)));
+  }
+
+  @Test
+  public void stringTableKeptAcrossFlushes() throws Exception {
+    PayloadEncoder encoder = new PayloadEncoder(Collections.emptyMap());
+    List<Measurement> ms1 = Collections.singletonList(count(1.0, "a"));
+    encoder.encode(ms1);
+    // name, a, statistic, count
+    Assertions.assertEquals(4, encoder.stringTableSize());
+
+    // The payload should decode correctly after new strings are added and the table is
+    // sorted again
+    List<Measurement> ms2 = Arrays.asList(count(1.0, "a"), count(2.0, "b", "k", "v"));
+    Map<Id, Double> values = decode(gunzip(encoder.encode(ms2)));
+    Assertions.assertEquals(7, encoder.stringTableSize());
+    Assertions.assertEquals(2, values.size());
+    Assertions.assertEquals(1.0, values.get(ms2.get(0).id()), 1e-12);
+    Assertions.assertEquals(2.0, values.get(ms2.get(1).id()), 1e-12);
+
+    // Strings for ids not in the current batch are still in the cached table
+    values = decode(gunzip(encoder.encode(ms1)));
+    Assertions.assertEquals(7, encoder.stringTableSize());
+    Assertions.assertEquals(1, values.size());
+    Assertions.assertEquals(1.0, values.get(ms1.get(0).id()), 1e-12);
+  }
+
+  @Test
+  public void batchOnlyHasItsOwnStrings() throws Exception {
+    PayloadEncoder encoder = new PayloadEncoder(Collections.singletonMap("app", "foo"));
+    List<Measurement> ms1 = Arrays.asList(count(1.0, "a", "k1", "v1"), count(2.0, "b"));
+    List<Measurement> ms2 = Collections.singletonList(count(3.0, "c", "k2", "v2"));
+    encoder.encode(ms1);
+    byte[] payload = gunzip(encoder.encode(ms2));
+    Assertions.assertEquals(12, encoder.stringTableSize());
+
+    List<String> expected = Arrays.asList("app", "c", "count", "foo", "k2", "name",
+        "statistic", "v2");
+    Assertions.assertEquals(expected, decodeStrings(payload));
+    Assertions.assertArrayEquals(JsonUtils.encode(Collections.singletonMap("app", "foo"), ms2), payload);
+
+    Map<Id, Double> values = decode(payload);
+    Assertions.assertEquals(1, values.size());
+    Assertions.assertEquals(3.0, values.get(ms2.get(0).id().withTag("app", "foo")), 1e-12);
+  }
+
+  @Test
+  public void reset() throws Exception {
+    PayloadEncoder encoder = new PayloadEncoder(Collections.singletonMap("app", "foo"));
+    encoder.encode(Collections.singletonList(count(1.0, "a", "k", "v")));
+    Assertions.assertEquals(8, encoder.stringTableSize());
+    encoder.reset();
+    Assertions.assertEquals(3, encoder.stringTableSize());
+
+    List<Measurement> ms = Collections.singletonList(count(1.0, "b"));
+    Map<Id, Double> values = decode(gunzip(encoder.encode(ms)));
+    Assertions.assertEquals(6, encoder.stringTableSize());
+    Assertions.assertEquals(1.0, values.get(ms.get(0).id().withTag("app", "foo")), 1e-12);
+  }
+
+  @Test
+  public void largePayload() throws Exception {
+    List<Measurement> ms = new ArrayList<>();
+    for (int i = 0; i < 10_000; ++i) {
+      ms.add(count(i + 1, "test", "i", "" + i));
+    }
+    PayloadEncoder encoder = new PayloadEncoder(Collections.emptyMap());
+    Map<Id, Double> values = decode(gunzip(encoder.encode(ms)));
+    Assertions.assertEquals(ms.size(), values.size());
+    for (Measurement m : ms) {
+      Assertions.assertEquals(m.value(), values.get(m.id()), 1e-12);
+    }
+  }
+
+  @Test
+  public void binarySameAsBinaryUtils() throws Exception {
+    Map<String, String> commonTags = Collections.singletonMap("app", "foo");
+    List<Measurement> ms = Arrays.asList(
+        count(42.0, "test", "a", "1"),
+        count(0.0, "test", "a", "2"),
+        max(0.0, "test", "a", "3"),
+        max(1.0, "other"));
+    PayloadEncoder encoder = new PayloadEncoder(commonTags, true);
+    Assertions.assertEquals(BinaryUtils.CONTENT_TYPE, encoder.contentType());
+    byte[] expected = BinaryUtils.encode(commonTags, ms);
+    Assertions.assertArrayEquals(expected, gunzip(encoder.encode(ms)));
+
+    List<Measurement> more = new ArrayList<>(ms);
+    more.add(count(1.0, "new", "k", "v"));
+    Assertions.assertArrayEquals(
+        BinaryUtils.encode(commonTags, more), gunzip(encoder.encode(more)));
+  }
+
+  private List<String> decodeStrings(byte[] json) throws IOException {
+    JsonParser parser = FACTORY.createParser(json);
+    Assertions.assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+    int n = parser.nextIntValue(-1);
+    List<String> strings = new ArrayList<>(n);
+    for (int i = 0; i < n; ++i) {
+      strings.add(parser.nextTextValue());
+    }
+    return strings;
+  }
+
+  @Test
+  public void payloadSizes() throws Exception {
+    Map<String, String> commonTags = new HashMap<>();
+    commonTags.put("nf.app", "foo");
+    commonTags.put("nf.cluster", "foo-main");
+    commonTags.put("nf.node", "i-1234567890");
+    List<Measurement> ms = new ArrayList<>();
+    Random r = new Random(42);
+    for (int i = 0; i < 2_500; ++i) {
+      String[] tags = {
+          "endpoint", "/api/v" + r.nextInt(3) + "/resource" + r.nextInt(100),
+          "status", "" + (200 + r.nextInt(5)),
+          "instance", "" + i
+      };
+      ms.add(count(r.nextDouble() * 1000.0, "request.latency", tags));
+      ms.add(max(r.nextDouble() * 1000.0, "request.latency", tags));
+    }
+
+    int json = JsonUtils.encode(commonTags, ms).length;
+    int binary = BinaryUtils.encode(commonTags, ms).length;
+    int jsonGzip = new PayloadEncoder(commonTags, false).encode(ms).length;
+    int binaryGzip = new PayloadEncoder(commonTags, true).encode(ms).length;
+
+    // The binary format should be smaller than JSON both before and after compression
+    Assertions.assertTrue(binary < json, "binary " + binary + " >= json " + json);
+    Assertions.assertTrue(binaryGzip < jsonGzip,
+        "binary.gz " + binaryGzip + " >= json.gz " + jsonGzip);
+    Assertions.assertTrue(jsonGzip < json, "json.gz " + jsonGzip + " >= json " + json);
+
+    // Compressed binary payload is about 15 bytes per measurement for this data, allow
+    // some slack for differences in the deflate implementation
+    double bytesPerMeasurement = (double) binaryGzip / ms.size();
+    Assertions.assertTrue(bytesPerMeasurement < 20.0,
+        "binary.gz bytes per measurement: " + bytesPerMeasurement);
+  }
+
+  private Map<Id, Double> decode(byte[] json) throws IOException {
+    Map<Id, Double> values = new HashMap<>();
+    JsonParser parser = FACTORY.createParser(json);
+    Assertions.assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+
+    String[] strings = new String[parser.nextIntValue(-1)];
+    for (int i = 0; i < strings.length; ++i) {
+      strings[i] = parser.nextTextValue();
+    }
+
+    parser.nextToken();
+    while (parser.currentToken() != JsonToken.END_ARRAY) {
+      int n = parser.getIntValue();
+      Map<String, String> tags = new HashMap<>(n);
+      for (int i = 0; i < n; ++i) {
+        String k = strings[parser.nextIntValue(-1)];
+        String v = strings[parser.nextIntValue(-1)];
+        tags.put(k, v);
+      }
+      String name = tags.remove("name");
+      parser.nextIntValue(-1);
+      parser.nextToken();
+      values.put(registry.createId(name).withTags(tags), parser.getDoubleValue());
+      parser.nextToken();
+    }
+    return values;
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.netflix.spectator.stateless;
 
+import com.netflix.spectator.api.ManualClock;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -64,4 +65,28 @@ public class StatelessConfigTest {
     StatelessConfig config = props::get;
     Assertions.assertEquals(Duration.ofSeconds(5), config.frequency());
   }
+
+  @Test
+  public void formatDefault() {
+    StatelessConfig config = k -> null;
+    Assertions.assertEquals("json", config.format());
+  }
+
+  @Test
+  public void formatBinary() {
+    Map<String, String> props = new HashMap<>();
+    props.put("stateless.format", "binary");
+    StatelessConfig config = props::get;
+    Assertions.assertEquals("binary", config.format());
+    new StatelessRegistry(new ManualClock(), config).close();
+  }
+
+  @Test
+  public void formatInvalid() {
+    Map<String, String> props = new HashMap<>();
+    props.put("stateless.format", "xml");
+    StatelessConfig config = props::get;
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> new StatelessRegistry(new ManualClock(), config));
+  }
 }
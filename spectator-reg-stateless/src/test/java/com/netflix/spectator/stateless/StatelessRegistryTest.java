@@ -17,13 +17,19 @@ package com.netflix.spectator.stateless;
 
 import com.netflix.spectator.api.ManualClock;
 import com.netflix.spectator.api.Measurement;
+import com.sun.net.httpserver.HttpServer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class StatelessRegistryTest {
@@ -154,4 +160,204 @@ public class StatelessRegistryTest {
     // Closing a registry that was never started must not throw.
     new StatelessRegistry(clock, newConfig()).close();
   }
+
+  private HttpServer startServer(int status, long delayNanos, AtomicInteger requests)
+      throws Exception {
+    HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 10);
+    server.createContext("/", exchange -> {
+      try (InputStream in = exchange.getRequestBody()) {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) > 0) {
+          // consume the payload
+        }
+      }
+      requests.incrementAndGet();
+      clock.setMonotonicTime(clock.monotonicTime() + delayNanos);
+      exchange.sendResponseHeaders(status, -1L);
+      exchange.close();
+    });
+    server.start();
+    return server;
+  }
+
+  private StatelessRegistry newRegistry(HttpServer server) {
+    return newRegistry(server, new ConcurrentHashMap<>());
+  }
+
+  private StatelessRegistry newRegistry(HttpServer server, Map<String, String> props) {
+    props.put("stateless.batchSize", "3");
+    props.put("stateless.uri",
+        "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v4/update");
+    return new StatelessRegistry(clock, props::get);
+  }
+
+  @Test
+  public void flush() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startServer(200, 0L, requests);
+    try {
+      StatelessRegistry r = newRegistry(server);
+      for (int i = 0; i < 7; ++i) {
+        r.counter("" + i).increment();
+      }
+      // The registry also has the ipc metrics for the requests, so the number of
+      // measurements can be larger than the number of counters
+      FlushResult result = r.flush(Duration.ofSeconds(10));
+      Assertions.assertTrue(result.complete());
+      Assertions.assertTrue(result.sent() >= 7);
+      Assertions.assertEquals(0, result.failed());
+      Assertions.assertEquals(0, result.dropped());
+      Assertions.assertEquals(requests.get(), result.batches());
+
+      // Registry can be reused after the flush
+      r.counter("0").increment();
+      result = r.flush(Duration.ofSeconds(10));
+      Assertions.assertTrue(result.complete());
+      Assertions.assertTrue(result.sent() >= 1);
+      Assertions.assertEquals(0.0, r.counter("0").actualCount(), 1e-12);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void flushBudgetExceeded() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startServer(200, TimeUnit.SECONDS.toNanos(1), requests);
+    try {
+      StatelessRegistry r = newRegistry(server);
+      for (int i = 0; i < 9; ++i) {
+        r.counter("" + i).increment();
+      }
+      // Each request takes 1s, so only two can be sent within the budget
+      FlushResult result = r.flush(Duration.ofMillis(1500));
+      Assertions.assertFalse(result.complete());
+      Assertions.assertEquals(2, result.batches());
+      Assertions.assertEquals(6, result.sent());
+
+      // Meters that were not collected keep the deltas for the next flush
+      double pending = 0.0;
+      for (int i = 0; i < 9; ++i) {
+        pending += r.counter("" + i).actualCount();
+      }
+      Assertions.assertTrue(pending > 0.0);
+      result = r.flush(Duration.ofSeconds(100));
+      Assertions.assertTrue(result.complete());
+      for (int i = 0; i < 9; ++i) {
+        Assertions.assertEquals(0.0, r.counter("" + i).actualCount(), 1e-12);
+      }
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void flushBudgetExceededResumesWithSkippedMeters() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startServer(200, TimeUnit.SECONDS.toNanos(1), requests);
+    try {
+      StatelessRegistry r = newRegistry(server);
+      for (int i = 0; i < 9; ++i) {
+        r.counter("" + i).increment();
+      }
+      r.flush(Duration.ofMillis(1500));
+      List<String> skipped = new ArrayList<>();
+      for (int i = 0; i < 9; ++i) {
+        if (r.counter("" + i).actualCount() > 0.0) {
+          skipped.add("" + i);
+        }
+      }
+      Assertions.assertFalse(skipped.isEmpty());
+
+      // Update all of the counters again, the next flush should start with the meters that
+      // were skipped rather than the same ones as the previous flush
+      for (int i = 0; i < 9; ++i) {
+        r.counter("" + i).increment();
+      }
+      r.flush(Duration.ofMillis(1500));
+      for (String name : skipped) {
+        Assertions.assertEquals(0.0, r.counter(name).actualCount(), 1e-12, name);
+      }
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void flushBudgetExceededKeepsPendingMeasurements() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startServer(200, TimeUnit.SECONDS.toNanos(1), requests);
+    try {
+      StatelessRegistry r = newRegistry(server);
+      r.timer("test").record(1, TimeUnit.SECONDS);
+
+      // The timer has 4 measurements, the first batch takes the whole budget so the last
+      // measurement cannot be sent. It should be kept rather than dropped.
+      FlushResult result = r.flush(Duration.ofSeconds(1));
+      Assertions.assertFalse(result.complete());
+      Assertions.assertEquals(1, result.batches());
+      Assertions.assertEquals(3, result.sent());
+      Assertions.assertEquals(0, result.dropped());
+      Assertions.assertEquals(1, result.pending());
+
+      result = r.flush(Duration.ofSeconds(100));
+      Assertions.assertTrue(result.complete());
+      Assertions.assertTrue(result.sent() >= 1);
+      Assertions.assertEquals(0, result.dropped());
+      Assertions.assertEquals(0, result.pending());
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void flushPendingLimitExceeded() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startServer(200, TimeUnit.SECONDS.toNanos(1), requests);
+    try {
+      Map<String, String> props = new ConcurrentHashMap<>();
+      props.put("stateless.maxPending", "0");
+      StatelessRegistry r = newRegistry(server, props);
+      r.timer("test").record(1, TimeUnit.SECONDS);
+
+      FlushResult result = r.flush(Duration.ofSeconds(1));
+      Assertions.assertFalse(result.complete());
+      Assertions.assertEquals(3, result.sent());
+      Assertions.assertEquals(1, result.dropped());
+      Assertions.assertEquals(0, result.pending());
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void flushFailure() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    HttpServer server = startServer(500, 0L, requests);
+    try {
+      StatelessRegistry r = newRegistry(server);
+      for (int i = 0; i < 4; ++i) {
+        r.counter("" + i).increment();
+      }
+      FlushResult result = r.flush(Duration.ofSeconds(10));
+      Assertions.assertTrue(result.complete());
+      Assertions.assertEquals(requests.get(), result.batches());
+      Assertions.assertEquals(0, result.sent());
+      Assertions.assertTrue(result.failed() >= 4);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  @Test
+  public void flushDisabled() {
+    ConcurrentHashMap<String, String> props = new ConcurrentHashMap<>();
+    props.put("stateless.enabled", "false");
+    StatelessRegistry r = new StatelessRegistry(clock, props::get);
+    r.counter("test").increment();
+    FlushResult result = r.flush(Duration.ofSeconds(1));
+    Assertions.assertTrue(result.complete());
+    Assertions.assertEquals(0, result.batches());
+    Assertions.assertEquals(1.0, r.counter("test").actualCount(), 1e-12);
+  }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.stateless;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class StripedStatsTest {
+
+  @Test
+  public void recordAndDrain() {
+    StripedStats stats = new StripedStats();
+    stats.record(1.0);
+    stats.record(3.0);
+    Assertions.assertEquals(2, stats.count());
+    Assertions.assertEquals(4.0, stats.total(), 1e-12);
+
+    double[] values = new double[4];
+    stats.drain(values);
+    Assertions.assertArrayEquals(new double[] {2.0, 4.0, 10.0, 3.0}, values, 1e-12);
+    Assertions.assertEquals(0, stats.count());
+    Assertions.assertEquals(0.0, stats.total(), 1e-12);
+
+    stats.drain(values);
+    Assertions.assertArrayEquals(new double[] {0.0, 0.0, 0.0, 0.0}, values, 1e-12);
+  }
+
+  @Test
+  public void alternateBuffers() {
+    StripedStats stats = new StripedStats();
+    double[] values = new double[4];
+    for (int i = 1; i <= 5; ++i) {
+      stats.record(i);
+      stats.drain(values);
+      Assertions.assertArrayEquals(new double[] {1.0, i, i * i, i}, values, 1e-12);
+    }
+  }
+
+  @Test
+  public void addOnlyUpdatesTotal() {
+    StripedStats stats = new StripedStats();
+    stats.add(2.5);
+    stats.add(0.5);
+    Assertions.assertEquals(0, stats.count());
+    Assertions.assertEquals(3.0, stats.total(), 1e-12);
+
+    double[] values = new double[4];
+    stats.drain(values);
+    Assertions.assertArrayEquals(new double[] {0.0, 3.0, 0.0, 0.0}, values, 1e-12);
+    Assertions.assertEquals(0.0, stats.total(), 1e-12);
+  }
+
+  @Test
+  public void concurrentAdds() throws Exception {
+    final int threads = 4;
+    final int n = 100_000;
+    StripedStats stats = new StripedStats();
+    CountDownLatch latch = new CountDownLatch(threads);
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; ++t) {
+      Thread writer = new Thread(() -> {
+        for (int i = 0; i < n; ++i) {
+          stats.add(1.0);
+        }
+        latch.countDown();
+      });
+      writer.start();
+      writers.add(writer);
+    }
+
+    double total = 0.0;
+    double[] values = new double[4];
+    while (latch.getCount() > 0) {
+      stats.drain(values);
+      total += values[1];
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    for (int i = 0; i < 2; ++i) {
+      stats.drain(values);
+      total += values[1];
+    }
+    Assertions.assertEquals((double) threads * n, total, 1e-12);
+  }
+
+  @Test
+  public void singleStripeWithoutContention() {
+    StripedStats stats = new StripedStats();
+    for (int i = 0; i < 1000; ++i) {
+      stats.record(i);
+    }
+    Assertions.assertEquals(1, stats.stripeCount());
+  }
+
+  @Test
+  public void consistentSnapshots() throws Exception {
+    // Every record uses a value of 1, so for a consistent snapshot the count, total, and
+    // total of squares must be the same.
+    final int threads = 4;
+    final int n = 100_000;
+    StripedStats stats = new StripedStats();
+    CountDownLatch latch = new CountDownLatch(threads);
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; ++t) {
+      Thread writer = new Thread(() -> {
+        for (int i = 0; i < n; ++i) {
+          stats.record(1.0);
+        }
+        latch.countDown();
+      });
+      writer.start();
+      writers.add(writer);
+    }
+
+    long total = 0L;
+    double[] values = new double[4];
+    while (latch.getCount() > 0) {
+      stats.drain(values);
+      Assertions.assertEquals(values[0], values[1], 1e-12);
+      Assertions.assertEquals(values[0], values[2], 1e-12);
+      total += (long) values[0];
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+
+    // Stripes that were busy during a drain are picked up when that buffer is drained
+    // again, so drain both buffers
+    for (int i = 0; i < 2; ++i) {
+      stats.drain(values);
+      total += (long) values[0];
+    }
+    Assertions.assertEquals((long) threads * n, total);
+  }
+}
@@ -21,8 +21,14 @@ import com.netflix.spectator.api.Gauge;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Meter;
+import com.netflix.spectator.api.NoopRegistry;
 import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Tag;
 import com.netflix.spectator.api.Timer;
+import com.netflix.spectator.impl.Cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
 import com.netflix.spectator.controllers.filter.PrototypeMeasurementFilter;
 import com.netflix.spectator.controllers.filter.TagMeasurementFilter;
@@ -38,6 +44,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.function.Predicate;
 import java.util.Map;
 import java.util.HashMap;
@@ -67,7 +78,16 @@ public class MetricsController {
   @Value("${spectator.web-endpoint.prototype-filter.path:}")
   private String prototypeFilterPath;
 
-  private final Map<Id, String> knownMeterKinds = new HashMap<>();
+  private static final long START_TIME = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /**
+   * Bounded cache of the kind for each meter id. Meters come and go over time, so
+   * old entries need to be evicted rather than retained forever.
+   */
+  private final Cache<Id, String> knownMeterKinds =
+      Cache.directMapped(new NoopRegistry(), "spectator-web-meter-kinds", 1024, 65536);
   private Predicate<Measurement> defaultMeasurementFilter = null;
 
   /**
@@ -100,11 +120,7 @@ public class MetricsController {
   public ApplicationRegistry getMetrics(@RequestParam Map<String, String> filters)
     throws IOException {
     boolean all = filters.get("all") != null;
-    String filterMeterNameRegex = filters.getOrDefault("meterNameRegex", "");
-    String filterTagNameRegex = filters.getOrDefault("tagNameRegex", "");
-    String filterTagValueRegex = filters.getOrDefault("tagValueRegex", "");
-    TagMeasurementFilter queryFilter = new TagMeasurementFilter(
-        filterMeterNameRegex, filterTagNameRegex, filterTagValueRegex);
+    TagMeasurementFilter queryFilter = queryFilter(filters);
     Predicate<Measurement> filter;
     if (all) {
       filter = queryFilter;
@@ -119,6 +135,132 @@ public class MetricsController {
     return response;
   }
 
+  private static TagMeasurementFilter queryFilter(Map<String, String> filters) {
+    String filterMeterNameRegex = filters.getOrDefault("meterNameRegex", "");
+    String filterTagNameRegex = filters.getOrDefault("tagNameRegex", "");
+    String filterTagValueRegex = filters.getOrDefault("tagValueRegex", "");
+    return new TagMeasurementFilter(
+        filterMeterNameRegex, filterTagNameRegex, filterTagValueRegex);
+  }
+
+  /**
+   * Write the current metric values to a stream. Supports the same filters
+   * and writes the same JSON document as {@link #getMetrics(Map)}, but is
+   * intended for large registries. The query filter is checked against the
+   * meter id before computing the measurements and the JSON is written
+   * directly to the stream rather than building up the intermediate model
+   * objects. This is used by {@link StreamingMetricsController}.
+   */
+  void streamMetrics(Map<String, String> filters, OutputStream out) throws IOException {
+    boolean all = filters.get("all") != null;
+    Predicate<Measurement> defaultFilter = all
+        ? ALL_MEASUREMENTS_FILTER
+        : getDefaultMeasurementFilter();
+    writeRegistry(registry, queryFilter(filters), defaultFilter, out);
+  }
+
+  /**
+   * Internal API for writing the JSON document for a registry to a stream.
+   * This is a helper function for the streaming REST endpoint and to test against.
+   *
+   * The query filter is pushed down to the meter id for the standard meter
+   * types, where the measurement ids will have the same name as the meter and
+   * a superset of the tags. Other meter types are always measured and the
+   * filter is checked for each measurement.
+   */
+  void writeRegistry(
+      Registry sourceRegistry,
+      TagMeasurementFilter queryFilter,
+      Predicate<Measurement> filter,
+      OutputStream out) throws IOException {
+    Map<String, MeasurementGroup> groups = new LinkedHashMap<>();
+    for (Meter meter : sourceRegistry) {
+      Id id = meter.id();
+      String kind = knownMeterKinds.computeIfAbsent(id, k -> meterToKind(sourceRegistry, meter));
+      boolean standard = isStandardKind(kind);
+      if (standard && !queryFilter.nameMatches(id.name())) {
+        continue;
+      }
+      boolean matched = standard && queryFilter.tagsMatch(id.tags());
+
+      for (Measurement measurement : meter.measure()) {
+        if (Double.isNaN(measurement.value())) {
+          continue;
+        }
+        if (!matched && !queryFilter.test(measurement)) {
+          continue;
+        }
+        if (!filter.test(measurement)) {
+          continue;
+        }
+        groups.computeIfAbsent(measurement.id().name(), n -> new MeasurementGroup(kind))
+            .measurements.add(measurement);
+      }
+    }
+
+    try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+      gen.writeStartObject();
+      gen.writeStringField("applicationName", applicationName);
+      gen.writeStringField("applicationVersion", applicationVersion);
+      gen.writeNumberField("startTime", START_TIME);
+      gen.writeObjectFieldStart("metrics");
+      for (Map.Entry<String, MeasurementGroup> entry : groups.entrySet()) {
+        MeasurementGroup group = entry.getValue();
+        gen.writeObjectFieldStart(entry.getKey());
+        gen.writeStringField("kind", group.kind);
+        gen.writeArrayFieldStart("values");
+        for (Measurement m : group.measurements) {
+          writeTaggedDataPoint(gen, m);
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+      }
+      gen.writeEndObject();
+      gen.writeEndObject();
+    }
+  }
+
+  private static void writeTaggedDataPoint(JsonGenerator gen, Measurement m) throws IOException {
+    gen.writeStartObject();
+    gen.writeArrayFieldStart("tags");
+    for (Tag tag : m.id().tags()) {
+      gen.writeStartObject();
+      gen.writeStringField("key", tag.key());
+      gen.writeStringField("value", tag.value());
+      gen.writeEndObject();
+    }
+    gen.writeEndArray();
+    gen.writeArrayFieldStart("values");
+    gen.writeStartObject();
+    gen.writeNumberField("t", m.timestamp());
+    gen.writeNumberField("v", m.value());
+    gen.writeEndObject();
+    gen.writeEndArray();
+    gen.writeEndObject();
+  }
+
+  /** Measurements with the same name that will be written together. */
+  private static final class MeasurementGroup {
+    private final String kind;
+    private final List<Measurement> measurements = new ArrayList<>();
+
+    MeasurementGroup(String kind) {
+      this.kind = kind;
+    }
+  }
+
+  private static boolean isStandardKind(String kind) {
+    switch (kind) {
+      case "Timer":
+      case "Counter":
+      case "Gauge":
+      case "DistributionSummary":
+        return true;
+      default:
+        return false;
+    }
+  }
+
   /**
    * Internal API for encoding a registry that can be encoded as JSON.
    * This is a helper function for the REST endpoint and to test against.
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.controllers;
+
+import com.netflix.spectator.api.Registry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+
+/**
+ * Provides an HTTP endpoint for scraping spectator metrics with Prometheus.
+ *
+ * See {@link PrometheusServlet} for details about the response format and the
+ * supported headers. The servlet can be used directly for applications that
+ * are not using Spring.
+ */
+@RequestMapping("/spectator/prometheus")
+@RestController
+@ConditionalOnExpression("${spectator.web-endpoint.enabled:false}")
+@ConditionalOnClass(name = "javax.servlet.http.HttpServletResponse")
+public class PrometheusController {
+  @Autowired
+  private Registry registry;
+
+  private volatile PrometheusRenderer renderer;
+
+  private PrometheusRenderer getRenderer() {
+    PrometheusRenderer r = renderer;
+    if (r == null) {
+      synchronized (this) {
+        r = renderer;
+        if (r == null) {
+          r = new PrometheusRenderer(registry);
+          renderer = r;
+        }
+      }
+    }
+    return r;
+  }
+
+  /**
+   * Endpoint for scraping the current metric values.
+   */
+  @RequestMapping(method = RequestMethod.GET)
+  public void scrape(HttpServletRequest request, HttpServletResponse response)
+    throws IOException {
+    PrometheusServlet.handle(getRenderer(), request, response);
+  }
+}
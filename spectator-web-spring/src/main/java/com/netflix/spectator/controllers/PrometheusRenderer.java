@@ -0,0 +1,449 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.controllers;
+
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Measurement;
+import com.netflix.spectator.api.Meter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.impl.DoubleFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Renders the measurements for a registry using the Prometheus text exposition format.
+ * The output is also valid for the OpenMetrics text format. This class does not depend on
+ * any web framework, see {@link PrometheusServlet} and {@link PrometheusController} for
+ * HTTP endpoints that use it.
+ *
+ * <p>Each measurement id is mapped to a series. The series name and label block are
+ * sanitized and encoded once and cached along with the last value. A scrape then only
+ * needs to look up the cached series for each measurement and format the value into a
+ * reused buffer. Ids and series that are not seen during an update are removed, so the
+ * cache will track the set of live measurements.</p>
+ *
+ * <ul>
+ *   <li>The metric name is the name of the id with invalid characters replaced by
+ *   {@code _}. All series are reported with the {@code gauge} type as the values are
+ *   whatever the meters report, for example some registries report rates rather than
+ *   monotonic counts.</li>
+ *   <li>Tags are mapped to labels. Invalid characters in the key are replaced by
+ *   {@code _} and the value is escaped. If two keys of an id map to the same label name,
+ *   then only the first in the tag order of the id is used.</li>
+ *   <li>Measurements with a value of NaN are skipped.</li>
+ *   <li>Sanitizing can map distinct ids to the same series, for example {@code a.b} and
+ *   {@code a_b}. Prometheus does not allow duplicate series and the sum or any other
+ *   combination of the values would not be meaningful, so only the measurement with the
+ *   smallest id based on the string form is used. The others are dropped and counted,
+ *   see {@link #collisions()}.</li>
+ * </ul>
+ *
+ * <p>Updating and writing are synchronized, callers that need both to see the same state
+ * should lock on the renderer, for example:</p>
+ *
+ * <pre>
+ * synchronized (renderer) {
+ *   renderer.update();
+ *   renderer.write(out, 0L);
+ * }
+ * </pre>
+ */
+public final class PrometheusRenderer {
+
+  /** Content type for the Prometheus text format. */
+  public static final String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  /** Content type for the OpenMetrics text format. */
+  public static final String OPENMETRICS_CONTENT_TYPE =
+      "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+  private static final byte[] EOF = "# EOF\n".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] NAN = "NaN".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] POS_INF = "+Inf".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] NEG_INF = "-Inf".getBytes(StandardCharsets.UTF_8);
+
+  private final Registry registry;
+
+  private final Map<Id, Source> sources = new HashMap<>();
+  private final Map<String, Series> series = new HashMap<>();
+  private final Map<String, Family> families = new TreeMap<>();
+
+  private long generation;
+  private long lastModified;
+  private int collisions;
+
+  private final byte[] buffer = new byte[16384];
+  private int pos;
+
+  // Buffer for the HTTP endpoints to reuse across scrapes, see takeBuffer
+  private final AtomicReference<ByteArrayOutputStream> spareBuffer = new AtomicReference<>();
+  private volatile int lastScrapeSize = 16384;
+
+  /** Create a new instance. */
+  public PrometheusRenderer(Registry registry) {
+    this.registry = registry;
+  }
+
+  /** Number of series that are currently cached. */
+  public synchronized int size() {
+    return series.size();
+  }
+
+  /**
+   * Number of measurements that were dropped during the last update because a measurement
+   * with a different id mapped to the same series.
+   */
+  public synchronized int collisions() {
+    return collisions;
+  }
+
+  /**
+   * Time in milliseconds since the epoch when a value last changed or a series was added
+   * or removed. Will be 0 if there has not been an update.
+   */
+  public synchronized long lastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Poll the meters in the registry and update the values for the series.
+   *
+   * @return
+   *     Time of the last modification, see {@link #lastModified()}.
+   */
+  public synchronized long update() {
+    final long now = registry.clock().wallTime();
+    final long gen = ++generation;
+    collisions = 0;
+    for (Meter meter : registry) {
+      for (Measurement m : meter.measure()) {
+        double v = m.value();
+        if (Double.isNaN(v)) {
+          continue;
+        }
+        Source src = sources.get(m.id());
+        if (src == null) {
+          src = new Source(m.id(), seriesFor(m.id()));
+          sources.put(m.id(), src);
+        }
+        src.generation = gen;
+        Series s = src.series;
+        if (s.generation != gen) {
+          s.generation = gen;
+          s.owner = src;
+          s.next = v;
+        } else if (s.owner != src) {
+          // Keep the same measurement regardless of the iteration order of the registry
+          ++collisions;
+          if (src.key().compareTo(s.owner.key()) < 0) {
+            s.owner = src;
+            s.next = v;
+          }
+        }
+      }
+    }
+    sources.values().removeIf(src -> src.generation != gen);
+    if (updateSeries(gen, now)) {
+      lastModified = now;
+    }
+    return lastModified;
+  }
+
+  /** Get or create the series for the sanitized name and labels of an id. */
+  private Series seriesFor(Id id) {
+    String name = sanitizeName(id.name());
+
+    StringBuilder builder = new StringBuilder();
+    builder.append(name);
+    int n = id.size();
+    if (n > 1) {
+      String[] labels = new String[n - 1];
+      builder.append('{');
+      for (int i = 1; i < n; ++i) {
+        String label = sanitizeLabel(id.getKey(i));
+        if (contains(labels, i - 1, label)) {
+          // Prometheus rejects series with duplicate label names
+          continue;
+        }
+        labels[i - 1] = label;
+        if (builder.charAt(builder.length() - 1) != '{') {
+          builder.append(',');
+        }
+        builder.append(label).append("=\"");
+        escapeValue(builder, id.getValue(i));
+        builder.append('"');
+      }
+      builder.append('}');
+    }
+    builder.append(' ');
+    String prefix = builder.toString();
+
+    Series s = series.get(prefix);
+    if (s == null) {
+      Family family = families.computeIfAbsent(name, Family::new);
+      s = new Series(family, prefix.getBytes(StandardCharsets.UTF_8));
+      family.series.add(s);
+      series.put(prefix, s);
+    }
+    return s;
+  }
+
+  private static boolean contains(String[] labels, int n, String label) {
+    for (int i = 0; i < n; ++i) {
+      if (label.equals(labels[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Remove series that were not seen during the update and set the values for the others.
+   *
+   * @return
+   *     True if any series was added, removed, or had a change in value.
+   */
+  private boolean updateSeries(long gen, long now) {
+    boolean modified = false;
+    Iterator<Series> it = series.values().iterator();
+    while (it.hasNext()) {
+      Series s = it.next();
+      s.owner = null;
+      if (s.generation != gen) {
+        it.remove();
+        s.family.series.remove(s);
+        if (s.family.series.isEmpty()) {
+          families.remove(s.family.name);
+        }
+        modified = true;
+      } else if (s.isNew || Double.compare(s.value, s.next) != 0) {
+        s.isNew = false;
+        s.value = s.next;
+        s.lastChanged = now;
+        modified = true;
+      }
+    }
+    return modified;
+  }
+
+  /**
+   * Write the current values to the stream. The stream will not be closed.
+   *
+   * @param out
+   *     Stream to write the data to.
+   * @param changedSince
+   *     Only series where the value has changed after this time, in milliseconds since the
+   *     epoch, will be written. Use 0 to write all series.
+   */
+  public synchronized void write(OutputStream out, long changedSince) throws IOException {
+    pos = 0;
+    for (Family family : families.values()) {
+      boolean typeWritten = false;
+      for (Series s : family.series) {
+        if (s.lastChanged <= changedSince) {
+          continue;
+        }
+        if (!typeWritten) {
+          write(out, family.typeLine);
+          typeWritten = true;
+        }
+        write(out, s.prefix);
+        writeValue(out, s.value);
+        writeByte(out, '\n');
+      }
+    }
+    write(out, EOF);
+    flush(out);
+  }
+
+  /**
+   * Get a buffer for rendering a response. The buffer from a previous scrape will be
+   * reused if available, otherwise a new one is allocated with the size of the last scrape.
+   * It should be returned with {@link #releaseBuffer(ByteArrayOutputStream)} once the
+   * response has been sent.
+   */
+  ByteArrayOutputStream takeBuffer() {
+    ByteArrayOutputStream b = spareBuffer.getAndSet(null);
+    if (b == null) {
+      return new ByteArrayOutputStream(lastScrapeSize);
+    }
+    b.reset();
+    return b;
+  }
+
+  /** Return a buffer so it can be reused by the next scrape. */
+  void releaseBuffer(ByteArrayOutputStream b) {
+    if (b.size() > 0) {
+      // Empty for 304 responses, keep the size from the last scrape with data
+      lastScrapeSize = b.size();
+    }
+    spareBuffer.set(b);
+  }
+
+  private void ensureCapacity(OutputStream out, int n) throws IOException {
+    if (pos + n > buffer.length) {
+      flush(out);
+    }
+  }
+
+  private void flush(OutputStream out) throws IOException {
+    if (pos > 0) {
+      out.write(buffer, 0, pos);
+      pos = 0;
+    }
+  }
+
+  private void write(OutputStream out, byte[] bytes) throws IOException {
+    if (bytes.length > buffer.length) {
+      flush(out);
+      out.write(bytes);
+    } else {
+      ensureCapacity(out, bytes.length);
+      System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+      pos += bytes.length;
+    }
+  }
+
+  private void writeByte(OutputStream out, char c) throws IOException {
+    ensureCapacity(out, 1);
+    buffer[pos++] = (byte) c;
+  }
+
+  private void writeValue(OutputStream out, double value) throws IOException {
+    if (Double.isNaN(value)) {
+      write(out, NAN);
+    } else if (Double.isInfinite(value)) {
+      write(out, value > 0.0 ? POS_INF : NEG_INF);
+    } else {
+      ensureCapacity(out, DoubleFormat.MAX_LENGTH);
+      pos = DoubleFormat.format(buffer, pos, value, false);
+    }
+  }
+
+  /** Convert to a valid metric name, {@code [a-zA-Z_:][a-zA-Z0-9_:]*}. */
+  static String sanitizeName(String name) {
+    return sanitize(name, true);
+  }
+
+  /** Convert to a valid label name, {@code [a-zA-Z_][a-zA-Z0-9_]*}. */
+  static String sanitizeLabel(String key) {
+    return sanitize(key, false);
+  }
+
+  private static String sanitize(String s, boolean allowColon) {
+    if (s.isEmpty()) {
+      return "_";
+    }
+    StringBuilder builder = null;
+    int n = s.length();
+    for (int i = 0; i < n; ++i) {
+      char c = s.charAt(i);
+      boolean valid = (c >= 'a' && c <= 'z')
+          || (c >= 'A' && c <= 'Z')
+          || c == '_'
+          || (allowColon && c == ':')
+          || (i > 0 && c >= '0' && c <= '9');
+      if (!valid && builder == null) {
+        builder = new StringBuilder(n + 1);
+        builder.append(s, 0, i);
+      }
+      if (builder != null) {
+        if (valid) {
+          builder.append(c);
+        } else if (i == 0 && c >= '0' && c <= '9') {
+          builder.append('_').append(c);
+        } else {
+          builder.append('_');
+        }
+      }
+    }
+    return builder == null ? s : builder.toString();
+  }
+
+  /** Escape backslash, double quote, and newline in a label value. */
+  static void escapeValue(StringBuilder builder, String value) {
+    int n = value.length();
+    for (int i = 0; i < n; ++i) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\': builder.append("\\\\"); break;
+        case '"':  builder.append("\\\""); break;
+        case '\n': builder.append("\\n");  break;
+        default:   builder.append(c);      break;
+      }
+    }
+  }
+
+  /** Set of series with the same metric name. */
+  private static final class Family {
+    private final String name;
+    private final byte[] typeLine;
+    private final Set<Series> series = new LinkedHashSet<>();
+
+    Family(String name) {
+      this.name = name;
+      this.typeLine = ("# TYPE " + name + " gauge\n").getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  /** Series that a measurement id maps to. */
+  private static final class Source {
+    private final Id id;
+    private final Series series;
+    private String key;
+    private long generation;
+
+    Source(Id id, Series series) {
+      this.id = id;
+      this.series = series;
+    }
+
+    /** String form of the id, only computed if there is a collision. */
+    String key() {
+      if (key == null) {
+        key = id.toString();
+      }
+      return key;
+    }
+  }
+
+  /** Cached encoding and current value for a series. */
+  private static final class Series {
+    private final Family family;
+    private final byte[] prefix;
+    private boolean isNew = true;
+    private double value;
+    private double next;
+    private Source owner;
+    private long lastChanged;
+    private long generation;
+
+    Series(Family family, byte[] prefix) {
+      this.family = family;
+      this.prefix = prefix;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.controllers;
+
+import com.netflix.spectator.api.Registry;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Servlet that provides a Prometheus scrape endpoint for a registry. It only depends on the
+ * servlet API so it can be used without Spring, for example:
+ *
+ * <pre>
+ * context.addServlet(new ServletHolder(new PrometheusServlet(registry)), "/metrics");
+ * </pre>
+ *
+ * <p>The response will use the OpenMetrics content type if it is listed in the
+ * {@code Accept} header and will be gzip compressed if allowed by the
+ * {@code Accept-Encoding} header. The {@code ETag} header is the time in milliseconds of
+ * the last change to any series, see {@link PrometheusRenderer#lastModified()}. It can be
+ * used in two ways:</p>
+ *
+ * <ul>
+ *   <li>If the request has a matching {@code If-None-Match} header, then the response
+ *   will have a status of 304 and no body.</li>
+ *   <li>If the request has a {@code changedSince} query parameter, then only series that
+ *   have changed after that time will be included.</li>
+ * </ul>
+ */
+public class PrometheusServlet extends HttpServlet {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int BUFFER_SIZE = 65536;
+
+  private final transient PrometheusRenderer renderer;
+
+  /** Create a new instance. */
+  public PrometheusServlet(Registry registry) {
+    this(new PrometheusRenderer(registry));
+  }
+
+  /** Create a new instance using the specified renderer. */
+  public PrometheusServlet(PrometheusRenderer renderer) {
+    super();
+    this.renderer = renderer;
+  }
+
+  @Override
+  protected void doGet(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    handle(renderer, request, response);
+  }
+
+  /** Handle a scrape request. Shared with {@link PrometheusController}. */
+  static void handle(
+      PrometheusRenderer renderer, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    long changedSince;
+    try {
+      changedSince = parseTimestamp(request.getParameter("changedSince"));
+    } catch (NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "invalid changedSince");
+      return;
+    }
+    String accept = request.getHeader("Accept");
+    boolean openMetrics = accept != null && accept.contains("application/openmetrics-text");
+    String acceptEncoding = request.getHeader("Accept-Encoding");
+    boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+    // Hold the lock so the response will reflect the state from this update even if there
+    // are concurrent scrapes. The data is rendered into a buffer so that sending and
+    // compressing the response does not block other scrapes while waiting on the client.
+    // The buffer is reused by the next scrape once the response has been sent.
+    String etag;
+    boolean notModified;
+    ByteArrayOutputStream data = renderer.takeBuffer();
+    try {
+      synchronized (renderer) {
+        etag = "\"" + renderer.update() + "\"";
+        notModified = etag.equals(request.getHeader("If-None-Match"));
+        if (!notModified) {
+          renderer.write(data, changedSince);
+        }
+      }
+
+      response.setHeader("ETag", etag);
+      if (notModified) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return;
+      }
+
+      response.setContentType(openMetrics
+          ? PrometheusRenderer.OPENMETRICS_CONTENT_TYPE
+          : PrometheusRenderer.TEXT_CONTENT_TYPE);
+      if (gzip) {
+        response.setHeader("Content-Encoding", "gzip");
+        GzipOutputStream out = new GzipOutputStream(response.getOutputStream());
+        data.writeTo(out);
+        out.finish();
+      } else {
+        data.writeTo(response.getOutputStream());
+      }
+    } finally {
+      renderer.releaseBuffer(data);
+    }
+  }
+
+  private static long parseTimestamp(String value) {
+    if (value == null || value.isEmpty()) {
+      return 0L;
+    }
+    String v = value;
+    if (v.length() > 2 && v.charAt(0) == '"' && v.charAt(v.length() - 1) == '"') {
+      // Allow the ETag from a previous response to be used as is
+      v = v.substring(1, v.length() - 1);
+    }
+    return Long.parseLong(v);
+  }
+
+  /**
+   * Use the fastest compression level. For large scrapes the default level takes about
+   * twice as long while only reducing the size by around 20%.
+   */
+  private static final class GzipOutputStream extends GZIPOutputStream {
+    GzipOutputStream(OutputStream out) throws IOException {
+      super(out, BUFFER_SIZE);
+      def.setLevel(Deflater.BEST_SPEED);
+    }
+  }
+}
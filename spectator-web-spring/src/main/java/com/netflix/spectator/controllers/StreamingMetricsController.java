@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Map;
+
+
+/**
+ * Provides an HTTP endpoint for polling spectator metrics that writes the
+ * response incrementally. The result is the same as {@link MetricsController},
+ * but it avoids building up the full model in memory for large registries.
+ *
+ * This is a separate controller so that the servlet API is only required
+ * if this endpoint is used.
+ */
+@RequestMapping("/spectator/metrics/stream")
+@RestController
+@ConditionalOnExpression("${spectator.web-endpoint.enabled:false}")
+@ConditionalOnClass(name = "javax.servlet.http.HttpServletResponse")
+public class StreamingMetricsController {
+  @Autowired
+  private MetricsController metricsController;
+
+  /**
+   * Endpoint for querying current metric values.
+   *
+   * Supports the same query parameters as {@link MetricsController#getMetrics(Map)}.
+   */
+  @RequestMapping(method = RequestMethod.GET)
+  public void streamMetrics(
+      @RequestParam Map<String, String> filters, HttpServletResponse response)
+    throws IOException {
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    metricsController.streamMetrics(filters, response.getOutputStream());
+  }
+}
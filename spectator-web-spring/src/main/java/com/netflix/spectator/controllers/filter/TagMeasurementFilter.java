@@ -19,6 +19,7 @@ package com.netflix.spectator.controllers.filter;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Measurement;
 import com.netflix.spectator.api.Tag;
+import com.netflix.spectator.impl.PatternMatcher;
 
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -26,21 +27,33 @@ import java.util.regex.Pattern;
 
 /**
  * A simple MeasurementFilter based on meter/tag names and values.
+ *
+ * The expressions must match the entire string as with
+ * {@link java.util.regex.Matcher#matches()}. They are evaluated using
+ * {@link PatternMatcher}, falling back to {@link Pattern} for expressions
+ * that it does not support.
  */
 public class TagMeasurementFilter implements Predicate<Measurement> {
-  private final Pattern meterNamePattern;
-  private final Pattern tagNamePattern;
-  private final Pattern tagValuePattern;
+  private final Predicate<String> meterNamePattern;
+  private final Predicate<String> tagNamePattern;
+  private final Predicate<String> tagValuePattern;
 
-  private static Pattern regexToPatternOrNull(String regex) {
+  private static Predicate<String> regexToPatternOrNull(String regex) {
     if (regex != null && !regex.isEmpty() && !".*".equals(regex)) {
-      return Pattern.compile(regex);
+      try {
+        // PatternMatcher has the same semantics as Matcher.find(), so anchor the
+        // expression to get a full match.
+        return PatternMatcher.compile("^(?:" + regex + ")$")::matches;
+      } catch (IllegalArgumentException e) {
+        Pattern pattern = Pattern.compile(regex);
+        return s -> pattern.matcher(s).matches();
+      }
     }
     return null;
   }
 
-  private static boolean stringMatches(String text, Pattern pattern) {
-    return pattern == null || pattern.matcher(text).matches();
+  private static boolean stringMatches(String text, Predicate<String> pattern) {
+    return pattern == null || pattern.test(text);
   }
 
   /**
@@ -56,13 +69,31 @@ public class TagMeasurementFilter implements Predicate<Measurement> {
    * Implements MeasurementFilter interface.
    */
   @Override public boolean test(Measurement measurement) {
-    Id id = measurement.id();
-    if (!stringMatches(id.name(), meterNamePattern)) {
-        return false;
-    }
+    return test(measurement.id());
+  }
+
+  /**
+   * Check if an id matches the filter. This can be used on the id of a meter
+   * to check the filter before computing the measurements.
+   */
+  public boolean test(Id id) {
+    return nameMatches(id.name()) && tagsMatch(id.tags());
+  }
 
+  /**
+   * Check if a name matches the meter name expression.
+   */
+  public boolean nameMatches(String name) {
+    return stringMatches(name, meterNamePattern);
+  }
+
+  /**
+   * Check if any of the tags match both the tag name and tag value
+   * expressions. If neither expression is set, then it will always match.
+   */
+  public boolean tagsMatch(Iterable<Tag> tags) {
     if (tagNamePattern != null || tagValuePattern != null) {
-      for (Tag tag : id.tags()) {
+      for (Tag tag : tags) {
         boolean nameOk = stringMatches(tag.key(), tagNamePattern);
         boolean valueOk = stringMatches(tag.value(), tagValuePattern);
         if (nameOk && valueOk) {
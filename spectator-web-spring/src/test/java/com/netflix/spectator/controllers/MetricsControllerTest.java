@@ -25,12 +25,19 @@ import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Meter;
 import com.netflix.spectator.api.Measurement;
+import com.netflix.spectator.api.Timer;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.spectator.controllers.filter.TagMeasurementFilter;
+import com.netflix.spectator.controllers.model.ApplicationRegistry;
 import com.netflix.spectator.controllers.model.DataPoint;
 import com.netflix.spectator.controllers.model.MetricValues;
 import com.netflix.spectator.controllers.model.TaggedDataPoints;
 import com.netflix.spectator.controllers.model.TestMeter;
 
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.Arrays;
 import java.util.List;
@@ -169,5 +176,63 @@ public class MetricsControllerTest {
     PolledMeter.update(registry);
     Assertions.assertEquals(expect, controller.encodeRegistry(registry, allowAll));
   }
-}
 
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private JsonNode stream(DefaultRegistry registry, TagMeasurementFilter filter)
+      throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    controller.writeRegistry(registry, filter, allowAll, out);
+    return mapper.readTree(out.toByteArray());
+  }
+
+  private DefaultRegistry newRegistry() {
+    DefaultRegistry registry = new DefaultRegistry(clock);
+    registry.counter(idAXY).increment(4);
+    registry.counter(idAYX).increment(5);
+    registry.counter(idBXY).increment(10);
+    Timer timer = registry.timer(Id.create("timer").withTags(idAXZ.tags()));
+    timer.record(42, TimeUnit.MILLISECONDS);
+    return registry;
+  }
+
+  @Test
+  public void testStreamSameAsEncode() throws Exception {
+    DefaultRegistry registry = newRegistry();
+
+    ApplicationRegistry expected = new ApplicationRegistry();
+    expected.setMetrics(controller.encodeRegistry(registry, allowAll));
+    JsonNode actual = stream(registry, new TagMeasurementFilter(null, null, null));
+    Assertions.assertEquals(mapper.readTree(mapper.writeValueAsBytes(expected)), actual);
+  }
+
+  @Test
+  public void testStreamFilterName() throws Exception {
+    JsonNode metrics = stream(newRegistry(), new TagMeasurementFilter("id.*", null, null))
+        .get("metrics");
+    Assertions.assertEquals(2, metrics.size());
+    Assertions.assertEquals(2, metrics.get("idA").get("values").size());
+    Assertions.assertEquals(1, metrics.get("idB").get("values").size());
+    Assertions.assertEquals("Counter", metrics.get("idB").get("kind").asText());
+  }
+
+  @Test
+  public void testStreamFilterTags() throws Exception {
+    JsonNode metrics = stream(newRegistry(), new TagMeasurementFilter(null, "tagA", "Y"))
+        .get("metrics");
+    Assertions.assertEquals(1, metrics.size());
+    JsonNode values = metrics.get("idA").get("values");
+    Assertions.assertEquals(1, values.size());
+    Assertions.assertEquals(5.0, values.get(0).get("values").get(0).get("v").asDouble(), 1e-12);
+  }
+
+  @Test
+  public void testStreamFilterMeasurementTags() throws Exception {
+    // The statistic tag is only on the measurements, not the meter id
+    TagMeasurementFilter filter = new TagMeasurementFilter(null, "statistic", "totalTime");
+    JsonNode metrics = stream(newRegistry(), filter).get("metrics");
+    Assertions.assertEquals(1, metrics.size());
+    Assertions.assertEquals("Timer", metrics.get("timer").get("kind").asText());
+    Assertions.assertEquals(1, metrics.get("timer").get("values").size());
+  }
+}
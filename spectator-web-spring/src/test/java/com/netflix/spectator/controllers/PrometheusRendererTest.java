@@ -0,0 +1,257 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.controllers;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Gauge;
+import com.netflix.spectator.api.ManualClock;
+import com.netflix.spectator.api.Registry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class PrometheusRendererTest {
+
+  private final ManualClock clock = new ManualClock();
+
+  private Registry registry;
+  private PrometheusRenderer renderer;
+
+  @BeforeEach
+  public void init() {
+    clock.setWallTime(1000L);
+    registry = new DefaultRegistry(clock);
+    renderer = new PrometheusRenderer(registry);
+  }
+
+  private String render(long changedSince) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    renderer.update();
+    renderer.write(out, changedSince);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private String render() throws IOException {
+    return render(0L);
+  }
+
+  private String renderGauge(double v) throws IOException {
+    registry.gauge("test").set(v);
+    return render();
+  }
+
+  private String gaugeLine(String v) {
+    return "# TYPE test gauge\ntest " + v + "\n# EOF\n";
+  }
+
+  @Test
+  public void empty() throws IOException {
+    Assertions.assertEquals("# EOF\n", render());
+  }
+
+  @Test
+  public void counter() throws IOException {
+    registry.counter("test", "app", "foo").increment();
+    String expected = "# TYPE test gauge\n"
+        + "test{app=\"foo\"} 1\n"
+        + "# EOF\n";
+    Assertions.assertEquals(expected, render());
+  }
+
+  @Test
+  public void familiesSortedAndGrouped() throws IOException {
+    registry.counter("b", "id", "1").increment();
+    registry.counter("a").increment(2);
+    registry.counter("b", "id", "2").increment(3);
+    String expected = "# TYPE a gauge\n"
+        + "a 2\n"
+        + "# TYPE b gauge\n"
+        + "b{id=\"1\"} 1\n"
+        + "b{id=\"2\"} 3\n"
+        + "# EOF\n";
+    Assertions.assertEquals(expected, render());
+  }
+
+  @Test
+  public void sanitizeName() {
+    Assertions.assertEquals("foo_bar", PrometheusRenderer.sanitizeName("foo_bar"));
+    Assertions.assertEquals("foo:bar", PrometheusRenderer.sanitizeName("foo:bar"));
+    Assertions.assertEquals("foo_bar_baz", PrometheusRenderer.sanitizeName("foo.bar-baz"));
+    Assertions.assertEquals("_1foo", PrometheusRenderer.sanitizeName("1foo"));
+    Assertions.assertEquals("foo1", PrometheusRenderer.sanitizeName("foo1"));
+    Assertions.assertEquals("_", PrometheusRenderer.sanitizeName(""));
+  }
+
+  @Test
+  public void sanitizeLabel() {
+    Assertions.assertEquals("nf_app", PrometheusRenderer.sanitizeLabel("nf.app"));
+    Assertions.assertEquals("foo_bar", PrometheusRenderer.sanitizeLabel("foo:bar"));
+    Assertions.assertEquals("_0", PrometheusRenderer.sanitizeLabel("0"));
+  }
+
+  @Test
+  public void escapeValue() throws IOException {
+    registry.counter("test", "k", "a\\b\"c\nd").increment();
+    String expected = "# TYPE test gauge\n"
+        + "test{k=\"a\\\\b\\\"c\\nd\"} 1\n"
+        + "# EOF\n";
+    Assertions.assertEquals(expected, render());
+  }
+
+  @Test
+  public void values() throws IOException {
+    Assertions.assertEquals(gaugeLine("0"), renderGauge(0.0));
+    Assertions.assertEquals(gaugeLine("-42"), renderGauge(-42.0));
+    Assertions.assertEquals(gaugeLine("0.5"), renderGauge(0.5));
+    Assertions.assertEquals(gaugeLine("-0.05"), renderGauge(-0.05));
+    Assertions.assertEquals(gaugeLine("0.0001"), renderGauge(1e-4));
+    Assertions.assertEquals(gaugeLine("123.456"), renderGauge(123.456));
+    Assertions.assertEquals(gaugeLine("10000000000"), renderGauge(1e10));
+    Assertions.assertEquals(gaugeLine("1.0E300"), renderGauge(1e300));
+    Assertions.assertEquals(gaugeLine("+Inf"), renderGauge(Double.POSITIVE_INFINITY));
+    Assertions.assertEquals(gaugeLine("-Inf"), renderGauge(Double.NEGATIVE_INFINITY));
+  }
+
+  @Test
+  public void nanSkipped() throws IOException {
+    Assertions.assertEquals("# EOF\n", renderGauge(Double.NaN));
+  }
+
+  @Test
+  public void sanitizedCollisionsKeepOne() throws IOException {
+    registry.counter("a_b", "k", "v").increment(2);
+    registry.counter("a.b", "k", "v").increment(1);
+    registry.counter("c", "k_", "v").increment(8);
+    registry.counter("c", "k.", "v").increment(4);
+    String expected = "# TYPE a_b gauge\n"
+        + "a_b{k=\"v\"} 1\n"
+        + "# TYPE c gauge\n"
+        + "c{k_=\"v\"} 4\n"
+        + "# EOF\n";
+    Assertions.assertEquals(expected, render());
+    Assertions.assertEquals(2, renderer.size());
+    Assertions.assertEquals(2, renderer.collisions());
+
+    // Values stay the same, so the series should not be marked as changed
+    clock.setWallTime(2000L);
+    Assertions.assertEquals(1000L, renderer.update());
+
+    // Changes to the dropped measurement are ignored
+    registry.counter("a_b", "k", "v").increment(1);
+    Assertions.assertEquals(1000L, renderer.update());
+
+    registry.counter("a.b", "k", "v").increment(1);
+    expected = "# TYPE a_b gauge\n"
+        + "a_b{k=\"v\"} 2\n"
+        + "# EOF\n";
+    Assertions.assertEquals(expected, render(1000L));
+  }
+
+  @Test
+  public void sanitizedLabelCollisionsDeduped() throws IOException {
+    registry.counter("test", "k_", "2", "k.", "1", "x", "3").increment();
+    String expected = "# TYPE test gauge\n"
+        + "test{k_=\"1\",x=\"3\"} 1\n"
+        + "# EOF\n";
+    Assertions.assertEquals(expected, render());
+    Assertions.assertEquals(0, renderer.collisions());
+  }
+
+  @Test
+  public void bufferReused() {
+    ByteArrayOutputStream b = renderer.takeBuffer();
+    b.write(1);
+    renderer.releaseBuffer(b);
+    ByteArrayOutputStream b2 = renderer.takeBuffer();
+    Assertions.assertSame(b, b2);
+    Assertions.assertEquals(0, b2.size());
+
+    // Concurrent scrape gets a separate buffer
+    Assertions.assertNotSame(b2, renderer.takeBuffer());
+  }
+
+  @Test
+  public void seriesRemoved() throws IOException {
+    Gauge g = registry.gauge("test");
+    g.set(1.0);
+    render();
+    Assertions.assertEquals(1, renderer.size());
+
+    g.set(Double.NaN);
+    Assertions.assertEquals("# EOF\n", render());
+    Assertions.assertEquals(0, renderer.size());
+
+    g.set(2.0);
+    Assertions.assertEquals(gaugeLine("2"), render());
+    Assertions.assertEquals(1, renderer.size());
+  }
+
+  @Test
+  public void lastModified() throws IOException {
+    Gauge g = registry.gauge("test");
+    Assertions.assertEquals(0L, renderer.lastModified());
+
+    g.set(1.0);
+    Assertions.assertEquals(1000L, renderer.update());
+
+    clock.setWallTime(2000L);
+    Assertions.assertEquals(1000L, renderer.update());
+
+    g.set(2.0);
+    Assertions.assertEquals(2000L, renderer.update());
+
+    clock.setWallTime(3000L);
+    g.set(Double.NaN);
+    Assertions.assertEquals(3000L, renderer.update());
+  }
+
+  @Test
+  public void changedSince() throws IOException {
+    Gauge g1 = registry.gauge("test", "id", "1");
+    Gauge g2 = registry.gauge("test", "id", "2");
+    g1.set(1.0);
+    g2.set(2.0);
+    render();
+
+    clock.setWallTime(2000L);
+    g2.set(3.0);
+    String expected = "# TYPE test gauge\n"
+        + "test{id=\"2\"} 3\n"
+        + "# EOF\n";
+    Assertions.assertEquals(expected, render(1000L));
+    Assertions.assertEquals("# EOF\n", render(2000L));
+  }
+
+  @Test
+  public void largerThanBuffer() throws IOException {
+    int n = 10_000;
+    for (int i = 0; i < n; ++i) {
+      registry.counter("test", "id", Integer.toString(i)).increment(i);
+    }
+    String[] lines = render().split("\n");
+    Assertions.assertEquals(n + 2, lines.length);
+    long sum = 0L;
+    for (int i = 1; i <= n; ++i) {
+      String line = lines[i];
+      sum += Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+    }
+    Assertions.assertEquals((long) n * (n - 1) / 2, sum);
+  }
+}
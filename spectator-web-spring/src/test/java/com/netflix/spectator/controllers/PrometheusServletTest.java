@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014-2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.netflix.spectator.controllers;
+
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.ManualClock;
+import com.netflix.spectator.api.Registry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+public class PrometheusServletTest {
+
+  private final ManualClock clock = new ManualClock();
+
+  private Registry registry;
+  private PrometheusRenderer renderer;
+
+  @BeforeEach
+  public void init() {
+    clock.setWallTime(1000L);
+    registry = new DefaultRegistry(clock);
+    renderer = new PrometheusRenderer(registry);
+    registry.counter("test").increment();
+  }
+
+  private Response scrape(Map<String, String> headers, Map<String, String> params)
+      throws IOException {
+    HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+        getClass().getClassLoader(),
+        new Class<?>[] {HttpServletRequest.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getHeader":    return headers.get((String) args[0]);
+            case "getParameter": return params.get((String) args[0]);
+            default:             throw new UnsupportedOperationException(method.getName());
+          }
+        });
+    Response r = new Response();
+    HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+        getClass().getClassLoader(),
+        new Class<?>[] {HttpServletResponse.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "setHeader":       r.headers.put((String) args[0], (String) args[1]); break;
+            case "setContentType":  r.headers.put("Content-Type", (String) args[0]);   break;
+            case "setStatus":       r.status = (Integer) args[0];                      break;
+            case "sendError":       r.status = (Integer) args[0];                      break;
+            case "getOutputStream": return r.stream;
+            default:                throw new UnsupportedOperationException(method.getName());
+          }
+          return null;
+        });
+    PrometheusServlet.handle(renderer, request, response);
+    return r;
+  }
+
+  private Response scrape(Map<String, String> headers) throws IOException {
+    return scrape(headers, new HashMap<>());
+  }
+
+  @Test
+  public void text() throws IOException {
+    Response r = scrape(new HashMap<>());
+    Assertions.assertEquals(200, r.status);
+    Assertions.assertEquals(PrometheusRenderer.TEXT_CONTENT_TYPE, r.headers.get("Content-Type"));
+    Assertions.assertNull(r.headers.get("Content-Encoding"));
+    Assertions.assertEquals("\"1000\"", r.headers.get("ETag"));
+    Assertions.assertTrue(r.body().startsWith("# TYPE test gauge\n"));
+  }
+
+  @Test
+  public void openMetrics() throws IOException {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("Accept", "application/openmetrics-text;version=1.0.0,text/plain;q=0.5");
+    Response r = scrape(headers);
+    Assertions.assertEquals(
+        PrometheusRenderer.OPENMETRICS_CONTENT_TYPE, r.headers.get("Content-Type"));
+    Assertions.assertTrue(r.body().endsWith("# EOF\n"));
+  }
+
+  @Test
+  public void gzip() throws IOException {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("Accept-Encoding", "gzip, deflate");
+    Response r = scrape(headers);
+    Assertions.assertEquals("gzip", r.headers.get("Content-Encoding"));
+    Assertions.assertEquals(scrape(new HashMap<>()).body(), r.body());
+  }
+
+  @Test
+  public void notModified() throws IOException {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("If-None-Match", scrape(headers).headers.get("ETag"));
+
+    clock.setWallTime(2000L);
+    Response r = scrape(headers);
+    Assertions.assertEquals(304, r.status);
+    Assertions.assertEquals(0, r.stream.data.size());
+
+    registry.counter("test").increment();
+    r = scrape(headers);
+    Assertions.assertEquals(200, r.status);
+    Assertions.assertEquals("\"2000\"", r.headers.get("ETag"));
+  }
+
+  @Test
+  public void changedSince() throws IOException {
+    Map<String, String> params = new HashMap<>();
+    params.put("changedSince", scrape(new HashMap<>()).headers.get("ETag"));
+
+    clock.setWallTime(2000L);
+    registry.counter("test2").increment();
+    Response r = scrape(new HashMap<>(), params);
+    Assertions.assertEquals(200, r.status);
+    Assertions.assertEquals(
+        "# TYPE test2 gauge\ntest2 1\n# EOF\n", r.body());
+  }
+
+  @Test
+  public void changedSinceInvalid() throws IOException {
+    Map<String, String> params = new HashMap<>();
+    params.put("changedSince", "foo");
+    Response r = scrape(new HashMap<>(), params);
+    Assertions.assertEquals(400, r.status);
+  }
+
+  private static class Response {
+    private int status = 200;
+    private final Map<String, String> headers = new HashMap<>();
+    private final CapturingStream stream = new CapturingStream();
+
+    String body() throws IOException {
+      InputStream in = new ByteArrayInputStream(stream.data.toByteArray());
+      if ("gzip".equals(headers.get("Content-Encoding"))) {
+        in = new GZIPInputStream(in);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int length;
+      while ((length = in.read(buffer)) > 0) {
+        out.write(buffer, 0, length);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static class CapturingStream extends ServletOutputStream {
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+    @Override public boolean isReady() {
+      return true;
+    }
+
+    @Override public void setWriteListener(WriteListener listener) {
+    }
+
+    @Override public void write(int b) {
+      data.write(b);
+    }
+  }
+}
@@ -55,4 +55,30 @@ public class TagFilterTest {
     Assertions.assertTrue(filter.test(measureAXZ));
     Assertions.assertFalse(filter.test(measureAXY));
   }
+
+  @Test
+  public void fullMatch() {
+    Predicate<Measurement> filter = new TagMeasurementFilter("id", null, null);
+    Assertions.assertFalse(filter.test(measureAXY));
+    filter = new TagMeasurementFilter("id.|foo", null, null);
+    Assertions.assertTrue(filter.test(measureAXY));
+  }
+
+  @Test
+  public void unsupportedByPatternMatcher() {
+    // Back references are not supported by PatternMatcher
+    Predicate<Measurement> filter = new TagMeasurementFilter("(id)A|\\1", null, null);
+    Assertions.assertTrue(filter.test(measureAXY));
+    Assertions.assertFalse(filter.test(measureBXY));
+  }
+
+  @Test
+  public void testId() {
+    TagMeasurementFilter filter = new TagMeasurementFilter("idA", "tagA", "X");
+    Assertions.assertTrue(filter.test(idAXY));
+    Assertions.assertFalse(filter.test(idBXY));
+    Assertions.assertFalse(filter.test(idA));
+    Assertions.assertTrue(filter.nameMatches("idA"));
+    Assertions.assertFalse(filter.tagsMatch(idA.tags()));
+  }
 }